@@ -1,6 +1,8 @@
 package com.blockchain.koin.modules
 
+import android.content.Context
 import android.os.Build
+import com.blockchain.network.cache.HttpCacheConfig
 import com.blockchain.network.modules.OkHttpInterceptors
 import com.facebook.stetho.okhttp3.StethoInterceptor
 import org.koin.dsl.module.applicationContext
@@ -8,9 +10,12 @@ import piuk.blockchain.android.BuildConfig
 import piuk.blockchain.androidcore.data.api.EnvironmentConfig
 import piuk.blockchain.androidcore.data.api.interceptors.ApiInterceptor
 import piuk.blockchain.androidcore.data.api.interceptors.UserAgentInterceptor
+import java.io.File
 
 val apiInterceptorsModule = applicationContext {
 
+    bean { HttpCacheConfig(File(get<Context>().cacheDir, "http")) }
+
     bean {
         val env: EnvironmentConfig = get()
         if (env.shouldShowDebugMenu()) {
@@ -91,6 +91,7 @@ import piuk.blockchain.android.ui.home.CredentialsWiper
 import piuk.blockchain.android.ui.launcher.DeepLinkPersistence
 import piuk.blockchain.android.ui.launcher.LauncherPresenter
 import piuk.blockchain.android.ui.launcher.Prerequisites
+import piuk.blockchain.android.ui.launcher.StartupTaskScheduler
 import piuk.blockchain.android.ui.onboarding.OnboardingPresenter
 import piuk.blockchain.android.ui.pairingcode.PairingCodePresenter
 import piuk.blockchain.android.ui.receive.ReceivePresenter
@@ -300,7 +301,8 @@ val applicationModule = applicationContext {
                 simpleBuySync = get(),
                 crashLogger = get(),
                 simpleBuyAvailability = get(),
-                cacheCredentialsWiper = get()
+                cacheCredentialsWiper = get(),
+                startupScheduler = get()
             )
         }
 
@@ -322,6 +324,7 @@ val applicationModule = applicationContext {
                 erc20Account = get("pax"),
                 payloadDataManager = get(),
                 bchDataManager = get(),
+                transactionHistory = get(),
                 rxBus = get(),
                 prefs = get(),
                 appUtil = get(),
@@ -784,7 +787,8 @@ val applicationModule = applicationContext {
                 payloadManager = get(),
                 custodialWalletManager = get(),
                 simpleBuyPrefs = get(),
-                analytics = get()
+                analytics = get(),
+                balanceReporter = get()
             )
         }
 
@@ -830,7 +834,7 @@ val applicationModule = applicationContext {
             )
         }
 
-        factory {
+        bean {
             BalanceAnalyticsReporter(
                 analytics = get()
             )
@@ -1046,10 +1050,13 @@ val applicationModule = applicationContext {
                 walletApi = get(),
                 addressGenerator = get(),
                 payloadDataManager = get(),
-                rxBus = get()
+                rxBus = get(),
+                startupScheduler = get()
             )
         }
 
+        bean { StartupTaskScheduler() }
+
         factory {
             AirdropCentrePresenter(
                 nabuToken = get(),
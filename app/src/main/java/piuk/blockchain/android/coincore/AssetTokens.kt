@@ -5,6 +5,7 @@ import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import info.blockchain.balance.FiatValue
 import info.blockchain.wallet.prices.TimeInterval
+import io.reactivex.Observable
 import io.reactivex.Single
 import piuk.blockchain.android.ui.account.ItemAccount
 import piuk.blockchain.androidcore.data.charts.PriceSeries
@@ -50,6 +51,14 @@ interface AssetTokens {
 
     @Deprecated(message = "CoinCore update")
     fun fetchActivity(itemAccount: ItemAccount): Single<ActivitySummaryList>
+    /**
+     * Emits the latest activity as [fetchActivity] does, then, for assets which page their activity,
+     * the activity held after fetching each older page as [nextPage] emits.
+     */
+    @Deprecated(message = "CoinCore update")
+    fun fetchActivityPages(itemAccount: ItemAccount, nextPage: Observable<*>): Observable<ActivitySummaryList>
+    @Deprecated(message = "CoinCore update")
+    fun storedActivity(itemAccount: ItemAccount): ActivitySummaryList
     @Deprecated(message = "CoinCore update")
     fun findCachedActivityItem(txHash: String): ActivitySummaryItem?
 
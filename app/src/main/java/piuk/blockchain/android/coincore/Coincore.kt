@@ -1,11 +1,18 @@
 package piuk.blockchain.android.coincore
 
+import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
 import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
 import io.reactivex.Completable
+import io.reactivex.Maybe
+import io.reactivex.Single
+import io.reactivex.rxkotlin.Singles
+import io.reactivex.schedulers.Schedulers
 import piuk.blockchain.android.coincore.bch.BchTokens
 import piuk.blockchain.android.coincore.pax.PaxTokens
 import piuk.blockchain.android.coincore.btc.BtcTokens
 import piuk.blockchain.android.coincore.eth.EthTokens
+import piuk.blockchain.android.coincore.impl.AssetTokensBase
 import piuk.blockchain.android.coincore.stx.StxTokens
 import piuk.blockchain.android.coincore.xlm.XlmTokens
 import timber.log.Timber
@@ -16,7 +23,8 @@ class Coincore internal constructor(
     private val ethTokens: EthTokens,
     private val xlmTokens: XlmTokens,
     private val paxTokens: PaxTokens,
-    private val stxTokens: StxTokens
+    private val stxTokens: StxTokens,
+    private val custodialWalletManager: CustodialWalletManager
 ) {
     operator fun get(cryptoCurrency: CryptoCurrency): AssetTokens =
         when (cryptoCurrency) {
@@ -28,17 +36,96 @@ class Coincore internal constructor(
             CryptoCurrency.STX -> stxTokens
         }
 
+    private val activeTokens: List<AssetTokensBase>
+        get() = listOf(btcTokens, bchTokens, ethTokens, xlmTokens, paxTokens, stxTokens)
+            .filter { it.asset in CryptoCurrency.activeCurrencies() }
+
+    // Assets are initialised concurrently, apart from PAX which is held in the ETH wallet
     fun init(): Completable =
-        Completable.concat(
-            listOf(
-                Completable.defer { btcTokens.init() },
-                Completable.defer { bchTokens.init() },
-                Completable.defer { ethTokens.init() },
-                Completable.defer { paxTokens.init() },
-                Completable.defer { xlmTokens.init() },
-                Completable.defer { stxTokens.init() }
-            )
+        Completable.mergeArray(
+            initAsset(btcTokens),
+            initAsset(bchTokens),
+            initAsset(ethTokens).andThen(initAsset(paxTokens)),
+            initAsset(xlmTokens),
+            initAsset(stxTokens)
         ).doOnError {
             Timber.e("Coincore initialisation failed! $it")
         }
+
+    private fun initAsset(tokens: AssetTokensBase): Completable =
+        Completable.defer { tokens.init() }
+            .subscribeOn(Schedulers.io())
+
+    private var balancesInFlight: Single<PortfolioBalances>? = null
+
+    /**
+     * The last balances fetched by [portfolioBalances], if any.
+     */
+    @Volatile
+    var lastPortfolioBalances: PortfolioBalances? = null
+        private set
+
+    /**
+     * Fetches the balances of every asset together. Wallet balances are fetched concurrently, and
+     * custodial balances in a single request where it succeeds. Callers while a fetch is in flight
+     * share it.
+     */
+    @Synchronized
+    fun portfolioBalances(): Single<PortfolioBalances> =
+        balancesInFlight ?: Singles.zip(
+            walletBalances(),
+            custodialBalances()
+        ) { wallet, custodial -> PortfolioBalances(wallet, custodial) }
+            .doOnSuccess { lastPortfolioBalances = it }
+            .doFinally { onBalancesFetched() }
+            .cache()
+            .also { balancesInFlight = it }
+
+    @Synchronized
+    private fun onBalancesFetched() {
+        balancesInFlight = null
+    }
+
+    private fun walletBalances(): Single<Map<CryptoCurrency, CryptoValue>> =
+        Single.merge(activeTokens.map { walletBalance(it) })
+            .reduce(emptyMap()) { balances, balance -> balances + balance }
+
+    // An asset whose balance fails is left out, so the others can still be shown
+    private fun walletBalance(tokens: AssetTokens): Single<Map<CryptoCurrency, CryptoValue>> =
+        Single.defer { tokens.totalBalance(AssetFilter.Wallet) }
+            .subscribeOn(Schedulers.io())
+            .map { mapOf(tokens.asset to it) }
+            .onErrorReturn {
+                Timber.e("Failed getting balance for ${tokens.asset}: $it")
+                emptyMap()
+            }
+
+    // Falls back to a request per asset if the request for every asset fails, so a failure there
+    // doesn't leave every custodial balance at zero
+    private fun custodialBalances(): Single<Map<CryptoCurrency, CryptoValue>> =
+        custodialWalletManager.getBalanceForAllAssets()
+            .subscribeOn(Schedulers.io())
+            .doOnSuccess { balances ->
+                activeTokens.forEach { it.onCustodialBalanceFetched(it.asset in balances) }
+            }
+            .onErrorResumeNext { error: Throwable ->
+                Timber.d("Unable to get custodial balances together, fetching each asset: $error")
+                custodialBalancesByAsset()
+            }
+
+    private fun custodialBalancesByAsset(): Single<Map<CryptoCurrency, CryptoValue>> =
+        Single.merge(activeTokens.map { custodialBalance(it) })
+            .reduce(emptyMap()) { balances, balance -> balances + balance }
+
+    private fun custodialBalance(tokens: AssetTokensBase): Single<Map<CryptoCurrency, CryptoValue>> =
+        Maybe.defer { tokens.custodialBalanceMaybe() }
+            .subscribeOn(Schedulers.io())
+            .doOnSuccess { tokens.onCustodialBalanceFetched(true) }
+            .doOnComplete { tokens.onCustodialBalanceFetched(false) }
+            .map { mapOf(tokens.asset to it) }
+            .toSingle(emptyMap())
+            .onErrorReturn {
+                Timber.d("Unable to get custodial balance for ${tokens.asset}: $it")
+                emptyMap()
+            }
 }
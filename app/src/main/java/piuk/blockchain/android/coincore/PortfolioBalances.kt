@@ -0,0 +1,28 @@
+package piuk.blockchain.android.coincore
+
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+
+/**
+ * The balances of every asset, fetched together by [Coincore.portfolioBalances]. An asset whose
+ * wallet balance couldn't be fetched has no balance, while a missing custodial balance is zero.
+ */
+class PortfolioBalances(
+    private val walletBalances: Map<CryptoCurrency, CryptoValue>,
+    private val custodialBalances: Map<CryptoCurrency, CryptoValue>
+) {
+    fun balance(asset: CryptoCurrency, filter: AssetFilter): CryptoValue? =
+        when (filter) {
+            AssetFilter.Wallet -> walletBalances[asset]
+            AssetFilter.Custodial -> custodialBalance(asset)
+            AssetFilter.Total -> walletBalances[asset]?.let { it + custodialBalance(asset) }
+        }
+
+    fun balances(filter: AssetFilter): Map<CryptoCurrency, CryptoValue> =
+        CryptoCurrency.activeCurrencies()
+            .mapNotNull { asset -> balance(asset, filter)?.let { asset to it } }
+            .toMap()
+
+    fun custodialBalance(asset: CryptoCurrency): CryptoValue =
+        custodialBalances[asset] ?: CryptoValue.zero(asset)
+}
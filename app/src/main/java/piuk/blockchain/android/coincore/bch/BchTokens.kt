@@ -20,7 +20,6 @@ import org.bitcoinj.core.Address
 import piuk.blockchain.android.R
 import piuk.blockchain.android.coincore.impl.BitcoinLikeTokens
 import piuk.blockchain.android.coincore.impl.fetchLastPrice
-import piuk.blockchain.android.coincore.impl.mapList
 import piuk.blockchain.android.coincore.ActivitySummaryItem
 import piuk.blockchain.android.coincore.ActivitySummaryList
 import piuk.blockchain.android.coincore.CryptoSingleAccount
@@ -33,6 +32,7 @@ import piuk.blockchain.androidcore.data.bitcoincash.BchDataManager
 import piuk.blockchain.androidcore.data.charts.ChartsDataManager
 import piuk.blockchain.androidcore.data.charts.PriceSeries
 import piuk.blockchain.androidcore.data.charts.TimeSpan
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.utils.extensions.then
@@ -46,10 +46,11 @@ internal class BchTokens(
     private val stringUtils: StringUtils,
     private val custodialWalletManager: CustodialWalletManager,
     private val environmentSettings: EnvironmentConfig,
+    transactionHistory: TransactionHistoryStore,
     labels: DefaultLabels,
     crashLogger: CrashLogger,
     rxBus: RxBus
-) : BitcoinLikeTokens(labels, crashLogger, rxBus) {
+) : BitcoinLikeTokens(transactionHistory, labels, crashLogger, rxBus) {
 
     override val asset: CryptoCurrency
         get() = CryptoCurrency.BCH
@@ -128,38 +129,27 @@ internal class BchTokens(
     // Activity/transactions moved over from TransactionDataListManager.
     // TODO Requires some reworking, but that can happen later. After the code & tests are moved and working.
     override fun doFetchActivity(itemAccount: ItemAccount): Single<ActivitySummaryList> =
-        when (itemAccount.type) {
-            ItemAccount.TYPE.ALL_ACCOUNTS_AND_LEGACY -> getAllTransactions()
-            ItemAccount.TYPE.ALL_LEGACY -> getLegacyTransactions()
-            ItemAccount.TYPE.SINGLE_ACCOUNT -> getAccountTransactions(itemAccount.address!!)
-        }.singleOrError()
+        Single.fromCallable {
+            syncActivity(itemAccount) { limit, offset ->
+                when (itemAccount.type) {
+                    ItemAccount.TYPE.ALL_ACCOUNTS_AND_LEGACY ->
+                        bchDataManager.fetchWalletTransactions(limit, offset)
+                    ItemAccount.TYPE.ALL_LEGACY ->
+                        bchDataManager.fetchImportedAddressTransactions(limit, offset)
+                    ItemAccount.TYPE.SINGLE_ACCOUNT ->
+                        bchDataManager.fetchAddressTransactions(itemAccount.address, limit, offset)
+                }
+            }.map { it.toActivitySummaryItem() }
+        }
 
-    private fun getAllTransactions(): Observable<ActivitySummaryList> =
-        bchDataManager.getWalletTransactions(transactionFetchCount, transactionFetchOffset)
-            .mapList {
-                BchActivitySummaryItem(
-                    it,
-                    exchangeRates
-                )
-            }
+    override fun storedActivity(itemAccount: ItemAccount): ActivitySummaryList =
+        storedTransactions(itemAccount).map { it.toActivitySummaryItem() }
 
-    private fun getLegacyTransactions(): Observable<ActivitySummaryList> =
-        bchDataManager.getImportedAddressTransactions(transactionFetchCount, transactionFetchOffset)
-            .mapList {
-                BchActivitySummaryItem(
-                    it,
-                    exchangeRates
-                )
-            }
-
-    private fun getAccountTransactions(address: String): Observable<List<ActivitySummaryItem>> =
-        bchDataManager.getAddressTransactions(address, transactionFetchCount, transactionFetchOffset)
-            .mapList {
-                BchActivitySummaryItem(
-                    it,
-                    exchangeRates
-                )
-            }
+    private fun TransactionSummary.toActivitySummaryItem(): ActivitySummaryItem =
+        BchActivitySummaryItem(
+            this,
+            exchangeRates
+        )
 }
 
 @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
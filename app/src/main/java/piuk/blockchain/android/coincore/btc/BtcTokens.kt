@@ -27,6 +27,7 @@ import piuk.blockchain.android.ui.account.ItemAccount
 import piuk.blockchain.androidcore.data.charts.ChartsDataManager
 import piuk.blockchain.androidcore.data.charts.PriceSeries
 import piuk.blockchain.androidcore.data.charts.TimeSpan
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
@@ -39,10 +40,11 @@ internal class BtcTokens(
     private val historicRates: ChartsDataManager,
     private val currencyPrefs: CurrencyPrefs,
     private val custodialWalletManager: CustodialWalletManager,
+    transactionHistory: TransactionHistoryStore,
     labels: DefaultLabels,
     crashLogger: CrashLogger,
     rxBus: RxBus
-) : BitcoinLikeTokens(labels, crashLogger, rxBus) {
+) : BitcoinLikeTokens(transactionHistory, labels, crashLogger, rxBus) {
 
     override val asset: CryptoCurrency
         get() = CryptoCurrency.BTC
@@ -101,47 +103,28 @@ internal class BtcTokens(
     // Activity/transactions moved over from TransactionDataListManager.
     // TODO Requires some reworking, but that can happen later. After the code & tests are moved and working.
     override fun doFetchActivity(itemAccount: ItemAccount): Single<ActivitySummaryList> =
-        when (itemAccount.type) {
-            ItemAccount.TYPE.ALL_ACCOUNTS_AND_LEGACY -> getAllTransactions()
-            ItemAccount.TYPE.ALL_LEGACY -> getLegacyTransactions()
-            ItemAccount.TYPE.SINGLE_ACCOUNT -> getAccountTransactions(itemAccount.address)
-        }
-
-    private fun getAllTransactions(): Single<ActivitySummaryList> =
         Single.fromCallable {
-            payloadManager.getAllTransactions(transactionFetchCount, transactionFetchOffset)
-                .map {
-                    BtcActivitySummaryItem(
-                        it,
-                        payloadDataManager,
-                        exchangeRates
-                    )
+            syncActivity(itemAccount) { limit, offset ->
+                when (itemAccount.type) {
+                    ItemAccount.TYPE.ALL_ACCOUNTS_AND_LEGACY ->
+                        payloadManager.getAllTransactions(limit, offset)
+                    ItemAccount.TYPE.ALL_LEGACY ->
+                        payloadManager.getImportedAddressesTransactions(limit, offset)
+                    ItemAccount.TYPE.SINGLE_ACCOUNT ->
+                        payloadManager.getAccountTransactions(itemAccount.address, limit, offset)
                 }
+            }.map { it.toActivitySummaryItem() }
         }
 
-    private fun getLegacyTransactions(): Single<ActivitySummaryList> =
-        Single.fromCallable {
-            payloadManager.getImportedAddressesTransactions(transactionFetchCount, transactionFetchOffset)
-                .map {
-                    BtcActivitySummaryItem(
-                        it,
-                        payloadDataManager,
-                        exchangeRates
-                    )
-                }
-        }
+    override fun storedActivity(itemAccount: ItemAccount): ActivitySummaryList =
+        storedTransactions(itemAccount).map { it.toActivitySummaryItem() }
 
-    private fun getAccountTransactions(address: String): Single<ActivitySummaryList> =
-        Single.fromCallable {
-            payloadManager.getAccountTransactions(address, transactionFetchCount, transactionFetchOffset)
-                .map {
-                    BtcActivitySummaryItem(
-                        it,
-                        payloadDataManager,
-                        exchangeRates
-                    )
-                }
-        }
+    private fun TransactionSummary.toActivitySummaryItem(): ActivitySummaryItem =
+        BtcActivitySummaryItem(
+            this,
+            payloadDataManager,
+            exchangeRates
+        )
 }
 
 @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
@@ -101,6 +101,11 @@ internal abstract class AssetTokensBase(
                 CryptoValue.zero(asset)
             }
 
+    // For custodial balances fetched for every asset at once, rather than by custodialBalance()
+    internal fun onCustodialBalanceFetched(hasBalance: Boolean) {
+        isNonCustodialConfigured.set(hasBalance)
+    }
+
     protected open val noncustodialActions = setOf(
         AssetAction.ViewActivity,
         AssetAction.Send,
@@ -133,15 +138,40 @@ internal abstract class AssetTokensBase(
             .subscribeOn(Schedulers.io())
             .doOnSuccess { txActivityCache.addAll(it.sorted()) }
 
+    final override fun fetchActivityPages(
+        itemAccount: ItemAccount,
+        nextPage: Observable<*>
+    ): Observable<ActivitySummaryList> =
+        doFetchActivityPages(itemAccount, nextPage)
+            .doOnSubscribe { txActivityCache.clear() }
+            .onErrorResumeNext { error: Throwable ->
+                Timber.e(error)
+                Observable.just(txActivityCache.toList())
+            }
+            .subscribeOn(Schedulers.io())
+            .doOnNext {
+                txActivityCache.clear()
+                txActivityCache.addAll(it.sorted())
+            }
+
+    // Assets which page their activity fetch older pages here, others only have the latest
+    protected open fun doFetchActivityPages(
+        itemAccount: ItemAccount,
+        nextPage: Observable<*>
+    ): Observable<ActivitySummaryList> =
+        doFetchActivity(itemAccount).toObservable()
+
+    // Activity kept from previous sessions, for assets which store it
+    override fun storedActivity(itemAccount: ItemAccount): ActivitySummaryList = emptyList()
+
     final override fun findCachedActivityItem(txHash: String): ActivitySummaryItem? =
         txActivityCache.firstOrNull { it.hash == txHash }
 
     @VisibleForTesting(otherwise = VisibleForTesting.PROTECTED)
     abstract fun doFetchActivity(itemAccount: ItemAccount): Single<ActivitySummaryList>
 
-    // These are constant ATM, but may need to change this so hardcode here
+    // This is constant ATM, but may need to change this so hardcode here
     protected val transactionFetchCount = 50
-    protected val transactionFetchOffset = 0
 }
 
 fun ExchangeRateDataManager.fetchLastPrice(
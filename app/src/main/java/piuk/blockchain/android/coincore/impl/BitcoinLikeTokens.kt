@@ -6,15 +6,19 @@ import com.blockchain.wallet.DefaultLabels
 import info.blockchain.balance.AccountReference
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
+import info.blockchain.wallet.multiaddress.TransactionSummary
 import io.reactivex.Completable
 import io.reactivex.Single
+import piuk.blockchain.android.ui.account.ItemAccount
 import piuk.blockchain.androidcore.data.access.AuthEvent
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.utils.extensions.thenSingle
 import java.lang.IllegalArgumentException
 import java.math.BigInteger
 
 internal abstract class BitcoinLikeTokens(
+    protected val transactionHistory: TransactionHistoryStore,
     labels: DefaultLabels,
     crashLogger: CrashLogger,
     rxBus: RxBus
@@ -38,9 +42,31 @@ internal abstract class BitcoinLikeTokens(
 
     protected abstract fun doUpdateBalances(): Completable
 
+    /**
+     * Brings the stored activity of an account up to date, fetching pages from [fetchPage].
+     */
+    protected fun syncActivity(
+        itemAccount: ItemAccount,
+        fetchPage: (limit: Int, offset: Int) -> List<TransactionSummary>
+    ): List<TransactionSummary> =
+        transactionHistory.sync(asset, itemAccount.historyKey(), transactionFetchCount, fetchPage)
+
+    protected fun storedTransactions(itemAccount: ItemAccount): List<TransactionSummary> =
+        transactionHistory.stored(asset, itemAccount.historyKey())
+
+    private fun ItemAccount.historyKey(): String =
+        when (type) {
+            ItemAccount.TYPE.ALL_ACCOUNTS_AND_LEGACY -> TransactionHistoryStore.ACCOUNT_ALL
+            ItemAccount.TYPE.ALL_LEGACY -> TransactionHistoryStore.ACCOUNT_IMPORTED
+            ItemAccount.TYPE.SINGLE_ACCOUNT -> address
+        }
+
     @CallSuper
     override fun onLogoutSignal(event: AuthEvent) {
         lastBalanceRefresh = 0
+        if (event == AuthEvent.UNPAIR || event == AuthEvent.FORGET) {
+            transactionHistory.clear(asset)
+        }
     }
 
     companion object {
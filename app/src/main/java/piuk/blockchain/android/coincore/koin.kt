@@ -32,6 +32,7 @@ val coincoreModule = applicationContext {
                 payloadDataManager = get(),
                 rxBus = get(),
                 custodialWalletManager = get(),
+                transactionHistory = get(),
                 crashLogger = get(),
                 labels = get()
             )
@@ -48,6 +49,7 @@ val coincoreModule = applicationContext {
                 stringUtils = get(),
                 custodialWalletManager = get(),
                 environmentSettings = get(),
+                transactionHistory = get(),
                 labels = get()
             )
         }
@@ -99,7 +101,8 @@ val coincoreModule = applicationContext {
                 ethTokens = get(),
                 xlmTokens = get(),
                 paxTokens = get(),
-                stxTokens = get()
+                stxTokens = get(),
+                custodialWalletManager = get()
             )
         }
     }
@@ -114,6 +114,18 @@ internal class XlmTokens(
                     exchangeRates
                 )
             }
+
+    override fun doFetchActivityPages(
+        itemAccount: ItemAccount,
+        nextPage: Observable<*>
+    ): Observable<ActivitySummaryList> =
+        xlmDataManager.getTransactionPages(nextPage)
+            .mapList {
+                XlmActivitySummaryItem(
+                    it,
+                    exchangeRates
+                )
+            }
 }
 
 @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
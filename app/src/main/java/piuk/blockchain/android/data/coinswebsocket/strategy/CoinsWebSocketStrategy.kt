@@ -12,10 +12,12 @@ import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.rxkotlin.plusAssign
+import io.reactivex.subjects.PublishSubject
 import org.web3j.utils.Convert
 import piuk.blockchain.android.R
 import piuk.blockchain.android.data.coinswebsocket.models.Parameters
 import piuk.blockchain.android.data.coinswebsocket.models.BtcBchResponse
+import piuk.blockchain.android.data.coinswebsocket.models.BtcTransaction
 import piuk.blockchain.android.data.coinswebsocket.models.Coin
 import piuk.blockchain.android.data.coinswebsocket.models.CoinWebSocketInput
 import piuk.blockchain.android.data.coinswebsocket.models.Entity
@@ -24,7 +26,7 @@ import piuk.blockchain.android.data.coinswebsocket.models.EthTransaction
 import piuk.blockchain.android.data.coinswebsocket.models.Input
 import piuk.blockchain.android.data.coinswebsocket.models.Output
 import piuk.blockchain.android.data.coinswebsocket.models.SocketRequest
-import piuk.blockchain.android.data.coinswebsocket.models.SocketResponse
+import piuk.blockchain.android.data.coinswebsocket.models.SocketMessage
 import piuk.blockchain.android.data.coinswebsocket.models.TransactionState
 import piuk.blockchain.android.data.coinswebsocket.service.MessagesSocketHandler
 import piuk.blockchain.android.data.rxjava.RxUtil
@@ -33,6 +35,7 @@ import piuk.blockchain.android.ui.swipetoreceive.SwipeToReceiveHelper
 import piuk.blockchain.android.util.StringUtils
 import piuk.blockchain.androidcore.data.access.AccessState
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataManager
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.erc20.Erc20Account
 import piuk.blockchain.androidcore.data.ethereum.EthDataManager
 import piuk.blockchain.androidcore.data.ethereum.models.CombinedEthModel
@@ -48,7 +51,12 @@ import piuk.blockchain.androidcore.utils.rxjava.IgnorableDefaultObserver
 import piuk.blockchain.android.util.AppUtil
 import timber.log.Timber
 import java.math.BigDecimal
+import java.math.BigInteger
 import java.util.Locale
+import java.util.concurrent.TimeUnit
+
+private const val RECONCILE_INTERVAL_SECONDS = 10L
+private const val MAX_APPLIED_TRANSACTIONS = 100
 
 class CoinsWebSocketStrategy(
     private val coinsWebSocket: WebSocket<String, String>,
@@ -62,13 +70,22 @@ class CoinsWebSocketStrategy(
     private val appUtil: AppUtil,
     private val erc20Account: Erc20Account,
     private val payloadDataManager: PayloadDataManager,
-    private val bchDataManager: BchDataManager
+    private val bchDataManager: BchDataManager,
+    private val transactionHistory: TransactionHistoryStore
 ) {
 
     private var coinWebSocketInput: CoinWebSocketInput? = null
     private val compositeDisposable = CompositeDisposable()
+    private val messageDecoder = SocketMessageDecoder(gson)
     private var messagesSocketHandler: MessagesSocketHandler? = null
 
+    // Websocket transactions are applied to the in-memory balances and stored activity as they arrive.
+    // Each emits whether it could be applied, and a full refresh reconciles them with the server once
+    // at the end of every interval in which any arrived
+    private val btcReconciliation = PublishSubject.create<Boolean>()
+    private val bchReconciliation = PublishSubject.create<Boolean>()
+    private val appliedTransactions = LinkedHashSet<String>()
+
     fun setMessagesHandler(messagesSocketHandler: MessagesSocketHandler) {
         this.messagesSocketHandler = messagesSocketHandler
     }
@@ -80,6 +97,16 @@ class CoinsWebSocketStrategy(
     }
 
     private fun subscribeToEvents() {
+        compositeDisposable += btcReconciliation
+            .buffer(RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .filter { it.isNotEmpty() }
+            .subscribe { applied -> updateBtcBalancesAndTransactions(notify = !applied.all { it }) }
+
+        compositeDisposable += bchReconciliation
+            .buffer(RECONCILE_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .filter { it.isNotEmpty() }
+            .subscribe { applied -> updateBchBalancesAndTransactions(notify = !applied.all { it }) }
+
         compositeDisposable += coinsWebSocket.connectionEvents.subscribe {
             when (it) {
                 is ConnectionEvent.Connected -> run {
@@ -89,17 +116,16 @@ class CoinsWebSocketStrategy(
             }
         }
 
-        compositeDisposable += coinsWebSocket.responses.distinctUntilChanged().subscribe { response ->
-            val socketResponse = gson.fromJson(response, SocketResponse::class.java)
-            if (socketResponse.op == "on_change") checkForWalletChange(socketResponse.checksum)
-            when (socketResponse.coin) {
-                Coin.ETH -> handleEthTransaction(response)
-                Coin.BTC -> handleBtcTransaction(response)
-                Coin.BCH -> handleBchTransaction(response)
-                else -> {
+        compositeDisposable += coinsWebSocket.responses.distinctUntilChanged()
+            .flatMapIterable { messageDecoder.decode(it) }
+            .subscribe { message ->
+                when (message) {
+                    is SocketMessage.WalletChanged -> checkForWalletChange(message.checksum)
+                    is SocketMessage.Eth -> handleEthTransaction(message.response)
+                    is SocketMessage.Btc -> handleBtcTransaction(message.response)
+                    is SocketMessage.Bch -> handleBchTransaction(message.response)
                 }
             }
-        }
     }
 
     private fun checkForWalletChange(checksum: String?) {
@@ -176,8 +202,7 @@ class CoinsWebSocketStrategy(
         return inAddr to totalValue
     }
 
-    private fun handleBtcTransaction(response: String) {
-        val btcResponse = gson.fromJson(response, BtcBchResponse::class.java)
+    private fun handleBtcTransaction(btcResponse: BtcBchResponse) {
         val transaction = btcResponse.transaction ?: return
 
         handleTransactionInputsAndOutputs(transaction.inputs,
@@ -186,19 +211,34 @@ class CoinsWebSocketStrategy(
             payloadDataManager.wallet?.containsLegacyAddress(x)
         }
 
-        updateBtcBalancesAndTransactions()
+        btcReconciliation.onNext(
+            applyTransaction(
+                CryptoCurrency.BTC,
+                transaction,
+                ::btcBalanceKey,
+                { payloadDataManager.wallet?.containsLegacyAddress(it) == true },
+                { payloadDataManager.applyBalanceChanges(it) }
+            )
+        )
     }
 
-    private fun handleBchTransaction(response: String) {
-        val bchResponse = gson.fromJson(response, BtcBchResponse::class.java)
+    private fun handleBchTransaction(bchResponse: BtcBchResponse) {
         val transaction = bchResponse.transaction ?: return
 
         val (inAddr, totalValue) =
             handleTransactionInputsAndOutputs(transaction.inputs, transaction.outputs, transaction.hash) { x ->
-                bchDataManager.getLegacyAddressStringList().contains(x)
+                bchDataManager.isActiveLegacyAddress(x)
             }
 
-        updateBchBalancesAndTransactions()
+        bchReconciliation.onNext(
+            applyTransaction(
+                CryptoCurrency.BCH,
+                transaction,
+                ::bchBalanceKey,
+                { bchDataManager.isActiveLegacyAddress(it) },
+                { bchDataManager.applyBalanceChanges(it) }
+            )
+        )
 
         val title = stringUtils.getString(R.string.app_name)
 
@@ -214,23 +254,153 @@ class CoinsWebSocketStrategy(
         }
     }
 
-    private fun updateBtcBalancesAndTransactions() {
+    /**
+     * Applies the balance changes of a transaction that hasn't been applied yet, adds it to the stored
+     * activity of the accounts it touches and notifies screens once. Addresses that can't be resolved
+     * to an imported address or an account's xpub, such as an HD address multiaddress hasn't reported
+     * yet or someone else's address, are left to the reconcile.
+     *
+     * @return false if nothing in the transaction could be applied
+     */
+    private fun applyTransaction(
+        currency: CryptoCurrency,
+        transaction: BtcTransaction,
+        balanceKey: (address: String) -> String?,
+        isImportedAddress: (key: String) -> Boolean,
+        applyBalanceChanges: (Map<String, BigInteger>) -> Unit
+    ): Boolean {
+        val hash = transaction.hash
+        if (hash != null && !appliedTransactions.add(hash)) return true
+        if (appliedTransactions.size > MAX_APPLIED_TRANSACTIONS) {
+            appliedTransactions.remove(appliedTransactions.first())
+        }
+
+        val changes = transaction.balanceChanges(balanceKey)
+        if (changes.isEmpty()) return false
+
+        applyBalanceChanges(changes)
+        if (hash != null) {
+            storeTransaction(currency, transaction, changes, isImportedAddress)
+        }
+        rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
+        return true
+    }
+
+    // Activity is stored for every account and imported address together, for imported addresses
+    // together, and for each account by its xpub
+    private fun storeTransaction(
+        currency: CryptoCurrency,
+        transaction: BtcTransaction,
+        changes: Map<String, BigInteger>,
+        isImportedAddress: (key: String) -> Boolean
+    ) {
+        val fee = transaction.fee()
+        val (imported, xpubs) = changes.entries.partition { isImportedAddress(it.key) }
+
+        val accounts = HashMap<String, Collection<BigInteger>>()
+        accounts[TransactionHistoryStore.ACCOUNT_ALL] = changes.values
+        if (imported.isNotEmpty()) {
+            accounts[TransactionHistoryStore.ACCOUNT_IMPORTED] = imported.map { it.value }
+        }
+        xpubs.forEach { accounts[it.key] = listOf(it.value) }
+
+        accounts.forEach { (account, accountChanges) ->
+            transactionHistory.insert(currency, account, transaction.toSummary(accountChanges, fee))
+        }
+    }
+
+    private fun BtcTransaction.fee(): BigInteger {
+        val inputValue = inputs.sumValues { it.prevOut?.value }
+        val outputValue = outputs.sumValues { it.value }
+        return (inputValue - outputValue).max(BigInteger.ZERO)
+    }
+
+    // Summarises a pending transaction as multiaddress would, given the balance changes to an account
+    private fun BtcTransaction.toSummary(changes: Collection<BigInteger>, fee: BigInteger) =
+        TransactionSummary().also { summary ->
+            val change = changes.fold(BigInteger.ZERO, BigInteger::add)
+            summary.hash = hash
+            summary.time = if (time > 0) time else System.currentTimeMillis() / 1000
+            summary.fee = fee
+            summary.isPending = true
+            if ((change + fee).signum() == 0) {
+                summary.direction = TransactionSummary.Direction.TRANSFERRED
+                summary.total = changes.filter { it.signum() > 0 }.fold(BigInteger.ZERO, BigInteger::add)
+            } else {
+                summary.direction = if (change.signum() > 0) {
+                    TransactionSummary.Direction.RECEIVED
+                } else {
+                    TransactionSummary.Direction.SENT
+                }
+                summary.total = change.abs()
+            }
+            summary.inputsMap = HashMap(inputs.mapNotNull { it.prevOut?.addressValue() }.toMap())
+            summary.outputsMap = HashMap(outputs.mapNotNull { it.addressValue() }.toMap())
+        }
+
+    private fun Output.addressValue(): Pair<String, BigInteger>? {
+        val address = addr ?: return null
+        val value = value ?: return null
+        return address to value.toBigInteger()
+    }
+
+    private fun <T> List<T>.sumValues(value: (T) -> BigDecimal?): BigInteger =
+        fold(BigInteger.ZERO) { sum, item -> value(item)?.let { sum + it.toBigInteger() } ?: sum }
+
+    private fun BtcTransaction.balanceChanges(balanceKey: (address: String) -> String?): Map<String, BigInteger> {
+        val changes = HashMap<String, BigInteger>()
+        inputs.forEach { input -> input.prevOut?.let { changes.add(it, balanceKey, BigInteger::subtract) } }
+        outputs.forEach { output -> changes.add(output, balanceKey, BigInteger::add) }
+        return changes
+    }
+
+    private fun MutableMap<String, BigInteger>.add(
+        output: Output,
+        balanceKey: (address: String) -> String?,
+        operation: (BigInteger, BigInteger) -> BigInteger
+    ) {
+        val key = output.xpub ?: output.addr?.let(balanceKey) ?: return
+        val value = output.value?.toBigInteger() ?: return
+        this[key] = operation(this[key] ?: BigInteger.ZERO, value)
+    }
+
+    // Balances are held against imported addresses and account xpubs, so an output to one of an
+    // account's receive or change addresses is counted against its xpub
+    private fun btcBalanceKey(address: String): String? =
+        if (payloadDataManager.wallet?.containsLegacyAddress(address) == true) {
+            address
+        } else {
+            payloadDataManager.getXpubFromAddress(address)
+        }
+
+    private fun bchBalanceKey(address: String): String? =
+        if (bchDataManager.isActiveLegacyAddress(address)) {
+            address
+        } else {
+            bchDataManager.getXpubFromAddress(address)
+        }
+
+    // Transactions that were applied have already notified screens, so a reconcile of only those
+    // doesn't notify them again
+    private fun updateBtcBalancesAndTransactions(notify: Boolean = true) {
         payloadDataManager.updateAllBalances()
             .andThen(payloadDataManager.updateAllTransactions())
-            .doOnComplete { rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent()) }
+            .doOnComplete {
+                if (notify) rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
+            }
             .subscribe(IgnorableDefaultObserver<Any>())
     }
 
-    private fun updateBchBalancesAndTransactions() {
+    private fun updateBchBalancesAndTransactions(notify: Boolean) {
         bchDataManager.updateAllBalances()
             .andThen(bchDataManager.getWalletTransactions(50, 0))
-            .doOnComplete { rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent()) }
+            .doOnComplete {
+                if (notify) rxBus.emitEvent(ActionEvent::class.java, WalletAndTransactionsUpdatedEvent())
+            }
             .subscribe(IgnorableDefaultObserver<List<TransactionSummary>>())
     }
 
-    private fun handleEthTransaction(response: String) {
-        val ethResponse = gson.fromJson(response, EthResponse::class.java)
-
+    private fun handleEthTransaction(ethResponse: EthResponse) {
         if (ethResponse.transaction != null && ethResponse.isEthButNotReferredToPax()) {
             val transaction: EthTransaction = ethResponse.transaction
             if (transaction.state == TransactionState.CONFIRMED &&
@@ -15,8 +15,10 @@ class BalanceAnalyticsReporter(
 
     private var totalBalance: FiatValue? = null
 
-    fun gotAssetBalance(crypto: CryptoCurrency, amount: CryptoValue) {
-        collectedBalances[crypto] = amount
+    // Reports a snapshot of every asset's balance at once
+    fun gotAssetBalances(balances: Map<CryptoCurrency, CryptoValue>) {
+        collectedBalances.clear()
+        collectedBalances.putAll(balances)
         if (collectedBalances.size == assetCount) {
             sendAssetData()
             sendBalanceData()
@@ -104,7 +104,7 @@ class DashboardFragment : HomeScreenMviFragment<DashboardModel, DashboardIntent,
             showAnnouncement(newState.announcement)
         }
 
-        updateAnalytics(this.state, newState)
+        updateAnalytics(newState)
 
         this.state = newState
     }
@@ -183,16 +183,9 @@ class DashboardFragment : HomeScreenMviFragment<DashboardModel, DashboardIntent,
         theAdapter.notifyItemChanged(IDX_CARD_ANNOUNCE)
     }
 
-    private fun updateAnalytics(oldState: DashboardState?, newState: DashboardState) {
+    // Asset balances are reported by the interactor, as they arrive together
+    private fun updateAnalytics(newState: DashboardState) {
         analyticsReporter.updateFiatTotal(newState.fiatBalance)
-
-        newState.assets.forEach { (cc, s) ->
-            val newBalance = s.cryptoBalance
-            if (newBalance != null && newBalance != oldState?.assets?.get(cc)?.cryptoBalance) {
-                analyticsReporter.gotAssetBalance(cc, newBalance) // IF we have the full set, this will fire
-            }
-        }
-        analyticsReporter
     }
 
     override fun onBackPressed(): Boolean = false
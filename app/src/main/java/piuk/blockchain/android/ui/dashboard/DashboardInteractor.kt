@@ -10,10 +10,8 @@ import info.blockchain.wallet.prices.TimeInterval
 import info.blockchain.wallet.prices.data.PriceDatum
 import io.reactivex.Completable
 import io.reactivex.Single
-import io.reactivex.disposables.CompositeDisposable
 import io.reactivex.disposables.Disposable
 import io.reactivex.rxkotlin.Singles
-import io.reactivex.rxkotlin.plusAssign
 import io.reactivex.rxkotlin.subscribeBy
 import piuk.blockchain.android.coincore.Coincore
 import piuk.blockchain.android.coincore.AssetFilter
@@ -25,54 +23,30 @@ class DashboardInteractor(
     private val payloadManager: PayloadManager,
     private val custodialWalletManager: CustodialWalletManager,
     private val simpleBuyPrefs: SimpleBuyPrefs,
-    private val analytics: Analytics
+    private val analytics: Analytics,
+    private val balanceReporter: BalanceAnalyticsReporter
 ) {
-    // We have a problem here, in that pax init depends on ETH init
-    // Ultimately, we want to init metadata straight after decrypting (or creating) the wallet
-    // but we can't move that somewhere sensible yet, because 2nd password. When we remove that -
-    // which is on the radar - then we can clean up the entire app init sequence.
-    // But for now, we'll catch any pax init failure here, unless ETH has initialised OK. And when we
-    // get a valid ETH balance, will try for a PX balance. Yeah, this is a nasty hack TODO: Fix this
-    fun refreshBalances(model: DashboardModel, balanceFilter: AssetFilter): Disposable {
-        val cd = CompositeDisposable()
-        CryptoCurrency.activeCurrencies()
-            .filter { it != CryptoCurrency.PAX }
-            .forEach {
-                cd += tokens[it].totalBalance(balanceFilter)
-                    .doOnSuccess { value ->
-                        if (value.currency == CryptoCurrency.ETHER) {
-                            cd += tokens[CryptoCurrency.PAX].totalBalance(balanceFilter)
-                                .subscribeBy(
-                                    onSuccess = { balance ->
-                                        Timber.d("*****> Got balance for PAX")
-                                        model.process(BalanceUpdate(CryptoCurrency.PAX, balance))
-                                    },
-                                    onError = { e ->
-                                        Timber.e("Failed getting balance for PAX: $e")
-                                        model.process(BalanceUpdateError(CryptoCurrency.PAX))
-                                    }
-                                )
-                        }
-                    }
-                    .doOnError { _ ->
-                        if (it == CryptoCurrency.ETHER) {
-                            // If we can't get ETH, then we can't get PAX... so...
-                            model.process(BalanceUpdateError(CryptoCurrency.PAX))
-                        }
-                    }
-                    .subscribeBy(
-                        onSuccess = { balance ->
-                            Timber.d("*****> Got balance for $it")
+    // Balances of every asset arrive together, in one snapshot shared with the analytics reporter
+    fun refreshBalances(model: DashboardModel, balanceFilter: AssetFilter): Disposable =
+        tokens.portfolioBalances()
+            .subscribeBy(
+                onSuccess = { balances ->
+                    val assetBalances = balances.balances(balanceFilter)
+                    CryptoCurrency.activeCurrencies().forEach {
+                        val balance = assetBalances[it]
+                        if (balance != null) {
                             model.process(BalanceUpdate(it, balance))
-                        },
-                        onError = { e ->
-                            Timber.e("Failed getting balance for $it: $e")
+                        } else {
                             model.process(BalanceUpdateError(it))
                         }
-                    )
-            }
-        return cd
-    }
+                    }
+                    balanceReporter.gotAssetBalances(assetBalances)
+                },
+                onError = { e ->
+                    Timber.e("Failed getting balances: $e")
+                    CryptoCurrency.activeCurrencies().forEach { model.process(BalanceUpdateError(it)) }
+                }
+            )
 
     fun refreshPrices(model: DashboardModel, crypto: CryptoCurrency): Disposable {
         val oneDayAgo = (System.currentTimeMillis() / 1000) - ONE_DAY
@@ -100,7 +74,9 @@ class DashboardInteractor(
         )
 
     fun checkForCustodialBalance(model: DashboardModel, crypto: CryptoCurrency): Disposable? {
-        return tokens[crypto].totalBalance(AssetFilter.Custodial)
+        val lastBalances = tokens.lastPortfolioBalances
+        return (lastBalances?.let { Single.just(it.custodialBalance(crypto)) }
+            ?: tokens[crypto].totalBalance(AssetFilter.Custodial))
             .subscribeBy(
                 onSuccess = { model.process(UpdateHasCustodialBalanceIntent(crypto, !it.isZero)) },
                 onError = { Timber.e(it) }
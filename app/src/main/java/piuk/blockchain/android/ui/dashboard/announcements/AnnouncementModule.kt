@@ -1,6 +1,7 @@
 package piuk.blockchain.android.ui.dashboard.announcements
 
 import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.schedulers.Schedulers
 import org.koin.dsl.context.Context
 import org.koin.dsl.context.ParameterProvider
 import org.koin.dsl.module.applicationContext
@@ -33,9 +34,11 @@ val dashboardAnnouncementsModule = applicationContext {
 
             AnnouncementList(
                 mainScheduler = AndroidSchedulers.mainThread(),
+                ruleScheduler = Schedulers.io(),
                 availableAnnouncements = availableAnnouncements,
                 orderAdapter = get(),
-                dismissRecorder = get()
+                dismissRecorder = get(),
+                queries = get()
             )
         }
 
@@ -45,7 +48,7 @@ val dashboardAnnouncementsModule = applicationContext {
             )
         }.bind(AnnouncementConfigAdapter::class)
 
-        factory {
+        bean {
             AnnouncementQueries(
                 nabuToken = get(),
                 settings = get(),
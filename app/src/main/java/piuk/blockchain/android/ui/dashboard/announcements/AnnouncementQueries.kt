@@ -1,7 +1,11 @@
 package piuk.blockchain.android.ui.dashboard.announcements
 
 import com.blockchain.swap.nabu.datamanagers.NabuDataManager
+import com.blockchain.swap.nabu.models.nabu.AirdropStatusList
+import com.blockchain.swap.nabu.models.nabu.NabuCountryResponse
+import com.blockchain.swap.nabu.models.nabu.NabuUser
 import com.blockchain.swap.nabu.models.nabu.Scope
+import com.blockchain.swap.nabu.models.nabu.TiersJson
 import com.blockchain.swap.nabu.models.nabu.goldTierComplete
 import com.blockchain.swap.nabu.models.nabu.kycVerified
 import com.blockchain.swap.nabu.NabuToken
@@ -22,14 +26,24 @@ class AnnouncementQueries(
     private val tierService: TierService,
     private val sbStateFactory: SimpleBuySyncFactory
 ) {
+    // The user, tiers, countries etc that rules check, fetched at most once per announcement check
+    // and shared by every rule that checks them
+    @Volatile
+    private var snapshot = Snapshot()
+
+    /**
+     * Forget the results fetched for the last announcement check, so the next check fetches them again.
+     */
+    fun beginCheck() {
+        snapshot = Snapshot()
+    }
+
     // Attempt to figure out if KYC/swap etc is allowed based on location...
     fun canKyc(): Single<Boolean> {
 
         return Singles.zip(
-            settings.getSettings()
-                .map { it.countryCode }
-                .singleOrError(),
-            nabu.getCountriesList(Scope.None)
+            snapshot.countryCode,
+            snapshot.countries
         ).map { (country, list) ->
             list.any { it.code == country && it.isKycAllowed }
         }.onErrorReturn { false }
@@ -37,30 +51,27 @@ class AnnouncementQueries(
 
     // Have we moved past kyc tier 1 - silver?
     fun isKycGoldStartedOrComplete(): Single<Boolean> {
-        return nabuToken.fetchNabuToken()
-            .flatMap { token -> nabu.getUser(token) }
+        return snapshot.user
             .map { it.tierInProgressOrCurrentTier == 2 }
             .onErrorReturn { false }
     }
 
     // Have we been through the Gold KYC process? ie are we Tier2InReview, Tier2Approved or Tier2Failed (cf TierJson)
     fun isGoldComplete(): Single<Boolean> =
-        tierService.tiers()
+        snapshot.tiers
             .map { it.combinedState in goldTierComplete }
 
     fun isTier1Or2Verified(): Single<Boolean> =
-        tierService.tiers().map { it.combinedState in kycVerified }
+        snapshot.tiers.map { it.combinedState in kycVerified }
 
     fun isRegistedForStxAirdrop(): Single<Boolean> {
-        return nabuToken.fetchNabuToken()
-            .flatMap { token -> nabu.getUser(token) }
+        return snapshot.user
             .map { it.isStxAirdropRegistered }
             .onErrorReturn { false }
     }
 
     fun hasReceivedStxAirdrop(): Single<Boolean> {
-        return nabuToken.fetchNabuToken()
-            .flatMap { token -> nabu.getAirdropCampaignStatus(token) }
+        return snapshot.airdropStatus
             .map { it[blockstackCampaignName]?.userState == UserCampaignState.RewardReceived }
     }
 
@@ -76,6 +87,25 @@ class AnnouncementQueries(
     fun isSimpleBuyTransactionPending(): Single<Boolean> {
         return Single.just(sbStateFactory.currentState()?.order?.orderState == OrderState.AWAITING_FUNDS)
     }
+
+    // Each query is only made when first subscribed to, and its result or error replayed after that
+    private inner class Snapshot {
+        private val token = Single.defer { nabuToken.fetchNabuToken() }.cache()
+
+        val user: Single<NabuUser> = token.flatMap { nabu.getUser(it) }.cache()
+
+        val airdropStatus: Single<AirdropStatusList> = token.flatMap { nabu.getAirdropCampaignStatus(it) }.cache()
+
+        val tiers: Single<TiersJson> = Single.defer { tierService.tiers() }.cache()
+
+        val countries: Single<List<NabuCountryResponse>> = Single.defer { nabu.getCountriesList(Scope.None) }.cache()
+
+        val countryCode: Single<String> = Single.defer {
+            settings.getSettings()
+                .map { it.countryCode }
+                .singleOrError()
+        }.cache()
+    }
 }
 
 private fun SimpleBuyState?.kycDataSubmitted(): Boolean =
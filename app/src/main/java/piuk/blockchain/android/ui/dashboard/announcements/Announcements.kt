@@ -50,11 +50,19 @@ abstract class AnnouncementRule(private val dismissRecorder: DismissRecorder) {
     fun isDismissed(): Boolean = dismissEntry.isDismissed
 }
 
+/**
+ * Picks the announcement to show: the first, in [AnnouncementConfigAdapter] order, whose rule says it
+ * should show. Rules are checked concurrently on [ruleScheduler], sharing the results of the
+ * [queries] they make, and the checks still running are disposed of as soon as every rule ahead of
+ * one that should show has said it shouldn't.
+ */
 class AnnouncementList(
     private val mainScheduler: Scheduler,
+    private val ruleScheduler: Scheduler,
     private val orderAdapter: AnnouncementConfigAdapter,
     private val availableAnnouncements: List<AnnouncementRule>,
-    private val dismissRecorder: DismissRecorder
+    private val dismissRecorder: DismissRecorder,
+    private val queries: AnnouncementQueries
 ) {
     // Hack to block announcements until metadata/simple buy etc is initialised.
     // TODO: Refactor app startup so we can avoid nonsense like this
@@ -96,21 +104,30 @@ class AnnouncementList(
 
     private fun getNextAnnouncement(): Maybe<AnnouncementRule> =
         orderAdapter.announcementConfig
-            .doOnSuccess { dismissRecorder.setPeriod(it.interval) }
+            .doOnSuccess {
+                dismissRecorder.setPeriod(it.interval)
+                queries.beginCheck()
+            }
             .map { buildAnnouncementList(it.order) }
             .flattenAsObservable { it }
-            .concatMap { a ->
+            // Results are emitted in order, so the first one is the highest priority rule that should
+            // show. An error is held back until the end, in case a rule ahead of it should show.
+            .concatMapEagerDelayError({ a ->
                 Observable.defer {
                     a.shouldShow()
                         .filter { it }
                         .map { a }
                         .toObservable()
-                }
-            }
+                }.subscribeOn(ruleScheduler)
+            }, MAX_CONCURRENT_RULES, 1, true)
             .firstElement()
 
     internal fun dismissKeys(): List<String> = availableAnnouncements.map { it.dismissKey }
 
     private fun List<AnnouncementRule>.find(name: String): AnnouncementRule? =
         this.find { it.name == name }
+
+    companion object {
+        private const val MAX_CONCURRENT_RULES = 8
+    }
 }
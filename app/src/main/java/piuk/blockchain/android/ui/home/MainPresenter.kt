@@ -45,6 +45,7 @@ import piuk.blockchain.androidcore.data.metadata.MetadataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.android.ui.base.MvpPresenter
 import piuk.blockchain.android.ui.base.MvpView
+import piuk.blockchain.android.ui.launcher.StartupTaskScheduler
 import piuk.blockchain.androidbuysell.models.WebViewLoginDetails
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.extensions.applySchedulers
@@ -105,6 +106,7 @@ class MainPresenter internal constructor(
     private val crashLogger: CrashLogger,
     private val simpleBuyAvailability: SimpleBuyAvailability,
     private val cacheCredentialsWiper: CacheCredentialsWiper,
+    private val startupScheduler: StartupTaskScheduler,
     nabuToken: NabuToken
 ) : MvpPresenter<MainView>() {
 
@@ -132,6 +134,8 @@ class MainPresenter internal constructor(
         } else {
             logEvents()
 
+            runDeferredStartup()
+
             checkLockboxAvailability()
 
             lightSimpleBuySync()
@@ -142,6 +146,11 @@ class MainPresenter internal constructor(
         }
     }
 
+    private fun runDeferredStartup() {
+        compositeDisposable += startupScheduler.runDeferred()
+            .subscribeBy(onError = { Timber.e(it) })
+    }
+
     private fun initSimpleBuyState() {
         compositeDisposable +=
             simpleBuyAvailability.isAvailable()
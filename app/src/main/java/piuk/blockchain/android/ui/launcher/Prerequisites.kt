@@ -1,10 +1,14 @@
 package piuk.blockchain.android.ui.launcher
 
 import com.blockchain.logging.CrashLogger
+import com.blockchain.sunriver.datamanager.XlmMetaData
+import com.blockchain.swap.nabu.metadata.NabuCredentialsMetadata
 import com.blockchain.swap.shapeshift.ShapeShiftDataManager
 import com.google.gson.Gson
+import info.blockchain.wallet.BitcoinCashWallet
 import info.blockchain.wallet.api.WalletApi
 import info.blockchain.wallet.api.data.Settings
+import info.blockchain.wallet.ethereum.EthereumWallet
 import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.schedulers.Schedulers
@@ -20,7 +24,6 @@ import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
 import piuk.blockchain.androidcore.data.settings.SettingsDataManager
 import piuk.blockchain.androidcore.utils.extensions.then
-import timber.log.Timber
 
 class Prerequisites(
     private val metadataManager: MetadataManager,
@@ -34,19 +37,30 @@ class Prerequisites(
     private val walletApi: WalletApi,
     private val payloadDataManager: PayloadDataManager,
     private val addressGenerator: AddressGenerator,
-    private val rxBus: RxBus
+    private val rxBus: RxBus,
+    private val startupScheduler: StartupTaskScheduler
 ) {
 
     fun initMetadataAndRelatedPrerequisites(): Completable =
-        metadataManager.attemptMetadataSetup()
-            .then { shapeShiftCompletable() }
-            .then { feesCompletable() }
-            .then { simpleBuySync.performSync() }
-            .then { coincore.init() }
-            .then { generateAndUpdateReceiveAddresses().onErrorComplete() }
-            .doOnComplete {
-                rxBus.emitEvent(MetadataEvent::class.java, MetadataEvent.SETUP_COMPLETE)
-            }.subscribeOn(Schedulers.io())
+        startupScheduler.run(
+            listOf(
+                StartupTask(METADATA, critical = true) { metadataManager.attemptMetadataSetup() },
+                StartupTask(METADATA_PREFETCH, dependsOn = listOf(METADATA)) {
+                    metadataManager.prefetchMetadata(PREFETCHED_METADATA_TYPES)
+                },
+                StartupTask(SHAPESHIFT, dependsOn = listOf(METADATA), deferred = true) { shapeShiftCompletable() },
+                StartupTask(BTC_FEES) { btcFeesCompletable() },
+                StartupTask(ETH_FEES) { ethFeesCompletable() },
+                StartupTask(BCH_FEES) { bchFeesCompletable() },
+                StartupTask(SIMPLE_BUY, dependsOn = listOf(METADATA)) { simpleBuySync.performSync() },
+                StartupTask(COINCORE, dependsOn = listOf(METADATA), critical = true) { coincore.init() },
+                StartupTask(RECEIVE_ADDRESSES, dependsOn = listOf(COINCORE), deferred = true) {
+                    generateAndUpdateReceiveAddresses().onErrorComplete()
+                }
+            )
+        ).doOnComplete {
+            rxBus.emitStickyEvent(MetadataEvent::class.java, MetadataEvent.SETUP_COMPLETE)
+        }.subscribeOn(Schedulers.io())
 
     private fun generateAndUpdateReceiveAddresses(): Completable =
         addressGenerator.generateAddresses().then {
@@ -78,23 +92,46 @@ class Prerequisites(
             .onErrorComplete()
     }
 
-    private fun feesCompletable(): Completable =
+    private fun btcFeesCompletable(): Completable =
         feeDataManager.btcFeeOptions
             .doOnNext { dynamicFeeCache.btcFeeOptions = it }
             .ignoreElements()
-            .andThen(feeDataManager.ethFeeOptions
-                .doOnNext { dynamicFeeCache.ethFeeOptions = it }
-                .ignoreElements()
-            )
-            .andThen(feeDataManager.bchFeeOptions
-                .doOnNext { dynamicFeeCache.bchFeeOptions = it }
-                .ignoreElements()
 
-            )
-            .subscribeOn(Schedulers.io())
-            .doOnComplete { Timber.d("Wave!!") }
+    private fun ethFeesCompletable(): Completable =
+        feeDataManager.ethFeeOptions
+            .doOnNext { dynamicFeeCache.ethFeeOptions = it }
+            .ignoreElements()
+
+    private fun bchFeesCompletable(): Completable =
+        feeDataManager.bchFeeOptions
+            .doOnNext { dynamicFeeCache.bchFeeOptions = it }
+            .ignoreElements()
 
     fun decryptAndSetupMetadata(secondPassword: String) = metadataManager.decryptAndSetupMetadata(
         secondPassword
     )
+
+    companion object {
+        private const val METADATA = "metadata"
+        private const val METADATA_PREFETCH = "metadata_prefetch"
+        private const val SHAPESHIFT = "shapeshift"
+        private const val BTC_FEES = "btc_fees"
+        private const val ETH_FEES = "eth_fees"
+        private const val BCH_FEES = "bch_fees"
+        private const val SIMPLE_BUY = "simple_buy"
+        private const val COINCORE = "coincore"
+        private const val RECEIVE_ADDRESSES = "receive_addresses"
+
+        /**
+         * The metadata entries read while starting up, which are loaded together once the metadata
+         * nodes are ready rather than one by one as each is needed. Entries only read by deferred steps
+         * or after startup, such as ShapeShift trades and Lockbox, are left to load when needed.
+         */
+        private val PREFETCHED_METADATA_TYPES = listOf(
+            EthereumWallet.METADATA_TYPE_EXTERNAL,
+            BitcoinCashWallet.METADATA_TYPE_EXTERNAL,
+            XlmMetaData.MetaDataType,
+            NabuCredentialsMetadata.USER_CREDENTIALS_METADATA_NODE
+        )
+    }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package piuk.blockchain.android.ui.launcher
+
+import io.reactivex.Completable
+import io.reactivex.Scheduler
+import io.reactivex.schedulers.Schedulers
+import timber.log.Timber
+import java.util.concurrent.CopyOnWriteArrayList
+
+/**
+ * A step of the work done after login, run once every step it [dependsOn] has completed.
+ *
+ * @param critical whether the home screen is waiting on this step. Steps which a critical step
+ * depends on are treated as critical too.
+ * @param deferred whether the step can wait until the home screen has been shown. Essential steps
+ * can't depend on deferred ones.
+ */
+class StartupTask(
+    val name: String,
+    val dependsOn: List<String> = emptyList(),
+    val critical: Boolean = false,
+    val deferred: Boolean = false,
+    val work: () -> Completable
+)
+
+/**
+ * Runs [StartupTask]s as soon as their dependencies allow, so that independent network calls are
+ * made concurrently. Critical steps are subscribed first, so they aren't queued behind the others.
+ *
+ * The duration of every step is kept in [trace]. Deferred steps are held until [runDeferred] is
+ * called, and are dropped if the essential steps fail or are run again first.
+ */
+class StartupTaskScheduler(
+    private val scheduler: Scheduler = Schedulers.io(),
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    data class TraceEntry(
+        val name: String,
+        val startMillis: Long,
+        val durationMillis: Long,
+        val failed: Boolean
+    )
+
+    private val entries = CopyOnWriteArrayList<TraceEntry>()
+
+    private var pendingDeferred: Completable? = null
+
+    /**
+     * The steps run since the last call to [run], in order of completion, timed from when each
+     * started.
+     */
+    val trace: List<TraceEntry>
+        get() = entries.toList()
+
+    /**
+     * Runs every essential task, completing once all of them have. Deferred tasks are kept for
+     * [runDeferred].
+     *
+     * @throws IllegalArgumentException if the tasks don't form a valid graph
+     */
+    fun run(tasks: List<StartupTask>): Completable {
+        val ordered = sortByDependencies(tasks)
+        val critical = criticalTasks(ordered)
+
+        val completables = HashMap<String, Completable>()
+        ordered.forEach { task ->
+            completables[task.name] = Completable.merge(task.dependsOn.map { completables[it]!! })
+                .andThen(timed(task))
+                .cache()
+        }
+
+        val (deferred, essential) = ordered.partition { it.deferred }
+        val start = Completable.defer {
+            entries.clear()
+            setPendingDeferred(null)
+            Completable.merge(
+                essential.sortedByDescending { it.name in critical }.map { completables[it.name]!! }
+            )
+        }
+
+        return start.doOnComplete {
+            Timber.d("Startup: essential steps complete, ${formatTrace()}")
+            if (deferred.isNotEmpty()) {
+                setPendingDeferred(Completable.merge(deferred.map { completables[it.name]!! }))
+            }
+        }
+    }
+
+    /**
+     * Runs the deferred tasks of the last successful [run], once.
+     */
+    fun runDeferred(): Completable =
+        Completable.defer {
+            val deferred = takePendingDeferred() ?: return@defer Completable.complete()
+            deferred.doOnComplete { Timber.d("Startup: deferred steps complete, ${formatTrace()}") }
+        }
+
+    private fun timed(task: StartupTask): Completable =
+        Completable.defer {
+            val start = clock()
+            task.work()
+                .doOnComplete { record(task, start, false) }
+                .doOnError { record(task, start, true) }
+        }.subscribeOn(scheduler)
+
+    private fun record(task: StartupTask, start: Long, failed: Boolean) {
+        entries.add(TraceEntry(task.name, start, clock() - start, failed))
+    }
+
+    @Synchronized
+    private fun setPendingDeferred(deferred: Completable?) {
+        pendingDeferred = deferred
+    }
+
+    @Synchronized
+    private fun takePendingDeferred(): Completable? =
+        pendingDeferred.also { pendingDeferred = null }
+
+    private fun formatTrace(): String =
+        entries.joinToString { "${it.name}: ${it.durationMillis}ms${if (it.failed) " (failed)" else ""}" }
+
+    private fun sortByDependencies(tasks: List<StartupTask>): List<StartupTask> {
+        val byName = tasks.associateBy { it.name }
+        require(byName.size == tasks.size) { "Startup task names must be unique" }
+
+        val sorted = LinkedHashMap<String, StartupTask>()
+        val visiting = HashSet<String>()
+
+        fun visit(task: StartupTask) {
+            if (task.name in sorted) return
+            require(visiting.add(task.name)) { "Startup task ${task.name} depends on itself" }
+            task.dependsOn.forEach { name ->
+                val dependency = requireNotNull(byName[name]) { "Unknown startup task $name" }
+                require(task.deferred || !dependency.deferred) {
+                    "Startup task ${task.name} can't depend on deferred task $name"
+                }
+                visit(dependency)
+            }
+            visiting.remove(task.name)
+            sorted[task.name] = task
+        }
+
+        tasks.forEach { visit(it) }
+        return sorted.values.toList()
+    }
+
+    private fun criticalTasks(ordered: List<StartupTask>): Set<String> {
+        val byName = ordered.associateBy { it.name }
+        val critical = HashSet<String>()
+        fun mark(name: String) {
+            if (critical.add(name)) {
+                byName.getValue(name).dependsOn.forEach { mark(it) }
+            }
+        }
+        ordered.filter { it.critical }.forEach { mark(it.name) }
+        return critical
+    }
+}
@@ -26,6 +26,7 @@ import info.blockchain.wallet.util.PrivateKeyFactory
 import info.blockchain.wallet.util.Tools
 import io.reactivex.Observable
 import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.disposables.Disposable
 import io.reactivex.rxkotlin.Observables
 import io.reactivex.rxkotlin.plusAssign
 import io.reactivex.rxkotlin.subscribeBy
@@ -51,13 +52,13 @@ import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.exchangerate.toFiat
 import piuk.blockchain.androidcore.data.fees.FeeDataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
+import piuk.blockchain.androidcore.data.payments.FeePreview
 import piuk.blockchain.androidcore.data.payments.SendDataManager
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.extensions.applySchedulers
 import piuk.blockchain.androidcore.utils.extensions.emptySubscribe
 import piuk.blockchain.androidcore.utils.helperfunctions.unsafeLazy
 import timber.log.Timber
-import java.io.UnsupportedEncodingException
 import java.math.BigDecimal
 import java.math.BigInteger
 import java.util.HashMap
@@ -139,6 +140,7 @@ class BitcoinCashSendStrategy(
 
     private var feeOptions: FeeOptions? = null
     private var textChangeSubject = PublishSubject.create<String>()
+    private var feePreviewDisposable: Disposable? = null
     private var absoluteSuggestedFee = BigInteger.ZERO
     private var maxAvailable = CryptoValue.ZeroBch
     private var verifiedSecondPassword: String? = null
@@ -355,6 +357,7 @@ class BitcoinCashSendStrategy(
 
         pendingTransaction.clear()
         unspentApiResponsesBch.clear()
+        sendDataManager.clearFeePreviews()
 
         return hash
     }
@@ -550,17 +553,6 @@ class BitcoinCashSendStrategy(
         }
     }
 
-    @Throws(UnsupportedEncodingException::class)
-    private fun getSuggestedAbsoluteFee(
-        coins: UnspentOutputs,
-        amountToSend: CryptoValue,
-        feePerKb: BigInteger,
-        useNewCoinSelection: Boolean
-    ): BigInteger {
-        val spendableCoins = sendDataManager.getSpendableCoins(coins, amountToSend, feePerKb, useNewCoinSelection)
-        return spendableCoins.absoluteFee
-    }
-
     /**
      * Update absolute fee with smallest denomination of crypto currency (satoshi, wei, etc)
      */
@@ -636,15 +628,29 @@ class BitcoinCashSendStrategy(
 
         val address = sendingObj.address
 
-        Observables.zip(
+        feePreviewDisposable?.let { compositeDisposable.remove(it) }
+        feePreviewDisposable = Observables.zip(
             getUnspentApiResponse(address),
             coinSelectionRemoteConfig.enabled.toObservable()
-        )
-            .debounce(200, TimeUnit.MILLISECONDS)
+        ).map { (coins, newCoinSelectionEnabled) ->
+            val amountToSend = CryptoValue.bitcoinCashFromSatoshis(
+                getSatoshisFromText(amountToSendText, getDefaultDecimalSeparator())
+            )
+            // Coin selection can be slow for large wallets, so it runs here rather than on the main thread
+            val feePreview = sendDataManager.getFeePreview(
+                address,
+                coins,
+                amountToSend,
+                feePerKb,
+                newCoinSelectionEnabled
+            )
+            Triple(coins, amountToSend, feePreview)
+        }
             .applySchedulers()
             .subscribe(
-                { (coins, newCoinSelectionEnabled) ->
-                    val amountToSend = getSatoshisFromText(amountToSendText, getDefaultDecimalSeparator())
+                { (coins, amountToSend, feePreview) ->
+                    unspentApiResponsesBch[address] = coins
+
                     // Future use. There might be some unconfirmed funds. Not displaying a warning currently
                     // (to line up with iOS and Web wallet)
                     if (coins.notice != null) {
@@ -653,20 +659,8 @@ class BitcoinCashSendStrategy(
                         view?.clearWarning()
                     }
 
-                    updateFee(getSuggestedAbsoluteFee(
-                        coins,
-                        CryptoValue.bitcoinCashFromSatoshis(amountToSend),
-                        feePerKb,
-                        newCoinSelectionEnabled
-                    ))
-
-                    suggestedFeePayment(
-                        coins,
-                        CryptoValue.bitcoinCashFromSatoshis(amountToSend),
-                        spendAll,
-                        feePerKb,
-                        newCoinSelectionEnabled
-                    )
+                    updateFee(feePreview.spendableCoins.absoluteFee)
+                    suggestedFeePayment(amountToSend, feePreview, spendAll)
                 },
                 { throwable ->
                     Timber.e(throwable)
@@ -675,30 +669,17 @@ class BitcoinCashSendStrategy(
                     updateFee(BigInteger.ZERO)
                     pendingTransaction.unspentOutputBundle = null
                 }
-            )
+            ).also { compositeDisposable += it }
     }
 
     /**
      * Payment will use suggested dynamic fee
      */
-    @Throws(UnsupportedEncodingException::class)
-    private fun suggestedFeePayment(
-        coins: UnspentOutputs,
-        amountToSend: CryptoValue,
-        spendAll: Boolean,
-        feePerKb: BigInteger,
-        useNewCoinSelection: Boolean
-    ) {
+    private fun suggestedFeePayment(amountToSend: CryptoValue, feePreview: FeePreview, spendAll: Boolean) {
         var amount = amountToSend.amount
 
         // Calculate sweepable amount to display max available
-        val sweepBundle = sendDataManager.getMaximumAvailable(
-            amountToSend.currency,
-            coins,
-            feePerKb,
-            useNewCoinSelection
-        )
-        val sweepableAmount = sweepBundle.left
+        val sweepableAmount = feePreview.maximumAvailable.left
 
         updateMaxAvailable(sweepableAmount)
 
@@ -707,16 +688,9 @@ class BitcoinCashSendStrategy(
             view?.updateCryptoAmount(CryptoValue(CryptoCurrency.BCH, sweepableAmount))
         }
 
-        val unspentOutputBundle = sendDataManager.getSpendableCoins(
-            coins,
-            amountToSend,
-            feePerKb,
-            useNewCoinSelection
-        )
-
         pendingTransaction.bigIntAmount = amount
-        pendingTransaction.unspentOutputBundle = unspentOutputBundle
-        pendingTransaction.bigIntFee = pendingTransaction.unspentOutputBundle!!.absoluteFee
+        pendingTransaction.unspentOutputBundle = feePreview.spendableCoins
+        pendingTransaction.bigIntFee = feePreview.spendableCoins.absoluteFee
     }
 
     override fun handlePrivxScan(scanData: String?) {
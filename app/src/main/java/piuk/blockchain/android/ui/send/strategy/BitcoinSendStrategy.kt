@@ -26,6 +26,7 @@ import info.blockchain.wallet.util.Tools
 import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.disposables.Disposable
 import io.reactivex.rxkotlin.Observables
 import io.reactivex.rxkotlin.plusAssign
 import io.reactivex.rxkotlin.subscribeBy
@@ -57,13 +58,13 @@ import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.exchangerate.toFiat
 import piuk.blockchain.androidcore.data.fees.FeeDataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
+import piuk.blockchain.androidcore.data.payments.FeePreview
 import piuk.blockchain.androidcore.data.payments.SendDataManager
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.extensions.applySchedulers
 import piuk.blockchain.androidcore.utils.extensions.emptySubscribe
 import piuk.blockchain.androidcore.utils.helperfunctions.unsafeLazy
 import timber.log.Timber
-import java.io.UnsupportedEncodingException
 import java.math.BigDecimal
 import java.math.BigInteger
 import java.util.concurrent.TimeUnit
@@ -154,6 +155,7 @@ class BitcoinSendStrategy(
     private var feeOptions: FeeOptions? = null
     private var invoiceId: String = ""
     private var textChangeSubject = PublishSubject.create<String>()
+    private var feePreviewDisposable: Disposable? = null
     private var absoluteSuggestedFee = BigInteger.ZERO
     private var maxAvailable = CryptoValue.ZeroBtc
     private var verifiedSecondPassword: String? = null
@@ -389,6 +391,7 @@ class BitcoinSendStrategy(
 
         pendingTransaction.clear()
         unspentApiResponsesBtc.clear()
+        sendDataManager.clearFeePreviews()
 
         return hash
     }
@@ -579,17 +582,6 @@ class BitcoinSendStrategy(
         }
     }
 
-    @Throws(UnsupportedEncodingException::class)
-    private fun getSuggestedAbsoluteFee(
-        coins: UnspentOutputs,
-        amountToSend: CryptoValue,
-        feePerKb: BigInteger,
-        useNewCoinSelection: Boolean
-    ): BigInteger {
-        val spendableCoins = sendDataManager.getSpendableCoins(coins, amountToSend, feePerKb, useNewCoinSelection)
-        return spendableCoins.absoluteFee
-    }
-
     /**
      * Update absolute fee with smallest denomination of crypto currency (satoshi, wei, etc)
      */
@@ -713,40 +705,39 @@ class BitcoinSendStrategy(
 
         val address = sendingObj.address
 
-        Observables.zip(
+        feePreviewDisposable?.let { compositeDisposable.remove(it) }
+        feePreviewDisposable = Observables.zip(
             getUnspentApiResponse(address),
             coinSelectionRemoteConfig.enabled.toObservable()
-        )
-            .debounce(200, TimeUnit.MILLISECONDS)
+        ).map { (coins, newCoinSelectionEnabled) ->
+            val amountToSend = CryptoValue.bitcoinFromSatoshis(
+                getSatoshisFromText(amountToSendText, getDefaultDecimalSeparator())
+            )
+            // Coin selection can be slow for large wallets, so it runs here rather than on the main thread
+            val feePreview = sendDataManager.getFeePreview(
+                address,
+                coins,
+                amountToSend,
+                feePerKb,
+                newCoinSelectionEnabled
+            )
+            Triple(coins, amountToSend, feePreview)
+        }
             .applySchedulers()
             .subscribe(
-                { (coins, newCoinSelectionEnabled) ->
-                    val amountToSend = getSatoshisFromText(
-                        amountToSendText,
-                        getDefaultDecimalSeparator()
-                    )
+                { (coins, amountToSend, feePreview) ->
+                    unspentApiResponsesBtc[address] = coins
 
-                    // Future use. There might be some unconfirmed funds. Not displaying a warning currently (to line up with iOS and Web wallet)
+                    // Future use. There might be some unconfirmed funds. Not displaying a warning currently
+                    // (to line up with iOS and Web wallet)
                     if (coins.notice != null) {
                         view?.updateWarning(coins.notice)
                     } else {
                         view?.clearWarning()
                     }
 
-                    updateFee(getSuggestedAbsoluteFee(
-                        coins,
-                        CryptoValue.bitcoinFromSatoshis(amountToSend),
-                        feePerKb,
-                        newCoinSelectionEnabled
-                    ))
-
-                    suggestedFeePayment(
-                        coins,
-                        CryptoValue.bitcoinFromSatoshis(amountToSend),
-                        spendAll,
-                        feePerKb,
-                        newCoinSelectionEnabled
-                    )
+                    updateFee(feePreview.spendableCoins.absoluteFee)
+                    suggestedFeePayment(amountToSend, feePreview, spendAll)
                 },
                 { throwable ->
                     Timber.e(throwable)
@@ -755,30 +746,17 @@ class BitcoinSendStrategy(
                     updateFee(BigInteger.ZERO)
                     pendingTransaction.unspentOutputBundle = null
                 }
-            )
+            ).also { compositeDisposable += it }
     }
 
     /**
      * Payment will use suggested dynamic fee
      */
-    @Throws(UnsupportedEncodingException::class)
-    private fun suggestedFeePayment(
-        coins: UnspentOutputs,
-        amountToSend: CryptoValue,
-        spendAll: Boolean,
-        feePerKb: BigInteger,
-        useNewCoinSelection: Boolean
-    ) {
+    private fun suggestedFeePayment(amountToSend: CryptoValue, feePreview: FeePreview, spendAll: Boolean) {
         var amount = amountToSend.amount
 
         // Calculate sweepable amount to display max available
-        val sweepBundle = sendDataManager.getMaximumAvailable(
-            amountToSend.currency,
-            coins,
-            feePerKb,
-            useNewCoinSelection
-        )
-        val sweepableAmount = sweepBundle.left
+        val sweepableAmount = feePreview.maximumAvailable.left
 
         updateMaxAvailable(sweepableAmount)
 
@@ -787,16 +765,9 @@ class BitcoinSendStrategy(
             view?.updateCryptoAmount(CryptoValue(CryptoCurrency.BTC, sweepableAmount))
         }
 
-        val unspentOutputBundle = sendDataManager.getSpendableCoins(
-            coins,
-            amountToSend,
-            feePerKb,
-            useNewCoinSelection
-        )
-
         pendingTransaction.bigIntAmount = amount
-        pendingTransaction.unspentOutputBundle = unspentOutputBundle
-        pendingTransaction.bigIntFee = pendingTransaction.unspentOutputBundle!!.absoluteFee
+        pendingTransaction.unspentOutputBundle = feePreview.spendableCoins
+        pendingTransaction.bigIntFee = feePreview.spendableCoins.absoluteFee
     }
 
     override fun handlePrivxScan(scanData: String?) {
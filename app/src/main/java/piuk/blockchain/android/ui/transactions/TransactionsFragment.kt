@@ -7,6 +7,7 @@ import android.view.MotionEvent
 import android.view.View
 import android.view.ViewGroup
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.SimpleItemAnimator
 import com.blockchain.notifications.analytics.TransactionsAnalyticsEvents
 import com.blockchain.preferences.CurrencyPrefs
@@ -187,6 +188,13 @@ class TransactionsFragment : HomeScreenMvpFragment<TransactionsView, Transaction
 
             recyclerview.layoutManager = LayoutManager(context!!)
             recyclerview.adapter = txFeedAdapter
+            recyclerview.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    if (dy > 0 && !recyclerView.canScrollVertically(1)) {
+                        presenter.onScrolledToEnd()
+                    }
+                }
+            })
             // Disable blinking animations in RecyclerView
             val animator = recyclerview.itemAnimator
             if (animator is SimpleItemAnimator) animator.supportsChangeAnimations = false
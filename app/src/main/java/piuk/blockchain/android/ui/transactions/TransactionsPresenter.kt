@@ -10,8 +10,10 @@ import io.reactivex.Completable
 import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.android.schedulers.AndroidSchedulers
+import io.reactivex.disposables.Disposable
 import io.reactivex.rxkotlin.plusAssign
 import io.reactivex.rxkotlin.subscribeBy
+import io.reactivex.schedulers.Schedulers
 import io.reactivex.subjects.PublishSubject
 import piuk.blockchain.android.ui.account.ItemAccount
 import piuk.blockchain.android.ui.receive.WalletAccountHelper
@@ -79,6 +81,10 @@ class TransactionsPresenter(
     var authEventObservable: Observable<AuthEvent>? = null
     val exchangePaxRequested = PublishSubject.create<Unit>()
 
+    // Requests the next page of older activity, for assets which page it
+    private val olderActivityRequested = PublishSubject.create<Unit>()
+    private var olderActivityPages: Disposable? = null
+
     private val assetTokens: AssetTokens
         get() = assetSelect[currencyState.cryptoCurrency]
 
@@ -107,6 +113,7 @@ class TransactionsPresenter(
     }
 
     override fun onViewPaused() {
+        olderActivityPages?.dispose()
         notificationObservable?.let { rxBus.unregister(NotificationPayload::class.java, it) }
         authEventObservable?.let { rxBus.unregister(AuthEvent::class.java, it) }
         super.onViewPaused()
@@ -153,6 +160,7 @@ class TransactionsPresenter(
     private val updateBalanceAndTransactionsCompletable: (ItemAccount) -> Completable = {
         Completable.concat(
             listOf(
+                showStoredTransactionsCompletable(it),
                 updateBalancesCompletable(),
                 updateTransactionsListCompletable(it)
             )
@@ -175,25 +183,49 @@ class TransactionsPresenter(
         }.onErrorComplete()
 
     /**
-     * API call - Fetches latest transactions for selected currency and account, and updates UI tx list
+     * API call - Fetches latest transactions for selected currency and account, and updates UI tx list.
+     * Completes with the first page, while older pages keep updating the list as they are requested.
      */
     private fun updateTransactionsListCompletable(account: ItemAccount): Completable {
         return Completable.defer {
-            assetTokens.fetchActivity(account)
-                .flatMap { txs -> transactionNotes.updateWithNotes(txs)
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .doOnSuccess {
-                        updateUiTxList(it)
-                    }
-                    .doOnError {
-                        Timber.e(it)
-                        view?.setUiState(UiState.FAILURE, crypto)
-                    }
+            val pages = assetTokens.fetchActivityPages(account, olderActivityRequested)
+                .concatMapSingle { txs -> transactionNotes.updateWithNotes(txs) }
+                .observeOn(AndroidSchedulers.mainThread())
+                .doOnNext { updateUiTxList(it) }
+                .publish()
+                .autoConnect(2)
+
+            olderActivityPages?.dispose()
+            olderActivityPages = pages.skip(1).subscribeBy(onError = { Timber.e(it) })
+
+            pages.firstOrError()
+                .doOnError {
+                    Timber.e(it)
+                    view?.setUiState(UiState.FAILURE, crypto)
                 }
                 .ignoreElement()
         }
     }
 
+    /* Activity list scrolled to its end */
+    internal fun onScrolledToEnd() {
+        olderActivityRequested.onNext(Unit)
+    }
+
+    /**
+     * Shows the transactions stored from earlier sessions, if any, while the latest are fetched
+     */
+    private fun showStoredTransactionsCompletable(account: ItemAccount): Completable =
+        Single.fromCallable { assetTokens.storedActivity(account) }
+            .subscribeOn(Schedulers.io())
+            .filter { it.isNotEmpty() }
+            .flatMapSingleElement { transactionNotes.updateWithNotes(it) }
+            .observeOn(AndroidSchedulers.mainThread())
+            .doOnSuccess { updateUiTxList(it) }
+            .ignoreElement()
+            .doOnError { Timber.e(it) }
+            .onErrorComplete()
+
     private fun updateUiTxList(txs: ActivitySummaryList) {
         when {
             txs.isEmpty() -> view?.setUiState(UiState.EMPTY, crypto)
@@ -0,0 +1,151 @@
+package piuk.blockchain.android.coincore
+
+import com.blockchain.android.testutils.rxInit
+import com.blockchain.swap.nabu.datamanagers.CustodialWalletManager
+import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import io.reactivex.Maybe
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import piuk.blockchain.android.coincore.bch.BchTokens
+import piuk.blockchain.android.coincore.btc.BtcTokens
+import piuk.blockchain.android.coincore.eth.EthTokens
+import piuk.blockchain.android.coincore.pax.PaxTokens
+import piuk.blockchain.android.coincore.stx.StxTokens
+import piuk.blockchain.android.coincore.xlm.XlmTokens
+
+class CoincoreTest {
+
+    @get:Rule
+    val rxSchedulers = rxInit {
+        mainTrampoline()
+        ioTrampoline()
+    }
+
+    private val btcBalance = CryptoValue.bitcoinFromSatoshis(100)
+    private val bchBalance = CryptoValue.bitcoinCashFromSatoshis(200)
+    private val xlmBalance = CryptoValue.lumensFromStroop(300.toBigInteger())
+
+    private val btcTokens: BtcTokens = mock {
+        on { asset } doReturn CryptoCurrency.BTC
+        on { totalBalance(AssetFilter.Wallet) } doReturn Single.just(btcBalance)
+        on { custodialBalanceMaybe() } doReturn Maybe.empty()
+    }
+    private val bchTokens: BchTokens = mock {
+        on { asset } doReturn CryptoCurrency.BCH
+        on { totalBalance(AssetFilter.Wallet) } doReturn Single.just(bchBalance)
+        on { custodialBalanceMaybe() } doReturn Maybe.empty()
+    }
+    private val ethTokens: EthTokens = mock {
+        on { asset } doReturn CryptoCurrency.ETHER
+        on { totalBalance(AssetFilter.Wallet) } doReturn Single.just(CryptoValue.ZeroEth)
+        on { custodialBalanceMaybe() } doReturn Maybe.empty()
+    }
+    private val xlmTokens: XlmTokens = mock {
+        on { asset } doReturn CryptoCurrency.XLM
+        on { totalBalance(AssetFilter.Wallet) } doReturn Single.just(xlmBalance)
+        on { custodialBalanceMaybe() } doReturn Maybe.empty()
+    }
+    private val paxTokens: PaxTokens = mock {
+        on { asset } doReturn CryptoCurrency.PAX
+        on { totalBalance(AssetFilter.Wallet) } doReturn Single.just(CryptoValue.ZeroPax)
+        on { custodialBalanceMaybe() } doReturn Maybe.empty()
+    }
+    private val stxTokens: StxTokens = mock {
+        on { asset } doReturn CryptoCurrency.STX
+    }
+    private val custodialWalletManager: CustodialWalletManager = mock {
+        on { getBalanceForAllAssets() } doReturn Single.just(
+            mapOf(CryptoCurrency.BTC to CryptoValue.bitcoinFromSatoshis(50))
+        )
+    }
+
+    private val subject = Coincore(
+        btcTokens = btcTokens,
+        bchTokens = bchTokens,
+        ethTokens = ethTokens,
+        xlmTokens = xlmTokens,
+        paxTokens = paxTokens,
+        stxTokens = stxTokens,
+        custodialWalletManager = custodialWalletManager
+    )
+
+    @Test
+    fun `balances of every active asset are fetched together`() {
+        val balances = subject.portfolioBalances().test().values().single()
+
+        balances.balances(AssetFilter.Wallet) `should equal` mapOf(
+            CryptoCurrency.BTC to btcBalance,
+            CryptoCurrency.BCH to bchBalance,
+            CryptoCurrency.ETHER to CryptoValue.ZeroEth,
+            CryptoCurrency.XLM to xlmBalance,
+            CryptoCurrency.PAX to CryptoValue.ZeroPax
+        )
+        balances.custodialBalance(CryptoCurrency.BTC) `should equal` CryptoValue.bitcoinFromSatoshis(50)
+        subject.lastPortfolioBalances `should equal` balances
+
+        verify(custodialWalletManager).getBalanceForAllAssets()
+        verify(custodialWalletManager, never()).getBalanceForAsset(CryptoCurrency.BTC)
+        verify(stxTokens, never()).totalBalance(AssetFilter.Wallet)
+    }
+
+    @Test
+    fun `an asset whose wallet balance fails is left out`() {
+        whenever(bchTokens.totalBalance(AssetFilter.Wallet)).thenReturn(Single.error(Throwable()))
+
+        val balances = subject.portfolioBalances().test().values().single()
+
+        balances.balance(CryptoCurrency.BCH, AssetFilter.Wallet) `should equal` null
+        balances.balance(CryptoCurrency.BTC, AssetFilter.Wallet) `should equal` btcBalance
+        balances.balance(CryptoCurrency.XLM, AssetFilter.Wallet) `should equal` xlmBalance
+    }
+
+    @Test
+    fun `callers while a fetch is in flight share it`() {
+        val custodialBalances = SingleSubject.create<Map<CryptoCurrency, CryptoValue>>()
+        whenever(custodialWalletManager.getBalanceForAllAssets()).thenReturn(custodialBalances)
+
+        val first = subject.portfolioBalances().test()
+        val second = subject.portfolioBalances().test()
+        custodialBalances.onSuccess(emptyMap())
+
+        first.assertValueCount(1)
+        second.assertValueCount(1)
+        first.values().single() `should equal` second.values().single()
+        verify(custodialWalletManager).getBalanceForAllAssets()
+        verify(btcTokens).totalBalance(AssetFilter.Wallet)
+    }
+
+    @Test
+    fun `balances are fetched again once a fetch is done`() {
+        subject.portfolioBalances().test()
+        subject.portfolioBalances().test()
+
+        verify(custodialWalletManager, times(2)).getBalanceForAllAssets()
+        verify(btcTokens, times(2)).totalBalance(AssetFilter.Wallet)
+    }
+
+    @Test
+    fun `custodial balances are fetched by asset if fetching them together fails`() {
+        whenever(custodialWalletManager.getBalanceForAllAssets()).thenReturn(Single.error(Throwable()))
+        whenever(btcTokens.custodialBalanceMaybe()).thenReturn(Maybe.just(CryptoValue.bitcoinFromSatoshis(50)))
+        whenever(ethTokens.custodialBalanceMaybe()).thenReturn(Maybe.error(Throwable()))
+
+        val balances = subject.portfolioBalances().test().values().single()
+
+        balances.custodialBalance(CryptoCurrency.BTC) `should equal` CryptoValue.bitcoinFromSatoshis(50)
+        balances.custodialBalance(CryptoCurrency.ETHER) `should equal` CryptoValue.ZeroEth
+        balances.balance(CryptoCurrency.ETHER, AssetFilter.Wallet) `should equal` CryptoValue.ZeroEth
+        verify(btcTokens).onCustodialBalanceFetched(true)
+        verify(bchTokens).onCustodialBalanceFetched(false)
+    }
+}
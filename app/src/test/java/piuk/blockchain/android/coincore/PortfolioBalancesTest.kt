@@ -0,0 +1,47 @@
+package piuk.blockchain.android.coincore
+
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class PortfolioBalancesTest {
+
+    private val subject = PortfolioBalances(
+        walletBalances = mapOf(
+            CryptoCurrency.BTC to CryptoValue.bitcoinFromSatoshis(100),
+            CryptoCurrency.ETHER to CryptoValue.ZeroEth
+        ),
+        custodialBalances = mapOf(
+            CryptoCurrency.BTC to CryptoValue.bitcoinFromSatoshis(50),
+            CryptoCurrency.PAX to CryptoValue.usdPaxFromMajor(10.toBigDecimal())
+        )
+    )
+
+    @Test
+    fun `total balances add custodial balances to wallet balances`() {
+        subject.balance(CryptoCurrency.BTC, AssetFilter.Total) `should equal` CryptoValue.bitcoinFromSatoshis(150)
+        subject.balance(CryptoCurrency.ETHER, AssetFilter.Total) `should equal` CryptoValue.ZeroEth
+    }
+
+    @Test
+    fun `assets without a wallet balance have no balance`() {
+        subject.balance(CryptoCurrency.PAX, AssetFilter.Total) `should be` null
+        subject.balance(CryptoCurrency.PAX, AssetFilter.Wallet) `should be` null
+    }
+
+    @Test
+    fun `missing custodial balances are zero`() {
+        subject.balance(CryptoCurrency.ETHER, AssetFilter.Custodial) `should equal` CryptoValue.ZeroEth
+        subject.custodialBalance(CryptoCurrency.PAX) `should equal` CryptoValue.usdPaxFromMajor(10.toBigDecimal())
+    }
+
+    @Test
+    fun `balances leave out assets without a balance`() {
+        subject.balances(AssetFilter.Wallet) `should equal` mapOf(
+            CryptoCurrency.BTC to CryptoValue.bitcoinFromSatoshis(100),
+            CryptoCurrency.ETHER to CryptoValue.ZeroEth
+        )
+    }
+}
@@ -22,6 +22,7 @@ import piuk.blockchain.android.coincore.impl.AssetTokensBase
 import piuk.blockchain.android.ui.account.ItemAccount
 import piuk.blockchain.androidcore.data.charts.ChartsDataManager
 import piuk.blockchain.android.data.currency.CurrencyState
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.data.rxjava.RxBus
@@ -39,6 +40,13 @@ class BtcTokensTest {
     private val mockLabels: DefaultLabels = mock()
     private val crashLogger: CrashLogger = mock()
     private val rxBus: RxBus = spy()
+    private val transactionHistory: TransactionHistoryStore = mock {
+        on { sync(any(), any(), any(), any()) }.thenAnswer {
+            @Suppress("UNCHECKED_CAST")
+            val fetchPage = it.arguments[3] as (Int, Int) -> List<TransactionSummary>
+            fetchPage(it.arguments[2] as Int, 0)
+        }
+    }
 
     private val subject: AssetTokensBase =
         BtcTokens(
@@ -48,6 +56,7 @@ class BtcTokensTest {
             historicRates = historicRates,
             currencyPrefs = currencyPrefs,
             custodialWalletManager = custodialWalletManager,
+            transactionHistory = transactionHistory,
             labels = mockLabels,
             crashLogger = crashLogger,
             rxBus = rxBus
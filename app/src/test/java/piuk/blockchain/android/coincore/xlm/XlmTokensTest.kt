@@ -16,7 +16,9 @@ import com.nhaarman.mockito_kotlin.whenever
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import info.blockchain.wallet.multiaddress.TransactionSummary
+import io.reactivex.Observable
 import io.reactivex.Single
+import io.reactivex.subjects.PublishSubject
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
@@ -115,6 +117,34 @@ class XlmTokensTest {
         )
     }
 
+    @Test
+    fun `activity pages follow xlm transaction pages`() {
+        val transaction = XlmTransaction(
+            "2018-10-11T12:54:15Z",
+            CryptoValue.lumensFromStroop(BigInteger.TEN),
+            CryptoValue.lumensFromStroop(BigInteger.ONE),
+            "hash",
+            HorizonKeyPair.Public(HORIZON_ACCOUNT_ID_1),
+            HorizonKeyPair.Public(HORIZON_ACCOUNT_ID_2)
+        )
+        val nextPage = PublishSubject.create<Unit>()
+        whenever(xlmDataManager.getTransactionPages(nextPage))
+            .thenReturn(Observable.just(listOf(transaction), listOf(transaction, transaction)))
+
+        val itemAccount = ItemAccount(
+            label = "XLM",
+            balance = 1.0.lumens(),
+            address = "AccountID"
+        )
+
+        subject.fetchActivityPages(itemAccount, nextPage)
+            .map { it.size }
+            .test()
+            .assertValues(1, 2)
+            .assertComplete()
+        assertEquals("hash", subject.findCachedActivityItem("hash")?.hash)
+    }
+
     companion object {
         private const val HORIZON_ACCOUNT_ID_1 =
             "GAIH3ULLFQ4DGSECF2AR555KZ4KNDGEKN4AFI4SU2M7B43MGK3QJZNSR"
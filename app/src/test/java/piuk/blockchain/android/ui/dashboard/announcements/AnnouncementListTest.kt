@@ -2,6 +2,7 @@ package piuk.blockchain.android.ui.dashboard.announcements
 
 import com.nhaarman.mockito_kotlin.mock
 import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
 import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.verifyZeroInteractions
 import com.nhaarman.mockito_kotlin.whenever
@@ -9,16 +10,19 @@ import io.reactivex.Scheduler
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
 import io.reactivex.schedulers.TestScheduler
+import io.reactivex.subjects.SingleSubject
 import org.amshove.kluent.`it returns`
 import org.amshove.kluent.`it throws`
 import org.junit.Test
 import kotlin.test.assertEquals
+import kotlin.test.assertFalse
 
 class AnnouncementListTest {
 
     private val host: AnnouncementHost = mock()
     private val orderAdapter: AnnouncementConfigAdapter = mock()
     private val dismissRecorder: DismissRecorder = mock()
+    private val queries: AnnouncementQueries = mock()
 
     private fun createAnnouncementList(
         availableAnnouncements: List<AnnouncementRule>,
@@ -26,9 +30,11 @@ class AnnouncementListTest {
     ) =
         AnnouncementList(
             mainScheduler = scheduler,
+            ruleScheduler = Schedulers.trampoline(),
             orderAdapter = orderAdapter,
             availableAnnouncements = availableAnnouncements,
-            dismissRecorder = dismissRecorder
+            dismissRecorder = dismissRecorder,
+            queries = queries
         )
 
     @Test
@@ -210,6 +216,107 @@ class AnnouncementListTest {
             .assertNoErrors()
     }
 
+    @Test
+    fun `waits for higher priority announcements before showing one that should show`() {
+
+        val order = listOf("one", "two", "three")
+        whenever(orderAdapter.announcementConfig).thenReturn(Single.just(AnnounceConfig(order, INTERVAL)))
+
+        val first = SingleSubject.create<Boolean>()
+        val available = listOf(
+            announcement("one", first),
+            announcement("two"),
+            announcement("three")
+        )
+
+        val test = createAnnouncementList(available)
+            .showNextAnnouncement(host)
+            .test()
+            .assertValues()
+            .assertNotComplete()
+
+        verify(available[1]).shouldShow()
+        verify(available[1], never()).show(host)
+
+        first.onSuccess(false)
+
+        verify(available[1]).show(host)
+        test.assertValue(available[1])
+            .assertComplete()
+    }
+
+    @Test
+    fun `stops checking announcements once a higher priority one should show`() {
+
+        val order = listOf("one", "two", "three")
+        whenever(orderAdapter.announcementConfig).thenReturn(Single.just(AnnounceConfig(order, INTERVAL)))
+
+        val first = SingleSubject.create<Boolean>()
+        val second = SingleSubject.create<Boolean>()
+        val available = listOf(
+            announcement("one", first),
+            announcement("two", second),
+            dontShowAnnouncement("three")
+        )
+
+        val test = createAnnouncementList(available)
+            .showNextAnnouncement(host)
+            .test()
+
+        first.onSuccess(true)
+
+        assertFalse(second.hasObservers())
+        verify(available[0]).show(host)
+        test.assertValue(available[0])
+            .assertComplete()
+    }
+
+    @Test
+    fun `an error from a lower priority announcement does not stop one that should show`() {
+
+        val order = listOf("one", "two")
+        whenever(orderAdapter.announcementConfig).thenReturn(Single.just(AnnounceConfig(order, INTERVAL)))
+
+        val first = SingleSubject.create<Boolean>()
+        val available = listOf(
+            announcement("one", first),
+            announcement("two", Single.error(RuntimeException()))
+        )
+
+        val test = createAnnouncementList(available)
+            .showNextAnnouncement(host)
+            .test()
+
+        first.onSuccess(true)
+
+        test.assertValue(available[0])
+            .assertComplete()
+            .assertNoErrors()
+    }
+
+    @Test
+    fun `shared queries are fetched again for each check`() {
+
+        val order = listOf("one")
+        whenever(orderAdapter.announcementConfig).thenReturn(Single.just(AnnounceConfig(order, INTERVAL)))
+
+        val list = createAnnouncementList(listOf(announcement("one")))
+
+        list.showNextAnnouncement(host).test()
+        list.showNextAnnouncement(host).test()
+
+        verify(queries, times(2)).beginCheck()
+    }
+
+    private fun announcement(
+        announcementName: String,
+        result: Single<Boolean>
+    ): AnnouncementRule =
+        mock {
+            on { shouldShow() } `it returns` result
+            on { name } `it returns` announcementName
+        }
+
     private fun announcement(announcementName: String): AnnouncementRule =
         mock {
             on { shouldShow() } `it returns` Single.just(true)
@@ -9,6 +9,8 @@ import com.blockchain.swap.nabu.datamanagers.NabuDataManager
 import com.blockchain.swap.nabu.datamanagers.OrderState
 import com.blockchain.swap.nabu.service.TierService
 import com.nhaarman.mockito_kotlin.doReturn
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.whenever
 import io.reactivex.Single
 import org.amshove.kluent.mock
@@ -150,6 +152,32 @@ class AnnouncementQueriesTest {
             .assertComplete()
     }
 
+    @Test
+    fun `tiers are fetched once per check`() {
+        whenever(tierService.tiers()).thenReturn(
+            Single.just(
+                TiersJson(
+                    listOf(
+                        TierJson(0,
+                            "",
+                            KycTierState.Verified,
+                            sampleLimits
+                        )
+                    )
+                )
+            )
+        )
+
+        subject.isTier1Or2Verified().test().assertValue { it }
+        subject.isGoldComplete().test().assertComplete()
+        verify(tierService, times(1)).tiers()
+
+        subject.beginCheck()
+
+        subject.isTier1Or2Verified().test().assertValue { it }
+        verify(tierService, times(2)).tiers()
+    }
+
     @Test
     fun `isSimpleBuyTransactionPending - no prefs state is available, should return false`() {
         whenever(sbSync.currentState()).thenReturn(null)
@@ -27,6 +27,7 @@ import org.junit.Test
 import piuk.blockchain.android.deeplink.DeepLinkProcessor
 import piuk.blockchain.android.simplebuy.SimpleBuySyncFactory
 import piuk.blockchain.android.thepit.PitLinking
+import piuk.blockchain.android.ui.launcher.StartupTaskScheduler
 import piuk.blockchain.androidbuysell.datamanagers.BuyDataManager
 import piuk.blockchain.androidbuysell.datamanagers.CoinifyDataManager
 import piuk.blockchain.androidbuysell.services.ExchangeService
@@ -115,7 +116,8 @@ class MainPresenterTest {
             nabuDataManager = nabuDatamanager,
             crashLogger = crashLogger,
             simpleBuyAvailability = mock(),
-            cacheCredentialsWiper = mock()
+            cacheCredentialsWiper = mock(),
+            startupScheduler = StartupTaskScheduler()
         )
 
         subject.attachView(view)
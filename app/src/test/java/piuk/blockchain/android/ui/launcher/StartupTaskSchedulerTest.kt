@@ -0,0 +1,128 @@
+package piuk.blockchain.android.ui.launcher
+
+import io.reactivex.Completable
+import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.CompletableSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class StartupTaskSchedulerTest {
+
+    private var now = 0L
+    private val subject = StartupTaskScheduler(Schedulers.trampoline()) { now }
+
+    private val started = mutableListOf<String>()
+
+    private fun task(
+        name: String,
+        vararg dependsOn: String,
+        critical: Boolean = false,
+        deferred: Boolean = false,
+        work: Completable = Completable.complete()
+    ) = StartupTask(name, dependsOn.toList(), critical, deferred) {
+        started.add(name)
+        work
+    }
+
+    @Test
+    fun `independent tasks start together and dependents wait`() {
+        val metadata = CompletableSubject.create()
+        val fees = CompletableSubject.create()
+
+        val test = subject.run(
+            listOf(
+                task("metadata", work = metadata),
+                task("fees", work = fees),
+                task("coincore", "metadata")
+            )
+        ).test()
+
+        started `should equal` listOf("metadata", "fees")
+        metadata.onComplete()
+        started `should equal` listOf("metadata", "fees", "coincore")
+        test.assertNotComplete()
+
+        fees.onComplete()
+        test.assertComplete()
+    }
+
+    @Test
+    fun `critical tasks and their dependencies start first`() {
+        subject.run(
+            listOf(
+                task("fees"),
+                task("simple_buy"),
+                task("metadata"),
+                task("coincore", "metadata", critical = true)
+            )
+        ).test().assertComplete()
+
+        started `should equal` listOf("metadata", "coincore", "fees", "simple_buy")
+    }
+
+    @Test
+    fun `deferred tasks wait for runDeferred`() {
+        subject.run(
+            listOf(
+                task("metadata"),
+                task("shapeshift", "metadata", deferred = true)
+            )
+        ).test().assertComplete()
+
+        started `should equal` listOf("metadata")
+
+        subject.runDeferred().test().assertComplete()
+        started `should equal` listOf("metadata", "shapeshift")
+
+        subject.runDeferred().test().assertComplete()
+        started `should equal` listOf("metadata", "shapeshift")
+    }
+
+    @Test
+    fun `deferred tasks are dropped when essential tasks fail`() {
+        subject.run(
+            listOf(
+                task("metadata", work = Completable.error(IllegalStateException())),
+                task("shapeshift", "metadata", deferred = true)
+            )
+        ).test().assertError(IllegalStateException::class.java)
+
+        subject.runDeferred().test().assertComplete()
+        started `should equal` listOf("metadata")
+    }
+
+    @Test
+    fun `durations are traced`() {
+        val metadata = CompletableSubject.create()
+        val test = subject.run(
+            listOf(
+                task("metadata", work = metadata),
+                task("fees", work = Completable.error(IllegalStateException()).onErrorComplete())
+            )
+        ).test()
+
+        now = 250
+        metadata.onComplete()
+        test.assertComplete()
+
+        subject.trace `should equal` listOf(
+            StartupTaskScheduler.TraceEntry("fees", 0, 0, false),
+            StartupTaskScheduler.TraceEntry("metadata", 0, 250, false)
+        )
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `cycles are rejected`() {
+        subject.run(listOf(task("a", "b"), task("b", "a")))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `unknown dependencies are rejected`() {
+        subject.run(listOf(task("a", "b")))
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `essential tasks can't depend on deferred ones`() {
+        subject.run(listOf(task("a", deferred = true), task("b", "a")))
+    }
+}
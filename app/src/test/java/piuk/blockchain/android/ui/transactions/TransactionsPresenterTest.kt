@@ -3,6 +3,7 @@ package piuk.blockchain.android.ui.transactions
 import com.blockchain.android.testutils.rxInit
 import com.blockchain.notifications.models.NotificationPayload
 import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
 import com.nhaarman.mockito_kotlin.mock
 import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.verifyNoMoreInteractions
@@ -16,6 +17,7 @@ import org.amshove.kluent.itReturns
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
+import piuk.blockchain.android.coincore.ActivitySummaryList
 import piuk.blockchain.android.coincore.Coincore
 import piuk.blockchain.android.coincore.AssetTokens
 import piuk.blockchain.android.coincore.impl.TransactionNoteUpdater
@@ -117,7 +119,7 @@ class TransactionsPresenterTest {
         whenever(payloadDataManager.updateAllBalances()).thenReturn(Completable.complete())
         whenever(exchangeRateDataManager.updateTickers()).thenReturn(Completable.complete())
 
-        whenever(assetTokens.fetchActivity(account)).thenReturn(Single.just(emptyList()))
+        whenever(assetTokens.fetchActivityPages(eq(account), any())).thenReturn(Observable.just(emptyList()))
         whenever(transactionNotes.updateWithNotes(any())).thenReturn(Single.just(emptyList()))
 
         whenever(currencyState.isDisplayingCryptoCurrency).thenReturn(true)
@@ -133,6 +135,39 @@ class TransactionsPresenterTest {
         verify(view).updateTransactionValueType(true)
     }
 
+    @Test
+    fun `older activity is fetched as the list is scrolled to its end`() {
+        //  Arrange
+        whenever(view.getCurrentAccountPosition()).thenReturn(0)
+
+        val account: ItemAccount = mock {
+            on { balance } itReturns CryptoValue.fromMinor(CryptoCurrency.XLM, 1.toBigDecimal())
+        }
+        whenever(walletAccountHelper.getAccountItemsForOverview(CryptoCurrency.XLM))
+            .thenReturn(Single.just(mutableListOf(account)))
+
+        whenever(currencyState.cryptoCurrency).thenReturn(CryptoCurrency.XLM)
+        whenever(exchangeRateDataManager.updateTickers()).thenReturn(Completable.complete())
+
+        val latest: ActivitySummaryList = listOf(mock())
+        val older: ActivitySummaryList = listOf(mock(), mock())
+        whenever(assetTokens.fetchActivityPages(eq(account), any())).thenAnswer {
+            val nextPage = it.getArgument<Observable<*>>(1)
+            Observable.just(latest).concatWith(nextPage.take(1).map { older })
+        }
+        whenever(transactionNotes.updateWithNotes(any())).thenAnswer { Single.just(it.getArgument(0)) }
+
+        whenever(currencyState.isDisplayingCryptoCurrency).thenReturn(true)
+
+        //  Act
+        subject.requestRefresh()
+        subject.onScrolledToEnd()
+
+        //  Assert
+        verify(view).updateTransactionDataSet(true, latest)
+        verify(view).updateTransactionDataSet(true, older)
+    }
+
     @Test
     fun `onGetBitcoinClicked canBuy returns true`() {
         //  Arrange
@@ -0,0 +1,24 @@
+package info.blockchain.wallet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Scanner;
+
+/**
+ * Loads the wallet and coins websocket test fixtures, which are on the benchmark classpath.
+ */
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static String load(String resourceName) throws IOException {
+        InputStream stream = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(resourceName);
+        if (stream == null) {
+            throw new IOException("Missing fixture " + resourceName);
+        }
+        try (Scanner scanner = new Scanner(stream, "UTF-8")) {
+            return scanner.useDelimiter("\\A").next();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package info.blockchain.wallet.bip44;
+
+import org.bitcoinj.params.BitcoinMainNetParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures restoring an HD wallet from its mnemonic, which runs on wallet recovery and when the
+ * seed is decrypted. Seed stretching is a fixed cost, each account adds hardened derivation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HDWalletFactoryBenchmark {
+
+    private static final String MNEMONIC =
+        "abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon abandon about";
+
+    @Param({"1", "5"})
+    public int accountCount;
+
+    @Benchmark
+    public HDWallet restoreWallet() throws Exception {
+        return HDWalletFactory.restoreWallet(
+            BitcoinMainNetParams.get(),
+            HDWalletFactory.Language.US,
+            MNEMONIC,
+            "",
+            accountCount);
+    }
+}
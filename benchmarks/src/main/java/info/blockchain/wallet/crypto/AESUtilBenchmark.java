@@ -0,0 +1,99 @@
+package info.blockchain.wallet.crypto;
+
+import info.blockchain.wallet.BenchmarkFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encrypting and decrypting a large wallet payload. 5000 iterations is both {@link
+ * AESUtil#PIN_PBKDF2_ITERATIONS} and the default for v2+ wallets, the higher count is what users
+ * set from the wallet options. Key stretching dominates either way, so this is the cost of every
+ * PIN login and save.
+ * <p>
+ * The cached variants are the same calls with a {@link DerivedKeyCache}: a save whose key was
+ * derived ahead of time, and decrypting a payload whose key is already held, as after a save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AESUtilBenchmark {
+
+    private static final String PASSWORD = "MyTestWallet";
+
+    @Param({"5000", "20000"})
+    public int iterations;
+
+    private String payload;
+    private String encryptedPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        payload = BenchmarkFixtures.load("wallet_body_1.txt");
+        encryptedPayload = AESUtil.encrypt(payload, PASSWORD, iterations);
+    }
+
+    /**
+     * A key cache holding the key of the encrypted payload.
+     */
+    @State(Scope.Benchmark)
+    public static class CachedKeyState {
+
+        final DerivedKeyCache keyCache = new DerivedKeyCache();
+
+        @Setup
+        public void cacheKey(AESUtilBenchmark benchmark) throws Exception {
+            AESUtil.decrypt(benchmark.encryptedPayload, PASSWORD, benchmark.iterations, keyCache);
+        }
+    }
+
+    /**
+     * A key cache with a key prepared before each invocation, kept apart so that preparing it doesn't
+     * add to the other benchmarks.
+     */
+    @State(Scope.Benchmark)
+    public static class PreparedKeyState {
+
+        final DerivedKeyCache keyCache = new DerivedKeyCache();
+
+        @Setup(Level.Invocation)
+        public void prepareEncryptionKey(AESUtilBenchmark benchmark) {
+            keyCache.prepareEncryptionKey(PASSWORD, benchmark.iterations);
+        }
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return AESUtil.encrypt(payload, PASSWORD, iterations);
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return AESUtil.decrypt(encryptedPayload, PASSWORD, iterations);
+    }
+
+    @Benchmark
+    public String encryptWithPreparedKey(PreparedKeyState state) throws Exception {
+        return AESUtil.encrypt(payload, PASSWORD, iterations, state.keyCache);
+    }
+
+    @Benchmark
+    public String decryptWithCachedKey(CachedKeyState state) throws Exception {
+        return AESUtil.decrypt(encryptedPayload, PASSWORD, iterations, state.keyCache);
+    }
+}
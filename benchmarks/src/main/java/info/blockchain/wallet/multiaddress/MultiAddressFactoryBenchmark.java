@@ -0,0 +1,106 @@
+package info.blockchain.wallet.multiaddress;
+
+import info.blockchain.api.data.AddressSummary;
+import info.blockchain.api.data.MultiAddress;
+import info.blockchain.api.data.Transaction;
+import info.blockchain.wallet.BenchmarkFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a multiaddress response into transaction summaries. The fixture's transactions
+ * are repeated to the page size, and the owned address list is padded to the size of a wallet with
+ * many imported addresses, as every input and output is checked against it. Pages above the
+ * parallel threshold are also summarised on the calling thread for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiAddressFactoryBenchmark {
+
+    @Param({"1000", "10000"})
+    public int transactionCount;
+
+    @Param({"10", "1000"})
+    public int ownAddressCount;
+
+    private MultiAddress multiAddress;
+    private List<String> ownAddressesAndXpubs;
+    private List<String> legacyAddresses;
+
+    @Setup
+    public void setUp() throws Exception {
+        multiAddress = MultiAddress.fromJson(BenchmarkFixtures.load("multiaddress/multi_address_all.txt"));
+
+        List<Transaction> fixtureTxs = multiAddress.getTxs();
+        ArrayList<Transaction> txs = new ArrayList<>(transactionCount);
+        for (int i = 0; i < transactionCount; i++) {
+            txs.add(fixtureTxs.get(i % fixtureTxs.size()));
+        }
+        multiAddress.setTxs(txs);
+
+        ownAddressesAndXpubs = new ArrayList<>();
+        for (AddressSummary address : multiAddress.getAddresses()) {
+            ownAddressesAndXpubs.add(address.getAddress());
+        }
+        for (int i = ownAddressesAndXpubs.size(); i < ownAddressCount; i++) {
+            ownAddressesAndXpubs.add(0, "1ImportedAddress" + i);
+        }
+
+        legacyAddresses = new ArrayList<>();
+        for (String address : ownAddressesAndXpubs) {
+            if (!address.startsWith("xpub")) {
+                legacyAddresses.add(address);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TransactionSummary> summarizeAll() {
+        return new MultiAddressFactory(null).summarize(
+            ownAddressesAndXpubs,
+            Collections.<String>emptyList(),
+            multiAddress,
+            null,
+            0);
+    }
+
+    @Benchmark
+    public List<TransactionSummary> summarizeAllSequential() {
+        return new MultiAddressFactory(null).summarize(
+            ownAddressesAndXpubs,
+            Collections.<String>emptyList(),
+            multiAddress,
+            null,
+            0,
+            Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<TransactionSummary> summarizeLegacy() {
+        return new MultiAddressFactory(null).summarize(
+            ownAddressesAndXpubs,
+            Collections.<String>emptyList(),
+            multiAddress,
+            legacyAddresses,
+            0);
+    }
+}
@@ -0,0 +1,74 @@
+package info.blockchain.wallet.payload.data;
+
+import info.blockchain.wallet.BenchmarkFixtures;
+
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.BitcoinMainNetParams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing and serialising a decrypted payload. The HD wallet fixture is padded with
+ * imported addresses, as payloads from long lived wallets are dominated by them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalletJsonBenchmark {
+
+    private static final NetworkParameters PARAMS = BitcoinMainNetParams.get();
+
+    @Param({"0", "1000", "10000"})
+    public int legacyAddressCount;
+
+    private String json;
+    private Wallet wallet;
+
+    @Setup
+    public void setUp() throws Exception {
+        Wallet fixture = Wallet.fromJson(PARAMS, BenchmarkFixtures.load("wallet_body_1.txt"));
+        for (int i = 0; i < legacyAddressCount; i++) {
+            fixture.getLegacyAddressList().add(legacyAddress(i));
+        }
+        json = fixture.toJson();
+        wallet = Wallet.fromJson(PARAMS, json);
+    }
+
+    private static LegacyAddress legacyAddress(int index) {
+        ECKey key = ECKey.fromPrivate(BigInteger.valueOf(index + 1L));
+        LegacyAddress legacyAddress = new LegacyAddress();
+        legacyAddress.setAddress(key.toAddress(PARAMS).toBase58());
+        legacyAddress.setPrivateKeyFromBytes(key.getPrivKeyBytes());
+        legacyAddress.setLabel("Imported " + index);
+        legacyAddress.setCreatedTime(1_500_000_000_000L + index);
+        legacyAddress.setCreatedDeviceName("android");
+        legacyAddress.setCreatedDeviceVersion("6.0.0");
+        return legacyAddress;
+    }
+
+    @Benchmark
+    public Wallet fromJson() throws Exception {
+        return Wallet.fromJson(PARAMS, json);
+    }
+
+    @Benchmark
+    public String toJson() throws Exception {
+        return wallet.toJson();
+    }
+}
@@ -0,0 +1,89 @@
+package info.blockchain.wallet.payment;
+
+import info.blockchain.api.data.UnspentOutput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures changeless selection at 5k coins. The worst case uses coins of almost identical value with
+ * a target that falls between the sums of any two and three coins, so the search never finds a match
+ * and runs for its full budget before falling back to descent draw. It's measured with the budget used
+ * when sending and the smaller one used for each fee preview, which bounds the latency selection adds
+ * to a preview.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BranchAndBoundBenchmark {
+
+    private static final BigInteger FEE_PER_BYTE = BigInteger.valueOf(20L);
+
+    @Param({"5000"})
+    public int coinCount;
+
+    @Param({"10000", "100000"})
+    public int maxIterations;
+
+    private List<UnspentOutput> worstCaseCoins;
+    private BigInteger worstCaseAmount;
+
+    private List<UnspentOutput> randomCoins;
+    private BigInteger randomAmount;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(coinCount);
+        worstCaseCoins = new ArrayList<>(coinCount);
+        randomCoins = new ArrayList<>(coinCount);
+        BigInteger randomTotal = BigInteger.ZERO;
+        for (int i = 0; i < coinCount; i++) {
+            worstCaseCoins.add(coin(1_000_000L + random.nextInt(100)));
+            UnspentOutput coin = coin(5_000L + random.nextInt(1_000_000));
+            randomCoins.add(coin);
+            randomTotal = randomTotal.add(coin.getValue());
+        }
+        worstCaseAmount = BigInteger.valueOf(2_500_000L);
+        randomAmount = randomTotal.divide(BigInteger.valueOf(coinCount / 10));
+    }
+
+    private static UnspentOutput coin(long value) {
+        UnspentOutput coin = new UnspentOutput();
+        coin.setValue(BigInteger.valueOf(value));
+        return coin;
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs worstCaseSelectWithoutChange() {
+        return new IncrementalCoinSelection(worstCaseCoins, FEE_PER_BYTE)
+            .selectWithoutChange(worstCaseAmount, DescentDraw.INSTANCE, maxIterations);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs randomSelectWithoutChange() {
+        return new IncrementalCoinSelection(randomCoins, FEE_PER_BYTE).selectWithoutChange(randomAmount);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs randomDescentDraw() {
+        return new IncrementalCoinSelection(randomCoins, FEE_PER_BYTE).select(randomAmount, DescentDraw.INSTANCE);
+    }
+}
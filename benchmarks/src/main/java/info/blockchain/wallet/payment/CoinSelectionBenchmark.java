@@ -0,0 +1,77 @@
+package info.blockchain.wallet.payment;
+
+import info.blockchain.api.data.UnspentOutput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reference {@link CoinSelection} against {@link IncrementalCoinSelection} on large,
+ * synthetic sets of unspent outputs. Ascent draw with a target of half the balance forces both
+ * implementations to select thousands of coins, which is the worst case for consolidation wallets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinSelectionBenchmark {
+
+    private static final BigInteger FEE_PER_BYTE = BigInteger.valueOf(55L);
+
+    @Param({"10000", "50000", "100000"})
+    public int coinCount;
+
+    private List<UnspentOutput> coins;
+    private BigInteger outputAmount;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(coinCount);
+        coins = new ArrayList<>(coinCount);
+        BigInteger total = BigInteger.ZERO;
+        for (int i = 0; i < coinCount; i++) {
+            UnspentOutput coin = new UnspentOutput();
+            coin.setValue(BigInteger.valueOf(5_000L + random.nextInt(1_000_000)));
+            coins.add(coin);
+            total = total.add(coin.getValue());
+        }
+        outputAmount = total.shiftRight(1);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs referenceSelect() {
+        return new CoinSelection(coins, FEE_PER_BYTE).select(outputAmount, AscentDraw.INSTANCE);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs incrementalSelect() {
+        return new IncrementalCoinSelection(coins, FEE_PER_BYTE).select(outputAmount, AscentDraw.INSTANCE);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs referenceSelectAll() {
+        return new CoinSelection(coins, FEE_PER_BYTE).selectAll(DescentDraw.INSTANCE);
+    }
+
+    @Benchmark
+    public SpendableUnspentOutputs incrementalSelectAll() {
+        return new IncrementalCoinSelection(coins, FEE_PER_BYTE).selectAll(DescentDraw.INSTANCE);
+    }
+}
@@ -0,0 +1,69 @@
+package piuk.blockchain.android.data.coinswebsocket.strategy;
+
+import com.google.gson.Gson;
+
+import info.blockchain.wallet.BenchmarkFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import piuk.blockchain.android.data.coinswebsocket.models.BtcBchResponse;
+import piuk.blockchain.android.data.coinswebsocket.models.Coin;
+import piuk.blockchain.android.data.coinswebsocket.models.EthResponse;
+import piuk.blockchain.android.data.coinswebsocket.models.SocketMessage;
+import piuk.blockchain.android.data.coinswebsocket.models.SocketResponse;
+
+/**
+ * Measures decoding recorded coins websocket messages, against parsing the header and then the
+ * body of each message with Gson as they were before. Run with -PjmhProfilers=gc to also report
+ * the bytes allocated per message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SocketMessageDecoderBenchmark {
+
+    @Param({"btc_transaction", "bch_transaction", "confirmed_eth_transaction", "pax_transaction", "wallet_changed"})
+    public String messageName;
+
+    private final Gson gson = new Gson();
+    private final SocketMessageDecoder decoder = new SocketMessageDecoder(gson);
+
+    private String message;
+
+    @Setup
+    public void setUp() throws Exception {
+        message = BenchmarkFixtures.load("coinswebsocket/" + messageName + ".json");
+    }
+
+    @Benchmark
+    public List<SocketMessage> decode() {
+        return decoder.decode(message);
+    }
+
+    @Benchmark
+    public Object parseTwice() {
+        SocketResponse response = gson.fromJson(message, SocketResponse.class);
+        if (response.getCoin() == Coin.ETH) {
+            return gson.fromJson(message, EthResponse.class);
+        } else if (response.getCoin() == Coin.BTC || response.getCoin() == Coin.BCH) {
+            return gson.fromJson(message, BtcBchResponse.class);
+        }
+        return response;
+    }
+}
@@ -116,6 +116,9 @@ object Versions {
     const val espresso = "3.2.0"
     const val jacoco = "0.8.1"
     const val androidxTesting = "1.1.1"
+
+    // Benchmarking
+    const val jmh = "1.23"
 }
 
 object Libraries {
@@ -245,4 +248,8 @@ object Libraries {
     const val okHttpMock = "com.squareup.okhttp3:mockwebserver:${Versions.okHttp}"
     const val mockWebServer = "com.github.fabric8io:mockwebserver:${Versions.mockWebServer}"
     const val jacoco = "org.jacoco:org.jacoco.core:${Versions.jacoco}"
+
+    // Benchmarking
+    const val jmhCore = "org.openjdk.jmh:jmh-core:${Versions.jmh}"
+    const val jmhAnnotationProcessor = "org.openjdk.jmh:jmh-generator-annprocess:${Versions.jmh}"
 }
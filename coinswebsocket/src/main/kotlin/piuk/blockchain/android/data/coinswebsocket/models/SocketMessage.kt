@@ -0,0 +1,15 @@
+package piuk.blockchain.android.data.coinswebsocket.models
+
+/**
+ * A decoded message from the coins websocket.
+ */
+sealed class SocketMessage {
+
+    data class WalletChanged(val checksum: String?) : SocketMessage()
+
+    data class Btc(val response: BtcBchResponse) : SocketMessage()
+
+    data class Bch(val response: BtcBchResponse) : SocketMessage()
+
+    data class Eth(val response: EthResponse) : SocketMessage()
+}
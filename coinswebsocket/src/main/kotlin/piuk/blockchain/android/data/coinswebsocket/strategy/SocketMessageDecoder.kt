@@ -0,0 +1,134 @@
+package piuk.blockchain.android.data.coinswebsocket.strategy
+
+import com.google.gson.Gson
+import com.google.gson.JsonElement
+import com.google.gson.TypeAdapter
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import piuk.blockchain.android.data.coinswebsocket.models.BtcBchResponse
+import piuk.blockchain.android.data.coinswebsocket.models.BtcTransaction
+import piuk.blockchain.android.data.coinswebsocket.models.Coin
+import piuk.blockchain.android.data.coinswebsocket.models.Entity
+import piuk.blockchain.android.data.coinswebsocket.models.EthAccount
+import piuk.blockchain.android.data.coinswebsocket.models.EthResponse
+import piuk.blockchain.android.data.coinswebsocket.models.EthTransaction
+import piuk.blockchain.android.data.coinswebsocket.models.SocketMessage
+import piuk.blockchain.android.data.coinswebsocket.models.TokenAccount
+import piuk.blockchain.android.data.coinswebsocket.models.TokenAccountKey
+import piuk.blockchain.android.data.coinswebsocket.models.TokenTransfer
+import java.io.StringReader
+
+private const val OP_ON_CHANGE = "on_change"
+
+/**
+ * Decodes websocket messages into [SocketMessage]s in a single pass with a streaming reader. The
+ * header fields decide the type of the body, so the body is decoded straight into its model when they
+ * come first, as they do in practice, and is buffered as a [JsonElement] otherwise.
+ *
+ * A message can both change the wallet and carry a coin, so it decodes to the wallet change, if any,
+ * followed by the coin's message, if any.
+ */
+class SocketMessageDecoder(gson: Gson) {
+
+    private val coinAdapter = gson.getAdapter(Coin::class.java)
+    private val entityAdapter = gson.getAdapter(Entity::class.java)
+    private val btcTransactionAdapter = gson.getAdapter(BtcTransaction::class.java)
+    private val ethTransactionAdapter = gson.getAdapter(EthTransaction::class.java)
+    private val ethAccountAdapter = gson.getAdapter(EthAccount::class.java)
+    private val tokenTransferAdapter = gson.getAdapter(TokenTransfer::class.java)
+    private val tokenAccountAdapter = gson.getAdapter(TokenAccount::class.java)
+    private val tokenAccountKeyAdapter = gson.getAdapter(TokenAccountKey::class.java)
+    private val jsonElementAdapter = gson.getAdapter(JsonElement::class.java)
+
+    fun decode(message: String): List<SocketMessage> {
+        val reader = JsonReader(StringReader(message)).apply { isLenient = true }
+        val fields = Fields()
+
+        reader.beginObject()
+        while (reader.hasNext()) {
+            when (reader.nextName()) {
+                "op" -> fields.op = reader.nextStringOrNull()
+                "checksum" -> fields.checksum = reader.nextStringOrNull()
+                "coin" -> fields.coin = coinAdapter.read(reader)
+                "entity" -> fields.entity = entityAdapter.read(reader)
+                "transaction" -> fields.transaction = when (fields.coin) {
+                    Coin.BTC, Coin.BCH -> btcTransactionAdapter.read(reader)
+                    else -> reader.readEthField(fields.coin, ethTransactionAdapter)
+                }
+                "account" -> fields.account = reader.readEthField(fields.coin, ethAccountAdapter)
+                "tokenTransfer" -> fields.tokenTransfer = reader.readEthField(fields.coin, tokenTransferAdapter)
+                "tokenAccount" -> fields.tokenAccount = reader.readEthField(fields.coin, tokenAccountAdapter)
+                "tokenAccountKey" ->
+                    fields.tokenAccountKey = reader.readEthField(fields.coin, tokenAccountKeyAdapter)
+                else -> reader.skipValue()
+            }
+        }
+        reader.endObject()
+
+        return fields.toMessages()
+    }
+
+    /**
+     * Reads a field which only ETH messages decode. It is buffered if the coin isn't known yet, and
+     * skipped for other coins.
+     */
+    private fun <T> JsonReader.readEthField(coin: Coin?, adapter: TypeAdapter<T>): Any? =
+        when (coin) {
+            Coin.ETH -> adapter.read(this)
+            null -> jsonElementAdapter.read(this)
+            else -> {
+                skipValue()
+                null
+            }
+        }
+
+    // Body fields hold either their decoded model, or a JsonElement if the coin wasn't known when
+    // they were read
+    private inner class Fields {
+        var op: String? = null
+        var checksum: String? = null
+        var coin: Coin? = null
+        var entity: Entity? = null
+        var transaction: Any? = null
+        var account: Any? = null
+        var tokenTransfer: Any? = null
+        var tokenAccount: Any? = null
+        var tokenAccountKey: Any? = null
+
+        fun toMessages(): List<SocketMessage> = listOfNotNull(walletChanged(), coinMessage())
+
+        private fun walletChanged(): SocketMessage? =
+            if (op == OP_ON_CHANGE) SocketMessage.WalletChanged(checksum) else null
+
+        private fun coinMessage(): SocketMessage? = when (coin) {
+            Coin.BTC -> SocketMessage.Btc(BtcBchResponse(transaction.resolve(btcTransactionAdapter)))
+            Coin.BCH -> SocketMessage.Bch(BtcBchResponse(transaction.resolve(btcTransactionAdapter)))
+            Coin.ETH -> SocketMessage.Eth(
+                EthResponse(
+                    transaction = transaction.resolve(ethTransactionAdapter),
+                    account = account.resolve(ethAccountAdapter),
+                    entity = entity,
+                    tokenTransfer = tokenTransfer.resolve(tokenTransferAdapter),
+                    tokenAccount = tokenAccount.resolve(tokenAccountAdapter),
+                    tokenAccountKey = tokenAccountKey.resolve(tokenAccountKeyAdapter)
+                )
+            )
+            else -> null
+        }
+    }
+}
+
+@Suppress("UNCHECKED_CAST")
+private fun <T> Any?.resolve(adapter: TypeAdapter<T>): T? =
+    when (this) {
+        is JsonElement -> adapter.fromJsonTree(this)
+        else -> this as T?
+    }
+
+private fun JsonReader.nextStringOrNull(): String? =
+    if (peek() == JsonToken.NULL) {
+        nextNull()
+        null
+    } else {
+        nextString()
+    }
@@ -0,0 +1,23 @@
+package piuk.blockchain.android.data.coinswebsocket
+
+import com.blockchain.testutils.getStringFromResource
+
+/**
+ * Messages recorded from the coins websocket.
+ */
+internal object CoinsWebSocketMessages {
+
+    val confirmedEtheTransaction = message("confirmed_eth_transaction")
+
+    val pendingEthTransaction = message("pending_eth_transaction")
+
+    val changedPayloadMessage = message("wallet_changed")
+
+    val paxTransaction = message("pax_transaction")
+
+    val btcTransaction = message("btc_transaction")
+
+    val bchTransaction = message("bch_transaction")
+
+    private fun message(name: String) = getStringFromResource("coinswebsocket/$name.json").trim()
+}
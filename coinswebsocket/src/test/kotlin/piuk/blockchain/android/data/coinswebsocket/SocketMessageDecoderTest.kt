@@ -0,0 +1,104 @@
+package piuk.blockchain.android.data.coinswebsocket
+
+import com.google.gson.Gson
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import piuk.blockchain.android.data.coinswebsocket.models.BtcBchResponse
+import piuk.blockchain.android.data.coinswebsocket.models.EthResponse
+import piuk.blockchain.android.data.coinswebsocket.models.SocketMessage
+import piuk.blockchain.android.data.coinswebsocket.strategy.SocketMessageDecoder
+
+class SocketMessageDecoderTest {
+
+    private val gson = Gson()
+    private val decoder = SocketMessageDecoder(gson)
+
+    private fun String.withEthCoinLast() =
+        replace("{\"coin\":\"eth\",", "{").removeSuffix("}") + ",\"coin\":\"eth\"}"
+
+    @Test
+    fun `btc transaction`() {
+        decoder.decode(CoinsWebSocketMessages.btcTransaction) `should equal`
+            listOf(SocketMessage.Btc(gson.fromJson(CoinsWebSocketMessages.btcTransaction, BtcBchResponse::class.java)))
+    }
+
+    @Test
+    fun `bch transaction`() {
+        decoder.decode(CoinsWebSocketMessages.bchTransaction) `should equal`
+            listOf(SocketMessage.Bch(gson.fromJson(CoinsWebSocketMessages.bchTransaction, BtcBchResponse::class.java)))
+    }
+
+    @Test
+    fun `eth transactions`() {
+        listOf(
+            CoinsWebSocketMessages.confirmedEtheTransaction,
+            CoinsWebSocketMessages.pendingEthTransaction,
+            CoinsWebSocketMessages.paxTransaction
+        ).forEach {
+            decoder.decode(it) `should equal` listOf(SocketMessage.Eth(gson.fromJson(it, EthResponse::class.java)))
+        }
+    }
+
+    @Test
+    fun `wallet change`() {
+        decoder.decode(CoinsWebSocketMessages.changedPayloadMessage) `should equal`
+            listOf(SocketMessage.WalletChanged("741cd20c1f076c6393a07a2dc7b072188cd4e3ecea3184a1e6a5ed387daadb19"))
+    }
+
+    @Test
+    fun `wallet change with a coin decodes to both`() {
+        val message = CoinsWebSocketMessages.btcTransaction
+            .replace("{\"coin\":\"btc\",", "{\"op\":\"on_change\",\"checksum\":\"abc\",\"coin\":\"btc\",")
+
+        decoder.decode(message) `should equal` listOf(
+            SocketMessage.WalletChanged("abc"),
+            SocketMessage.Btc(gson.fromJson(message, BtcBchResponse::class.java))
+        )
+    }
+
+    @Test
+    fun `body before coin`() {
+        val message = "{\"transaction\":{\"hash\":\"abc\",\"inputs\":[],\"out\":[]},\"coin\":\"btc\"}"
+
+        decoder.decode(message) `should equal`
+            listOf(SocketMessage.Btc(gson.fromJson(message, BtcBchResponse::class.java)))
+    }
+
+    @Test
+    fun `eth body before coin`() {
+        val message = CoinsWebSocketMessages.pendingEthTransaction.withEthCoinLast()
+
+        decoder.decode(message) `should equal`
+            listOf(SocketMessage.Eth(gson.fromJson(message, EthResponse::class.java)))
+    }
+
+    @Test
+    fun `eth token transfer before coin`() {
+        val message = CoinsWebSocketMessages.paxTransaction.withEthCoinLast()
+
+        decoder.decode(message) `should equal`
+            listOf(SocketMessage.Eth(gson.fromJson(message, EthResponse::class.java)))
+    }
+
+    @Test
+    fun `messages decoded in turn do not share state`() {
+        decoder.decode(CoinsWebSocketMessages.confirmedEtheTransaction)
+        decoder.decode(CoinsWebSocketMessages.changedPayloadMessage)
+
+        decoder.decode(CoinsWebSocketMessages.btcTransaction) `should equal`
+            listOf(SocketMessage.Btc(gson.fromJson(CoinsWebSocketMessages.btcTransaction, BtcBchResponse::class.java)))
+    }
+
+    @Test
+    fun `eth only fields are ignored for other coins`() {
+        val message = "{\"coin\":\"btc\",\"account\":\"1At9jiwzVsRJAtN9hkqpgHsaCTJZSfgWAm\",\"transaction\":null}"
+
+        decoder.decode(message) `should equal` listOf(SocketMessage.Btc(BtcBchResponse(null)))
+    }
+
+    @Test
+    fun `unknown coin`() {
+        decoder.decode("{\"success\":true,\"coin\":\"none\",\"message\":\"pong\"}") `should equal`
+            emptyList<SocketMessage>()
+    }
+}
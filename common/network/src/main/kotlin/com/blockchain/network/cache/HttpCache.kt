@@ -0,0 +1,169 @@
+package com.blockchain.network.cache
+
+import okhttp3.Cache
+import okhttp3.CacheControl
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import timber.log.Timber
+import java.io.IOException
+import java.net.HttpURLConnection
+import java.util.Collections
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * A disk cache of GET responses for the endpoints described by [HttpCacheConfig.policies].
+ *
+ * Add [cache] and [networkInterceptor] to the client to store responses for their policy's max age,
+ * and [interceptor] to serve stale responses while they're revalidated. Other requests are
+ * unaffected, unless their own headers allow caching.
+ */
+class HttpCache(config: HttpCacheConfig) {
+
+    data class Stats(
+        val requestCount: Int,
+        val networkCount: Int,
+        val hitCount: Int,
+        val staleHitCount: Long,
+        val revalidationCount: Long
+    ) {
+        /**
+         * The share of requests answered without downloading a body, including conditional requests
+         * answered with 304 Not Modified.
+         */
+        val hitRate: Double
+            get() = if (requestCount > 0) hitCount.toDouble() / requestCount else 0.0
+    }
+
+    private val policies = config.policies
+
+    val cache = Cache(config.directory, config.maxSizeBytes)
+
+    private val staleHits = AtomicLong()
+    private val revalidations = AtomicLong()
+
+    private val revalidatingCalls = Collections.synchronizedSet(HashSet<Call>())
+    private val revalidatingUrls = Collections.synchronizedSet(HashSet<String>())
+
+    fun stats(): Stats =
+        Stats(
+            requestCount = cache.requestCount(),
+            networkCount = cache.networkCount(),
+            hitCount = cache.hitCount(),
+            staleHitCount = staleHits.get(),
+            revalidationCount = revalidations.get()
+        )
+
+    /**
+     * Replaces the caching headers of responses with those of their policy, keeping any validators.
+     */
+    val networkInterceptor = Interceptor { chain ->
+        val request = chain.request()
+        val response = chain.proceed(request)
+        val policy = policyFor(request)
+
+        if (policy != null && response.isSuccessful) {
+            response.newBuilder()
+                .removeHeader(HEADER_PRAGMA)
+                .removeHeader(HEADER_EXPIRES)
+                .header(HEADER_CACHE_CONTROL, "max-age=${policy.maxAgeSeconds}")
+                .build()
+        } else {
+            response
+        }
+    }
+
+    /**
+     * Serves stale responses within their policy's stale-while-revalidate window, and revalidates
+     * them in the background.
+     */
+    val interceptor = Interceptor { chain ->
+        val request = chain.request()
+        val policy = policyFor(request)
+
+        when {
+            policy == null -> chain.proceed(request)
+            chain.call() in revalidatingCalls -> {
+                revalidations.incrementAndGet()
+                chain.proceed(request.withCacheControl(CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build()))
+            }
+            policy.staleWhileRevalidateSeconds > 0 && !request.cacheControl.noCache ->
+                proceedStaleWhileRevalidate(chain, policy)
+            else -> chain.proceed(request)
+        }
+    }
+
+    private fun proceedStaleWhileRevalidate(chain: Interceptor.Chain, policy: HttpCachePolicy): Response {
+        val request = chain.request()
+        val cached = chain.proceed(
+            request.withCacheControl(
+                CacheControl.Builder()
+                    .onlyIfCached()
+                    .maxStale(policy.staleWhileRevalidateSeconds, TimeUnit.SECONDS)
+                    .build()
+            )
+        )
+
+        if (cached.code == HttpURLConnection.HTTP_GATEWAY_TIMEOUT) {
+            cached.close()
+            return chain.proceed(request)
+        }
+
+        if (cached.isStale()) {
+            staleHits.incrementAndGet()
+            revalidate(chain.call())
+        }
+        return cached
+    }
+
+    private fun revalidate(call: Call) {
+        val url = call.request().url.toString()
+        if (!revalidatingUrls.add(url)) {
+            return
+        }
+
+        val revalidation = call.clone()
+        revalidatingCalls.add(revalidation)
+        revalidation.enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                response.close()
+                finish(call, url)
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                Timber.d(e, "Failed to revalidate $url")
+                finish(call, url)
+            }
+        })
+    }
+
+    private fun finish(call: Call, url: String) {
+        revalidatingCalls.remove(call)
+        revalidatingUrls.remove(url)
+    }
+
+    private fun policyFor(request: Request): HttpCachePolicy? =
+        if (request.method == "GET") {
+            val path = request.url.encodedPath
+            policies.firstOrNull { it.path.matches(path) }
+        } else {
+            null
+        }
+
+    private fun Request.withCacheControl(cacheControl: CacheControl): Request =
+        newBuilder().cacheControl(cacheControl).build()
+
+    private fun Response.isStale(): Boolean =
+        headers(HEADER_WARNING).any { it.startsWith(WARNING_STALE) }
+
+    companion object {
+        private const val HEADER_CACHE_CONTROL = "Cache-Control"
+        private const val HEADER_PRAGMA = "Pragma"
+        private const val HEADER_EXPIRES = "Expires"
+        private const val HEADER_WARNING = "Warning"
+        private const val WARNING_STALE = "110"
+    }
+}
@@ -0,0 +1,44 @@
+package com.blockchain.network.cache
+
+import java.io.File
+
+private const val MINUTE = 60
+private const val HOUR = 60 * MINUTE
+private const val DAY = 24 * HOUR
+
+/**
+ * How long GET responses whose path matches [path] are cached for.
+ *
+ * Responses are fresh for [maxAgeSeconds], whatever caching headers the server sends. Once stale,
+ * they're revalidated with the server's ETag or Last-Modified. For a further
+ * [staleWhileRevalidateSeconds] the stale response is served straight away while it's revalidated
+ * in the background.
+ */
+data class HttpCachePolicy(
+    val path: Regex,
+    val maxAgeSeconds: Int,
+    val staleWhileRevalidateSeconds: Int = 0
+)
+
+class HttpCacheConfig(
+    val directory: File,
+    val maxSizeBytes: Long = DEFAULT_MAX_SIZE_BYTES,
+    val policies: List<HttpCachePolicy> = DEFAULT_POLICIES
+) {
+
+    companion object {
+        private const val DEFAULT_MAX_SIZE_BYTES = 10L * 1024 * 1024
+
+        val DEFAULT_POLICIES = listOf(
+            // Wallet options
+            HttpCachePolicy(Regex(".*/Resources/wallet-options\\.json$"), HOUR, DAY),
+            // Fee options are revalidated once stale rather than served stale
+            HttpCachePolicy(Regex(".*/mempool/fees/[^/]+$"), MINUTE),
+            // Tickers
+            HttpCachePolicy(Regex(".*/price/indexes$"), MINUTE, 10 * MINUTE),
+            // KYC countries, states and documents
+            HttpCachePolicy(Regex(".*/countries(/[^/]+/states)?$"), DAY, 7 * DAY),
+            HttpCachePolicy(Regex(".*/kyc/supported-documents/[^/]+$"), DAY, 7 * DAY)
+        )
+    }
+}
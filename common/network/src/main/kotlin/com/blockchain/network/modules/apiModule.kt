@@ -3,6 +3,7 @@ package com.blockchain.network.modules
 import com.blockchain.koin.moshiInterceptor
 import com.blockchain.network.EnvironmentUrls
 import com.blockchain.network.TLSSocketFactory
+import com.blockchain.network.cache.HttpCache
 import com.blockchain.serialization.BigDecimalAdaptor
 import com.blockchain.serialization.BigIntegerAdapter
 import com.squareup.moshi.Moshi
@@ -45,7 +46,10 @@ val apiModule = applicationContext {
             .build()
     }
 
+    bean { HttpCache(get()) }
+
     bean {
+        val httpCache: HttpCache = get()
         val builder = OkHttpClient.Builder()
             .connectionSpecs(listOf(ConnectionSpec.MODERN_TLS))
             .connectTimeout(API_TIMEOUT, TimeUnit.SECONDS)
@@ -54,10 +58,13 @@ val apiModule = applicationContext {
             .pingInterval(PING_INTERVAL, TimeUnit.SECONDS)
             .retryOnConnectionFailure(false)
             .certificatePinner(get())
+            .cache(httpCache.cache)
 
         get<OkHttpInterceptors>().forEach {
             builder.addInterceptor(it)
         }
+        builder.addInterceptor(httpCache.interceptor)
+        builder.addNetworkInterceptor(httpCache.networkInterceptor)
 
         /*
           Enable TLS specific version V.1.2
@@ -0,0 +1,103 @@
+package com.blockchain.network.cache
+
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.amshove.kluent.`should equal`
+import org.junit.After
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.TimeUnit
+
+class HttpCacheTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val server = MockWebServer()
+
+    private lateinit var httpCache: HttpCache
+    private lateinit var client: OkHttpClient
+
+    @Before
+    fun setUp() {
+        server.start()
+        httpCache = HttpCache(
+            HttpCacheConfig(
+                temporaryFolder.root,
+                policies = listOf(
+                    HttpCachePolicy(Regex("/fresh"), maxAgeSeconds = 60),
+                    HttpCachePolicy(Regex("/revalidated"), maxAgeSeconds = 0),
+                    HttpCachePolicy(Regex("/stale"), maxAgeSeconds = 0, staleWhileRevalidateSeconds = 60)
+                )
+            )
+        )
+        client = OkHttpClient.Builder()
+            .cache(httpCache.cache)
+            .addInterceptor(httpCache.interceptor)
+            .addNetworkInterceptor(httpCache.networkInterceptor)
+            .build()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun get(path: String): String =
+        client.newCall(Request.Builder().url(server.url(path)).build())
+            .execute()
+            .use { it.body!!.string() }
+
+    @Test
+    fun `responses are fresh for their max age despite the server's headers`() {
+        server.enqueue(MockResponse().setBody("A").setHeader("Cache-Control", "no-cache"))
+
+        get("/fresh") `should equal` "A"
+        get("/fresh") `should equal` "A"
+
+        server.requestCount `should equal` 1
+        httpCache.stats().apply {
+            requestCount `should equal` 2
+            hitCount `should equal` 1
+            hitRate `should equal` 0.5
+        }
+    }
+
+    @Test
+    fun `stale responses are revalidated with their etag`() {
+        server.enqueue(MockResponse().setBody("A").setHeader("ETag", "\"v1\""))
+        server.enqueue(MockResponse().setResponseCode(304))
+
+        get("/revalidated") `should equal` "A"
+        get("/revalidated") `should equal` "A"
+
+        server.takeRequest()
+        server.takeRequest().getHeader("If-None-Match") `should equal` "\"v1\""
+    }
+
+    @Test
+    fun `stale responses are served while they're revalidated`() {
+        server.enqueue(MockResponse().setBody("A").setHeader("ETag", "\"v1\""))
+        server.enqueue(MockResponse().setBody("B").setHeader("ETag", "\"v2\""))
+
+        get("/stale") `should equal` "A"
+        get("/stale") `should equal` "A"
+
+        server.takeRequest()
+        server.takeRequest(5, TimeUnit.SECONDS)!!.getHeader("If-None-Match") `should equal` "\"v1\""
+        httpCache.stats().staleHitCount `should equal` 1L
+    }
+
+    @Test
+    fun `other endpoints are not cached`() {
+        server.enqueue(MockResponse().setBody("A"))
+        server.enqueue(MockResponse().setBody("B"))
+
+        get("/other") `should equal` "A"
+        get("/other") `should equal` "B"
+    }
+}
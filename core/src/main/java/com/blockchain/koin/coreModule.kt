@@ -2,6 +2,7 @@
 
 package com.blockchain.koin
 
+import android.content.Context
 import android.preference.PreferenceManager
 import com.blockchain.datamanagers.AccountLookup
 import com.blockchain.datamanagers.AddressResolver
@@ -42,12 +43,14 @@ import piuk.blockchain.androidcore.data.access.LogoutTimer
 import piuk.blockchain.androidcore.data.auth.AuthDataManager
 import piuk.blockchain.androidcore.data.auth.AuthService
 import piuk.blockchain.androidcore.data.bitcoincash.BchDataStore
+import piuk.blockchain.androidcore.data.datastores.TransactionHistoryStore
 import piuk.blockchain.androidcore.data.erc20.datastores.Erc20DataStore
 import piuk.blockchain.androidcore.data.ethereum.EthereumAccountWrapper
 import piuk.blockchain.androidcore.data.ethereum.datastores.EthDataStore
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateDataManager
 import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
 import piuk.blockchain.androidcore.data.exchangerate.datastore.ExchangeRateDataStore
+import piuk.blockchain.androidcore.data.exchangerate.datastore.HistoricPriceCache
 import piuk.blockchain.androidcore.data.fees.FeeDataManager
 import piuk.blockchain.androidcore.data.metadata.MetadataManager
 import piuk.blockchain.androidcore.data.metadata.MoshiMetadataRepositoryAdapter
@@ -76,6 +79,7 @@ import piuk.blockchain.androidcore.utils.DeviceIdGeneratorImpl
 import piuk.blockchain.androidcore.utils.PrefsUtil
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import piuk.blockchain.androidcore.utils.UUIDGenerator
+import java.io.File
 import java.util.UUID
 
 val coreModule = applicationContext {
@@ -156,6 +160,8 @@ val coreModule = applicationContext {
 
         bean { BchDataStore() }
 
+        bean { TransactionHistoryStore(File(get<Context>().noBackupFilesDir, "transactions"), get()) }
+
         bean { WalletOptionsState() }
 
         bean { SettingsDataManager(get(), get(), get(), get()) }
@@ -171,7 +177,9 @@ val coreModule = applicationContext {
 
         factory { ExchangeRateDataManager(get(), get()) }
 
-        bean { ExchangeRateDataStore(get(), get()) }
+        bean { ExchangeRateDataStore(get(), get(), get()) }
+
+        bean { HistoricPriceCache(get(), File(get<Context>().cacheDir, "historic_prices")) }
 
         bean { FeeDataManager(get(), get(), get()) }
 
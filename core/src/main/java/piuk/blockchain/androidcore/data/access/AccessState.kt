@@ -84,6 +84,8 @@ internal class AccessStateImpl(
             if (this.isLoggedIn) {
                 rxBus.emitEvent(AuthEvent::class.java, AuthEvent.LOGIN)
             } else {
+                // Sticky events describe the session which has ended
+                rxBus.clearStickyEvents()
                 rxBus.emitEvent(AuthEvent::class.java, AuthEvent.LOGOUT)
             }
         }
@@ -450,6 +450,12 @@ class BchDataManager(
 
     fun isOwnAddress(address: String) = bchDataStore.bchWallet?.isOwnAddress(address) ?: false
 
+    /**
+     * Returns true if the address is one of the wallet's non-archived imported addresses.
+     */
+    fun isActiveLegacyAddress(address: String) =
+        payloadDataManager.wallet?.containsActiveLegacyAddress(address) ?: false
+
     /**
      * Converts any Bitcoin Cash address to a label.
      *
@@ -466,8 +472,12 @@ class BchDataManager(
 // Web requests that require wrapping in Observables
 // /////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Fetches a page of transactions of an address or xpub on the calling thread, for callers already
+     * on a background thread. [getAddressTransactions] delivers on the main thread instead.
+     */
     @WebRequest
-    private fun fetchAddressTransactions(
+    fun fetchAddressTransactions(
         address: String,
         limit: Int,
         offset: Int
@@ -481,8 +491,12 @@ class BchDataManager(
             offset
         )
 
+    /**
+     * Fetches a page of the wallet's transactions on the calling thread, for callers already on a
+     * background thread. [getWalletTransactions] delivers on the main thread instead.
+     */
     @WebRequest
-    private fun fetchWalletTransactions(limit: Int, offset: Int): MutableList<TransactionSummary> =
+    fun fetchWalletTransactions(limit: Int, offset: Int): MutableList<TransactionSummary> =
         bchDataStore.bchWallet!!.getTransactions(
             null, // legacy list
             mutableListOf(), // watch-only list
@@ -492,8 +506,12 @@ class BchDataManager(
             offset
         )
 
+    /**
+     * Fetches a page of the imported addresses' transactions on the calling thread, for callers already
+     * on a background thread. [getImportedAddressTransactions] delivers on the main thread instead.
+     */
     @WebRequest
-    private fun fetchImportedAddressTransactions(
+    fun fetchImportedAddressTransactions(
         limit: Int,
         offset: Int
     ): MutableList<TransactionSummary> =
@@ -517,5 +535,9 @@ class BchDataManager(
     fun subtractAmountFromAddressBalance(account: String, amount: BigInteger) =
         bchDataStore.bchWallet!!.subtractAmountFromAddressBalance(account, amount)
 
+    fun applyBalanceChanges(changes: Map<String, BigInteger>) {
+        bchDataStore.bchWallet?.applyBalanceChanges(changes)
+    }
+
     private data class MetadataPair(val metadata: GenericMetadataWallet, val needsSave: Boolean)
 }
@@ -0,0 +1,270 @@
+package piuk.blockchain.androidcore.data.datastores
+
+import com.squareup.moshi.Moshi
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.multiaddress.TransactionSummary
+import org.bitcoinj.core.Sha256Hash
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.math.BigInteger
+
+private const val DEFAULT_MAX_STORED = 200
+private const val DELTA_PAGE_SIZE = 10
+
+/**
+ * Keeps the most recent transactions of each coin and account on disk, so that activity can be shown
+ * as soon as the app starts and refreshing it only fetches what's new.
+ *
+ * [sync] fetches small pages until it reaches a transaction which was already confirmed when last
+ * stored, then merges them into the stored history by hash. Confirmations of the stored transactions
+ * are recalculated from the latest block implied by the fetched ones. If no stored transaction is
+ * reached within the requested number, the stored history is replaced.
+ *
+ * Histories are held in memory once read, with one file per coin and account in [directory] holding
+ * at most [maxStored] transactions.
+ */
+class TransactionHistoryStore(
+    private val directory: File,
+    moshi: Moshi,
+    private val maxStored: Int = DEFAULT_MAX_STORED
+) {
+
+    private data class Key(val currency: CryptoCurrency, val account: String) {
+        val fileName
+            get() = "${currency.name}-${Sha256Hash.of(account.toByteArray(Charsets.UTF_8))}"
+    }
+
+    private val adapter = moshi.adapter(StoredHistory::class.java)
+
+    private val histories = HashMap<Key, List<TransactionSummary>>()
+
+    /**
+     * The stored transactions of an account, newest first, without touching the network.
+     */
+    fun stored(currency: CryptoCurrency, account: String): List<TransactionSummary> =
+        getHistory(Key(currency, account))
+
+    /**
+     * Brings the stored transactions of an account up to date and returns the newest [limit] of them.
+     *
+     * @param fetchPage fetches a page of transactions, newest first, given a limit and offset
+     */
+    fun sync(
+        currency: CryptoCurrency,
+        account: String,
+        limit: Int,
+        fetchPage: (limit: Int, offset: Int) -> List<TransactionSummary>
+    ): List<TransactionSummary> {
+        val key = Key(currency, account)
+        val stored = getHistory(key)
+        val newestConfirmed = stored.filter { it.confirmations > 0 }.map { it.time }.max()
+
+        val history = if (newestConfirmed == null) {
+            fetchPage(limit, 0)
+        } else {
+            val fetched = fetchNewerThan(newestConfirmed, limit, fetchPage)
+            if (fetched.any { it.time <= newestConfirmed }) merge(stored, fetched) else fetched
+        }.sortedByDescending { it.time }
+            .take(maxStored)
+            .let { withUpdatedConfirmations(it) }
+
+        putHistory(key, history)
+        return history.take(limit)
+    }
+
+    /**
+     * Adds a transaction which hasn't been fetched yet, such as one pushed over a websocket, to an
+     * account's stored history. Nothing is added to an account without stored history, nor if the
+     * transaction is already held. It is replaced by the fetched transaction on a later [sync], or
+     * dropped if it is no longer returned.
+     */
+    fun insert(currency: CryptoCurrency, account: String, transaction: TransactionSummary) {
+        val key = Key(currency, account)
+        val stored = getHistory(key)
+        if (stored.isEmpty() || stored.any { it.hash == transaction.hash }) {
+            return
+        }
+        putHistory(key, (listOf(transaction) + stored).sortedByDescending { it.time }.take(maxStored))
+    }
+
+    /**
+     * Removes the stored history of every account of a coin.
+     */
+    fun clear(currency: CryptoCurrency) {
+        synchronized(histories) {
+            histories.keys.removeAll { it.currency == currency }
+        }
+        directory.listFiles { _, name -> name.startsWith("${currency.name}-") }
+            ?.forEach { it.delete() }
+    }
+
+    private fun fetchNewerThan(
+        time: Long,
+        limit: Int,
+        fetchPage: (limit: Int, offset: Int) -> List<TransactionSummary>
+    ): List<TransactionSummary> {
+        val fetched = mutableListOf<TransactionSummary>()
+        while (fetched.size < limit) {
+            val page = fetchPage(minOf(DELTA_PAGE_SIZE, limit - fetched.size), fetched.size)
+            fetched.addAll(page)
+            if (page.size < DELTA_PAGE_SIZE || page.any { it.time <= time }) {
+                break
+            }
+        }
+        return fetched
+    }
+
+    private fun merge(stored: List<TransactionSummary>, fetched: List<TransactionSummary>): List<TransactionSummary> {
+        val oldestFetched = fetched.map { it.time }.min() ?: return stored
+        val merged = LinkedHashMap<String, TransactionSummary>()
+        // Unconfirmed transactions which should have been fetched again have been dropped or replaced
+        stored.filterNot { it.confirmations == 0 && it.time >= oldestFetched }
+            .forEach { merged[it.hash] = it }
+        fetched.forEach { merged[it.hash] = it }
+        return merged.values.toList()
+    }
+
+    /**
+     * Stored transactions are shared with earlier callers, so those whose confirmations change are
+     * copied rather than updated in place.
+     */
+    private fun withUpdatedConfirmations(history: List<TransactionSummary>): List<TransactionSummary> {
+        val latestBlock = history.filter { it.blockHeight > 0 && it.confirmations > 0 }
+            .map { it.blockHeight + it.confirmations - 1 }
+            .max() ?: return history
+
+        return history.map {
+            val confirmations = (latestBlock - it.blockHeight + 1).toInt()
+            if (it.blockHeight > 0 && it.confirmations != confirmations) {
+                it.copy().also { copy -> copy.confirmations = confirmations }
+            } else {
+                it
+            }
+        }
+    }
+
+    private fun getHistory(key: Key): List<TransactionSummary> =
+        synchronized(histories) { histories[key] }
+            ?: readHistory(key).also { history ->
+                synchronized(histories) { histories.getOrPut(key) { history } }
+            }
+
+    private fun putHistory(key: Key, history: List<TransactionSummary>) {
+        synchronized(histories) { histories[key] = history }
+        writeHistory(key, history)
+    }
+
+    private fun readHistory(key: Key): List<TransactionSummary> {
+        val file = File(directory, key.fileName)
+        if (!file.exists()) {
+            return emptyList()
+        }
+        return try {
+            adapter.fromJson(file.readText())?.transactions?.map { it.toTransactionSummary() } ?: emptyList()
+        } catch (e: Exception) {
+            // Corrupt entry, drop it and fetch again
+            Timber.e(e)
+            file.delete()
+            emptyList()
+        }
+    }
+
+    private fun writeHistory(key: Key, history: List<TransactionSummary>) {
+        try {
+            directory.mkdirs()
+            File(directory, key.fileName).writeText(
+                adapter.toJson(StoredHistory(history.map { it.toStoredTransaction() }))
+            )
+        } catch (e: IOException) {
+            Timber.e(e)
+        }
+    }
+
+    companion object {
+        /**
+         * The account holding the history of every account and imported address of a coin.
+         */
+        const val ACCOUNT_ALL = "all"
+
+        /**
+         * The account holding the history of a coin's imported addresses.
+         */
+        const val ACCOUNT_IMPORTED = "legacy"
+    }
+}
+
+private class StoredHistory(
+    val transactions: List<StoredTransaction>
+)
+
+private class StoredTransaction(
+    val hash: String,
+    val total: BigInteger,
+    val fee: BigInteger,
+    val direction: TransactionSummary.Direction,
+    val time: Long,
+    val blockHeight: Long,
+    val confirmations: Int,
+    val watchOnly: Boolean,
+    val doubleSpend: Boolean,
+    val pending: Boolean,
+    val inputs: Map<String, BigInteger>,
+    val outputs: Map<String, BigInteger>,
+    val inputsXpub: Map<String, String>,
+    val outputsXpub: Map<String, String>
+)
+
+private fun TransactionSummary.toStoredTransaction() =
+    StoredTransaction(
+        hash = hash,
+        total = total,
+        fee = fee,
+        direction = direction,
+        time = time,
+        blockHeight = blockHeight,
+        confirmations = confirmations,
+        watchOnly = isWatchOnly,
+        doubleSpend = isDoubleSpend,
+        pending = isPending,
+        inputs = inputsMap,
+        outputs = outputsMap,
+        inputsXpub = inputsXpubMap,
+        outputsXpub = outputsXpubMap
+    )
+
+private fun TransactionSummary.copy() =
+    TransactionSummary().also {
+        it.hash = hash
+        it.total = total
+        it.fee = fee
+        it.direction = direction
+        it.time = time
+        it.blockHeight = blockHeight
+        it.confirmations = confirmations
+        it.isWatchOnly = isWatchOnly
+        it.isDoubleSpend = isDoubleSpend
+        it.isPending = isPending
+        it.inputsMap = HashMap(inputsMap)
+        it.outputsMap = HashMap(outputsMap)
+        it.inputsXpubMap = HashMap(inputsXpubMap)
+        it.outputsXpubMap = HashMap(outputsXpubMap)
+    }
+
+private fun StoredTransaction.toTransactionSummary() =
+    TransactionSummary().also {
+        it.hash = hash
+        it.total = total
+        it.fee = fee
+        it.direction = direction
+        it.time = time
+        it.blockHeight = blockHeight
+        it.confirmations = confirmations
+        it.isWatchOnly = watchOnly
+        it.isDoubleSpend = doubleSpend
+        it.isPending = pending
+        it.inputsMap = HashMap(inputs)
+        it.outputsMap = HashMap(outputs)
+        it.inputsXpubMap = HashMap(inputsXpub)
+        it.outputsXpubMap = HashMap(outputsXpub)
+    }
@@ -2,6 +2,7 @@ package piuk.blockchain.androidcore.data.exchangerate
 
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.prices.PriceApi
+import info.blockchain.wallet.prices.TimeInterval
 import info.blockchain.wallet.prices.data.PriceDatum
 import io.reactivex.Single
 
@@ -16,4 +17,19 @@ class ExchangeRateService(private val priceApi: PriceApi) {
         timeInSeconds: Long
     ): Single<Double> =
         priceApi.getHistoricPrice(cryptoCurrency.networkTicker, currency, timeInSeconds)
-}
\ No newline at end of file
+
+    fun getHistoricPriceSeries(
+        cryptoCurrency: CryptoCurrency,
+        currency: String,
+        startTimeInSeconds: Long,
+        endTimeInSeconds: Long,
+        scale: TimeInterval
+    ): Single<List<PriceDatum>> =
+        priceApi.getHistoricPriceSeries(
+            cryptoCurrency.networkTicker,
+            currency,
+            startTimeInSeconds,
+            endTimeInSeconds,
+            scale.intervalSeconds
+        )
+}
@@ -8,80 +8,98 @@ import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
 import piuk.blockchain.androidcore.utils.PersistentPrefs
 import timber.log.Timber
 import java.math.BigDecimal
+import java.util.EnumMap
 
 class ExchangeRateDataStore(
     private val exchangeRateService: ExchangeRateService,
-    private val prefs: PersistentPrefs
+    private val prefs: PersistentPrefs,
+    private val historicPriceCache: HistoricPriceCache
 ) {
 
-    // Ticker data
-    private var btcTickerData: Map<String, PriceDatum>? = null
-    private var ethTickerData: Map<String, PriceDatum>? = null
-    private var bchTickerData: Map<String, PriceDatum>? = null
-    private var xlmTickerData: Map<String, PriceDatum>? = null
-    private var paxTickerData: Map<String, PriceDatum>? = null
+    // Last known prices by currency and fiat. The maps are never mutated once published, only replaced,
+    // so lookups from any thread are plain map reads against a consistent snapshot.
+    @Volatile
+    private var prices: Map<CryptoCurrency, Map<String, Double>> = loadLastKnownPrices()
 
     fun updateExchangeRates(): Completable = Single.merge(
-        exchangeRateService.getExchangeRateMap(CryptoCurrency.BTC)
-            .doOnSuccess { btcTickerData = it.toMap() },
-        exchangeRateService.getExchangeRateMap(CryptoCurrency.BCH)
-            .doOnSuccess { bchTickerData = it.toMap() },
-        exchangeRateService.getExchangeRateMap(CryptoCurrency.ETHER)
-            .doOnSuccess { ethTickerData = it.toMap() },
-        exchangeRateService.getExchangeRateMap(CryptoCurrency.XLM)
-            .doOnSuccess { xlmTickerData = it.toMap() }
-    ).mergeWith(exchangeRateService.getExchangeRateMap(CryptoCurrency.PAX)
-        .doOnSuccess { paxTickerData = it.toMap() }).ignoreElements()
-
-    fun getCurrencyLabels(): Array<String> = btcTickerData!!.keys.toTypedArray()
+        fetchExchangeRates(CryptoCurrency.BTC),
+        fetchExchangeRates(CryptoCurrency.BCH),
+        fetchExchangeRates(CryptoCurrency.ETHER),
+        fetchExchangeRates(CryptoCurrency.XLM)
+    ).mergeWith(fetchExchangeRates(CryptoCurrency.PAX))
+        .ignoreElements()
+        .doFinally { saveLastKnownPrices(prices) }
+
+    private fun fetchExchangeRates(cryptoCurrency: CryptoCurrency): Single<Map<String, PriceDatum>> =
+        exchangeRateService.getExchangeRateMap(cryptoCurrency)
+            .doOnSuccess { updatePrices(cryptoCurrency, it) }
+
+    fun getCurrencyLabels(): Array<String> = prices[CryptoCurrency.BTC]!!.keys.toTypedArray()
 
     fun getLastPrice(cryptoCurrency: CryptoCurrency, fiatCurrency: String): Double {
         if (fiatCurrency.isEmpty()) {
             throw IllegalArgumentException("No currency supplied")
         }
+        return prices[cryptoCurrency]?.get(fiatCurrency) ?: 0.0
+    }
 
-        val tickerData = cryptoCurrency.tickerData()
+    fun getFiatLastPrice(targetFiat: String, sourceFiat: String): Double {
+        val btcPrices = prices[CryptoCurrency.BTC] ?: return 0.0
+        val targetCurrencyPrice = btcPrices[targetFiat] ?: return 0.0
+        val sourceCurrencyPrice = btcPrices[sourceFiat] ?: return 0.0
+        return targetCurrencyPrice.div(sourceCurrencyPrice)
+    }
 
-        val prefsKey = "LAST_KNOWN_${cryptoCurrency.networkTicker}_VALUE_FOR_CURRENCY_$fiatCurrency"
+    @Synchronized
+    private fun updatePrices(cryptoCurrency: CryptoCurrency, tickerData: Map<String, PriceDatum>) {
+        val fiatPrices = HashMap<String, Double>(tickerData.size)
+        tickerData.forEach { (fiat, datum) -> datum.price?.let { fiatPrices[fiat] = it } }
 
-        val lastKnown = try {
-            prefs.getValue(prefsKey, "0.0").toDouble()
-        } catch (e: NumberFormatException) {
-            Timber.e(e)
-            prefs.setValue(prefsKey, "0.0")
-            0.0
+        prices = EnumMap<CryptoCurrency, Map<String, Double>>(CryptoCurrency::class.java).apply {
+            putAll(prices)
+            put(cryptoCurrency, fiatPrices)
         }
+    }
 
-        val lastPrice: Double? = tickerData?.get(fiatCurrency)?.price
-
-        if (lastPrice != null) {
-            prefs.setValue("$prefsKey$fiatCurrency", lastPrice.toString())
-        }
+    private fun loadLastKnownPrices(): Map<CryptoCurrency, Map<String, Double>> {
+        val lastKnown = EnumMap<CryptoCurrency, MutableMap<String, Double>>(CryptoCurrency::class.java)
 
-        return lastPrice ?: lastKnown
+        prefs.getValue(KEY_LAST_KNOWN_PRICES, "")
+            .split(ENTRY_SEPARATOR)
+            .filter { it.isNotEmpty() }
+            .forEach { entry ->
+                val (currency, fiat, price) = entry.split(FIELD_SEPARATOR).takeIf { it.size == 3 } ?: return@forEach
+                try {
+                    lastKnown.getOrPut(CryptoCurrency.valueOf(currency)) { HashMap() }[fiat] = price.toDouble()
+                } catch (e: IllegalArgumentException) {
+                    // Unknown currency or malformed price, skip it
+                    Timber.e(e)
+                }
+            }
+        return lastKnown
     }
 
-    fun getFiatLastPrice(targetFiat: String, sourceFiat: String): Double {
-        val targetCurrencyPrice = CryptoCurrency.BTC.tickerData()?.get(targetFiat)?.price ?: return 0.0
-        val sourceCurrencyPrice = CryptoCurrency.BTC.tickerData()?.get(sourceFiat)?.price ?: return 0.0
-        return targetCurrencyPrice.div(sourceCurrencyPrice)
-    }
+    private fun saveLastKnownPrices(prices: Map<CryptoCurrency, Map<String, Double>>) {
+        val serialised = prices.flatMap { (cryptoCurrency, fiatPrices) ->
+            fiatPrices.map { (fiat, price) ->
+                "${cryptoCurrency.name}$FIELD_SEPARATOR$fiat$FIELD_SEPARATOR$price"
+            }
+        }.joinToString(ENTRY_SEPARATOR)
 
-    private fun CryptoCurrency.tickerData() =
-        when (this) {
-            CryptoCurrency.BTC -> btcTickerData
-            CryptoCurrency.ETHER -> ethTickerData
-            CryptoCurrency.BCH -> bchTickerData
-            CryptoCurrency.XLM -> xlmTickerData
-            CryptoCurrency.PAX -> paxTickerData
-            CryptoCurrency.STX -> TODO("STUB: STX NOT IMPLEMENTED")
-        }
+        prefs.setValue(KEY_LAST_KNOWN_PRICES, serialised)
+    }
 
     fun getHistoricPrice(
         cryptoCurrency: CryptoCurrency,
         fiat: String,
         timeInSeconds: Long
     ): Single<BigDecimal> =
-        exchangeRateService.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
+        historicPriceCache.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
             .map { it.toBigDecimal() }
+
+    companion object {
+        private const val KEY_LAST_KNOWN_PRICES = "LAST_KNOWN_EXCHANGE_RATES"
+        private const val ENTRY_SEPARATOR = ";"
+        private const val FIELD_SEPARATOR = ":"
+    }
 }
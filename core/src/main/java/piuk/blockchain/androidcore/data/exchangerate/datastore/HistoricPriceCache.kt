@@ -0,0 +1,246 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.TimeInterval
+import info.blockchain.wallet.prices.data.PriceDatum
+import io.reactivex.Completable
+import io.reactivex.Single
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.Arrays
+import java.util.LinkedHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+private const val SECONDS_PER_DAY = 86400L
+private const val MAX_MEMORY_BUCKETS = 64
+private const val MAX_SERIES_DAYS = 31
+private const val DEFAULT_MAX_DISK_BUCKETS = 1000
+private val SERIES_SCALE = TimeInterval.ONE_HOUR
+
+/**
+ * Answers historic price queries from hourly price series, stored in one day buckets per currency
+ * and fiat. A miss fetches the series from the start of the missing day up to the next day already
+ * cached or being fetched, at most [MAX_SERIES_DAYS] days, so pricing a page of transactions
+ * usually costs a single request and never downloads a day twice. Prices between two points in the
+ * series are linearly interpolated.
+ *
+ * Only completed days are cached. They are kept in a small LRU in memory, and in [cacheDir], which
+ * holds at most [maxDiskBuckets] files with the oldest days removed first. The day a series was
+ * fetched for is never the one evicted to make room for it. Prices for today, and for any time
+ * missing from the series, fall back to the single price endpoint.
+ */
+class HistoricPriceCache(
+    private val exchangeRateService: ExchangeRateService,
+    private val cacheDir: File,
+    private val maxDiskBuckets: Int = DEFAULT_MAX_DISK_BUCKETS,
+    private val currentTimeSeconds: () -> Long = { System.currentTimeMillis() / 1000 }
+) {
+
+    private data class BucketKey(val cryptoCurrency: CryptoCurrency, val fiat: String, val day: Long) {
+        val fileName get() = "${cryptoCurrency.name}-$fiat-$day"
+    }
+
+    private class Bucket(val timestamps: LongArray, val prices: DoubleArray) {
+
+        fun priceAt(timeInSeconds: Long): Double {
+            val index = Arrays.binarySearch(timestamps, timeInSeconds)
+            if (index >= 0) {
+                return prices[index]
+            }
+            val next = -index - 1
+            return when (next) {
+                0 -> prices.first()
+                timestamps.size -> prices.last()
+                else -> {
+                    val previous = next - 1
+                    val fraction = (timeInSeconds - timestamps[previous]).toDouble() /
+                        (timestamps[next] - timestamps[previous])
+                    prices[previous] + (prices[next] - prices[previous]) * fraction
+                }
+            }
+        }
+    }
+
+    // Fetches the days from startDay up to, but not including, endDay
+    private class SeriesRequest(val startDay: Long, val endDay: Long, val request: Completable)
+
+    private val memoryCache = object : LinkedHashMap<BucketKey, Bucket>(MAX_MEMORY_BUCKETS, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<BucketKey, Bucket>?) =
+            size > MAX_MEMORY_BUCKETS
+    }
+
+    private val inFlight = HashMap<Pair<CryptoCurrency, String>, MutableList<SeriesRequest>>()
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+
+    /**
+     * The number of prices answered from cached series, for diagnostics.
+     */
+    val hitCount: Long get() = hits.get()
+
+    /**
+     * The number of prices which needed a network request, for diagnostics.
+     */
+    val missCount: Long get() = misses.get()
+
+    fun getHistoricPrice(
+        cryptoCurrency: CryptoCurrency,
+        fiat: String,
+        timeInSeconds: Long
+    ): Single<Double> = Single.defer {
+        val key = BucketKey(cryptoCurrency, fiat, timeInSeconds / SECONDS_PER_DAY)
+        val cached = getBucket(key)?.priceAt(timeInSeconds)
+
+        when {
+            cached != null -> {
+                hits.incrementAndGet()
+                Single.just(cached)
+            }
+            key.day >= today() -> {
+                misses.incrementAndGet()
+                exchangeRateService.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
+            }
+            else -> {
+                misses.incrementAndGet()
+                fetchSeries(key)
+                    .onErrorComplete()
+                    .andThen(Single.defer {
+                        getBucket(key)?.let { Single.just(it.priceAt(timeInSeconds)) }
+                            ?: exchangeRateService.getHistoricPrice(cryptoCurrency, fiat, timeInSeconds)
+                    })
+            }
+        }
+    }
+
+    /**
+     * Shares a single series request between concurrent misses for the same currency pair, as long as
+     * the request in flight covers the missing day.
+     */
+    @Synchronized
+    private fun fetchSeries(key: BucketKey): Completable {
+        val pair = key.cryptoCurrency to key.fiat
+        val requests = inFlight.getOrPut(pair) { mutableListOf() }
+        requests.firstOrNull { key.day >= it.startDay && key.day < it.endDay }?.let { return it.request }
+
+        val endDay = seriesEndDay(key, requests)
+        lateinit var series: SeriesRequest
+        val request = exchangeRateService.getHistoricPriceSeries(
+            key.cryptoCurrency,
+            key.fiat,
+            key.day * SECONDS_PER_DAY,
+            endDay * SECONDS_PER_DAY - 1,
+            SERIES_SCALE
+        ).doOnSuccess { storeSeries(key, endDay, it) }
+            .ignoreElement()
+            .doFinally { removeInFlight(pair, series) }
+            .cache()
+
+        series = SeriesRequest(key.day, endDay, request)
+        requests += series
+        return request
+    }
+
+    // The series stops at the first later day which is cached or being fetched already
+    private fun seriesEndDay(key: BucketKey, requests: List<SeriesRequest>): Long {
+        val limit = requests.map { it.startDay }
+            .filter { it > key.day }
+            .fold(minOf(key.day + MAX_SERIES_DAYS, today())) { end, startDay -> minOf(end, startDay) }
+
+        var endDay = key.day + 1
+        while (endDay < limit && !isCached(key.copy(day = endDay))) {
+            endDay++
+        }
+        return endDay
+    }
+
+    @Synchronized
+    private fun removeInFlight(pair: Pair<CryptoCurrency, String>, series: SeriesRequest) {
+        inFlight[pair]?.let {
+            it.remove(series)
+            if (it.isEmpty()) {
+                inFlight.remove(pair)
+            }
+        }
+    }
+
+    private fun storeSeries(requested: BucketKey, endDay: Long, series: List<PriceDatum>) {
+        val untilDay = minOf(endDay, today())
+        series.filter { it.price != null }
+            .sortedBy { it.timestamp }
+            .groupBy { it.timestamp / SECONDS_PER_DAY }
+            .filterKeys { it >= requested.day && it < untilDay }
+            .toList()
+            // The requested day goes in last, so that it's the most recently used
+            .sortedBy { (day, _) -> day == requested.day }
+            .forEach { (day, points) ->
+                val bucket = Bucket(
+                    LongArray(points.size) { points[it].timestamp },
+                    DoubleArray(points.size) { points[it].price!! }
+                )
+                val key = requested.copy(day = day)
+                synchronized(memoryCache) { memoryCache[key] = bucket }
+                writeBucket(key, bucket)
+            }
+        trimDiskCache(requested)
+    }
+
+    private fun isCached(key: BucketKey): Boolean =
+        synchronized(memoryCache) { memoryCache.containsKey(key) } || File(cacheDir, key.fileName).exists()
+
+    private fun getBucket(key: BucketKey): Bucket? =
+        synchronized(memoryCache) { memoryCache[key] }
+            ?: readBucket(key)?.also { synchronized(memoryCache) { memoryCache[key] = it } }
+
+    private fun readBucket(key: BucketKey): Bucket? {
+        val file = File(cacheDir, key.fileName)
+        if (!file.exists()) {
+            return null
+        }
+        return try {
+            val lines = file.readLines().filter { it.isNotBlank() }
+            val timestamps = LongArray(lines.size)
+            val prices = DoubleArray(lines.size)
+            lines.forEachIndexed { index, line ->
+                val (timestamp, price) = line.split(' ')
+                timestamps[index] = timestamp.toLong()
+                prices[index] = price.toDouble()
+            }
+            Bucket(timestamps, prices).takeIf { lines.isNotEmpty() }
+        } catch (e: Exception) {
+            // Corrupt entry, drop it and fetch again
+            Timber.e(e)
+            file.delete()
+            null
+        }
+    }
+
+    private fun writeBucket(key: BucketKey, bucket: Bucket) {
+        try {
+            cacheDir.mkdirs()
+            File(cacheDir, key.fileName).writeText(
+                bucket.timestamps.indices.joinToString("\n") { "${bucket.timestamps[it]} ${bucket.prices[it]}" }
+            )
+        } catch (e: IOException) {
+            Timber.e(e)
+        }
+    }
+
+    /**
+     * Removes the files beyond [maxDiskBuckets], oldest day first, except the [requested] day's. A
+     * series writes many files at once, so their modification times can't tell them apart.
+     */
+    private fun trimDiskCache(requested: BucketKey) {
+        val files = cacheDir.listFiles() ?: return
+        if (files.size > maxDiskBuckets) {
+            files.filter { it.name != requested.fileName }
+                .sortedBy { it.name.substringAfterLast('-').toLongOrNull() ?: Long.MIN_VALUE }
+                .take(files.size - maxDiskBuckets)
+                .forEach { it.delete() }
+        }
+    }
+
+    private fun today() = currentTimeSeconds() / SECONDS_PER_DAY
+}
@@ -10,8 +10,10 @@ import io.reactivex.Completable
 import io.reactivex.Maybe
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.CompletableSubject
 import piuk.blockchain.androidcore.data.payload.PayloadDataManager
 import piuk.blockchain.androidcore.utils.extensions.then
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * Manages metadata nodes/keys derived from a user's wallet credentials.
@@ -62,19 +64,99 @@ class MetadataManager(
             Metadata.newInstance(metaDataHDNode = it, type = metadataType, metadataDerivation = metadataDerivation)
         } ?: throw IllegalStateException("Metadata node is null")
 
-    fun fetchMetadata(metadataType: Int): Maybe<String> =
-        metadataNodeFactory.metadataNode?.let {
-            metadataInteractor.loadRemoteMetadata(Metadata.newInstance(metaDataHDNode = it,
-                type = metadataType,
-                metadataDerivation = metadataDerivation))
-        } ?: Maybe.error(IllegalStateException("Metadata node is null"))
+    /**
+     * Decrypted entries by type, as loaded, being loaded or last saved.
+     */
+    private val metadataCache = ConcurrentHashMap<Int, Maybe<String>>()
+
+    /**
+     * Loads the entries of [metadataTypes] concurrently, so that [fetchMetadata] serves them from
+     * memory. A failure only drops that type, which is fetched again when next asked for.
+     */
+    fun prefetchMetadata(metadataTypes: Iterable<Int>): Completable =
+        Completable.defer {
+            Completable.merge(
+                metadataTypes.map { type ->
+                    fetchMetadata(type)
+                        .ignoreElement()
+                        .onErrorComplete()
+                        .subscribeOn(Schedulers.io())
+                }
+            )
+        }
+
+    fun fetchMetadata(metadataType: Int): Maybe<String> {
+        val node = metadataNodeFactory.metadataNode
+            ?: return Maybe.error(IllegalStateException("Metadata node is null"))
+
+        metadataCache[metadataType]?.let { return it }
+
+        lateinit var cached: Maybe<String>
+        cached = metadataInteractor.loadRemoteMetadata(Metadata.newInstance(metaDataHDNode = node,
+            type = metadataType,
+            metadataDerivation = metadataDerivation))
+            .doOnError { metadataCache.remove(metadataType, cached) }
+            .cache()
+        return metadataCache.putIfAbsent(metadataType, cached) ?: cached
+    }
+
+    private val writeLock = Any()
+    private val pendingWrites = HashMap<Int, PendingWrite>()
+    private val inFlightWrites = HashMap<Int, Completable>()
 
+    /**
+     * Saves [data] as the whole of the entry of [metadataType]. While a save of the same type is in
+     * flight, further saves are coalesced into a single save of the latest data, made once it completes.
+     * Every coalesced save completes, or fails, with that one.
+     */
     fun saveToMetadata(data: String, metadataType: Int): Completable =
+        Completable.defer {
+            val pending = synchronized(writeLock) {
+                pendingWrites[metadataType]?.let { pending ->
+                    pending.data = data
+                    return@defer pending.result
+                }
+                PendingWrite(data).also { pending ->
+                    pending.previous = inFlightWrites[metadataType] ?: Completable.complete()
+                    pendingWrites[metadataType] = pending
+                    inFlightWrites[metadataType] = pending.result
+                }
+            }
+
+            pending.previous
+                .onErrorComplete()
+                .andThen(Completable.defer {
+                    val latest = synchronized(writeLock) {
+                        pendingWrites.remove(metadataType)
+                        pending.data
+                    }
+                    putMetadata(latest, metadataType)
+                })
+                .doFinally {
+                    synchronized(writeLock) {
+                        if (inFlightWrites[metadataType] === pending.result) {
+                            inFlightWrites.remove(metadataType)
+                        }
+                    }
+                }
+                .subscribe(pending.result)
+
+            pending.result
+        }
+
+    private fun putMetadata(data: String, metadataType: Int): Completable =
         metadataNodeFactory.metadataNode?.let {
             metadataInteractor.putMetadata(data,
                 Metadata.newInstance(metaDataHDNode = it, type = metadataType, metadataDerivation = metadataDerivation))
+                .doOnComplete { metadataCache[metadataType] = Maybe.just(data) }
+                .doOnError { metadataCache.remove(metadataType) }
         } ?: Completable.error(IllegalStateException("Metadata node is null"))
 
+    private class PendingWrite(var data: String) {
+        val result: CompletableSubject = CompletableSubject.create()
+        var previous: Completable = Completable.complete()
+    }
+
     /**
      * Loads or derives the stored nodes/keys from the metadata service.
      *
@@ -116,6 +198,7 @@ class MetadataManager(
 
     fun reset() {
         _metadataNodeFactory = null
+        metadataCache.clear()
     }
 
     /**
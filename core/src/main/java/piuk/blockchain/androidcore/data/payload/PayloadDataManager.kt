@@ -497,6 +497,16 @@ class PayloadDataManager(
         payloadManager.subtractAmountFromAddressBalance(address, BigInteger.valueOf(spentAmount))
     }
 
+    /**
+     * Adds the balance changes caused by a transaction to the in-memory balances, without querying
+     * the balance API. Used to reflect websocket transactions immediately.
+     *
+     * @param changes The change in balance for each affected address or xPub
+     */
+    fun applyBalanceChanges(changes: Map<String, BigInteger>) {
+        payloadManager.applyBalanceChanges(changes)
+    }
+
     /**
      * Increments the index on the receive chain for an [Account] object.
      *
@@ -0,0 +1,116 @@
+package piuk.blockchain.androidcore.data.payments
+
+import info.blockchain.api.data.UnspentOutput
+import info.blockchain.api.data.UnspentOutputs
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.balance.CryptoValue
+import info.blockchain.wallet.payment.PREVIEW_BRANCH_AND_BOUND_ITERATIONS
+import info.blockchain.wallet.payment.SpendableUnspentOutputs
+import org.apache.commons.lang3.tuple.Pair
+import java.math.BigInteger
+import java.util.LinkedHashMap
+
+private const val MAX_CACHED_KEYS = 4
+private const val MAX_CACHED_AMOUNTS = 16
+
+/**
+ * The result of coin selection for an amount being entered on the send screen.
+ *
+ * @param maximumAvailable The amount which can be swept from the coins, and the fee for doing so
+ * @param spendableCoins The coins selected for the entered amount
+ */
+data class FeePreview(
+    val maximumAvailable: Pair<BigInteger, BigInteger>,
+    val spendableCoins: SpendableUnspentOutputs
+)
+
+/**
+ * Caches coin selection for the send screen, where the same coins are selected from on every change
+ * of the entered amount. For each account, fee and coin selection mode the coins are sorted and the
+ * maximum available is computed once, and recently previewed amounts are remembered so that repeated
+ * previews of the same amount don't select again. The search for a selection without change is given
+ * a smaller budget than when sending, as a preview may be made for every keystroke.
+ *
+ * Entries are dropped when a different [UnspentOutputs] instance is previewed for the same key.
+ */
+internal class FeePreviewCache(private val paymentService: PaymentService) {
+
+    private data class Key(
+        val account: String,
+        val currency: CryptoCurrency,
+        val feePerKb: BigInteger,
+        val useNewCoinSelection: Boolean
+    )
+
+    private class Entry(
+        val source: UnspentOutputs,
+        val sortedCoins: List<UnspentOutput>,
+        val maximumAvailable: Pair<BigInteger, BigInteger>
+    ) {
+        val selections = lruMap<BigInteger, SpendableUnspentOutputs>(MAX_CACHED_AMOUNTS)
+    }
+
+    private val entries = lruMap<Key, Entry>(MAX_CACHED_KEYS)
+
+    @Synchronized
+    fun preview(
+        account: String,
+        unspentCoins: UnspentOutputs,
+        amount: CryptoValue,
+        feePerKb: BigInteger,
+        useNewCoinSelection: Boolean
+    ): FeePreview {
+        val includeReplayProtection = amount.currency == CryptoCurrency.BCH
+        val key = Key(account, amount.currency, feePerKb, useNewCoinSelection)
+
+        val entry = entries[key]?.takeIf { it.source === unspentCoins }
+            ?: createEntry(unspentCoins, feePerKb, includeReplayProtection, useNewCoinSelection)
+                .also { entries[key] = it }
+
+        val selection = entry.selections.getOrPut(amount.amount) {
+            paymentService.getSpendableCoins(
+                entry.sortedCoins.toUnspentOutputs(),
+                amount.amount,
+                feePerKb,
+                includeReplayProtection,
+                useNewCoinSelection,
+                PREVIEW_BRANCH_AND_BOUND_ITERATIONS
+            )
+        }
+        return FeePreview(entry.maximumAvailable, selection)
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    private fun createEntry(
+        unspentCoins: UnspentOutputs,
+        feePerKb: BigInteger,
+        includeReplayProtection: Boolean,
+        useNewCoinSelection: Boolean
+    ): Entry {
+        // Selection sorts stably, so pre-sorting gives identical results while making later sorts near linear
+        val sortedCoins = unspentCoins.unspentOutputs.sortedByDescending { it.value }
+        return Entry(
+            source = unspentCoins,
+            sortedCoins = sortedCoins,
+            maximumAvailable = paymentService.getMaximumAvailable(
+                sortedCoins.toUnspentOutputs(),
+                feePerKb,
+                includeReplayProtection,
+                useNewCoinSelection
+            )
+        )
+    }
+
+    // Selection may add placeholder inputs to the list it is given, so each call gets its own copy
+    private fun List<UnspentOutput>.toUnspentOutputs() =
+        UnspentOutputs().also { it.unspentOutputs = ArrayList(this) }
+}
+
+private fun <K, V> lruMap(maxSize: Int): MutableMap<K, V> =
+    object : LinkedHashMap<K, V>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?) = size > maxSize
+    }
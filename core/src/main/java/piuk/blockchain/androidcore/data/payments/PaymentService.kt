@@ -5,6 +5,7 @@ import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.api.dust.DustService
 import info.blockchain.wallet.exceptions.ApiException
 import info.blockchain.wallet.exceptions.TransactionHashApiException
+import info.blockchain.wallet.payment.DEFAULT_BRANCH_AND_BOUND_ITERATIONS
 import info.blockchain.wallet.payment.Payment
 import info.blockchain.wallet.payment.SpendableUnspentOutputs
 import io.reactivex.Observable
@@ -175,6 +176,7 @@ class PaymentService(
      * @param feePerKb The current fee per kB, as a [BigInteger]
      * @param includeReplayProtection Whether or not you intend on adding a dust input for replay protection. This is
      * an extra input and therefore affects the transaction fee.
+     * @param maxSearchIterations The most steps spent searching for a selection without change
      * @return An [SpendableUnspentOutputs] object, which wraps a list of spendable outputs
      * for the given inputs
      */
@@ -184,9 +186,17 @@ class PaymentService(
         paymentAmount: BigInteger,
         feePerKb: BigInteger,
         includeReplayProtection: Boolean,
-        useNewCoinSelection: Boolean
+        useNewCoinSelection: Boolean,
+        maxSearchIterations: Int = DEFAULT_BRANCH_AND_BOUND_ITERATIONS
     ): SpendableUnspentOutputs =
-        payment.getSpendableCoins(unspentCoins, paymentAmount, feePerKb, includeReplayProtection, useNewCoinSelection)
+        payment.getSpendableCoins(
+            unspentCoins,
+            paymentAmount,
+            feePerKb,
+            includeReplayProtection,
+            useNewCoinSelection,
+            maxSearchIterations
+        )
 
     /**
      * Calculates the total amount of bitcoin that can be swept from an [UnspentOutputs]
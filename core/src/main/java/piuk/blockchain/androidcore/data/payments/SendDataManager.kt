@@ -24,6 +24,7 @@ class SendDataManager(
 ) {
 
     private val rxPinning: RxPinning = RxPinning(rxBus)
+    private val feePreviewCache = FeePreviewCache(paymentService)
 
     /**
      * Submits a Bitcoin payment to a specified BTC address and returns the transaction hash if
@@ -195,6 +196,37 @@ class SendDataManager(
         useNewCoinSelection
     )
 
+    /**
+     * Returns both the maximum available and the spendable coins for a payment amount, as shown on
+     * the send screen while an amount is being entered. Results are cached per account, so repeated
+     * previews against the same [UnspentOutputs] don't re-sort the coins or recompute the maximum.
+     * This does no network I/O but may be CPU heavy for large wallets, so call it off the main thread.
+     *
+     * @param account The xpub or address the coins belong to
+     * @param unspentCoins The account's [UnspentOutputs]
+     * @param paymentAmount The amount you wish to send, as a [CryptoValue]
+     * @param feePerKb The current fee per kB, as a [BigInteger]
+     * @return A [FeePreview] wrapping the sweepable amount and fee, and the selected coins
+     */
+    fun getFeePreview(
+        account: String,
+        unspentCoins: UnspentOutputs,
+        paymentAmount: CryptoValue,
+        feePerKb: BigInteger,
+        useNewCoinSelection: Boolean
+    ): FeePreview = feePreviewCache.preview(
+        account,
+        unspentCoins,
+        paymentAmount,
+        feePerKb,
+        useNewCoinSelection
+    )
+
+    /**
+     * Drops any cached fee previews, eg after a payment has been sent and the coins are spent.
+     */
+    fun clearFeePreviews() = feePreviewCache.clear()
+
     /**
      * Returns true if the `absoluteFee` is adequate for the number of inputs/outputs in the
      * transaction.
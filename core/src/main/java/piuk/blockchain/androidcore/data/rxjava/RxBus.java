@@ -1,13 +1,19 @@
 package piuk.blockchain.androidcore.data.rxjava;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.WeakHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.PublishSubject;
 import io.reactivex.subjects.Subject;
 import timber.log.Timber;
@@ -16,37 +22,55 @@ import timber.log.Timber;
  * A class that allows callers to register {@link PublishSubject} objects by passing in the class
  * type that you wish to emit as an event. It is intended to be instantiated as a Singleton via
  * DI.
+ * <p>
+ * Registering, unregistering and emitting are safe from any thread. Emitting doesn't lock, as the
+ * subjects of each type are held in a copy-on-write list.
+ * <p>
+ * Events emitted with {@link #emitStickyEvent(Class, Object)} are also kept as the latest event of
+ * their type, and replayed to anything registering afterwards until they're removed.
  */
 public class RxBus {
 
     /**
-     * A map of lists of {@link PublishSubject} objects, where their type is used as the
-     * key for lookups. This holds weak references, in order to prevent potential memory leaks.
+     * A map of lists of {@link Subject} objects, where their type is used as the key for lookups.
+     * Types are removed once their last subject is unregistered.
      */
     @SuppressWarnings("WeakerAccess")
     @VisibleForTesting
-    WeakHashMap<Object, List<Subject>> subjectsMap = new WeakHashMap<>();
+    final Map<Object, List<Subject>> subjectsMap = new ConcurrentHashMap<>();
+
+    private final Map<Object, Object> stickyEvents = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Object, EventMetrics> metricsMap = new ConcurrentHashMap<>();
 
     /**
      * Registers a new {@link PublishSubject} whose type matches the class {@code type} passed to
      * the method. Returns the PublishSubject so it can be subscribed to, events acted upon and
-     * threading applied.
+     * threading applied. If a sticky event of this type is held, it's replayed on subscription.
      *
      * @param type The class type of the events you wish to emit
      * @return A {@link PublishSubject} with type {@code type}
      */
-    @SuppressWarnings("Java8MapApi")
+    @SuppressWarnings("unchecked")
     public <T> Observable<T> register(@NonNull Class<T> type) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects == null) {
-            subjects = new ArrayList<>();
-            subjectsMap.put(type, subjects);
-        }
+        synchronized (subjectsMap) {
+            List<Subject> subjects = subjectsMap.get(type);
+            if (subjects == null) {
+                subjects = new CopyOnWriteArrayList<>();
+                subjectsMap.put(type, subjects);
+            }
 
-        Subject<T> subject = PublishSubject.create();
-        subjects.add(subject);
+            // Read under the lock, so that a sticky event emitted concurrently is either replayed
+            // here or dispatched to a snapshot of the subjects which includes this one, never both
+            T sticky = (T) stickyEvents.get(type);
+            // Serialized, as events may be emitted from several threads at once
+            Subject<T> subject = (sticky != null
+                    ? BehaviorSubject.createDefault(sticky)
+                    : PublishSubject.<T>create()).toSerialized();
+            subjects.add(subject);
 
-        return subject;
+            return subject;
+        }
     }
 
     /**
@@ -59,15 +83,17 @@ public class RxBus {
      */
     @SuppressWarnings("SuspiciousMethodCalls")
     public void unregister(@NonNull Class type, @NonNull Observable observable) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects != null) {
-            subjects.remove(observable);
+        synchronized (subjectsMap) {
+            List<Subject> subjects = subjectsMap.get(type);
+            if (subjects != null) {
+                subjects.remove(observable);
 
-            if (subjects.isEmpty()) {
-                subjectsMap.remove(type);
+                if (subjects.isEmpty()) {
+                    subjectsMap.remove(type);
+                }
+            } else {
+                Timber.w("unregister of type " + type.getSimpleName() + " failed, as no PublishSubject with a matching type was found");
             }
-        } else {
-            Timber.w("unregister of type " + type.getSimpleName() + " failed, as no PublishSubject with a matching type was found");
         }
     }
 
@@ -79,15 +105,216 @@ public class RxBus {
      *                emitted from
      * @param content The actual object to be emitted
      */
-    @SuppressWarnings("unchecked")
     public void emitEvent(@NonNull Class type, @NonNull Object content) {
-        List<Subject> subjects = subjectsMap.get(type);
-        if (subjects != null && !subjects.isEmpty()) {
+        dispatch(type, content, subjectsMap.get(type));
+    }
+
+    /**
+     * Emits an event as {@link #emitEvent(Class, Object)} does, and keeps it to be replayed to
+     * anything registering for {@code type} later, until replaced or removed.
+     *
+     * @param type    The class type of object to be emitted
+     * @param content The actual object to be emitted
+     */
+    public void emitStickyEvent(@NonNull Class type, @NonNull Object content) {
+        List<Subject> subjects = null;
+        synchronized (subjectsMap) {
+            stickyEvents.put(type, content);
+            // Snapshot the subjects registered before the event was kept, as any registering after
+            // it has been kept replay it instead
+            List<Subject> registered = subjectsMap.get(type);
+            if (registered != null) {
+                subjects = new ArrayList<>(registered);
+            }
+        }
+        dispatch(type, content, subjects);
+    }
+
+    /**
+     * Removes the sticky event of type {@code type}, if any. Subjects which have already replayed it
+     * are unaffected.
+     *
+     * @param type The class type of the sticky event
+     */
+    public void removeStickyEvent(@NonNull Class type) {
+        synchronized (subjectsMap) {
+            stickyEvents.remove(type);
+        }
+    }
+
+    /**
+     * Removes every sticky event, for instance when the session they describe ends.
+     */
+    public void clearStickyEvents() {
+        synchronized (subjectsMap) {
+            stickyEvents.clear();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the dispatch metrics of every type emitted so far.
+     *
+     * @return A map of event type to {@link Metrics}
+     */
+    @NonNull
+    public Map<Class, Metrics> getMetrics() {
+        Map<Class, Metrics> metrics = new HashMap<>();
+        for (Map.Entry<Object, EventMetrics> entry : metricsMap.entrySet()) {
+            metrics.put((Class) entry.getKey(), entry.getValue().snapshot(subscriberCount(entry.getKey())));
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns a snapshot of the dispatch metrics of a type, or null if it has never been emitted.
+     *
+     * @param type The class type of the events
+     * @return {@link Metrics}, or null
+     */
+    @Nullable
+    public Metrics getMetrics(@NonNull Class type) {
+        EventMetrics metrics = metricsMap.get(type);
+        return metrics != null ? metrics.snapshot(subscriberCount(type)) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dispatch(Class type, Object content, @Nullable List<Subject> subjects) {
+        long start = System.nanoTime();
+        int delivered = 0;
+        if (subjects != null) {
             for (Subject subject : subjects) {
                 subject.onNext(content);
+                delivered++;
             }
-        } else {
+        }
+        getEventMetrics(type).record(delivered, System.nanoTime() - start);
+
+        if (delivered == 0) {
             Timber.i("emitEvent of type " + type.getSimpleName() + " failed, as no PublishSubject was registered");
         }
     }
+
+    private EventMetrics getEventMetrics(Class type) {
+        EventMetrics metrics = metricsMap.get(type);
+        if (metrics == null) {
+            metrics = new EventMetrics();
+            EventMetrics existing = metricsMap.putIfAbsent(type, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+
+    private int subscriberCount(Object type) {
+        List<Subject> subjects = subjectsMap.get(type);
+        return subjects != null ? subjects.size() : 0;
+    }
+
+    private static class EventMetrics {
+
+        private final AtomicLong emitted = new AtomicLong();
+        private final AtomicLong undelivered = new AtomicLong();
+        private final AtomicLong deliveries = new AtomicLong();
+        private final AtomicLong totalDispatchNanos = new AtomicLong();
+        private final AtomicLong maxDispatchNanos = new AtomicLong();
+
+        void record(int delivered, long dispatchNanos) {
+            emitted.incrementAndGet();
+            if (delivered == 0) {
+                undelivered.incrementAndGet();
+            }
+            deliveries.addAndGet(delivered);
+            totalDispatchNanos.addAndGet(dispatchNanos);
+
+            long max = maxDispatchNanos.get();
+            while (dispatchNanos > max && !maxDispatchNanos.compareAndSet(max, dispatchNanos)) {
+                max = maxDispatchNanos.get();
+            }
+        }
+
+        Metrics snapshot(int subscribers) {
+            return new Metrics(
+                    emitted.get(),
+                    undelivered.get(),
+                    deliveries.get(),
+                    subscribers,
+                    totalDispatchNanos.get(),
+                    maxDispatchNanos.get()
+            );
+        }
+    }
+
+    /**
+     * Dispatch counters for a single event type. Dispatch times cover delivering an event to every
+     * registered subject, which includes any work subscribers do synchronously.
+     */
+    public static class Metrics {
+
+        private final long emittedCount;
+        private final long undeliveredCount;
+        private final long deliveryCount;
+        private final int subscriberCount;
+        private final long totalDispatchNanos;
+        private final long maxDispatchNanos;
+
+        Metrics(long emittedCount,
+                long undeliveredCount,
+                long deliveryCount,
+                int subscriberCount,
+                long totalDispatchNanos,
+                long maxDispatchNanos) {
+            this.emittedCount = emittedCount;
+            this.undeliveredCount = undeliveredCount;
+            this.deliveryCount = deliveryCount;
+            this.subscriberCount = subscriberCount;
+            this.totalDispatchNanos = totalDispatchNanos;
+            this.maxDispatchNanos = maxDispatchNanos;
+        }
+
+        public long getEmittedCount() {
+            return emittedCount;
+        }
+
+        /**
+         * @return The number of events emitted while nothing was registered for their type
+         */
+        public long getUndeliveredCount() {
+            return undeliveredCount;
+        }
+
+        /**
+         * @return The number of times an event was delivered to a subject
+         */
+        public long getDeliveryCount() {
+            return deliveryCount;
+        }
+
+        /**
+         * @return The number of subjects currently registered for the type
+         */
+        public int getSubscriberCount() {
+            return subscriberCount;
+        }
+
+        public long getAverageDispatchNanos() {
+            return emittedCount > 0 ? totalDispatchNanos / emittedCount : 0;
+        }
+
+        public long getMaxDispatchNanos() {
+            return maxDispatchNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Metrics{" +
+                    "emitted=" + emittedCount +
+                    ", undelivered=" + undeliveredCount +
+                    ", deliveries=" + deliveryCount +
+                    ", subscribers=" + subscriberCount +
+                    ", averageDispatchNanos=" + getAverageDispatchNanos() +
+                    ", maxDispatchNanos=" + maxDispatchNanos +
+                    '}';
+        }
+    }
 }
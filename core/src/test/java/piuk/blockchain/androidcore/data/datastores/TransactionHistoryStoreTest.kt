@@ -0,0 +1,199 @@
+package piuk.blockchain.androidcore.data.datastores
+
+import com.blockchain.serialization.BigIntegerAdapter
+import com.squareup.moshi.Moshi
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.multiaddress.TransactionSummary
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.math.BigInteger
+
+class TransactionHistoryStoreTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val moshi = Moshi.Builder().add(BigIntegerAdapter()).build()
+
+    private fun store() = TransactionHistoryStore(temporaryFolder.root, moshi)
+
+    private class Server(var transactions: List<TransactionSummary>) {
+        val requests = mutableListOf<Pair<Int, Int>>()
+
+        fun fetchPage(limit: Int, offset: Int): List<TransactionSummary> {
+            requests.add(limit to offset)
+            return transactions.drop(offset).take(limit)
+        }
+    }
+
+    private fun transaction(hash: String, time: Long, blockHeight: Long, latestBlock: Long = 100) =
+        TransactionSummary().apply {
+            this.hash = hash
+            this.time = time
+            this.blockHeight = blockHeight
+            confirmations = if (blockHeight > 0) (latestBlock - blockHeight + 1).toInt() else 0
+            isPending = blockHeight == 0L
+            direction = TransactionSummary.Direction.RECEIVED
+            total = BigInteger.TEN
+            fee = BigInteger.ONE
+            inputsMap = hashMapOf("input" to BigInteger.TEN)
+            outputsMap = hashMapOf("output" to BigInteger.TEN)
+        }
+
+    private fun history(count: Int, latestBlock: Long = 100) =
+        (count downTo 1).map { transaction("tx$it", it * 1000L, it.toLong(), latestBlock) }
+
+    private fun TransactionHistoryStore.sync(server: Server, limit: Int = 50) =
+        sync(CryptoCurrency.BTC, "xpub", limit, server::fetchPage)
+
+    private fun List<TransactionSummary>.hashes() = map { it.hash }
+
+    @Test
+    fun `first sync fetches a full page`() {
+        val server = Server(history(30))
+
+        store().sync(server).hashes() `should equal` server.transactions.hashes()
+
+        server.requests `should equal` listOf(50 to 0)
+    }
+
+    @Test
+    fun `later syncs only fetch until a stored transaction`() {
+        val server = Server(history(30))
+        val store = store()
+        store.sync(server)
+
+        server.transactions = (45 downTo 31).map { transaction("tx$it", it * 1000L, it.toLong()) } +
+            history(30)
+        server.requests.clear()
+
+        store.sync(server).hashes() `should equal` server.transactions.hashes()
+
+        server.requests `should equal` listOf(10 to 0, 10 to 10)
+    }
+
+    @Test
+    fun `confirmations are updated from the latest block`() {
+        val server = Server(history(30, latestBlock = 100))
+        val store = store()
+        store.sync(server)
+
+        server.transactions = listOf(transaction("tx31", 31000, 31, latestBlock = 120)) +
+            history(30, latestBlock = 120)
+
+        store.sync(server).map { it.confirmations } `should equal` (31 downTo 1).map { 120 - it + 1 }
+    }
+
+    @Test
+    fun `earlier results are not changed when confirmations are updated`() {
+        val server = Server(history(30, latestBlock = 100))
+        val store = store()
+        val first = store.sync(server)
+
+        server.transactions = listOf(transaction("tx31", 31000, 31, latestBlock = 120)) +
+            history(30, latestBlock = 120)
+        store.sync(server)
+
+        first.map { it.confirmations } `should equal` (30 downTo 1).map { 100 - it + 1 }
+    }
+
+    @Test
+    fun `dropped pending transactions are removed`() {
+        val server = Server(listOf(transaction("pending", 31000, 0)) + history(30))
+        val store = store()
+        store.sync(server)
+
+        server.transactions = listOf(transaction("tx32", 32000, 32)) + history(30)
+
+        store.sync(server).hashes() `should equal` server.transactions.hashes()
+    }
+
+    @Test
+    fun `pending transactions are confirmed`() {
+        val server = Server(listOf(transaction("tx31", 31000, 0)) + history(30))
+        val store = store()
+        store.sync(server)
+
+        server.transactions = listOf(transaction("tx31", 31000, 31)) + history(30)
+
+        store.sync(server).first().apply {
+            confirmations `should equal` 70
+            isPending `should equal` false
+        }
+    }
+
+    @Test
+    fun `inserted transactions are held until a sync replaces them`() {
+        val server = Server(history(30))
+        val store = store()
+        store.sync(server)
+
+        store.insert(CryptoCurrency.BTC, "xpub", transaction("tx31", 31000, 0))
+        store.stored(CryptoCurrency.BTC, "xpub").first().apply {
+            hash `should equal` "tx31"
+            isPending `should equal` true
+        }
+
+        server.transactions = listOf(transaction("tx31", 31000, 31)) + history(30)
+
+        store.sync(server).first().apply {
+            hash `should equal` "tx31"
+            confirmations `should equal` 70
+        }
+    }
+
+    @Test
+    fun `transactions are not inserted without stored history or twice`() {
+        val server = Server(history(30))
+        val store = store()
+        store.sync(server)
+
+        store.insert(CryptoCurrency.BCH, "xpub", transaction("tx31", 31000, 0))
+        store.insert(CryptoCurrency.BTC, "xpub", transaction("tx30", 30000, 0))
+
+        store.stored(CryptoCurrency.BCH, "xpub") `should equal` emptyList()
+        store.stored(CryptoCurrency.BTC, "xpub").hashes() `should equal` server.transactions.hashes()
+    }
+
+    @Test
+    fun `history is kept across instances`() {
+        val server = Server(history(30))
+        store().sync(server)
+
+        store().stored(CryptoCurrency.BTC, "xpub").apply {
+            hashes() `should equal` server.transactions.hashes()
+            first().total `should equal` BigInteger.TEN
+            first().inputsMap `should equal` hashMapOf("input" to BigInteger.TEN)
+            first().direction `should equal` TransactionSummary.Direction.RECEIVED
+        }
+        store().stored(CryptoCurrency.BCH, "xpub") `should equal` emptyList()
+    }
+
+    @Test
+    fun `history is replaced when no stored transaction is reached`() {
+        val server = Server(history(5))
+        val store = store()
+        store.sync(server)
+
+        server.transactions = (100 downTo 41).map { transaction("tx$it", it * 1000L, it.toLong(), 200) }
+        server.requests.clear()
+
+        store.sync(server, limit = 20).hashes() `should equal` server.transactions.take(20).hashes()
+        store.stored(CryptoCurrency.BTC, "xpub").size `should equal` 20
+        server.requests `should equal` listOf(10 to 0, 10 to 10)
+    }
+
+    @Test
+    fun `clear removes stored history`() {
+        val server = Server(history(30))
+        store().sync(server)
+
+        store().apply {
+            clear(CryptoCurrency.BTC)
+            stored(CryptoCurrency.BTC, "xpub") `should equal` emptyList()
+        }
+        store().stored(CryptoCurrency.BTC, "xpub") `should equal` emptyList()
+    }
+}
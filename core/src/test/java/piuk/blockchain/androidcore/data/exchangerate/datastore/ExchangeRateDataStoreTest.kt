@@ -0,0 +1,93 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.argumentCaptor
+import com.nhaarman.mockito_kotlin.eq
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.data.PriceDatum
+import io.reactivex.Single
+import org.amshove.kluent.`should equal`
+import org.junit.Before
+import org.junit.Test
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+import piuk.blockchain.androidcore.utils.PersistentPrefs
+
+class ExchangeRateDataStoreTest {
+
+    private val exchangeRateService: ExchangeRateService = mock()
+    private val historicPriceCache: HistoricPriceCache = mock()
+    private val prefs: PersistentPrefs = mock {
+        on { getValue(any(), eq("")) }.thenReturn("")
+    }
+
+    @Before
+    fun setUp() {
+        CryptoCurrency.values().forEach {
+            whenever(exchangeRateService.getExchangeRateMap(it)).thenReturn(Single.just(emptyMap()))
+        }
+    }
+
+    @Test
+    fun `last price is zero before any update`() {
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache)
+            .getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 0.0
+    }
+
+    @Test
+    fun `last price comes from the latest update`() {
+        givenPrices(CryptoCurrency.BTC, "USD" to 8000.0, "GBP" to 6000.0)
+        givenPrices(CryptoCurrency.ETHER, "USD" to 200.0)
+
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache).apply {
+            updateExchangeRates().test().assertComplete()
+
+            getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 8000.0
+            getLastPrice(CryptoCurrency.BTC, "GBP") `should equal` 6000.0
+            getLastPrice(CryptoCurrency.ETHER, "USD") `should equal` 200.0
+            getLastPrice(CryptoCurrency.ETHER, "GBP") `should equal` 0.0
+            getFiatLastPrice("USD", "GBP") `should equal` 8000.0 / 6000.0
+        }
+    }
+
+    @Test
+    fun `prices are saved once per update and restored on creation`() {
+        givenPrices(CryptoCurrency.BTC, "USD" to 8000.0)
+        givenPrices(CryptoCurrency.XLM, "EUR" to 0.05)
+
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache).updateExchangeRates().test().assertComplete()
+
+        val saved = argumentCaptor<String>()
+        verify(prefs, times(1)).setValue(eq("LAST_KNOWN_EXCHANGE_RATES"), saved.capture())
+        whenever(prefs.getValue("LAST_KNOWN_EXCHANGE_RATES", "")).thenReturn(saved.firstValue)
+
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache).apply {
+            getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 8000.0
+            getLastPrice(CryptoCurrency.XLM, "EUR") `should equal` 0.05
+        }
+    }
+
+    @Test
+    fun `malformed saved prices are skipped`() {
+        whenever(prefs.getValue("LAST_KNOWN_EXCHANGE_RATES", ""))
+            .thenReturn("BTC:USD:8000.0;DOGE:USD:1.0;BTC:GBP:abc;ETHER")
+
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache).apply {
+            getLastPrice(CryptoCurrency.BTC, "USD") `should equal` 8000.0
+            getLastPrice(CryptoCurrency.BTC, "GBP") `should equal` 0.0
+        }
+    }
+
+    @Test(expected = IllegalArgumentException::class)
+    fun `last price requires a fiat currency`() {
+        ExchangeRateDataStore(exchangeRateService, prefs, historicPriceCache).getLastPrice(CryptoCurrency.BTC, "")
+    }
+
+    private fun givenPrices(cryptoCurrency: CryptoCurrency, vararg prices: Pair<String, Double>) {
+        whenever(exchangeRateService.getExchangeRateMap(cryptoCurrency))
+            .thenReturn(Single.just(prices.map { (fiat, price) -> fiat to PriceDatum(price = price) }.toMap()))
+    }
+}
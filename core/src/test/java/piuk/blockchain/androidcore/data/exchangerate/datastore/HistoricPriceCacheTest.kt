@@ -0,0 +1,162 @@
+package piuk.blockchain.androidcore.data.exchangerate.datastore
+
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.prices.TimeInterval
+import info.blockchain.wallet.prices.data.PriceDatum
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import piuk.blockchain.androidcore.data.exchangerate.ExchangeRateService
+
+class HistoricPriceCacheTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    private val exchangeRateService: ExchangeRateService = mock()
+
+    private val day = 86400L
+    private val now = 10 * day + 3600
+
+    private fun cache(maxDiskBuckets: Int = 1000) =
+        HistoricPriceCache(exchangeRateService, temporaryFolder.root, maxDiskBuckets) { now }
+
+    private fun givenSeries(start: Long, vararg points: Pair<Long, Double>) {
+        whenever(
+            exchangeRateService.getHistoricPriceSeries(
+                eq(CryptoCurrency.BTC),
+                eq("USD"),
+                eq(start),
+                any(),
+                eq(TimeInterval.ONE_HOUR)
+            )
+        ).thenReturn(Single.just(points.map { PriceDatum(it.first, it.second) }))
+    }
+
+    @Test
+    fun `a single series request prices every later day`() {
+        givenSeries(
+            2 * day,
+            2 * day to 100.0,
+            2 * day + 3600 to 200.0,
+            5 * day to 500.0
+        )
+
+        cache().apply {
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day + 1800).test().values() `should equal` listOf(150.0)
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 5 * day).test().values() `should equal` listOf(500.0)
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day + 7200).test().values() `should equal` listOf(200.0)
+
+            hitCount `should equal` 2L
+            missCount `should equal` 1L
+        }
+        verify(exchangeRateService, times(1)).getHistoricPriceSeries(any(), any(), any(), any(), any())
+        verify(exchangeRateService, never()).getHistoricPrice(any(), any(), any())
+    }
+
+    @Test
+    fun `today is priced from the single price endpoint`() {
+        whenever(exchangeRateService.getHistoricPrice(CryptoCurrency.BTC, "USD", now))
+            .thenReturn(Single.just(1000.0))
+
+        cache().getHistoricPrice(CryptoCurrency.BTC, "USD", now).test().values() `should equal` listOf(1000.0)
+
+        verify(exchangeRateService, never()).getHistoricPriceSeries(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `falls back to the single price endpoint when the series fails`() {
+        whenever(
+            exchangeRateService.getHistoricPriceSeries(
+                eq(CryptoCurrency.BTC),
+                eq("USD"),
+                eq(2 * day),
+                any(),
+                eq(TimeInterval.ONE_HOUR)
+            )
+        ).thenReturn(Single.error(RuntimeException()))
+        whenever(exchangeRateService.getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day))
+            .thenReturn(Single.just(123.0))
+
+        cache().getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test().values() `should equal` listOf(123.0)
+    }
+
+    @Test
+    fun `concurrent misses share one series request`() {
+        val series = SingleSubject.create<List<PriceDatum>>()
+        whenever(exchangeRateService.getHistoricPriceSeries(eq(CryptoCurrency.BTC), eq("USD"), any(), any(), any()))
+            .thenReturn(series)
+
+        val cache = cache()
+        val first = cache.getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test()
+        val second = cache.getHistoricPrice(CryptoCurrency.BTC, "USD", 3 * day).test()
+        series.onSuccess(listOf(PriceDatum(2 * day, 100.0), PriceDatum(3 * day, 300.0)))
+
+        first.values() `should equal` listOf(100.0)
+        second.values() `should equal` listOf(300.0)
+        verify(exchangeRateService, times(1)).getHistoricPriceSeries(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `completed days are read back from disk`() {
+        givenSeries(2 * day, 2 * day to 100.0, 3 * day to 300.0)
+        cache().getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test()
+
+        cache().apply {
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 3 * day).test().values() `should equal` listOf(300.0)
+            hitCount `should equal` 1L
+        }
+        verify(exchangeRateService, times(1)).getHistoricPriceSeries(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `a series stops at the first day already cached`() {
+        givenSeries(5 * day, 5 * day to 500.0, 6 * day to 600.0)
+        givenSeries(2 * day, 2 * day to 200.0, 4 * day to 400.0)
+
+        cache().apply {
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 5 * day).test()
+            getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test().values() `should equal` listOf(200.0)
+        }
+
+        verify(exchangeRateService).getHistoricPriceSeries(
+            CryptoCurrency.BTC, "USD", 5 * day, 10 * day - 1, TimeInterval.ONE_HOUR
+        )
+        verify(exchangeRateService).getHistoricPriceSeries(
+            CryptoCurrency.BTC, "USD", 2 * day, 5 * day - 1, TimeInterval.ONE_HOUR
+        )
+    }
+
+    @Test
+    fun `a series covers at most a month`() {
+        val now = 100 * day
+        whenever(exchangeRateService.getHistoricPriceSeries(any(), any(), any(), any(), any()))
+            .thenReturn(Single.just(listOf(PriceDatum(2 * day, 200.0))))
+
+        HistoricPriceCache(exchangeRateService, temporaryFolder.root) { now }
+            .getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test().values() `should equal` listOf(200.0)
+
+        verify(exchangeRateService).getHistoricPriceSeries(
+            CryptoCurrency.BTC, "USD", 2 * day, 33 * day - 1, TimeInterval.ONE_HOUR
+        )
+    }
+
+    @Test
+    fun `disk cache is bounded, keeping the requested day`() {
+        givenSeries(2 * day, 2 * day to 100.0, 3 * day to 300.0, 4 * day to 400.0)
+
+        cache(maxDiskBuckets = 2).getHistoricPrice(CryptoCurrency.BTC, "USD", 2 * day).test()
+
+        temporaryFolder.root.list()!!.toSet() `should equal` setOf("BTC-USD-2", "BTC-USD-4")
+    }
+}
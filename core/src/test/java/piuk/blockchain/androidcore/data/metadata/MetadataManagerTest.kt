@@ -4,6 +4,9 @@ import com.blockchain.android.testutils.rxInit
 import com.nhaarman.mockito_kotlin.any
 import com.nhaarman.mockito_kotlin.eq
 import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.whenever
 import info.blockchain.wallet.exceptions.InvalidCredentialsException
 import info.blockchain.wallet.metadata.MetadataDerivation
@@ -11,6 +14,7 @@ import info.blockchain.wallet.metadata.MetadataInteractor
 import info.blockchain.wallet.metadata.data.RemoteMetadataNodes
 import io.reactivex.Completable
 import io.reactivex.Maybe
+import io.reactivex.subjects.CompletableSubject
 import org.bitcoinj.crypto.HDKeyDerivation
 import org.bitcoinj.params.BitcoinMainNetParams
 import org.junit.Before
@@ -158,4 +162,55 @@ class MetadataManagerTest {
             .then { subject.saveToMetadata("metadata save payload", 0) }.test()
         test.assertError { it is IllegalStateException }
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `saves of the same type are coalesced while one is in flight`() {
+        val firstSave = CompletableSubject.create()
+        whenever(metadataInteractor.loadRemoteMetadata(any())).thenReturn(Maybe.just(fakeRemoteMetadata))
+        whenever(metadataInteractor.putMetadata(any(), any())).thenReturn(Completable.complete())
+        whenever(metadataInteractor.putMetadata(eq("first"), any())).thenReturn(firstSave)
+        subject.attemptMetadataSetup().test().assertComplete()
+
+        val first = subject.saveToMetadata("first", 0).test()
+        val second = subject.saveToMetadata("second", 0).test()
+        val third = subject.saveToMetadata("third", 0).test()
+        val otherType = subject.saveToMetadata("other", 1).test()
+
+        first.assertNotComplete()
+        second.assertNotComplete()
+        otherType.assertComplete()
+
+        firstSave.onComplete()
+
+        first.assertComplete()
+        second.assertComplete()
+        third.assertComplete()
+        verify(metadataInteractor, never()).putMetadata(eq("second"), any())
+        verify(metadataInteractor).putMetadata(eq("third"), any())
+    }
+
+    @Test
+    fun `prefetched metadata is served from memory`() {
+        whenever(metadataInteractor.loadRemoteMetadata(any())).thenReturn(Maybe.just(fakeRemoteMetadata))
+        subject.attemptMetadataSetup().test().assertComplete()
+
+        subject.prefetchMetadata(listOf(1, 2)).test().assertComplete()
+        subject.fetchMetadata(1).test().assertValue(fakeRemoteMetadata)
+        subject.fetchMetadata(2).test().assertValue(fakeRemoteMetadata)
+
+        // Once for the metadata nodes, and once for each type
+        verify(metadataInteractor, times(3)).loadRemoteMetadata(any())
+    }
+
+    @Test
+    fun `saved metadata is served from memory`() {
+        whenever(metadataInteractor.loadRemoteMetadata(any())).thenReturn(Maybe.just(fakeRemoteMetadata))
+        whenever(metadataInteractor.putMetadata(any(), any())).thenReturn(Completable.complete())
+        subject.attemptMetadataSetup().test().assertComplete()
+
+        subject.saveToMetadata("metadata save payload", 0).test().assertComplete()
+        subject.fetchMetadata(0).test().assertValue("metadata save payload")
+
+        verify(metadataInteractor, times(1)).loadRemoteMetadata(any())
+    }
+}
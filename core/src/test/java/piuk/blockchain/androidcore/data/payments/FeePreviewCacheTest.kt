@@ -0,0 +1,113 @@
+package piuk.blockchain.androidcore.data.payments
+
+import com.blockchain.testutils.bitcoin
+import com.blockchain.testutils.bitcoinCash
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.api.data.UnspentOutput
+import info.blockchain.api.data.UnspentOutputs
+import info.blockchain.wallet.payment.PREVIEW_BRANCH_AND_BOUND_ITERATIONS
+import info.blockchain.wallet.payment.SpendableUnspentOutputs
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.apache.commons.lang3.tuple.Pair
+import org.junit.Before
+import org.junit.Test
+import java.math.BigInteger
+
+class FeePreviewCacheTest {
+
+    private val paymentService: PaymentService = mock()
+    private val subject = FeePreviewCache(paymentService)
+
+    private val fee = 1000.toBigInteger()
+    private val maximumAvailable = Pair.of(BigInteger.TEN, BigInteger.ONE)
+    private val spendable = SpendableUnspentOutputs()
+
+    private fun unspentOutputs(vararg values: Long) = UnspentOutputs().apply {
+        unspentOutputs = ArrayList(values.map { UnspentOutput().apply { value = it.toBigInteger() } })
+    }
+
+    @Before
+    fun setUp() {
+        whenever(paymentService.getMaximumAvailable(any(), any(), any(), any())).thenReturn(maximumAvailable)
+        whenever(paymentService.getSpendableCoins(any(), any(), any(), any(), any(), any())).thenReturn(spendable)
+    }
+
+    @Test
+    fun `repeated previews of the same amount select once`() {
+        val coins = unspentOutputs(1, 2, 3)
+
+        repeat(3) {
+            subject.preview("xpub", coins, 1.bitcoin(), fee, true).apply {
+                maximumAvailable `should be` this@FeePreviewCacheTest.maximumAvailable
+                spendableCoins `should be` spendable
+            }
+        }
+
+        verify(paymentService, times(1)).getMaximumAvailable(any(), eq(fee), eq(false), eq(true))
+        verify(paymentService, times(1)).getSpendableCoins(
+            any(),
+            eq(1.bitcoin().amount),
+            eq(fee),
+            eq(false),
+            eq(true),
+            eq(PREVIEW_BRANCH_AND_BOUND_ITERATIONS)
+        )
+    }
+
+    @Test
+    fun `new amounts reuse the maximum available`() {
+        val coins = unspentOutputs(1, 2, 3)
+
+        subject.preview("xpub", coins, 1.bitcoin(), fee, true)
+        subject.preview("xpub", coins, 2.bitcoin(), fee, true)
+
+        verify(paymentService, times(1)).getMaximumAvailable(any(), any(), any(), any())
+        verify(paymentService, times(2)).getSpendableCoins(any(), any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `new coins invalidate the preview`() {
+        subject.preview("xpub", unspentOutputs(1, 2, 3), 1.bitcoin(), fee, true)
+        subject.preview("xpub", unspentOutputs(1, 2, 3), 1.bitcoin(), fee, true)
+
+        verify(paymentService, times(2)).getMaximumAvailable(any(), any(), any(), any())
+        verify(paymentService, times(2)).getSpendableCoins(any(), any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun `bch previews add replay protection`() {
+        subject.preview("xpub", unspentOutputs(1, 2, 3), 1.bitcoinCash(), fee, false)
+
+        verify(paymentService).getMaximumAvailable(any(), eq(fee), eq(true), eq(false))
+        verify(paymentService).getSpendableCoins(
+            any(),
+            eq(1.bitcoinCash().amount),
+            eq(fee),
+            eq(true),
+            eq(false),
+            eq(PREVIEW_BRANCH_AND_BOUND_ITERATIONS)
+        )
+    }
+
+    @Test
+    fun `selection is given sorted copies of the coins`() {
+        val coins = unspentOutputs(1, 3, 2)
+        whenever(paymentService.getSpendableCoins(any(), any(), any(), any(), any(), any())).thenAnswer {
+            val given = it.getArgument<UnspentOutputs>(0)
+            given.unspentOutputs.map { coin -> coin.value.toLong() } `should equal` listOf(3L, 2L, 1L)
+            given.unspentOutputs.add(UnspentOutput())
+            spendable
+        }
+
+        subject.preview("xpub", coins, 1.bitcoin(), fee, true)
+        subject.preview("xpub", coins, 2.bitcoin(), fee, true)
+
+        coins.unspentOutputs.size `should equal` 3
+    }
+}
@@ -11,6 +11,7 @@ import info.blockchain.wallet.api.dust.DustService
 import info.blockchain.wallet.api.dust.data.DustInput
 import info.blockchain.wallet.exceptions.ApiException
 import info.blockchain.wallet.exceptions.TransactionHashApiException
+import info.blockchain.wallet.payment.DEFAULT_BRANCH_AND_BOUND_ITERATIONS
 import info.blockchain.wallet.payment.InsufficientMoneyException
 import info.blockchain.wallet.payment.Payment
 import info.blockchain.wallet.payment.SpendableUnspentOutputs
@@ -562,13 +563,29 @@ class PaymentServiceTest {
         val mockPayment = mock(BigInteger::class.java)
         val mockFee = mock(BigInteger::class.java)
         val mockOutputs = mock(SpendableUnspentOutputs::class.java)
-        whenever(payment.getSpendableCoins(mockUnspent, mockPayment, mockFee, false, useNewCoinSelection))
+        whenever(
+            payment.getSpendableCoins(
+                mockUnspent,
+                mockPayment,
+                mockFee,
+                false,
+                useNewCoinSelection,
+                DEFAULT_BRANCH_AND_BOUND_ITERATIONS
+            )
+        )
             .thenReturn(mockOutputs)
         // Act
         val result = subject.getSpendableCoins(mockUnspent, mockPayment, mockFee, false, useNewCoinSelection)
         // Assert
         assertEquals(mockOutputs, result)
-        verify(payment).getSpendableCoins(mockUnspent, mockPayment, mockFee, false, useNewCoinSelection)
+        verify(payment).getSpendableCoins(
+            mockUnspent,
+            mockPayment,
+            mockFee,
+            false,
+            useNewCoinSelection,
+            DEFAULT_BRANCH_AND_BOUND_ITERATIONS
+        )
         verifyNoMoreInteractions(payment)
     }
 
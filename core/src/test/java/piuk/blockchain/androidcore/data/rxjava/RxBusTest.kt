@@ -8,6 +8,8 @@ import org.amshove.kluent.shouldNotHaveKey
 import org.junit.Before
 import org.junit.Test
 import piuk.blockchain.android.testutils.RxTest
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 
 class RxBusTest : RxTest() {
 
@@ -130,4 +132,87 @@ class RxBusTest : RxTest() {
         testObserver.assertNoErrors()
         testObserver.assertNoValues()
     }
-}
\ No newline at end of file
+
+    @Test
+    fun stickyEventReplayedToLaterRegistrations() {
+        // Arrange
+        val type = String::class.java
+        val earlyObserver = subject.register(type).test()
+        // Act
+        subject.emitStickyEvent(type, "STICKY")
+        val lateObserver = subject.register(type).test()
+        subject.emitEvent(type, "VALUE")
+        // Assert
+        earlyObserver.values() shouldEqual listOf("STICKY", "VALUE")
+        lateObserver.values() shouldEqual listOf("STICKY", "VALUE")
+    }
+
+    @Test
+    fun stickyEventNotReplayedOnceCleared() {
+        // Arrange
+        val type = String::class.java
+        subject.emitStickyEvent(type, "STICKY")
+        // Act
+        subject.clearStickyEvents()
+        val testObserver = subject.register(type).test()
+        // Assert
+        testObserver.assertNoValues()
+    }
+
+    @Test
+    fun plainEventNotReplayed() {
+        // Arrange
+        val type = String::class.java
+        subject.emitEvent(type, "VALUE")
+        // Act
+        val testObserver = subject.register(type).test()
+        // Assert
+        testObserver.assertNoValues()
+    }
+
+    @Test
+    fun metricsCountEmissionsAndSubscribers() {
+        // Arrange
+        val type = String::class.java
+        subject.emitEvent(type, "UNDELIVERED")
+        subject.register(type)
+        subject.register(type)
+        // Act
+        subject.emitEvent(type, "VALUE")
+        subject.emitEvent(type, "VALUE")
+        // Assert
+        subject.getMetrics(type)!!.apply {
+            emittedCount shouldEqual 3L
+            undeliveredCount shouldEqual 1L
+            deliveryCount shouldEqual 4L
+            subscriberCount shouldEqual 2
+        }
+        subject.getMetrics(Integer::class.java) shouldEqual null
+        subject.getMetrics().keys shouldEqual setOf<Class<*>>(type)
+    }
+
+    @Test
+    fun concurrentRegistrationAndEmission() {
+        // Arrange
+        val type = String::class.java
+        val threads = 8
+        val perThread = 500
+        val executor = Executors.newFixedThreadPool(threads)
+        val received = AtomicInteger()
+        subject.register(type).subscribe { received.incrementAndGet() }
+        // Act
+        (1..threads).map {
+            executor.submit {
+                repeat(perThread) {
+                    val observable = subject.register(type)
+                    subject.emitEvent(type, "VALUE")
+                    subject.unregister(type, observable)
+                }
+            }
+        }.forEach { it.get() }
+        executor.shutdown()
+        // Assert
+        received.get() shouldEqual threads * perThread
+        subject.subjectsMap[type]!!.size shouldEqual 1
+    }
+}
@@ -246,6 +246,11 @@ internal interface Nabu {
         @Query("ccy") cryptoSymbol: String
     ): Single<Response<SimpleBuyBalanceResponse>>
 
+    @GET(NABU_SIMPLE_BUY_ASSET_BALANCE)
+    fun getBalanceForAllAssets(
+        @Header("authorization") authorization: String
+    ): Single<Response<Map<String, SimpleBuyBalanceResponse>>>
+
     @Headers("blockchain-origin: simplebuy")
     @POST(NABU_SIMPLE_BUY_BALANCE_TRANSFER)
     fun transferFunds(
@@ -31,6 +31,9 @@ interface CustodialWalletManager {
         crypto: CryptoCurrency
     ): Maybe<CryptoValue>
 
+    // The balance of every asset held, in a single request. Assets without a balance are left out
+    fun getBalanceForAllAssets(): Single<Map<CryptoCurrency, CryptoValue>>
+
     fun getBuyLimitsAndSupportedCryptoCurrencies(
         nabuOfflineTokenResponse: NabuOfflineTokenResponse,
         fiatCurrency: String
@@ -116,6 +116,8 @@ interface NabuDataManager {
 
     fun currentToken(offlineToken: NabuOfflineTokenResponse): Single<NabuSessionTokenResponse>
 
+    fun tokenRefreshStats(): NabuSessionTokenRefresher.Stats
+
     fun linkWalletWithMercury(offlineTokenResponse: NabuOfflineTokenResponse): Single<String>
 
     fun linkMercuryWithWallet(
@@ -143,7 +145,8 @@ internal class NabuDataManagerImpl(
     private val userReporter: NabuUserReporter,
     private val walletReporter: WalletReporter,
     private val payloadDataManager: PayloadDataManager,
-    private val prefs: PersistentPrefs
+    private val prefs: PersistentPrefs,
+    private val tokenRefresher: NabuSessionTokenRefresher = NabuSessionTokenRefresher()
 ) : NabuDataManager {
 
     private val guid
@@ -326,7 +329,7 @@ internal class NabuDataManagerImpl(
         currentToken(offlineToken)
             .flatMap { tokenResponse ->
                 singleFunction(tokenResponse)
-                    .onErrorResumeNext { refreshOrReturnError(it, offlineToken, singleFunction) }
+                    .onErrorResumeNext { refreshOrReturnError(it, offlineToken, tokenResponse, singleFunction) }
             }
 
     override fun <T> authenticateMaybe(
@@ -336,7 +339,9 @@ internal class NabuDataManagerImpl(
         currentToken(offlineToken)
             .flatMapMaybe { tokenResponse ->
                 maybeFunction(tokenResponse)
-                    .onErrorResumeNext { e: Throwable -> refreshOrReturnError(e, offlineToken, maybeFunction) }
+                    .onErrorResumeNext { e: Throwable ->
+                        refreshOrReturnError(e, offlineToken, tokenResponse, maybeFunction)
+                    }
             }
 
     override fun invalidateToken() {
@@ -383,14 +388,16 @@ internal class NabuDataManagerImpl(
             nabuService.fetchPitSendToAddressForCrypto(it, cryptoCurrency.networkTicker)
         }
 
+    // Requests rejected together share a single refresh, and those rejected after another refresh
+    // has already replaced their token retry with the new one
     private fun <T> refreshOrReturnError(
         throwable: Throwable,
         offlineToken: NabuOfflineTokenResponse,
+        expiredToken: NabuSessionTokenResponse,
         singleFunction: (NabuSessionTokenResponse) -> Single<T>
     ): SingleSource<T> =
         if (unauthenticated(throwable)) {
-            refreshToken(offlineToken)
-                .doOnSubscribe { clearAccessToken() }
+            renewToken(offlineToken, expiredToken)
                 .flatMap { singleFunction(it) }
         } else {
             Single.error(throwable)
@@ -399,11 +406,11 @@ internal class NabuDataManagerImpl(
     private fun <T> refreshOrReturnError(
         throwable: Throwable,
         offlineToken: NabuOfflineTokenResponse,
+        expiredToken: NabuSessionTokenResponse,
         maybeFunction: (NabuSessionTokenResponse) -> Maybe<T>
     ): MaybeSource<T> =
         if (unauthenticated(throwable)) {
-            refreshToken(offlineToken)
-                .doOnSubscribe { clearAccessToken() }
+            renewToken(offlineToken, expiredToken)
                 .flatMapMaybe { maybeFunction(it) }
         } else {
             Maybe.error(throwable)
@@ -424,10 +431,26 @@ internal class NabuDataManagerImpl(
     ): Single<NabuSessionTokenResponse> =
         requestJwt()
             .flatMapCompletable { nabuService.recoverUser(offlineToken, it) }
-            .andThen(refreshToken(offlineToken))
+            .andThen(fetchSessionToken(offlineToken))
+
+    private fun renewToken(
+        offlineToken: NabuOfflineTokenResponse,
+        expiredToken: NabuSessionTokenResponse
+    ): Single<NabuSessionTokenResponse> =
+        Single.defer {
+            nabuTokenStore.invalidate(expiredToken)
+            currentToken(offlineToken)
+        }
+
+    override fun tokenRefreshStats(): NabuSessionTokenRefresher.Stats = tokenRefresher.stats()
 
     private fun refreshToken(
         offlineToken: NabuOfflineTokenResponse
+    ): Single<NabuSessionTokenResponse> =
+        tokenRefresher.refresh { fetchSessionToken(offlineToken) }
+
+    private fun fetchSessionToken(
+        offlineToken: NabuOfflineTokenResponse
     ): Single<NabuSessionTokenResponse> =
         getSessionToken(offlineToken)
             .subscribeOn(Schedulers.io())
@@ -0,0 +1,81 @@
+package com.blockchain.swap.nabu.datamanagers
+
+import com.blockchain.swap.nabu.models.tokenresponse.NabuSessionTokenResponse
+import io.reactivex.Single
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Shares a single session token refresh between everything which needs a token while it's in
+ * flight, so that requests failing together with an expired token don't each fetch a new one.
+ */
+class NabuSessionTokenRefresher(
+    private val clock: () -> Long = System::currentTimeMillis
+) {
+
+    data class Stats(
+        val refreshCount: Long,
+        val sharedCount: Long,
+        val failureCount: Long,
+        val averageWaitMillis: Long,
+        val maxWaitMillis: Long
+    )
+
+    private var inFlight: Single<NabuSessionTokenResponse>? = null
+
+    private val refreshes = AtomicLong()
+    private val shared = AtomicLong()
+    private val failures = AtomicLong()
+    private val waits = AtomicLong()
+    private val totalWaitMillis = AtomicLong()
+    private val maxWaitMillis = AtomicLong()
+
+    fun stats(): Stats {
+        val waitCount = waits.get()
+        return Stats(
+            refreshCount = refreshes.get(),
+            sharedCount = shared.get(),
+            failureCount = failures.get(),
+            averageWaitMillis = if (waitCount > 0) totalWaitMillis.get() / waitCount else 0,
+            maxWaitMillis = maxWaitMillis.get()
+        )
+    }
+
+    /**
+     * Joins the refresh in flight, or starts one with [fetch] if there isn't one.
+     */
+    fun refresh(fetch: () -> Single<NabuSessionTokenResponse>): Single<NabuSessionTokenResponse> =
+        Single.defer {
+            val start = clock()
+            join(fetch).doFinally { recordWait(clock() - start) }
+        }
+
+    @Synchronized
+    private fun join(fetch: () -> Single<NabuSessionTokenResponse>): Single<NabuSessionTokenResponse> {
+        inFlight?.let {
+            shared.incrementAndGet()
+            return it
+        }
+
+        refreshes.incrementAndGet()
+        return Single.defer(fetch)
+            .doOnError { failures.incrementAndGet() }
+            .doFinally { onRefreshed() }
+            .cache()
+            .also { inFlight = it }
+    }
+
+    @Synchronized
+    private fun onRefreshed() {
+        inFlight = null
+    }
+
+    private fun recordWait(waitMillis: Long) {
+        waits.incrementAndGet()
+        totalWaitMillis.addAndGet(waitMillis)
+
+        var max = maxWaitMillis.get()
+        while (waitMillis > max && !maxWaitMillis.compareAndSet(max, waitMillis)) {
+            max = maxWaitMillis.get()
+        }
+    }
+}
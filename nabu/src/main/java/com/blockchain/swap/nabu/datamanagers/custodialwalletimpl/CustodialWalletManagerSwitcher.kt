@@ -63,6 +63,9 @@ class CustodialWalletManagerSwitcher(
     override fun getBalanceForAsset(crypto: CryptoCurrency): Maybe<CryptoValue> =
         proxy.getBalanceForAsset(crypto)
 
+    override fun getBalanceForAllAssets(): Single<Map<CryptoCurrency, CryptoValue>> =
+        proxy.getBalanceForAllAssets()
+
     override fun isCurrencySupportedForSimpleBuy(fiatCurrency: String): Single<Boolean> =
         proxy.isCurrencySupportedForSimpleBuy(fiatCurrency)
 
@@ -159,6 +159,17 @@ class LiveCustodialWalletManager(
                 }
         }
 
+    override fun getBalanceForAllAssets(): Single<Map<CryptoCurrency, CryptoValue>> =
+        authenticator.authenticate {
+            nabuService.getBalanceForAllAssets(it)
+        }.map { balances ->
+            balances.mapNotNull { (symbol, balance) ->
+                CryptoCurrency.fromNetworkTicker(symbol)?.let { crypto ->
+                    crypto to CryptoValue.fromMinor(crypto, balance.available.toBigDecimal())
+                }
+            }.toMap()
+        }
+
     override fun transferFundsToWallet(amount: CryptoValue, walletAddress: String): Completable =
         authenticator.authenticateCompletable {
             nabuService.transferFunds(
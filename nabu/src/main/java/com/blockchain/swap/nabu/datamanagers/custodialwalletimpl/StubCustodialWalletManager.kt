@@ -156,6 +156,15 @@ class StubCustodialWalletManager : CustodialWalletManager {
             CryptoCurrency.STX -> Maybe.empty()
         }
 
+    override fun getBalanceForAllAssets(): Single<Map<CryptoCurrency, CryptoValue>> =
+        Single.just(
+            mapOf(
+                CryptoCurrency.BTC to CryptoValue.bitcoinFromSatoshis(726800000),
+                CryptoCurrency.ETHER to CryptoValue.ZeroEth,
+                CryptoCurrency.PAX to CryptoValue.usdPaxFromMajor(2785.toBigDecimal())
+            )
+        )
+
     override fun getOutstandingBuyOrders(): Single<BuyOrderList> =
         Single.just(
             listOf(
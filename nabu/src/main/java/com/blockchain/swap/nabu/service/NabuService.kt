@@ -312,6 +312,18 @@ class NabuService(retrofit: Retrofit) {
         }
     }.wrapErrorMessage()
 
+    fun getBalanceForAllAssets(
+        sessionToken: NabuSessionTokenResponse
+    ) = service.getBalanceForAllAssets(
+        sessionToken.authHeader
+    ).flatMap {
+        when (it.code()) {
+            200 -> Single.just(it.body() ?: emptyMap())
+            204 -> Single.just(emptyMap())
+            else -> Single.error(HttpException(it))
+        }
+    }.wrapErrorMessage()
+
     fun transferFunds(
         sessionToken: NabuSessionTokenResponse,
         request: TransferRequest
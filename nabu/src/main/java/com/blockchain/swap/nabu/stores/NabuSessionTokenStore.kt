@@ -1,30 +1,69 @@
 package com.blockchain.swap.nabu.stores
 
 import com.blockchain.data.datastores.PersistentStore
+import com.blockchain.swap.nabu.extensions.fromIso8601ToUtc
+import com.blockchain.swap.nabu.extensions.toLocalTime
 import com.blockchain.swap.nabu.models.tokenresponse.NabuSessionTokenResponse
 import com.blockchain.utils.Optional
 import io.reactivex.Observable
 
-class NabuSessionTokenStore : NabuTokenStore, PersistentStore<NabuSessionTokenResponse> {
+/**
+ * Holds the current session token. A token is refreshed once it's within [refreshMarginMillis] of
+ * expiring, so that requests aren't made with a token about to be rejected.
+ */
+class NabuSessionTokenStore(
+    private val clock: () -> Long = System::currentTimeMillis,
+    private val refreshMarginMillis: Long = DEFAULT_REFRESH_MARGIN_MILLIS
+) : NabuTokenStore, PersistentStore<NabuSessionTokenResponse> {
 
-    private var token: Optional<NabuSessionTokenResponse> = Optional.None
+    private class StoredToken(val token: Optional<NabuSessionTokenResponse>, val expiresAtMillis: Long)
 
+    // Written from whichever thread refreshed the token, so the token and its expiry are held in one
+    // volatile field
+    @Volatile
+    private var stored = StoredToken(Optional.None, Long.MAX_VALUE)
+
+    @Synchronized
     override fun store(data: NabuSessionTokenResponse): Observable<NabuSessionTokenResponse> {
-        token = Optional.Some(data)
-        return Observable.just(getElement())
+        stored = StoredToken(Optional.Some(data), data.expiresAtMillis())
+        return Observable.just(data)
     }
 
     override fun getAccessToken(): Observable<Optional<NabuSessionTokenResponse>> =
-        Observable.just(token)
+        Observable.just(stored.token)
 
+    @Synchronized
     override fun invalidate() {
-        token = Optional.None
+        stored = StoredToken(Optional.None, Long.MAX_VALUE)
+    }
+
+    /**
+     * Invalidates the token only if it's still [expired], so that a token rejected by the server
+     * doesn't discard one refreshed since it was used.
+     */
+    @Synchronized
+    fun invalidate(expired: NabuSessionTokenResponse) {
+        if ((stored.token as? Optional.Some)?.element == expired) {
+            invalidate()
+        }
     }
 
-    fun requiresRefresh(): Boolean = when (token) {
-        is Optional.None -> true
-        else -> false
+    fun requiresRefresh(): Boolean {
+        val current = stored
+        return when (current.token) {
+            is Optional.None -> true
+            else -> clock() >= current.expiresAtMillis - refreshMarginMillis
+        }
     }
 
-    private fun getElement(): NabuSessionTokenResponse = (token as Optional.Some).element
-}
\ No newline at end of file
+    private fun NabuSessionTokenResponse.expiresAtMillis(): Long =
+        if (expiresAt.isBlank()) {
+            Long.MAX_VALUE
+        } else {
+            expiresAt.fromIso8601ToUtc()?.toLocalTime()?.time ?: Long.MAX_VALUE
+        }
+
+    companion object {
+        private const val DEFAULT_REFRESH_MARGIN_MILLIS = 60 * 1000L
+    }
+}
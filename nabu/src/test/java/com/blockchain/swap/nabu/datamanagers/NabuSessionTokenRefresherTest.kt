@@ -0,0 +1,78 @@
+package com.blockchain.swap.nabu.datamanagers
+
+import com.blockchain.swap.nabu.models.tokenresponse.NabuSessionTokenResponse
+import io.reactivex.Single
+import io.reactivex.subjects.SingleSubject
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class NabuSessionTokenRefresherTest {
+
+    private var now = 0L
+
+    private val subject = NabuSessionTokenRefresher { now }
+
+    private var fetchCount = 0
+
+    private fun fetch(response: Single<NabuSessionTokenResponse>): () -> Single<NabuSessionTokenResponse> = {
+        fetchCount++
+        response
+    }
+
+    @Test
+    fun `refreshes in flight are shared`() {
+        val response = SingleSubject.create<NabuSessionTokenResponse>()
+
+        val first = subject.refresh(fetch(response)).test()
+        val second = subject.refresh(fetch(response)).test()
+        now = 250
+        response.onSuccess(token("A"))
+
+        first.assertValue(token("A"))
+        second.assertValue(token("A"))
+        fetchCount `should equal` 1
+        subject.stats().apply {
+            refreshCount `should equal` 1L
+            sharedCount `should equal` 1L
+            averageWaitMillis `should equal` 250L
+            maxWaitMillis `should equal` 250L
+        }
+    }
+
+    @Test
+    fun `a refresh after the last one finished fetches a new token`() {
+        subject.refresh(fetch(Single.just(token("A")))).test().assertValue(token("A"))
+        subject.refresh(fetch(Single.just(token("B")))).test().assertValue(token("B"))
+
+        fetchCount `should equal` 2
+        subject.stats().sharedCount `should equal` 0L
+    }
+
+    @Test
+    fun `a failed refresh fails every waiter and is counted`() {
+        val response = SingleSubject.create<NabuSessionTokenResponse>()
+        val error = RuntimeException()
+
+        val first = subject.refresh(fetch(response)).test()
+        val second = subject.refresh(fetch(response)).test()
+        response.onError(error)
+
+        first.assertError(error)
+        second.assertError(error)
+        subject.stats().failureCount `should equal` 1L
+
+        subject.refresh(fetch(Single.just(token("A")))).test().assertValue(token("A"))
+        fetchCount `should equal` 2
+    }
+
+    private fun token(token: String) =
+        NabuSessionTokenResponse(
+            id = "",
+            userId = "User",
+            token = token,
+            isActive = true,
+            expiresAt = "",
+            insertedAt = "",
+            updatedAt = ""
+        )
+}
@@ -7,6 +7,7 @@ import com.blockchain.swap.nabu.api.nabu.NABU_RECORD_COUNTRY
 import com.blockchain.swap.nabu.api.nabu.NABU_RECOVER_USER
 import com.blockchain.swap.nabu.api.nabu.NABU_REGISTER_CAMPAIGN
 import com.blockchain.swap.nabu.api.nabu.NABU_SESSION_TOKEN
+import com.blockchain.swap.nabu.api.nabu.NABU_SIMPLE_BUY_ASSET_BALANCE
 import com.blockchain.swap.nabu.api.nabu.NABU_STATES
 import com.blockchain.swap.nabu.api.nabu.NABU_SUPPORTED_DOCUMENTS
 import com.blockchain.swap.nabu.api.nabu.NABU_UPDATE_WALLET_INFO
@@ -23,6 +24,7 @@ import com.blockchain.swap.nabu.models.nabu.Scope
 import com.blockchain.swap.nabu.models.nabu.SupportedDocuments
 import com.blockchain.swap.nabu.models.nabu.UserState
 import com.blockchain.swap.nabu.models.nabu.UserStateAdapter
+import com.blockchain.swap.nabu.models.simplebuy.SimpleBuyBalanceResponse
 import com.blockchain.swap.nabu.models.tokenresponse.NabuOfflineTokenResponse
 import com.blockchain.swap.nabu.service.NabuService
 import com.blockchain.testutils.MockedRetrofitTest
@@ -523,6 +525,62 @@ class NabuServiceTest {
         request.headers.get("authorization") `should equal` getEmptySessionToken().authHeader
     }
 
+    @Test
+    fun `get balance for all assets`() {
+        // Arrange
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(200)
+                .setBody("{\"BTC\":{\"available\":\"726800000\"},\"PAX\":{\"available\":\"0\"}}")
+        )
+        // Act
+        val testObserver = subject.getBalanceForAllAssets(getEmptySessionToken()).test()
+        // Assert
+        testObserver.awaitTerminalEvent()
+        testObserver.assertComplete()
+        testObserver.assertNoErrors()
+        // Check Response
+        testObserver.values().first() `should equal` mapOf(
+            "BTC" to SimpleBuyBalanceResponse("726800000"),
+            "PAX" to SimpleBuyBalanceResponse("0")
+        )
+        // Check URL
+        val request = server.takeRequest()
+        request.path!! `should equal to` "/$NABU_SIMPLE_BUY_ASSET_BALANCE"
+        request.headers.get("authorization") `should equal` getEmptySessionToken().authHeader
+    }
+
+    @Test
+    fun `get balance for all assets without any balances`() {
+        // Arrange
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(204)
+        )
+        // Act
+        val testObserver = subject.getBalanceForAllAssets(getEmptySessionToken()).test()
+        // Assert
+        testObserver.awaitTerminalEvent()
+        testObserver.assertComplete()
+        testObserver.assertValue(emptyMap())
+    }
+
+    @Test
+    fun `get balance for all assets fails on an unexpected response`() {
+        // Arrange
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(200)
+                .setBody("{\"available\":\"726800000\"}")
+        )
+        // Act
+        val testObserver = subject.getBalanceForAllAssets(getEmptySessionToken()).test()
+        // Assert
+        testObserver.awaitTerminalEvent()
+        testObserver.assertNotComplete()
+        testObserver.assertNoValues()
+    }
+
     private fun RecordedRequest.requestToString(): String =
         body.inputStream().bufferedReader().use { it.readText() }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.blockchain.swap.nabu.stores
+
+import com.blockchain.swap.nabu.models.tokenresponse.NabuSessionTokenResponse
+import com.blockchain.utils.Optional
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+import java.util.TimeZone
+
+class NabuSessionTokenStoreTest {
+
+    private var now = 1_000_000_000_000L
+
+    private val subject = NabuSessionTokenStore(clock = { now }, refreshMarginMillis = 60_000)
+
+    @Test
+    fun `an empty store requires a refresh`() {
+        subject.requiresRefresh() `should equal` true
+    }
+
+    @Test
+    fun `a token is refreshed once it's about to expire`() {
+        subject.store(token("A", expiresAt = now + 120_000))
+
+        subject.requiresRefresh() `should equal` false
+        now += 61_000
+        subject.requiresRefresh() `should equal` true
+    }
+
+    @Test
+    fun `a token without a readable expiry doesn't expire`() {
+        subject.store(token("A", expiresAt = null))
+
+        now += 365 * 24 * 60 * 60 * 1000L
+        subject.requiresRefresh() `should equal` false
+    }
+
+    @Test
+    fun `an expired token is only invalidated if it's still current`() {
+        val expired = token("A", expiresAt = null)
+        val refreshed = token("B", expiresAt = null)
+        subject.store(expired)
+        subject.store(refreshed)
+
+        subject.invalidate(expired)
+        subject.getAccessToken().test().values().single().element() `should equal` refreshed
+
+        subject.invalidate(refreshed)
+        subject.getAccessToken().test().values().single().element() `should equal` null
+    }
+
+    private fun token(token: String, expiresAt: Long?) =
+        NabuSessionTokenResponse(
+            id = "",
+            userId = "User",
+            token = token,
+            isActive = true,
+            expiresAt = expiresAt?.let { iso8601.format(Date(it)) } ?: "",
+            insertedAt = "",
+            updatedAt = ""
+        )
+
+    private fun Optional<NabuSessionTokenResponse>.element() = (this as? Optional.Some)?.element
+
+    private val iso8601 = SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US).apply {
+        timeZone = TimeZone.getTimeZone("UTC")
+    }
+}
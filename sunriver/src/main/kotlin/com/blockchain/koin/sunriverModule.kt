@@ -18,7 +18,7 @@ val sunriverModule = applicationContext {
 
         factory { XlmSecretAccess(get()) }
 
-        factory { XlmDataManager(get(), get(), get(), get(), get(), get(), get(), getProperty("HorizonURL")) }
+        bean { XlmDataManager(get(), get(), get(), get(), get(), get(), get(), getProperty("HorizonURL")) }
             .bind(DefaultAccountDataManager::class)
 
         factory { get<XlmDataManager>().updateLastTxOnSend(get()).logMemoType(get()) }
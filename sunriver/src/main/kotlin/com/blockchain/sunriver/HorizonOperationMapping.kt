@@ -9,27 +9,36 @@ import org.stellar.sdk.responses.operations.CreateAccountOperationResponse
 import org.stellar.sdk.responses.operations.OperationResponse
 import org.stellar.sdk.responses.operations.PaymentOperationResponse
 
-internal fun List<OperationResponse>.map(accountId: String, horizonProxy: HorizonProxy): List<XlmTransaction> =
+/**
+ * Looks up the fee paid by a transaction, given its hash.
+ */
+internal typealias TransactionFeeLookup = (transactionHash: String) -> CryptoValue
+
+internal fun List<OperationResponse>.map(accountId: String, feeLookup: TransactionFeeLookup): List<XlmTransaction> =
+    supported().map { mapOperationResponse(it, accountId, feeLookup) }
+
+/**
+ * The operations which can be mapped to an [XlmTransaction].
+ */
+internal fun List<OperationResponse>.supported(): List<OperationResponse> =
     filter { it is CreateAccountOperationResponse || it is PaymentOperationResponse }
-        .map { mapOperationResponse(it, accountId, horizonProxy) }
 
 internal fun mapOperationResponse(
     operationResponse: OperationResponse,
     usersAccountId: String,
-    horizonProxy: HorizonProxy
+    feeLookup: TransactionFeeLookup
 ): XlmTransaction =
     when (operationResponse) {
-        is CreateAccountOperationResponse -> operationResponse.mapCreate(usersAccountId, horizonProxy)
-        is PaymentOperationResponse -> operationResponse.mapPayment(usersAccountId, horizonProxy)
+        is CreateAccountOperationResponse -> operationResponse.mapCreate(usersAccountId, feeLookup)
+        is PaymentOperationResponse -> operationResponse.mapPayment(usersAccountId, feeLookup)
         else -> throw IllegalArgumentException("Unsupported operation type ${operationResponse.javaClass.simpleName}")
     }
 
 private fun CreateAccountOperationResponse.mapCreate(
     usersAccountId: String,
-    horizonProxy: HorizonProxy
+    feeLookup: TransactionFeeLookup
 ): XlmTransaction {
-    val transactionResponse = horizonProxy.getTransaction(transactionHash)
-    val fee = CryptoValue.lumensFromStroop(transactionResponse.feePaid.toBigInteger())
+    val fee = feeLookup(transactionHash)
     return XlmTransaction(
         timeStamp = createdAt,
         value = deltaValueForAccount(usersAccountId, funder, startingBalance),
@@ -42,10 +51,9 @@ private fun CreateAccountOperationResponse.mapCreate(
 
 private fun PaymentOperationResponse.mapPayment(
     usersAccountId: String,
-    horizonProxy: HorizonProxy
+    feeLookup: TransactionFeeLookup
 ): XlmTransaction {
-    val transactionResponse = horizonProxy.getTransaction(transactionHash)
-    val fee = CryptoValue.lumensFromStroop(transactionResponse.feePaid.toBigInteger())
+    val fee = feeLookup(transactionHash)
     return XlmTransaction(
         timeStamp = createdAt,
         value = deltaValueForAccount(usersAccountId, from, amount),
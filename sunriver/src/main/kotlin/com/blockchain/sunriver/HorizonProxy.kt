@@ -76,10 +76,46 @@ internal class HorizonProxy {
         }
     }
 
-    fun getTransactionList(accountId: String): List<OperationResponse> = try {
+    /**
+     * A page of the account's operations. Pass the paging token of the last operation of a page as
+     * [cursor] to continue from it, in the direction given by [order].
+     */
+    fun getTransactionList(
+        accountId: String,
+        cursor: String? = null,
+        order: RequestBuilder.Order = RequestBuilder.Order.DESC,
+        limit: Int = PAGE_SIZE
+    ): List<OperationResponse> = try {
         server.operations()
-            .order(RequestBuilder.Order.DESC)
-            .limit(50)
+            .order(order)
+            .limit(limit)
+            .let { if (cursor != null) it.cursor(cursor) else it }
+            .forAccount(KeyPair.fromAccountId(accountId))
+            .execute()
+            .records
+    } catch (e: ErrorResponse) {
+        if (e.code == 404) {
+            emptyList()
+        } else {
+            throw e
+        }
+    }
+
+    /**
+     * A page of the account's transactions, from which the fees of the operations in the
+     * [getTransactionList] page with the same [cursor] and [order] can be read without looking up
+     * each transaction. Operation ids extend the id of their transaction, so the page covers them.
+     */
+    fun getTransactions(
+        accountId: String,
+        cursor: String? = null,
+        order: RequestBuilder.Order = RequestBuilder.Order.DESC,
+        limit: Int = PAGE_SIZE
+    ): List<TransactionResponse> = try {
+        server.transactions()
+            .order(order)
+            .limit(limit)
+            .let { if (cursor != null) it.cursor(cursor) else it }
             .forAccount(KeyPair.fromAccountId(accountId))
             .execute()
             .records
@@ -271,6 +307,7 @@ internal class HorizonProxy {
 
     companion object {
         const val XLM_DEFAULT_TIMEOUT_SECS: Long = 10
+        const val PAGE_SIZE = 50
     }
 }
 
@@ -16,10 +16,14 @@ import com.blockchain.utils.toHex
 import info.blockchain.balance.AccountReference
 import info.blockchain.balance.CryptoValue
 import io.reactivex.Maybe
+import io.reactivex.Observable
 import io.reactivex.Single
 import io.reactivex.rxkotlin.Singles
 import io.reactivex.schedulers.Schedulers
 import org.stellar.sdk.KeyPair
+import org.stellar.sdk.requests.RequestBuilder
+import org.stellar.sdk.responses.TransactionResponse
+import java.util.concurrent.ConcurrentHashMap
 
 class XlmDataManager internal constructor(
     private val horizonProxy: HorizonProxy,
@@ -133,28 +137,135 @@ class XlmDataManager internal constructor(
         maybeDefaultXlmAccount()
             .map(XlmAccount::toReference)
 
+    /**
+     * Fees of transactions already seen, by hash. Fees can't change once a transaction is in the ledger.
+     */
+    private val transactionFees = ConcurrentHashMap<String, TransactionFee>()
+
+    /**
+     * Operations already fetched, by account id.
+     */
+    private val operationHistories = ConcurrentHashMap<String, OperationHistory>()
+
+    /**
+     * The account's operations fetched so far, newest first, with their fees. The first call fetches
+     * the latest page; later calls only fetch operations newer than those already held.
+     *
+     * Fees not already known are read from a single page of the account's transactions, so each page
+     * costs two requests rather than one per operation.
+     */
     fun getTransactionList(accountReference: AccountReference.Xlm): Single<List<XlmTransaction>> =
         Single.fromCallable {
-            horizonProxy.getTransactionList(accountReference.accountId)
-                .map(accountReference.accountId, horizonProxy)
+            val accountId = accountReference.accountId
+            val history = operationHistory(accountId)
+            synchronized(history) {
+                refresh(accountId, history)
+                history.transactions
+            }
         }.ensureUrlUpdated().subscribeOn(Schedulers.io())
 
+    /**
+     * Fetches the page of operations older than those already held, and returns every operation held.
+     * See [hasOlderTransactions].
+     */
+    fun getOlderTransactions(accountReference: AccountReference.Xlm): Single<List<XlmTransaction>> =
+        Single.fromCallable {
+            val accountId = accountReference.accountId
+            val history = operationHistory(accountId)
+            synchronized(history) {
+                if (!history.isLoaded) {
+                    refresh(accountId, history)
+                } else if (history.hasOlder) {
+                    history.appendOlder(fetchPage(accountId, history.oldestCursor, RequestBuilder.Order.DESC))
+                }
+                history.transactions
+            }
+        }.ensureUrlUpdated().subscribeOn(Schedulers.io())
+
+    fun hasOlderTransactions(accountReference: AccountReference.Xlm): Boolean =
+        operationHistory(accountReference.accountId).let { synchronized(it) { it.hasOlder } }
+
+    /**
+     * Emits the account's operations as [getTransactionList] does, then fetches a further page of older
+     * operations each time [nextPage] emits, for instance as a list is scrolled to its end, emitting
+     * every operation held after each page. Completes once the account's first operation is reached.
+     */
+    fun getTransactionPages(
+        accountReference: AccountReference.Xlm,
+        nextPage: Observable<*>
+    ): Observable<List<XlmTransaction>> =
+        getTransactionList(accountReference).toObservable()
+            .concatWith(
+                Observable.defer {
+                    if (hasOlderTransactions(accountReference)) {
+                        nextPage.concatMap { getOlderTransactions(accountReference).toObservable() }
+                            .takeUntil { !hasOlderTransactions(accountReference) }
+                    } else {
+                        Observable.empty()
+                    }
+                }
+            )
+
+    /**
+     * [getTransactionPages] of the default account.
+     */
+    fun getTransactionPages(nextPage: Observable<*>): Observable<List<XlmTransaction>> =
+        defaultAccount().flatMapObservable { getTransactionPages(it, nextPage) }
+
+    private fun operationHistory(accountId: String): OperationHistory =
+        operationHistories.getOrPut(accountId) { OperationHistory() }
+
+    private fun refresh(accountId: String, history: OperationHistory) {
+        if (history.isLoaded) {
+            val newer = mutableListOf<XlmTransaction>()
+            var cursor = history.newestCursor
+            repeat(MAX_REFRESH_PAGES) {
+                val page = fetchPage(accountId, cursor, RequestBuilder.Order.ASC)
+                newer.addAll(page.transactions)
+                cursor = page.lastCursor ?: cursor
+                if (!page.isFull) {
+                    history.prependNewer(newer, cursor)
+                    return
+                }
+            }
+            // Too far behind to catch up, so start again from the latest page
+            history.clear()
+        }
+        history.appendOlder(fetchPage(accountId, null, RequestBuilder.Order.DESC))
+    }
+
+    private fun fetchPage(accountId: String, cursor: String?, order: RequestBuilder.Order): OperationPage {
+        val operations = horizonProxy.getTransactionList(accountId, cursor, order)
+        if (operations.supported().any { !transactionFees.containsKey(it.transactionHash) }) {
+            horizonProxy.getTransactions(accountId, cursor, order).forEach { transactionFees[it.hash] = it.toFee() }
+        }
+        return OperationPage(
+            transactions = operations.map(accountId) { hash -> transactionFee(hash).total },
+            firstCursor = operations.firstOrNull()?.pagingToken,
+            lastCursor = operations.lastOrNull()?.pagingToken,
+            isFull = operations.size >= HorizonProxy.PAGE_SIZE
+        )
+    }
+
     /**
      * See also [getOperationFee]
      */
     fun getTransactionFee(hash: String): Single<CryptoValue> =
-        Single.fromCallable { horizonProxy.getTransaction(hash) }.ensureUrlUpdated()
-            .map { CryptoValue.lumensFromStroop(it.feePaid.toBigInteger()) }
+        Single.fromCallable { transactionFee(hash) }.ensureUrlUpdated()
+            .map { it.total }
             .subscribeOn(Schedulers.io())
 
     /**
      * See also [getTransactionFee]
      */
     fun getOperationFee(transactionHash: String): Single<CryptoValue> =
-        Single.fromCallable { horizonProxy.getTransaction(transactionHash) }
-            .map { CryptoValue.lumensFromStroop((it.feePaid / it.operationCount).toBigInteger()) }
+        Single.fromCallable { transactionFee(transactionHash) }
+            .map { it.perOperation }
             .subscribeOn(Schedulers.io())
 
+    private fun transactionFee(hash: String): TransactionFee =
+        transactionFees[hash] ?: horizonProxy.getTransaction(hash).toFee().also { transactionFees[hash] = it }
+
     fun getTransactionList(): Single<List<XlmTransaction>> =
         defaultAccount().flatMap { getTransactionList(it) }
 
@@ -198,5 +309,86 @@ private val SendDetails.fromXlm
 
 class XlmSendException(message: String) : RuntimeException(message)
 
+private const val MAX_REFRESH_PAGES = 4
+
+/**
+ * A page of operations in the order requested. The cursors are the paging tokens of its first and
+ * last operations, including any which aren't mapped to an [XlmTransaction].
+ */
+private class OperationPage(
+    val transactions: List<XlmTransaction>,
+    val firstCursor: String?,
+    val lastCursor: String?,
+    val isFull: Boolean
+)
+
+/**
+ * An account's operations fetched so far, newest first, which are contiguous from [newestCursor] to
+ * [oldestCursor].
+ */
+private class OperationHistory {
+
+    var transactions: List<XlmTransaction> = emptyList()
+        private set
+
+    var newestCursor: String? = null
+        private set
+
+    var oldestCursor: String? = null
+        private set
+
+    /**
+     * Whether the account's first operation hasn't been reached, which is assumed until a page says
+     * otherwise.
+     */
+    var hasOlder = true
+        private set
+
+    val isLoaded: Boolean
+        get() = newestCursor != null
+
+    /**
+     * Adds a page fetched in descending order.
+     */
+    fun appendOlder(page: OperationPage) {
+        if (page.lastCursor == null) {
+            hasOlder = false
+            return
+        }
+        transactions = transactions + page.transactions
+        if (newestCursor == null) {
+            newestCursor = page.firstCursor
+        }
+        oldestCursor = page.lastCursor
+        hasOlder = page.isFull
+    }
+
+    /**
+     * Adds operations fetched in ascending order, up to [cursor].
+     */
+    fun prependNewer(newer: List<XlmTransaction>, cursor: String?) {
+        transactions = newer.asReversed() + transactions
+        newestCursor = cursor
+    }
+
+    fun clear() {
+        transactions = emptyList()
+        newestCursor = null
+        oldestCursor = null
+        hasOlder = true
+    }
+}
+
+private class TransactionFee(private val feePaid: Long, private val operationCount: Int) {
+
+    val total: CryptoValue
+        get() = CryptoValue.lumensFromStroop(feePaid.toBigInteger())
+
+    val perOperation: CryptoValue
+        get() = CryptoValue.lumensFromStroop((feePaid / operationCount).toBigInteger())
+}
+
+private fun TransactionResponse.toFee() = TransactionFee(feePaid, operationCount)
+
 private fun XlmAccount.toReference() =
     AccountReference.Xlm(label ?: "", publicKey)
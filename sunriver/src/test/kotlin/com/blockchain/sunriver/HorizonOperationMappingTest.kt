@@ -2,7 +2,6 @@ package com.blockchain.sunriver
 
 import com.blockchain.testutils.lumens
 import com.blockchain.testutils.stroops
-import com.nhaarman.mockito_kotlin.any
 import com.nhaarman.mockito_kotlin.mock
 import org.amshove.kluent.`it returns`
 import org.amshove.kluent.`should equal`
@@ -11,7 +10,6 @@ import org.amshove.kluent.mock
 import org.junit.Before
 import org.junit.Test
 import org.stellar.sdk.KeyPair
-import org.stellar.sdk.responses.TransactionResponse
 import org.stellar.sdk.responses.operations.CreateAccountOperationResponse
 import org.stellar.sdk.responses.operations.ManageDataOperationResponse
 import org.stellar.sdk.responses.operations.PaymentOperationResponse
@@ -28,7 +26,7 @@ class HorizonOperationMappingTest {
     fun `map response rejects unsupported types`() {
         val unsupportedResponse: ManageDataOperationResponse = mock();
         {
-            mapOperationResponse(unsupportedResponse, "", givenHorizonProxy(100))
+            mapOperationResponse(unsupportedResponse, "", givenFee(100))
         } `should throw` IllegalArgumentException::class
     }
 
@@ -42,7 +40,7 @@ class HorizonOperationMappingTest {
             on { transactionHash } `it returns` "ABCD"
             on { createdAt } `it returns` "TIME"
             on { amount } `it returns` 50.lumens().toStringWithoutSymbol()
-        }, myAccount, givenHorizonProxy(100))
+        }, myAccount, givenFee(100))
             .apply {
                 hash `should equal` "ABCD"
                 timeStamp `should equal` "TIME"
@@ -63,7 +61,7 @@ class HorizonOperationMappingTest {
             on { transactionHash } `it returns` "ABCD"
             on { createdAt } `it returns` "TIME"
             on { amount } `it returns` 50.lumens().toStringWithoutSymbol()
-        }, myAccount, givenHorizonProxy(100))
+        }, myAccount, givenFee(100))
             .apply {
                 hash `should equal` "ABCD"
                 timeStamp `should equal` "TIME"
@@ -84,7 +82,7 @@ class HorizonOperationMappingTest {
             on { transactionHash } `it returns` "ABCD"
             on { createdAt } `it returns` "TIME"
             on { startingBalance } `it returns` 100.lumens().toStringWithoutSymbol()
-        }, myAccount, givenHorizonProxy(100))
+        }, myAccount, givenFee(100))
             .apply {
                 hash `should equal` "ABCD"
                 timeStamp `should equal` "TIME"
@@ -105,7 +103,7 @@ class HorizonOperationMappingTest {
             on { transactionHash } `it returns` "ABCD"
             on { createdAt } `it returns` "TIME"
             on { startingBalance } `it returns` 100.lumens().toStringWithoutSymbol()
-        }, myAccount, givenHorizonProxy(100))
+        }, myAccount, givenFee(100))
             .apply {
                 hash `should equal` "ABCD"
                 timeStamp `should equal` "TIME"
@@ -116,12 +114,5 @@ class HorizonOperationMappingTest {
             }
     }
 
-    private fun givenHorizonProxy(fee: Long): HorizonProxy {
-        val mockTx: TransactionResponse = mock {
-            on { feePaid } `it returns` fee
-        }
-        return mock {
-            on { getTransaction(any()) } `it returns` mockTx
-        }
-    }
+    private fun givenFee(fee: Long): TransactionFeeLookup = { fee.stroops() }
 }
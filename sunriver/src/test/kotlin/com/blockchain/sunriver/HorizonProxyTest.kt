@@ -234,6 +234,46 @@ class HorizonProxyTest : AutoCloseKoinTest() {
         } `should throw` ErrorResponse::class
     }
 
+    @Test
+    fun `get xlm account transactions`() {
+        server.expect().get().withPath(
+            "/accounts/GC7GSOOQCBBWNUOB6DIWNVM7537UKQ353H6LCU3DB54NUTVFR2T6OHF4/transactions?order=desc&limit=50"
+        ).andReturn(
+            200,
+            getStringFromResource("transactions/account_transactions.json")
+        )
+            .once()
+
+        val proxy = get<HorizonProxy>().apply {
+            update(server.url(""))
+        }
+
+        val transactions =
+            proxy.getTransactions("GC7GSOOQCBBWNUOB6DIWNVM7537UKQ353H6LCU3DB54NUTVFR2T6OHF4")
+
+        transactions.map { it.hash to it.feePaid } `should equal` listOf(
+            "3f3d6a1b2c4e5f60718293a4b5c6d7e8f9001122334455667788990aabbccdd0" to 200L,
+            "2dcb356e88d0c778a0c5ed8d33543f167994744ed0019b96553c310449133aba" to 100L
+        )
+    }
+
+    @Test
+    fun `get xlm account transactions if not found`() {
+        server.expect().get().withPath(
+            "/accounts/GC7GSOOQCBBWNUOB6DIWNVM7537UKQ353H6LCU3DB54NUTVFR2T6OHF4/transactions?order=desc&limit=50"
+        ).andReturn(
+            404,
+            getStringFromResource("accounts/not_found.json")
+        )
+            .once()
+
+        val proxy = get<HorizonProxy>().apply {
+            update(server.url(""))
+        }
+
+        proxy.getTransactions("GC7GSOOQCBBWNUOB6DIWNVM7537UKQ353H6LCU3DB54NUTVFR2T6OHF4") `should equal` emptyList()
+    }
+
     @Test
     fun `get specific transaction by hash`() {
         server.expect().get().withPath("/transactions/2dcb356e88d0c778a0c5ed8d33543f167994744ed0019b96553c310449133aba")
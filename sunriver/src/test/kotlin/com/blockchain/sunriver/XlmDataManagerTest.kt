@@ -17,6 +17,8 @@ import com.nhaarman.mockito_kotlin.any
 import com.nhaarman.mockito_kotlin.anyOrNull
 import com.nhaarman.mockito_kotlin.eq
 import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.never
+import com.nhaarman.mockito_kotlin.times
 import com.nhaarman.mockito_kotlin.verify
 import com.nhaarman.mockito_kotlin.verifyNoMoreInteractions
 import com.nhaarman.mockito_kotlin.verifyZeroInteractions
@@ -26,6 +28,7 @@ import info.blockchain.balance.CryptoValue
 import io.reactivex.Maybe
 import io.reactivex.Single
 import io.reactivex.schedulers.Schedulers
+import io.reactivex.subjects.PublishSubject
 import org.amshove.kluent.`it returns`
 import org.amshove.kluent.`it throws`
 import org.amshove.kluent.`should be`
@@ -35,6 +38,7 @@ import org.junit.Rule
 import org.junit.Test
 import org.stellar.sdk.KeyPair
 import org.stellar.sdk.Transaction
+import org.stellar.sdk.requests.RequestBuilder
 import org.stellar.sdk.responses.TransactionResponse
 import org.stellar.sdk.responses.operations.CreateAccountOperationResponse
 import org.stellar.sdk.responses.operations.OperationResponse
@@ -443,6 +447,102 @@ class XlmDataManagerTransactionListTest {
             .testSingle() `should equal` getXlmList()
     }
 
+    @Test
+    fun `transaction fees are read from the account's transactions`() {
+        val horizonProxy =
+            givenTransactions(1, "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2" to getResponseList())
+        val transaction: TransactionResponse = mock {
+            on { hash } `it returns` "transactionHash"
+            on { feePaid } `it returns` 1L
+        }
+        whenever(horizonProxy.getTransactions("GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2"))
+            .thenReturn(listOf(transaction))
+
+        givenXlmDataManager(horizonProxy)
+            .getTransactionList(AccountReference.Xlm("", "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2"))
+            .testSingle() `should equal` getXlmList()
+
+        verify(horizonProxy, never()).getTransaction(any())
+    }
+
+    @Test
+    fun `known transaction fees are not fetched again`() {
+        val horizonProxy =
+            givenTransactions(1, "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2" to getResponseList())
+        val xlmDataManager = givenXlmDataManager(horizonProxy)
+        val accountReference = AccountReference.Xlm("", "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2")
+
+        xlmDataManager.getTransactionList(accountReference).testSingle() `should equal` getXlmList()
+        xlmDataManager.getTransactionList(accountReference).testSingle() `should equal` getXlmList()
+        xlmDataManager.getTransactionFee("transactionHash").testSingle() `should equal` 1.stroops()
+
+        verify(horizonProxy, times(1)).getTransactions(any(), anyOrNull(), any(), any())
+        verify(horizonProxy, times(1)).getTransaction("transactionHash")
+    }
+
+    @Test
+    fun `refreshing only fetches newer operations`() {
+        val accountId = "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2"
+        val horizonProxy = givenOperationPages(
+            accountId,
+            Triple(null, RequestBuilder.Order.DESC, listOf(givenPayment("2"), givenPayment("1"))),
+            Triple("2", RequestBuilder.Order.ASC, listOf(givenPayment("3")))
+        )
+        val xlmDataManager = givenXlmDataManager(horizonProxy)
+
+        xlmDataManager.getTransactionList(AccountReference.Xlm("", accountId))
+            .testSingle().map { it.hash } `should equal` listOf("hash2", "hash1")
+        xlmDataManager.getTransactionList(AccountReference.Xlm("", accountId))
+            .testSingle().map { it.hash } `should equal` listOf("hash3", "hash2", "hash1")
+
+        verify(horizonProxy, times(1))
+            .getTransactionList(accountId, null, RequestBuilder.Order.DESC, HorizonProxy.PAGE_SIZE)
+        verify(horizonProxy)
+            .getTransactionList(accountId, "2", RequestBuilder.Order.ASC, HorizonProxy.PAGE_SIZE)
+    }
+
+    @Test
+    fun `older operations are fetched a page at a time`() {
+        val accountId = "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2"
+        val latestPage = (HorizonProxy.PAGE_SIZE + 1 downTo 2).map { givenPayment(it.toString()) }
+        val horizonProxy = givenOperationPages(
+            accountId,
+            Triple(null, RequestBuilder.Order.DESC, latestPage),
+            Triple("2", RequestBuilder.Order.DESC, listOf(givenPayment("1")))
+        )
+        val accountReference = AccountReference.Xlm("", accountId)
+        val xlmDataManager = givenXlmDataManager(horizonProxy)
+
+        xlmDataManager.getTransactionList(accountReference).testSingle().size `should equal` HorizonProxy.PAGE_SIZE
+        xlmDataManager.hasOlderTransactions(accountReference) `should be` true
+
+        xlmDataManager.getOlderTransactions(accountReference).testSingle().size `should equal`
+            HorizonProxy.PAGE_SIZE + 1
+        xlmDataManager.hasOlderTransactions(accountReference) `should be` false
+    }
+
+    @Test
+    fun `older operations are paged in as requested`() {
+        val accountId = "GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2"
+        val latestPage = (HorizonProxy.PAGE_SIZE + 1 downTo 2).map { givenPayment(it.toString()) }
+        val horizonProxy = givenOperationPages(
+            accountId,
+            Triple(null, RequestBuilder.Order.DESC, latestPage),
+            Triple("2", RequestBuilder.Order.DESC, listOf(givenPayment("1")))
+        )
+        val nextPage = PublishSubject.create<Unit>()
+
+        val test = givenXlmDataManager(horizonProxy)
+            .getTransactionPages(AccountReference.Xlm("", accountId), nextPage)
+            .map { it.size }
+            .test()
+
+        test.assertValues(HorizonProxy.PAGE_SIZE)
+        nextPage.onNext(Unit)
+        test.assertValues(HorizonProxy.PAGE_SIZE, HorizonProxy.PAGE_SIZE + 1)
+            .assertComplete()
+    }
+
     @Test
     fun `get transaction fee`() {
         givenXlmDataManager(
@@ -1099,6 +1199,32 @@ private fun givenTransactions(
     return horizonProxy
 }
 
+private fun givenOperationPages(
+    accountId: String,
+    vararg pages: Triple<String?, RequestBuilder.Order, List<OperationResponse>>
+): HorizonProxy {
+    val horizonProxy: HorizonProxy = mock()
+    val mockTx: TransactionResponse = mock { on { feePaid } `it returns` 1L }
+    pages.forEach { (cursor, order, operations) ->
+        whenever(horizonProxy.getTransactionList(accountId, cursor, order, HorizonProxy.PAGE_SIZE))
+            .thenReturn(operations)
+    }
+    whenever(horizonProxy.getTransaction(any())) `it returns` mockTx
+    return horizonProxy
+}
+
+private fun givenPayment(pagingToken: String): PaymentOperationResponse =
+    mock {
+        on { this.pagingToken } `it returns` pagingToken
+        on { createdAt } `it returns` "createdAt"
+        on { amount } `it returns` "1"
+        on { transactionHash } `it returns` "hash$pagingToken"
+        on { to } `it returns`
+                KeyPair.fromAccountId("GBAHSNSG37BOGBS4GXUPMHZWJQ22WIOJQYORRBHTABMMU6SGSKDEAOPT")
+        on { from } `it returns`
+                KeyPair.fromAccountId("GC24LNYWXIYYB6OGCMAZZ5RX6WPI2F74ZV7HNBV4ADALLXJRT7ZTLHP2")
+    }
+
 private fun givenTransaction(
     vararg transactions: Pair<String, TransactionResponse>
 ): HorizonProxy {
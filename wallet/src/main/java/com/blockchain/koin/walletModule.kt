@@ -3,6 +3,8 @@ package com.blockchain.koin
 import info.blockchain.wallet.api.dust.BchDustService
 import info.blockchain.wallet.api.dust.DustApi
 import info.blockchain.wallet.api.dust.DustService
+import info.blockchain.wallet.bip44.DerivedAddressCache
+import info.blockchain.wallet.crypto.DerivedKeyCache
 import info.blockchain.wallet.metadata.MetadataService
 import info.blockchain.wallet.metadata.MetadataInteractor
 import info.blockchain.wallet.multiaddress.MultiAddressFactory
@@ -34,7 +36,7 @@ val walletModule = applicationContext {
 
     factory { PriceApi(get(), get()) }
 
-    factory {
+    bean {
         MetadataInteractor(
             metadataService = get()
         )
@@ -54,6 +56,8 @@ val walletModule = applicationContext {
         object : PayloadManagerWiper {
             override fun wipe() {
                 (StandAloneContext.koinContext as KoinContext).releaseContext("Payload")
+                DerivedKeyCache.getInstance().clear()
+                DerivedAddressCache.getInstance().clear()
             }
         } as PayloadManagerWiper
     }
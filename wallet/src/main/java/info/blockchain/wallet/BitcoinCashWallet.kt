@@ -273,6 +273,16 @@ open class BitcoinCashWallet : DeterministicWallet {
         balanceManager.subtractAmountFromAddressBalance(address, amount)
     }
 
+    /**
+     * Adds the balance changes caused by a transaction to the address and xpub balances in
+     * [BalanceManagerBch], without querying the balance API.
+     *
+     * @param changes The change in balance for each affected address or xPub
+     */
+    fun applyBalanceChanges(changes: Map<String, BigInteger>) {
+        balanceManager.applyBalanceChanges(changes)
+    }
+
     @Throws(HDWalletException::class)
     fun getHDKeysForSigning(
         account: DeterministicAccount,
@@ -0,0 +1,210 @@
+package info.blockchain.wallet.bip44;
+
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * DerivedAddressCache.java : a bounded cache of the public key hashes derived from HD chains, keyed
+ * by chain (account xpub and chain index) and address index.
+ * <p>
+ * Only public data is derived and kept, so keys for signing still come from {@link
+ * HDChain#getAddressAt(int)}. Ranges which aren't cached are derived in parallel across cores.
+ */
+public class DerivedAddressCache {
+
+    private static final int MAX_CHAINS = 32;
+    private static final int MAX_ADDRESSES_PER_CHAIN = 256;
+
+    // Ranges with fewer missing addresses per core than this are derived on the calling thread
+    private static final int MIN_ADDRESSES_PER_TASK = 4;
+
+    private static DerivedAddressCache instance;
+
+    private final Map<String, Map<Integer, byte[]>> chains =
+        new LinkedHashMap<String, Map<Integer, byte[]>>(MAX_CHAINS, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<Integer, byte[]>> eldest) {
+                return size() > MAX_CHAINS;
+            }
+        };
+
+    private final int parallelism;
+    private ExecutorService executor;
+    // Bumped by clear(), guarded by chains, so that hashes derived from before it are dropped
+    private int generation;
+
+    public static synchronized DerivedAddressCache getInstance() {
+        if (instance == null) {
+            instance = new DerivedAddressCache(Runtime.getRuntime().availableProcessors());
+        }
+        return instance;
+    }
+
+    DerivedAddressCache(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Return the public key hash of the address at the provided index into a chain.
+     *
+     * @param chainKey deterministic key for the chain
+     * @param index    index of the address in the chain
+     * @return byte[]
+     */
+    public byte[] getPubKeyHash(DeterministicKey chainKey, int index) {
+        return getPubKeyHashes(chainKey, index, index + 1).get(0);
+    }
+
+    /**
+     * Return the public key hashes of the addresses in a range of a chain.
+     *
+     * @param chainKey   deterministic key for the chain
+     * @param startIndex index of the first address, inclusive
+     * @param endIndex   index of the last address, exclusive
+     * @return List of byte[], in chain order
+     */
+    public List<byte[]> getPubKeyHashes(DeterministicKey chainKey, int startIndex, int endIndex) {
+        String chainId = getChainId(chainKey);
+        byte[][] hashes = new byte[Math.max(0, endIndex - startIndex)][];
+        List<Integer> missing = new ArrayList<>();
+        int startGeneration;
+
+        synchronized (chains) {
+            startGeneration = generation;
+            Map<Integer, byte[]> chain = chains.get(chainId);
+            for (int i = startIndex; i < endIndex; i++) {
+                byte[] hash = chain != null ? chain.get(i) : null;
+                if (hash != null) {
+                    hashes[i - startIndex] = hash;
+                } else {
+                    missing.add(i);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            derive(chainKey.dropPrivateBytes(), missing, hashes, startIndex);
+
+            synchronized (chains) {
+                if (generation == startGeneration) {
+                    Map<Integer, byte[]> chain = getOrCreateChain(chainId);
+                    for (int index : missing) {
+                        chain.put(index, hashes[index - startIndex]);
+                    }
+                }
+            }
+        }
+
+        return Arrays.asList(hashes);
+    }
+
+    /**
+     * Drop every cached entry, so that nothing derived from one wallet outlives it.
+     */
+    public void clear() {
+        synchronized (chains) {
+            chains.clear();
+            generation++;
+        }
+    }
+
+    private void derive(final DeterministicKey chainKey,
+                        List<Integer> indexes,
+                        final byte[][] hashes,
+                        final int offset) {
+
+        int tasks = Math.min(parallelism, indexes.size() / MIN_ADDRESSES_PER_TASK);
+        if (tasks <= 1) {
+            deriveAll(chainKey, indexes, hashes, offset);
+            return;
+        }
+
+        // Decode the parent point up front rather than racing to do so from every task
+        chainKey.getPubKeyPoint();
+
+        int taskSize = (indexes.size() + tasks - 1) / tasks;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = taskSize; from < indexes.size(); from += taskSize) {
+            final List<Integer> taskIndexes = indexes.subList(from, Math.min(from + taskSize, indexes.size()));
+            futures.add(getExecutor().submit(new Runnable() {
+                @Override
+                public void run() {
+                    deriveAll(chainKey, taskIndexes, hashes, offset);
+                }
+            }));
+        }
+
+        deriveAll(chainKey, indexes.subList(0, taskSize), hashes, offset);
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deriving addresses", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static void deriveAll(DeterministicKey chainKey,
+                                  List<Integer> indexes,
+                                  byte[][] hashes,
+                                  int offset) {
+        for (int index : indexes) {
+            hashes[index - offset] = HDKeyDerivation
+                .deriveChildKey(chainKey, new ChildNumber(index, false))
+                .getPubKeyHash();
+        }
+    }
+
+    private Map<Integer, byte[]> getOrCreateChain(String chainId) {
+        Map<Integer, byte[]> chain = chains.get(chainId);
+        if (chain == null) {
+            chain = new LinkedHashMap<Integer, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                    return size() > MAX_ADDRESSES_PER_CHAIN;
+                }
+            };
+            chains.put(chainId, chain);
+        }
+        return chain;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DerivedAddressCache");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    // The public key and chain code determine every child, independently of network and path
+    private static String getChainId(DeterministicKey chainKey) {
+        return Utils.HEX.encode(chainKey.getPubKey()) + Utils.HEX.encode(chainKey.getChainCode());
+    }
+}
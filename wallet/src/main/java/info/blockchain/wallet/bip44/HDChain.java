@@ -1,9 +1,13 @@
 package info.blockchain.wallet.bip44;
 
+import org.bitcoinj.core.Address;
 import org.bitcoinj.core.NetworkParameters;
 import org.bitcoinj.crypto.DeterministicKey;
 import org.bitcoinj.crypto.HDKeyDerivation;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * HDChain.java : a chain in a BIP44 wallet account
  */
@@ -56,6 +60,33 @@ public class HDChain {
         return new HDAddress(params, cKey, addrIdx);
     }
 
+    /**
+     * Return public address at provided index into chain. Only the public key is derived, and it
+     * is cached.
+     *
+     * @return String
+     */
+    public String getAddressStringAt(int addrIdx) {
+        byte[] pubKeyHash = DerivedAddressCache.getInstance().getPubKeyHash(cKey, addrIdx);
+        return new Address(params, pubKeyHash).toBase58();
+    }
+
+    /**
+     * Return public addresses in a range of this chain. Addresses which aren't cached are derived
+     * in parallel.
+     *
+     * @param startIdx index of the first address, inclusive
+     * @param endIdx   index of the last address, exclusive
+     * @return List of String
+     */
+    public List<String> getAddressStringsAt(int startIdx, int endIdx) {
+        List<String> addresses = new ArrayList<>();
+        for (byte[] pubKeyHash : DerivedAddressCache.getInstance().getPubKeyHashes(cKey, startIdx, endIdx)) {
+            addresses.add(new Address(params, pubKeyHash).toBase58());
+        }
+        return addresses;
+    }
+
     /**
      * Return BIP44 path for this chain (m / purpose' / coin_type' / account' / chain).
      *
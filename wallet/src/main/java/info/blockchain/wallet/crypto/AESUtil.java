@@ -50,34 +50,30 @@ public class AESUtil {
 
     public static String decryptWithSetMode(String ciphertext, String password, int iterations, int mode, @Nullable BlockCipherPadding padding) throws InvalidCipherTextException, UnsupportedEncodingException, DecryptionException {
 
+        return decryptWithSetMode(ciphertext, password, iterations, mode, padding, null);
+    }
+
+    // As decrypt, reusing the key derived for the IV, password and iterations if keyCache holds it
+    public static String decrypt(String ciphertext, String password, int iterations, @Nullable DerivedKeyCache keyCache) throws UnsupportedEncodingException, InvalidCipherTextException, DecryptionException {
+
+        return decryptWithSetMode(ciphertext, password, iterations, MODE_CBC, new ISO10126d2Padding(), keyCache);
+    }
+
+    public static String decryptWithSetMode(String ciphertext, String password, int iterations, int mode, @Nullable BlockCipherPadding padding, @Nullable DerivedKeyCache keyCache) throws InvalidCipherTextException, UnsupportedEncodingException, DecryptionException {
+
         byte[] cipherdata = Base64.decodeBase64(ciphertext.getBytes());
 
         //Separate the IV and cipher data
         byte[] iv = copyOfRange(cipherdata, 0, AESBlockSize * 4);
         byte[] input = copyOfRange(cipherdata, AESBlockSize * 4, cipherdata.length);
 
-        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
-        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), iv, iterations);
-        KeyParameter keyParam = (KeyParameter) generator.generateDerivedParameters(256);
+        KeyParameter keyParam = keyCache != null
+            ? keyCache.getKey(password, iv, iterations)
+            : deriveKey(password, iv, iterations);
 
         CipherParameters params = new ParametersWithIV(keyParam, iv);
 
-        BlockCipher cipherMode;
-        if (mode == MODE_CBC) {
-            cipherMode = new CBCBlockCipher(new AESEngine());
-
-        } else {
-            //mode == MODE_OFB
-            cipherMode = new OFBBlockCipher(new AESEngine(), 128);
-        }
-
-        BufferedBlockCipher cipher;
-        if (padding != null) {
-            cipher = new PaddedBufferedBlockCipher(cipherMode, padding);
-        } else {
-            cipher = new BufferedBlockCipher(cipherMode);
-        }
-
+        BufferedBlockCipher cipher = createCipher(mode, padding);
         cipher.reset();
         cipher.init(false, params);
 
@@ -109,39 +105,40 @@ public class AESUtil {
     public static String encryptWithSetMode(String cleartext, String password, int iterations, int mode, @Nullable BlockCipherPadding padding)
         throws EncryptionException, UnsupportedEncodingException {
 
-        if (password == null) {
-            throw  new EncryptionException("Password null");
-        }
-
-        // Use secure random to generate a 16 byte iv
-        SecureRandom random = new SecureRandom();
-        byte iv[] = new byte[AESBlockSize * 4];
-        random.nextBytes(iv);
-
-        byte[] clearbytes = cleartext.getBytes("UTF-8");
+        return encryptWithSetMode(cleartext, password, iterations, mode, padding, null);
+    }
 
-        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
-        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), iv, iterations);
-        KeyParameter keyParam = (KeyParameter) generator.generateDerivedParameters(256);
+    // As encrypt, taking the IV and key from keyCache, which derives them ahead of time when asked
+    public static String encrypt(String cleartext, String password, int iterations, @Nullable DerivedKeyCache keyCache)
+        throws EncryptionException, UnsupportedEncodingException {
 
-        CipherParameters params = new ParametersWithIV(keyParam, iv);
+        return encryptWithSetMode(cleartext, password, iterations, MODE_CBC, new ISO10126d2Padding(), keyCache);
+    }
 
-        BlockCipher cipherMode;
-        if (mode == MODE_CBC) {
-            cipherMode = new CBCBlockCipher(new AESEngine());
+    public static String encryptWithSetMode(String cleartext, String password, int iterations, int mode, @Nullable BlockCipherPadding padding, @Nullable DerivedKeyCache keyCache)
+        throws EncryptionException, UnsupportedEncodingException {
 
-        } else {
-            //mode == MODE_OFB
-            cipherMode = new OFBBlockCipher(new AESEngine(), 128);
+        if (password == null) {
+            throw  new EncryptionException("Password null");
         }
 
-        BufferedBlockCipher cipher;
-        if (padding != null) {
-            cipher = new PaddedBufferedBlockCipher(cipherMode, padding);
+        byte[] iv;
+        KeyParameter keyParam;
+        if (keyCache != null) {
+            DerivedKeyCache.SaltedKey saltedKey = keyCache.getEncryptionKey(password, iterations);
+            iv = saltedKey.getSalt();
+            keyParam = saltedKey.getKey();
         } else {
-            cipher = new BufferedBlockCipher(cipherMode);
+            // Use secure random to generate a 16 byte iv
+            iv = getSalt();
+            keyParam = deriveKey(password, iv, iterations);
         }
 
+        byte[] clearbytes = cleartext.getBytes("UTF-8");
+
+        CipherParameters params = new ParametersWithIV(keyParam, iv);
+
+        BufferedBlockCipher cipher = createCipher(mode, padding);
         cipher.reset();
         cipher.init(true, params);
 
@@ -159,6 +156,29 @@ public class AESUtil {
         return new String(raw);
     }
 
+    private static KeyParameter deriveKey(String password, byte[] iv, int iterations) {
+        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
+        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), iv, iterations);
+        return (KeyParameter) generator.generateDerivedParameters(KEY_BIT_LEN);
+    }
+
+    private static BufferedBlockCipher createCipher(int mode, @Nullable BlockCipherPadding padding) {
+        BlockCipher cipherMode;
+        if (mode == MODE_CBC) {
+            cipherMode = new CBCBlockCipher(new AESEngine());
+
+        } else {
+            //mode == MODE_OFB
+            cipherMode = new OFBBlockCipher(new AESEngine(), 128);
+        }
+
+        if (padding != null) {
+            return new PaddedBufferedBlockCipher(cipherMode, padding);
+        } else {
+            return new BufferedBlockCipher(cipherMode);
+        }
+    }
+
     private static byte[] cipherData(BufferedBlockCipher cipher, byte[] data) {
         int minSize = cipher.getOutputSize(data.length);
         byte[] outBuf = new byte[minSize];
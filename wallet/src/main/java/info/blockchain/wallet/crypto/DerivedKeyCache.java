@@ -0,0 +1,290 @@
+package info.blockchain.wallet.crypto;
+
+import org.spongycastle.crypto.PBEParametersGenerator;
+import org.spongycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.encoders.Hex;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * DerivedKeyCache.java : a bounded, in memory cache of PBKDF2 keys derived from a password, salt
+ * and iteration count, so that data encrypted or decrypted with the same three again skips key
+ * stretching. Entries are looked up by a digest of the three rather than the password itself.
+ * <p>
+ * As the salt of {@link AESUtil} ciphertext is also its IV, a salt is never used to encrypt twice.
+ * Instead a single spare salt and key can be derived ahead of time, off the thread that will
+ * encrypt, and is used up by the next encryption with the same password and iteration count.
+ * <p>
+ * Keys are zeroed by {@link #clear()}, which must be called when the wallet is closed. Derivations
+ * started before it, including those still queued or running in the background, never store their
+ * key afterwards.
+ */
+public class DerivedKeyCache {
+
+    private static final int MAX_KEYS = 8;
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_BIT_LEN = 256;
+
+    private static DerivedKeyCache instance;
+
+    private final Map<String, byte[]> keys = new LinkedHashMap<String, byte[]>(MAX_KEYS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            if (size() > MAX_KEYS) {
+                Arrays.fill(eldest.getValue(), (byte) 0);
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final SecureRandom random = new SecureRandom();
+
+    private SaltedKey spare;
+    private String spareId;
+    // Bumped by clear(), so that keys derived from before it are dropped
+    private int generation;
+    private int derivationCount;
+
+    private Executor executor;
+
+    public static synchronized DerivedKeyCache getInstance() {
+        if (instance == null) {
+            instance = new DerivedKeyCache();
+        }
+        return instance;
+    }
+
+    DerivedKeyCache() {
+        this(null);
+    }
+
+    DerivedKeyCache(@Nullable Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Return the key derived from a password, salt and iteration count, deriving it if not cached.
+     *
+     * @param password   the password to stretch
+     * @param salt       the salt, which for {@link AESUtil} ciphertext is its IV
+     * @param iterations the PBKDF2 iteration count
+     * @return KeyParameter, holding a copy of the cached key
+     */
+    public KeyParameter getKey(String password, byte[] salt, int iterations) {
+        return getKey(password, salt, iterations, currentGeneration());
+    }
+
+    private KeyParameter getKey(String password, byte[] salt, int iterations, int startGeneration) {
+        String id = keyId(password, salt, iterations);
+        synchronized (this) {
+            byte[] key = keys.get(id);
+            if (key != null) {
+                return new KeyParameter(key);
+            }
+        }
+
+        byte[] key = derive(password, salt, iterations);
+        synchronized (this) {
+            derivationCount++;
+            if (generation == startGeneration) {
+                keys.put(id, key);
+            }
+            return new KeyParameter(key);
+        }
+    }
+
+    /**
+     * Return a new salt and its key for a single encryption, using the spare if it was derived from
+     * the same password and iteration count. The key is cached, so decrypting the result again is
+     * fast.
+     *
+     * @param password   the password to stretch
+     * @param iterations the PBKDF2 iteration count
+     * @return SaltedKey
+     */
+    public SaltedKey getEncryptionKey(String password, int iterations) {
+        String id = spareId(password, iterations);
+        synchronized (this) {
+            if (spare != null && id.equals(spareId)) {
+                SaltedKey key = spare;
+                spare = null;
+                spareId = null;
+                return key;
+            }
+        }
+
+        byte[] salt = newSalt();
+        return new SaltedKey(salt, getKey(password, salt, iterations));
+    }
+
+    /**
+     * Derive the spare salt and key for the next encryption with a password and iteration count,
+     * on a background thread.
+     *
+     * @param password   the password to stretch
+     * @param iterations the PBKDF2 iteration count
+     */
+    public void prepareEncryptionKeyAsync(final String password, final int iterations) {
+        final int startGeneration = currentGeneration();
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                prepareEncryptionKey(password, iterations, startGeneration);
+            }
+        });
+    }
+
+    /**
+     * Derive the spare salt and key for the next encryption with a password and iteration count,
+     * on the calling thread. Does nothing if a matching spare is already held.
+     *
+     * @param password   the password to stretch
+     * @param iterations the PBKDF2 iteration count
+     */
+    public void prepareEncryptionKey(String password, int iterations) {
+        prepareEncryptionKey(password, iterations, currentGeneration());
+    }
+
+    private void prepareEncryptionKey(String password, int iterations, int startGeneration) {
+        String id = spareId(password, iterations);
+        synchronized (this) {
+            if (generation != startGeneration || (spare != null && id.equals(spareId))) {
+                return;
+            }
+        }
+
+        byte[] salt = newSalt();
+        KeyParameter key = getKey(password, salt, iterations, startGeneration);
+        synchronized (this) {
+            if (generation == startGeneration) {
+                spare = new SaltedKey(salt, key);
+                spareId = id;
+            }
+        }
+    }
+
+    /**
+     * Zero and remove every key, including the spare, and drop any spare derivations still queued.
+     */
+    public synchronized void clear() {
+        if (executor instanceof ThreadPoolExecutor) {
+            ((ThreadPoolExecutor) executor).getQueue().clear();
+        }
+        for (byte[] key : keys.values()) {
+            Arrays.fill(key, (byte) 0);
+        }
+        keys.clear();
+        if (spare != null) {
+            Arrays.fill(spare.getKey().getKey(), (byte) 0);
+        }
+        spare = null;
+        spareId = null;
+        generation++;
+    }
+
+    /**
+     * @return the number of keys derived rather than served from the cache
+     */
+    synchronized int getDerivationCount() {
+        return derivationCount;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator();
+        generator.init(PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), salt, iterations);
+        return ((KeyParameter) generator.generateDerivedParameters(KEY_BIT_LEN)).getKey();
+    }
+
+    private byte[] newSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        synchronized (random) {
+            random.nextBytes(salt);
+        }
+        return salt;
+    }
+
+    private static String keyId(String password, byte[] salt, int iterations) {
+        MessageDigest digest = sha256();
+        digest.update(utf8(password));
+        digest.update(salt);
+        digest.update(ByteBuffer.allocate(4).putInt(iterations).array());
+        return Hex.toHexString(digest.digest());
+    }
+
+    private static String spareId(String password, int iterations) {
+        return keyId(password, new byte[0], iterations);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] utf8(String string) {
+        try {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private synchronized int currentGeneration() {
+        return generation;
+    }
+
+    private synchronized Executor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DerivedKeyCache");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * A salt and the key derived with it.
+     */
+    public static class SaltedKey {
+
+        private final byte[] salt;
+        private final KeyParameter key;
+
+        SaltedKey(byte[] salt, KeyParameter key) {
+            this.salt = salt;
+            this.key = key;
+        }
+
+        public byte[] getSalt() {
+            return salt;
+        }
+
+        public KeyParameter getKey() {
+            return key;
+        }
+    }
+}
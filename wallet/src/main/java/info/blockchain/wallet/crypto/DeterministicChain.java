@@ -1,5 +1,6 @@
 package info.blockchain.wallet.crypto;
 
+import info.blockchain.wallet.bip44.DerivedAddressCache;
 import org.bitcoinj.crypto.DeterministicKey;
 import org.bitcoinj.crypto.HDKeyDerivation;
 
@@ -27,4 +28,12 @@ public class DeterministicChain implements DeterministicNode {
     public DeterministicAddress getAddressAt(int addressIndex) {
         return new DeterministicAddress(deterministicChainKey, addressIndex);
     }
+
+    /**
+     * Public key hash of the address at the given index, derived from the public key only and
+     * cached.
+     */
+    public byte[] getPubKeyHashAt(int addressIndex) {
+        return DerivedAddressCache.getInstance().getPubKeyHash(deterministicChainKey, addressIndex);
+    }
 }
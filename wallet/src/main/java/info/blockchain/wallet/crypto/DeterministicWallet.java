@@ -273,22 +273,23 @@ public abstract class DeterministicWallet implements DeterministicNode {
 
     // TODO: 01/02/2018 The below receive/change address strings are coin specific - Consider abstracting
     protected String getReceiveBase58AddressAt(int accountIndex, int addressIndex) {
-        ECKey key = getReceiveECKeyAt(accountIndex, addressIndex);
-        return key.toAddress(params).toBase58();
+        return getAddressAt(accountIndex, DeterministicChain.RECEIVE_CHAIN, addressIndex).toBase58();
     }
 
     protected String getChangeBase58AddressAt(int accountIndex, int addressIndex) {
-        ECKey key = getChangeECKeyAt(accountIndex, addressIndex);
-        return key.toAddress(params).toBase58();
+        return getAddressAt(accountIndex, DeterministicChain.CHANGE_CHAIN, addressIndex).toBase58();
     }
 
     public String getReceiveCashAddressAt(int accountIndex, int addressIndex) {
-        ECKey key = getReceiveECKeyAt(accountIndex, addressIndex);
-        return key.toAddress(params).toCashAddress();
+        return getAddressAt(accountIndex, DeterministicChain.RECEIVE_CHAIN, addressIndex).toCashAddress();
     }
 
     public String getChangeCashAddressAt(int accountIndex, int addressIndex) {
-        ECKey key = getChangeECKeyAt(accountIndex, addressIndex);
-        return key.toAddress(params).toCashAddress();
+        return getAddressAt(accountIndex, DeterministicChain.CHANGE_CHAIN, addressIndex).toCashAddress();
+    }
+
+    private Address getAddressAt(int accountIndex, int chainIndex, int addressIndex) {
+        byte[] pubKeyHash = accounts.get(accountIndex).getChains().get(chainIndex).getPubKeyHashAt(addressIndex);
+        return new Address(params, pubKeyHash);
     }
 }
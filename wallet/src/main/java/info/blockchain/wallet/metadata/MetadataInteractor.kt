@@ -2,6 +2,7 @@ package info.blockchain.wallet.metadata
 
 import info.blockchain.wallet.crypto.AESUtil
 import info.blockchain.wallet.metadata.data.MetadataBody
+import info.blockchain.wallet.metadata.data.MetadataResponse
 import info.blockchain.wallet.util.FormatsUtil
 import info.blockchain.wallet.util.MetadataUtil
 import io.reactivex.Completable
@@ -14,19 +15,20 @@ import org.json.JSONException
 import org.spongycastle.util.encoders.Base64
 import org.spongycastle.util.encoders.Hex
 import retrofit2.HttpException
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 
 class MetadataInteractor(private val metadataService: MetadataService) {
 
+    /**
+     * The magic hash of each entry as last loaded or saved, by address. An empty array means the entry
+     * doesn't exist yet. Saving to an address found here needs no fetch of the remote entry.
+     */
+    private val magicHashes = ConcurrentHashMap<String, ByteArray>()
+
     fun fetchMagic(address: String): Single<ByteArray> =
         metadataService.getMetadata(address).map {
-            val encryptedPayloadBytes = Base64.decode(it.payload.toByteArray(charset("utf-8")))
-            if (it.prevMagicHash != null) {
-                val prevMagicBytes = Hex.decode(it.prevMagicHash)
-                MetadataUtil.magic(encryptedPayloadBytes, prevMagicBytes)
-            } else {
-                MetadataUtil.magic(encryptedPayloadBytes, null)
-            }
+            magicOf(it).also { magic -> magicHashes[address] = magic }
         }
 
     fun putMetadata(payloadJson: String, metadata: Metadata): Completable {
@@ -40,7 +42,42 @@ class MetadataInteractor(private val metadataService: MetadataService) {
             payloadJson.toByteArray(charset("utf-8"))
         }
 
-        return fetchMagic(metadata.address).onErrorReturn { ByteArray(0) }.flatMapCompletable { m ->
+        return Completable.defer {
+            val knownMagic = magicHashes[metadata.address]
+            if (knownMagic != null) {
+                // The entry may have been changed elsewhere since, so fetch the magic hash on conflict
+                putMetadata(encryptedPayloadBytes, metadata, Single.just(knownMagic))
+                    .onErrorResumeNext { error ->
+                        if (error is HttpException) {
+                            putMetadata(encryptedPayloadBytes, metadata, fetchMagicOrNone(metadata.address))
+                        } else {
+                            Completable.error(error)
+                        }
+                    }
+            } else {
+                putMetadata(encryptedPayloadBytes, metadata, fetchMagicOrNone(metadata.address))
+            }
+        }.retryWhen { errors ->
+            errors.zipWith(Flowable.range(0, FETCH_MAGIC_HASH_ATTEMPT_LIMIT))
+                .flatMap { (error, attempt) ->
+                    if (error is HttpException && error.code() == 404 && attempt < FETCH_MAGIC_HASH_ATTEMPT_LIMIT) {
+                        Flowable.timer(1, TimeUnit.SECONDS)
+                    } else {
+                        Flowable.error(error)
+                    }
+                }
+        }
+    }
+
+    private fun fetchMagicOrNone(address: String): Single<ByteArray> =
+        fetchMagic(address).onErrorReturn { ByteArray(0) }
+
+    private fun putMetadata(
+        encryptedPayloadBytes: ByteArray,
+        metadata: Metadata,
+        magicHash: Single<ByteArray>
+    ): Completable =
+        magicHash.flatMapCompletable { m ->
             val magic = if (m.isEmpty()) null else m
             val message = MetadataUtil.message(encryptedPayloadBytes, magic)
             val sig = metadata.node.signMessage(String(Base64.encode(message)))
@@ -54,32 +91,39 @@ class MetadataInteractor(private val metadataService: MetadataService) {
                 typeId = metadata.type
             }
             metadataService.putMetadata(metadata.address, body)
-        }.retryWhen { errors ->
-            errors.zipWith(Flowable.range(0, FETCH_MAGIC_HASH_ATTEMPT_LIMIT))
-                .flatMap { (error, attempt) ->
-                    if (error is HttpException && error.code() == 404 && attempt < FETCH_MAGIC_HASH_ATTEMPT_LIMIT) {
-                        Flowable.timer(1, TimeUnit.SECONDS)
-                    } else {
-                        Flowable.error(error)
-                    }
+                .doOnComplete {
+                    magicHashes[metadata.address] = MetadataUtil.magic(encryptedPayloadBytes, magic)
                 }
+        }.doOnError {
+            magicHashes.remove(metadata.address)
         }
-    }
 
     fun loadRemoteMetadata(metadata: Metadata): Maybe<String> {
         return metadataService.getMetadata(metadata.address).toMaybe().map {
+            magicHashes[metadata.address] = magicOf(it)
             if (metadata.isEncrypted) {
                 AESUtil.decryptWithKey(metadata.encryptionKey, it.payload)
             } else {
                 String(Base64.decode(it.payload))
             }
         }.onErrorResumeNext(Function {
-            if (it is HttpException && it.code() == 404) // haven't been created
+            if (it is HttpException && it.code() == 404) { // haven't been created
+                magicHashes[metadata.address] = ByteArray(0)
                 Maybe.empty<String>()
-            else Maybe.error<String>(it)
+            } else Maybe.error<String>(it)
         })
     }
 
+    private fun magicOf(response: MetadataResponse): ByteArray {
+        val encryptedPayloadBytes = Base64.decode(response.payload.toByteArray(charset("utf-8")))
+        return if (response.prevMagicHash != null) {
+            val prevMagicBytes = Hex.decode(response.prevMagicHash)
+            MetadataUtil.magic(encryptedPayloadBytes, prevMagicBytes)
+        } else {
+            MetadataUtil.magic(encryptedPayloadBytes, null)
+        }
+    }
+
     companion object {
         const val METADATA_VERSION = 1
         const val FETCH_MAGIC_HASH_ATTEMPT_LIMIT = 1
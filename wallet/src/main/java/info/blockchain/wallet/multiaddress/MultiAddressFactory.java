@@ -3,28 +3,21 @@ package info.blockchain.wallet.multiaddress;
 import info.blockchain.api.blockexplorer.BlockExplorer;
 import info.blockchain.api.blockexplorer.FilterType;
 import info.blockchain.api.data.AddressSummary;
-import info.blockchain.api.data.Input;
 import info.blockchain.api.data.MultiAddress;
-import info.blockchain.api.data.Output;
 import info.blockchain.api.data.Transaction;
-import info.blockchain.api.data.Xpub;
-import info.blockchain.wallet.bip44.HDChain;
 import info.blockchain.wallet.exceptions.ApiException;
-import info.blockchain.wallet.multiaddress.TransactionSummary.Direction;
 import info.blockchain.wallet.payload.data.AddressLabel;
+import info.blockchain.wallet.payload.data.AddressOwnershipIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 
 import retrofit2.Call;
 import retrofit2.Response;
@@ -36,20 +29,20 @@ public class MultiAddressFactory {
     private HashMap<String, Integer> nextReceiveAddressMap;
     private HashMap<String, Integer> nextChangeAddressMap;
 
-    //Field for testing if address belongs to us - Quicker than derivation
-    private HashMap<String, String> addressToXpubMap;
+    //Index for testing if address belongs to us - Quicker than derivation
+    private AddressOwnershipIndex addressOwnershipIndex;
 
     public static final String ADDRESS_DECODE_ERROR = "[--address_decode_error--]";
 
     public MultiAddressFactory(BlockExplorer blockExplorer) {
         this.blockExplorer = blockExplorer;
-        this.addressToXpubMap = new HashMap<>();
+        this.addressOwnershipIndex = new AddressOwnershipIndex();
         this.nextReceiveAddressMap = new HashMap<>();
         this.nextChangeAddressMap = new HashMap<>();
     }
 
     public String getXpubFromAddress(String address) {
-        return addressToXpubMap.get(address);
+        return addressOwnershipIndex.getXpubFromAddress(address);
     }
 
     private MultiAddress getMultiAddress(List<String> allActive, String onlyShow, int limit,
@@ -137,7 +130,7 @@ public class MultiAddressFactory {
     }
 
     public boolean isOwnHDAddress(String address) {
-        return addressToXpubMap.containsKey(address);
+        return addressOwnershipIndex.isOwnHDAddress(address);
     }
 
     public void incrementNextReceiveAddress(String xpub, List<AddressLabel> reservedAddresses) {
@@ -183,8 +176,16 @@ public class MultiAddressFactory {
                                               MultiAddress multiAddress,
                                               List<String> legacy,
                                               int startingBlockHeight) {
+        return summarize(ownAddressesAndXpubs, watchOnlyAddresses, multiAddress, legacy, startingBlockHeight,
+                TransactionSummarizer.DEFAULT_PARALLEL_THRESHOLD);
+    }
 
-        List<TransactionSummary> summaryList = new ArrayList<>();
+    List<TransactionSummary> summarize(List<String> ownAddressesAndXpubs,
+                                       List<String> watchOnlyAddresses,
+                                       MultiAddress multiAddress,
+                                       List<String> legacy,
+                                       int startingBlockHeight,
+                                       int parallelThreshold) {
 
         //Set next address indexes
         for (AddressSummary address : multiAddress.getAddresses()) {
@@ -193,249 +194,25 @@ public class MultiAddressFactory {
         }
 
         List<Transaction> txs = multiAddress.getTxs();
-        if (txs == null) {
+        if (txs == null || txs.isEmpty()) {
             //Address might not contain transactions
-            return summaryList;
+            return new ArrayList<>();
         }
 
-        for (Transaction tx : txs) {
-
-            if (tx.getBlockHeight() != 0 && tx.getBlockHeight() < startingBlockHeight) {
-                //Filter out txs before blockHeight (mainly for BCH)
-                //Block height will be 0 until included in a block
-                continue;
-            }
-
-            boolean isLegacy = false;
-
-            TransactionSummary txSummary = new TransactionSummary();
-            txSummary.inputsMap = new HashMap<>();
-            txSummary.outputsMap = new HashMap<>();
-
-            //Map which address belongs to which xpub.
-            txSummary.inputsXpubMap = new HashMap<>();
-            txSummary.outputsXpubMap = new HashMap<>();
-
-            if (tx.getResult().add(tx.getFee()).signum() == 0) {
-                txSummary.setDirection(Direction.TRANSFERRED);
-            } else if (tx.getResult().signum() > 0) {
-                txSummary.setDirection(Direction.RECEIVED);
-            } else {
-                txSummary.setDirection(Direction.SENT);
-            }
-
-            //Inputs
-            String inputAddr;
-            BigInteger inputValue;
-            for (Input input : tx.getInputs()) {
-
-                Output prevOut = input.getPrevOut();
-                if (prevOut != null) {
-
-                    inputAddr = prevOut.getAddr();
-                    inputValue = prevOut.getValue();
-                    if (inputAddr != null) {
-
-                        //Transaction from HD account
-                        Xpub xpubBody = prevOut.getXpub();
-                        if (xpubBody != null) {
-                            //xpubBody will only show if it belongs to our account
-                            //inputAddr belongs to our own account - add it, it's a transfer/send
-                            ownAddressesAndXpubs.add(inputAddr);
-                            txSummary.inputsXpubMap.put(inputAddr, xpubBody.getM());
-                        }
-
-                        //Flag as watch only
-                        if (watchOnlyAddresses.contains(inputAddr)) {
-                            txSummary.setWatchOnly(true);
-                        }
-
-                        //Flag as imported legacy address
-                        if (legacy != null && legacy.contains(inputAddr)) {
-                            isLegacy = true;
-                        }
-
-                        //Keep track of inputs
-                        BigInteger existingBalance = txSummary.inputsMap.containsKey(inputAddr)
-                                ? txSummary.inputsMap.get(inputAddr) : BigInteger.ZERO;
-                        txSummary.inputsMap.put(inputAddr, existingBalance.add(inputValue));
-
-                    } else {
-                        //No input address available
-                        txSummary.inputsMap.put(ADDRESS_DECODE_ERROR, inputValue);
-                    }
-
-                } else {
-                    //Newly generated coin
-                }
-            }
-
-            HashMap<String, BigInteger> changeMap = new HashMap<>();
-            String outputAddr;
-            BigInteger outputValue;
-            for (Output output : tx.getOut()) {
-
-                outputAddr = output.getAddr();
-                outputValue = output.getValue();
-                if (outputAddr != null) {
-
-                    Xpub xpubBody = output.getXpub();
-                    if (xpubBody != null) {
-
-                        //inputAddr belongs to our own account - add it
-                        ownAddressesAndXpubs.add(outputAddr);
-                        if (xpubBody.getPath().startsWith("M/" + HDChain.RECEIVE_CHAIN + "/")) {
-                            BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                    ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                            txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
-                            txSummary.outputsXpubMap.put(outputAddr, xpubBody.getM());
-                        } else {
-                            //Change
-                            changeMap.put(outputAddr, outputValue);
-                        }
-
-                    } else {
-                        //If we own this address and it's not change coming back, it's a transfer
-                        if (ownAddressesAndXpubs.contains(outputAddr)
-                                && !txSummary.inputsMap.keySet().contains(outputAddr)) {
-
-                            if (txSummary.getDirection() == Direction.SENT) {
-                                txSummary.setDirection(Direction.TRANSFERRED);
-                            }
-
-                            //Don't add change coming back
-                            if (!txSummary.inputsMap.containsKey(outputAddr)) {
-                                BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                        ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                                txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
-                            } else {
-                                changeMap.put(outputAddr, outputValue);
-                            }
-
-                        } else if (txSummary.inputsMap.keySet().contains(outputAddr)) {
-                            //Our change
-                            changeMap.put(outputAddr, outputValue);
-                        } else {
-                            //Address does not belong to us
-                            BigInteger existingBalance = txSummary.outputsMap.containsKey(outputAddr)
-                                    ? txSummary.outputsMap.get(outputAddr) : BigInteger.ZERO;
-                            txSummary.outputsMap.put(outputAddr, existingBalance.add(outputValue));
-                        }
-                    }
-
-                    //Flag as watch only
-                    if (watchOnlyAddresses.contains(outputAddr)) {
-                        txSummary.setWatchOnly(true);
-                    }
-
-                    //Flag as imported legacy address
-                    if (legacy != null && legacy.contains(outputAddr)) {
-                        isLegacy = true;
-                    }
-                } else {
-                    //No output address available
-                    txSummary.outputsMap.put(ADDRESS_DECODE_ERROR, outputValue);
-                }
-            }
-
-            //If we are filtering for legacy and nothing found
-            if (legacy != null && !isLegacy) {
-                continue;
-            }
-
-            //Remove input addresses not ours
-            filterOwnedAddresses(
-                    ownAddressesAndXpubs,
-                    txSummary.inputsMap,
-                    txSummary.outputsMap,
-                    txSummary.getDirection());
-
-            txSummary.setHash(tx.getHash());
-            txSummary.setTime(tx.getTime());
-            txSummary.setDoubleSpend(tx.isDoubleSpend());
-            txSummary.setFee(tx.getFee());
-
-            if (txSummary.getDirection() == Direction.RECEIVED) {
-                BigInteger total = calculateTotalReceived(txSummary.outputsMap);
-                txSummary.setTotal(total);
-            } else {
-                BigInteger total = calculateTotalSent(
-                        txSummary.inputsMap,
-                        changeMap,
-                        tx.getFee(),
-                        txSummary.getDirection());
-                txSummary.setTotal(total);
-            }
-
-            //Set confirmations
-            long latestBlock = multiAddress.getInfo().getLatestBlock().getHeight();
-            long txBlockHeight = tx.getBlockHeight();
-            if (latestBlock > 0 && txBlockHeight > 0) {
-                txSummary.setConfirmations((int) ((latestBlock - txBlockHeight) + 1));
-            } else {
-                txSummary.setConfirmations(0);
-            }
-
-            addressToXpubMap.putAll(txSummary.getInputsXpubMap());
-            addressToXpubMap.putAll(txSummary.getOutputsXpubMap());
+        List<TransactionSummary> summaryList = new TransactionSummarizer(
+                ownAddressesAndXpubs,
+                watchOnlyAddresses,
+                legacy,
+                startingBlockHeight,
+                multiAddress.getInfo().getLatestBlock().getHeight(),
+                parallelThreshold).summarize(txs);
 
-            summaryList.add(txSummary);
+        for (TransactionSummary txSummary : summaryList) {
+            addressOwnershipIndex.putHDAddresses(txSummary.getInputsXpubMap());
+            addressOwnershipIndex.putHDAddresses(txSummary.getOutputsXpubMap());
         }
 
         return summaryList;
     }
 
-    private void filterOwnedAddresses(List<String> ownAddressesAndXpubs,
-                                      HashMap<String, BigInteger> inputsMap,
-                                      HashMap<String, BigInteger> outputsMap, Direction direction) {
-
-        Iterator<Entry<String, BigInteger>> iterator = inputsMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<String, BigInteger> item = iterator.next();
-            if (!ownAddressesAndXpubs.contains(item.getKey()) && direction.equals(Direction.SENT)) {
-                iterator.remove();
-            }
-        }
-
-        iterator = outputsMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<String, BigInteger> item = iterator.next();
-            if (!ownAddressesAndXpubs.contains(item.getKey()) && direction.equals(Direction.RECEIVED)) {
-                iterator.remove();
-            }
-        }
-    }
-
-    private BigInteger calculateTotalReceived(HashMap<String, BigInteger> outputsMap) {
-
-        BigInteger total = BigInteger.ZERO;
-
-        for (BigInteger output : outputsMap.values()) {
-            total = total.add(output);
-        }
-
-        return total;
-    }
-
-    private BigInteger calculateTotalSent(HashMap<String, BigInteger> inputsMap,
-                                          HashMap<String, BigInteger> changeMap,
-                                          BigInteger fee, Direction direction) {
-
-        BigInteger total = BigInteger.ZERO;
-
-        for (BigInteger input : inputsMap.values()) {
-            total = total.add(input);
-        }
-
-        for (BigInteger change : changeMap.values()) {
-            total = total.subtract(change);
-        }
-
-        if (direction == Direction.TRANSFERRED) {
-            total = total.subtract(fee);
-        }
-
-        return total;
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,383 @@
+package info.blockchain.wallet.multiaddress;
+
+import info.blockchain.api.data.Input;
+import info.blockchain.api.data.Output;
+import info.blockchain.api.data.Transaction;
+import info.blockchain.api.data.Xpub;
+import info.blockchain.wallet.bip44.HDChain;
+import info.blockchain.wallet.multiaddress.TransactionSummary.Direction;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.Nullable;
+
+/**
+ * Builds {@link TransactionSummary}s from a page of multiaddress transactions. The address lists
+ * are hashed once per page, and transactions are summarised independently of each other, in
+ * parallel for large pages.
+ * <p>
+ * An HD address is owned from the point in the page where it's first seen with an xpub. Those
+ * points are found up front, so every transaction sees the same owned addresses as it would if the
+ * page were summarised in order.
+ */
+class TransactionSummarizer {
+
+    // Pages with fewer transactions than this are summarised on the calling thread
+    static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+    private static final int TRANSACTIONS_PER_TASK = 64;
+
+    private static final String RECEIVE_PATH_PREFIX = "M/" + HDChain.RECEIVE_CHAIN + "/";
+
+    private static ForkJoinPool pool;
+
+    private final Set<String> ownAddressesAndXpubs;
+    private final Set<String> watchOnlyAddresses;
+    @Nullable
+    private final Set<String> legacy;
+    private final int startingBlockHeight;
+    private final long latestBlock;
+    private final int parallelThreshold;
+
+    // HD addresses not in ownAddressesAndXpubs, against the position they're first seen at
+    private final Map<String, Long> firstSeenHDAddresses = new HashMap<>();
+
+    TransactionSummarizer(Collection<String> ownAddressesAndXpubs,
+                          Collection<String> watchOnlyAddresses,
+                          @Nullable Collection<String> legacy,
+                          int startingBlockHeight,
+                          long latestBlock,
+                          int parallelThreshold) {
+        this.ownAddressesAndXpubs = new HashSet<>(ownAddressesAndXpubs);
+        this.watchOnlyAddresses = new HashSet<>(watchOnlyAddresses);
+        this.legacy = legacy != null ? new HashSet<>(legacy) : null;
+        this.startingBlockHeight = startingBlockHeight;
+        this.latestBlock = latestBlock;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    List<TransactionSummary> summarize(List<Transaction> txs) {
+        findHDAddresses(txs);
+
+        TransactionSummary[] summaries = new TransactionSummary[txs.size()];
+        if (txs.size() < parallelThreshold) {
+            summarize(txs, 0, txs.size(), summaries);
+        } else {
+            getPool().invoke(new SummarizeTask(txs, 0, txs.size(), summaries));
+        }
+
+        List<TransactionSummary> summaryList = new ArrayList<>(summaries.length);
+        for (TransactionSummary summary : summaries) {
+            if (summary != null) {
+                summaryList.add(summary);
+            }
+        }
+        return summaryList;
+    }
+
+    private void findHDAddresses(List<Transaction> txs) {
+        for (int txIndex = 0; txIndex < txs.size(); txIndex++) {
+            Transaction tx = txs.get(txIndex);
+            if (isBeforeStartingBlock(tx)) {
+                continue;
+            }
+
+            List<Input> inputs = tx.getInputs();
+            for (int i = 0; i < inputs.size(); i++) {
+                Output prevOut = inputs.get(i).getPrevOut();
+                if (prevOut != null && prevOut.getAddr() != null && prevOut.getXpub() != null) {
+                    markSeen(prevOut.getAddr(), position(txIndex, i));
+                }
+            }
+
+            List<Output> outputs = tx.getOut();
+            for (int i = 0; i < outputs.size(); i++) {
+                Output output = outputs.get(i);
+                if (output.getAddr() != null && output.getXpub() != null) {
+                    markSeen(output.getAddr(), position(txIndex, inputs.size() + i));
+                }
+            }
+        }
+    }
+
+    private void markSeen(String address, long position) {
+        if (!ownAddressesAndXpubs.contains(address) && !firstSeenHDAddresses.containsKey(address)) {
+            firstSeenHDAddresses.put(address, position);
+        }
+    }
+
+    private boolean isOwn(String address, long position) {
+        if (ownAddressesAndXpubs.contains(address)) {
+            return true;
+        }
+        Long firstSeen = firstSeenHDAddresses.get(address);
+        return firstSeen != null && firstSeen <= position;
+    }
+
+    private boolean isBeforeStartingBlock(Transaction tx) {
+        //Filter out txs before blockHeight (mainly for BCH)
+        //Block height will be 0 until included in a block
+        return tx.getBlockHeight() != 0 && tx.getBlockHeight() < startingBlockHeight;
+    }
+
+    private void summarize(List<Transaction> txs, int from, int to, TransactionSummary[] summaries) {
+        for (int txIndex = from; txIndex < to; txIndex++) {
+            Transaction tx = txs.get(txIndex);
+            if (!isBeforeStartingBlock(tx)) {
+                summaries[txIndex] = summarize(tx, txIndex);
+            }
+        }
+    }
+
+    @Nullable
+    private TransactionSummary summarize(Transaction tx, int txIndex) {
+        boolean isLegacy = false;
+
+        TransactionSummary txSummary = new TransactionSummary();
+
+        if (tx.getResult().add(tx.getFee()).signum() == 0) {
+            txSummary.setDirection(Direction.TRANSFERRED);
+        } else if (tx.getResult().signum() > 0) {
+            txSummary.setDirection(Direction.RECEIVED);
+        } else {
+            txSummary.setDirection(Direction.SENT);
+        }
+
+        //Inputs
+        List<Input> inputs = tx.getInputs();
+        for (Input input : inputs) {
+
+            Output prevOut = input.getPrevOut();
+            if (prevOut != null) {
+
+                String inputAddr = prevOut.getAddr();
+                BigInteger inputValue = prevOut.getValue();
+                if (inputAddr != null) {
+
+                    //Transaction from HD account
+                    Xpub xpubBody = prevOut.getXpub();
+                    if (xpubBody != null) {
+                        //xpubBody will only show if it belongs to our account
+                        //inputAddr belongs to our own account, it's a transfer/send
+                        txSummary.inputsXpubMap.put(inputAddr, xpubBody.getM());
+                    }
+
+                    //Flag as watch only
+                    if (watchOnlyAddresses.contains(inputAddr)) {
+                        txSummary.setWatchOnly(true);
+                    }
+
+                    //Flag as imported legacy address
+                    if (legacy != null && legacy.contains(inputAddr)) {
+                        isLegacy = true;
+                    }
+
+                    //Keep track of inputs
+                    addValue(txSummary.inputsMap, inputAddr, inputValue);
+
+                } else {
+                    //No input address available
+                    txSummary.inputsMap.put(MultiAddressFactory.ADDRESS_DECODE_ERROR, inputValue);
+                }
+            }
+        }
+
+        HashMap<String, BigInteger> changeMap = new HashMap<>();
+        List<Output> outputs = tx.getOut();
+        for (int i = 0; i < outputs.size(); i++) {
+
+            Output output = outputs.get(i);
+            String outputAddr = output.getAddr();
+            BigInteger outputValue = output.getValue();
+            if (outputAddr != null) {
+
+                Xpub xpubBody = output.getXpub();
+                if (xpubBody != null) {
+
+                    //outputAddr belongs to our own account
+                    if (xpubBody.getPath().startsWith(RECEIVE_PATH_PREFIX)) {
+                        addValue(txSummary.outputsMap, outputAddr, outputValue);
+                        txSummary.outputsXpubMap.put(outputAddr, xpubBody.getM());
+                    } else {
+                        //Change
+                        changeMap.put(outputAddr, outputValue);
+                    }
+
+                } else if (isOwn(outputAddr, position(txIndex, inputs.size() + i))
+                        && !txSummary.inputsMap.containsKey(outputAddr)) {
+                    //We own this address and it's not change coming back, it's a transfer
+                    if (txSummary.getDirection() == Direction.SENT) {
+                        txSummary.setDirection(Direction.TRANSFERRED);
+                    }
+                    addValue(txSummary.outputsMap, outputAddr, outputValue);
+
+                } else if (txSummary.inputsMap.containsKey(outputAddr)) {
+                    //Our change
+                    changeMap.put(outputAddr, outputValue);
+                } else {
+                    //Address does not belong to us
+                    addValue(txSummary.outputsMap, outputAddr, outputValue);
+                }
+
+                //Flag as watch only
+                if (watchOnlyAddresses.contains(outputAddr)) {
+                    txSummary.setWatchOnly(true);
+                }
+
+                //Flag as imported legacy address
+                if (legacy != null && legacy.contains(outputAddr)) {
+                    isLegacy = true;
+                }
+            } else {
+                //No output address available
+                txSummary.outputsMap.put(MultiAddressFactory.ADDRESS_DECODE_ERROR, outputValue);
+            }
+        }
+
+        //If we are filtering for legacy and nothing found
+        if (legacy != null && !isLegacy) {
+            return null;
+        }
+
+        //Remove input addresses not ours
+        filterOwnedAddresses(
+                position(txIndex, Integer.MAX_VALUE),
+                txSummary.inputsMap,
+                txSummary.outputsMap,
+                txSummary.getDirection());
+
+        txSummary.setHash(tx.getHash());
+        txSummary.setTime(tx.getTime());
+        txSummary.setDoubleSpend(tx.isDoubleSpend());
+        txSummary.setFee(tx.getFee());
+
+        if (txSummary.getDirection() == Direction.RECEIVED) {
+            txSummary.setTotal(calculateTotalReceived(txSummary.outputsMap));
+        } else {
+            txSummary.setTotal(calculateTotalSent(
+                    txSummary.inputsMap,
+                    changeMap,
+                    tx.getFee(),
+                    txSummary.getDirection()));
+        }
+
+        //Set confirmations
+        long txBlockHeight = tx.getBlockHeight();
+        txSummary.setBlockHeight(txBlockHeight);
+        if (latestBlock > 0 && txBlockHeight > 0) {
+            txSummary.setConfirmations((int) ((latestBlock - txBlockHeight) + 1));
+        } else {
+            txSummary.setConfirmations(0);
+        }
+
+        return txSummary;
+    }
+
+    private void filterOwnedAddresses(long position,
+                                      HashMap<String, BigInteger> inputsMap,
+                                      HashMap<String, BigInteger> outputsMap,
+                                      Direction direction) {
+
+        if (direction == Direction.SENT) {
+            Iterator<Entry<String, BigInteger>> iterator = inputsMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (!isOwn(iterator.next().getKey(), position)) {
+                    iterator.remove();
+                }
+            }
+        } else if (direction == Direction.RECEIVED) {
+            Iterator<Entry<String, BigInteger>> iterator = outputsMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                if (!isOwn(iterator.next().getKey(), position)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static void addValue(HashMap<String, BigInteger> map, String address, BigInteger value) {
+        BigInteger existingBalance = map.get(address);
+        map.put(address, existingBalance != null ? existingBalance.add(value) : value);
+    }
+
+    private static BigInteger calculateTotalReceived(HashMap<String, BigInteger> outputsMap) {
+
+        BigInteger total = BigInteger.ZERO;
+
+        for (BigInteger output : outputsMap.values()) {
+            total = total.add(output);
+        }
+
+        return total;
+    }
+
+    private static BigInteger calculateTotalSent(HashMap<String, BigInteger> inputsMap,
+                                                 HashMap<String, BigInteger> changeMap,
+                                                 BigInteger fee, Direction direction) {
+
+        BigInteger total = BigInteger.ZERO;
+
+        for (BigInteger input : inputsMap.values()) {
+            total = total.add(input);
+        }
+
+        for (BigInteger change : changeMap.values()) {
+            total = total.subtract(change);
+        }
+
+        if (direction == Direction.TRANSFERRED) {
+            total = total.subtract(fee);
+        }
+
+        return total;
+    }
+
+    // Orders inputs then outputs within a transaction, and transactions within the page
+    private static long position(int txIndex, int ioIndex) {
+        return ((long) txIndex << 32) | ioIndex;
+    }
+
+    private static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool();
+        }
+        return pool;
+    }
+
+    private class SummarizeTask extends RecursiveAction {
+
+        private final List<Transaction> txs;
+        private final int from;
+        private final int to;
+        private final TransactionSummary[] summaries;
+
+        SummarizeTask(List<Transaction> txs, int from, int to, TransactionSummary[] summaries) {
+            this.txs = txs;
+            this.from = from;
+            this.to = to;
+            this.summaries = summaries;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TRANSACTIONS_PER_TASK) {
+                summarize(txs, from, to, summaries);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new SummarizeTask(txs, from, middle, summaries),
+                        new SummarizeTask(txs, middle, to, summaries));
+            }
+        }
+    }
+}
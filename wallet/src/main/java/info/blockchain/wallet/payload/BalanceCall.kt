@@ -5,26 +5,126 @@ import info.blockchain.api.blockexplorer.FilterType
 import info.blockchain.api.data.Balance
 import info.blockchain.balance.CryptoCurrency
 import info.blockchain.wallet.exceptions.ServerConnectionException
+import io.reactivex.Flowable
+import io.reactivex.Observable
+import io.reactivex.Single
+import io.reactivex.rxkotlin.zipWith
+import io.reactivex.schedulers.Schedulers
+import retrofit2.HttpException
+import java.io.IOException
+import java.math.BigInteger
 import java.util.ArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
-class BalanceCall(
+/**
+ * Queries the balances of xpubs and addresses in chunks of at most [chunkSize], so that wallets with
+ * many imported addresses don't send a single, huge query. Up to [parallelism] chunks are fetched
+ * at once. A chunk which fails with a network error, a server error or a 429 is retried on its own up
+ * to [maxAttempts] times in total, waiting [retryDelayMillis] before the first retry and twice as long
+ * before each further one, up to [MAX_RETRY_DELAY_MILLIS]. Any other failure fails the whole query.
+ */
+class BalanceCall @JvmOverloads constructor(
     private val blockExplorer: BlockExplorer,
-    private val cryptoCurrency: CryptoCurrency
+    private val cryptoCurrency: CryptoCurrency,
+    private val chunkSize: Int = DEFAULT_CHUNK_SIZE,
+    private val parallelism: Int = DEFAULT_PARALLELISM,
+    private val maxAttempts: Int = DEFAULT_MAX_ATTEMPTS,
+    private val retryDelayMillis: Long = DEFAULT_RETRY_DELAY_MILLIS
 ) : BalanceQuery {
 
-    override fun getBalancesFor(addressesAndXpubs: Set<String>) =
-        getBalanceOfAddresses(ArrayList(addressesAndXpubs))
+    data class ChunkMetrics(
+        val addressCount: Int,
+        val attempts: Int,
+        val latencyMillis: Long,
+        val succeeded: Boolean
+    )
+
+    /**
+     * The metrics of each chunk of the last query, in the order they finished.
+     */
+    @Volatile
+    var lastQueryMetrics: List<ChunkMetrics> = emptyList()
+        private set
+
+    override fun getBalancesFor(addressesAndXpubs: Set<String>): Map<String, BigInteger> {
+        val results = Observable.fromIterable(addressesAndXpubs.chunked(chunkSize))
+            .flatMapSingle({ fetchChunk(it) }, false, parallelism)
+            .toList()
+            .blockingGet()
+
+        lastQueryMetrics = results.map { it.metrics }
+        results.firstOrNull { it.error != null }?.let { throw it.error!! }
+
+        return results.fold(HashMap()) { balances, result ->
+            balances.apply { putAll(result.balances) }
+        }
+    }
+
+    private fun fetchChunk(addresses: List<String>): Single<ChunkResult> {
+        val attempts = AtomicInteger()
+        val start = System.currentTimeMillis()
+
+        return Single.fromCallable {
+            attempts.incrementAndGet()
+            getBalanceOfAddresses(addresses)
+        }.retryWhen { errors ->
+            errors.zipWith(Flowable.range(1, maxAttempts))
+                .flatMap { (error, attempt) ->
+                    if (attempt < maxAttempts && error.isRetryable()) {
+                        Flowable.timer(retryDelay(attempt), TimeUnit.MILLISECONDS)
+                    } else {
+                        Flowable.error(error)
+                    }
+                }
+        }.map { ChunkResult(it, null, metrics(addresses, attempts, start, true)) }
+            .onErrorReturn { ChunkResult(emptyMap(), it, metrics(addresses, attempts, start, false)) }
+            .subscribeOn(Schedulers.io())
+    }
+
+    private fun retryDelay(attempt: Int) =
+        minOf(retryDelayMillis shl minOf(attempt - 1, MAX_RETRY_SHIFT), MAX_RETRY_DELAY_MILLIS)
+
+    private fun metrics(addresses: List<String>, attempts: AtomicInteger, start: Long, succeeded: Boolean) =
+        ChunkMetrics(addresses.size, attempts.get(), System.currentTimeMillis() - start, succeeded)
+
+    private fun getBalanceOfAddresses(addresses: List<String>) =
+        blockExplorer.getBalance(cryptoCurrency.networkTicker.toLowerCase(), ArrayList(addresses),
+            FilterType.RemoveUnspendable)
             .execute()
             .let {
                 if (!it.isSuccessful) {
-                    throw ServerConnectionException(it.errorBody()?.string() ?: "Unknown, no error body")
+                    throw ServerConnectionException(
+                        it.errorBody()?.string() ?: "Unknown, no error body",
+                        HttpException(it)
+                    )
                 }
                 it.body()?.finalBalanceMap()
                     ?: throw Exception("No balances returned")
             }
 
-    private fun getBalanceOfAddresses(addresses: List<String>) =
-        blockExplorer.getBalance(cryptoCurrency.networkTicker.toLowerCase(), addresses, FilterType.RemoveUnspendable)
+    private class ChunkResult(
+        val balances: Map<String, BigInteger>,
+        val error: Throwable?,
+        val metrics: ChunkMetrics
+    )
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = 100
+        const val DEFAULT_PARALLELISM = 4
+        const val DEFAULT_MAX_ATTEMPTS = 3
+        const val DEFAULT_RETRY_DELAY_MILLIS = 500L
+        const val MAX_RETRY_DELAY_MILLIS = 5_000L
+        private const val MAX_RETRY_SHIFT = 16
+    }
+}
+
+private fun Throwable.isRetryable(): Boolean {
+    val code = (cause as? HttpException)?.code()
+    return when {
+        code != null -> code >= 500 || code == 429
+        else -> this is IOException
+    }
 }
 
 private fun <K> Map<K, Balance>.finalBalanceMap() =
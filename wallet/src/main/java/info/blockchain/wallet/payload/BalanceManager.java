@@ -11,12 +11,14 @@ import javax.annotation.Nonnull;
 import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public abstract class BalanceManager {
 
     private BlockExplorer blockExplorer;
     private CryptoCurrency cryptoCurrency;
+    private BalanceCall balanceQuery;
 
     @Nonnull
     private CryptoBalanceMap balanceMap;
@@ -24,6 +26,7 @@ public abstract class BalanceManager {
     BalanceManager(@Nonnull BlockExplorer blockExplorer, @Nonnull CryptoCurrency cryptoCurrency) {
         this.blockExplorer = blockExplorer;
         this.cryptoCurrency = cryptoCurrency;
+        balanceQuery = new BalanceCall(blockExplorer, cryptoCurrency);
         balanceMap = CryptoBalanceMap.zero(cryptoCurrency);
     }
 
@@ -31,6 +34,10 @@ public abstract class BalanceManager {
         balanceMap = balanceMap.subtractAmountFromAddress(address, new CryptoValue(cryptoCurrency, amount));
     }
 
+    public void applyBalanceChanges(Map<String, BigInteger> changes) {
+        balanceMap = balanceMap.applyChanges(changes);
+    }
+
     @Nonnull
     public BigInteger getAddressBalance(String address) {
         return balanceMap.get(address).getAmount();
@@ -66,7 +73,15 @@ public abstract class BalanceManager {
     }
 
     private BalanceCall getBalanceQuery() {
-        return new BalanceCall(blockExplorer, cryptoCurrency);
+        return balanceQuery;
+    }
+
+    /**
+     * @return The latency and attempts of each chunk of the last balance query
+     */
+    @Nonnull
+    public List<BalanceCall.ChunkMetrics> getLastBalanceQueryMetrics() {
+        return balanceQuery.getLastQueryMetrics();
     }
 
     /**
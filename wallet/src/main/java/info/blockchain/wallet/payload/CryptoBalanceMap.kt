@@ -4,29 +4,96 @@ import info.blockchain.balance.CryptoCurrency
 import info.blockchain.balance.CryptoValue
 import java.math.BigInteger
 
-data class CryptoBalanceMap(
+/**
+ * An immutable snapshot of the balances of a wallet's xpubs and addresses, and their totals.
+ *
+ * Balances are held in a [BalanceVector] indexed by a [BalanceIndex] shared between snapshots, and
+ * the totals are kept up to date as balances change. So changing a balance only copies the
+ * vector's path to it, rather than the whole map, and doesn't sum every balance again. Snapshots
+ * can be shared between threads freely.
+ */
+class CryptoBalanceMap private constructor(
     private val cryptoCurrency: CryptoCurrency,
-    private val xpubs: Set<String>,
-    private val legacy: Set<String>,
-    private val watchOnlyLegacy: Set<String>,
-    private val balances: Map<String, BigInteger>
+    private val index: BalanceIndex,
+    private val balances: BalanceVector,
+    private val spendable: BigInteger,
+    private val spendableLegacy: BigInteger,
+    private val watchOnly: BigInteger
 ) {
-    val totalSpendable = CryptoValue(cryptoCurrency, (xpubs + legacy - watchOnlyLegacy).sum(balances))
-    val totalSpendableLegacy = CryptoValue(cryptoCurrency, (legacy - watchOnlyLegacy).sum(balances))
-    val totalWatchOnly = CryptoValue(cryptoCurrency, watchOnlyLegacy.sum(balances))
+    constructor(
+        cryptoCurrency: CryptoCurrency,
+        xpubs: Set<String>,
+        legacy: Set<String>,
+        watchOnlyLegacy: Set<String>,
+        balances: Map<String, BigInteger>
+    ) : this(cryptoCurrency, BalanceIndex(xpubs, legacy, watchOnlyLegacy, balances.keys), balances)
+
+    private constructor(
+        cryptoCurrency: CryptoCurrency,
+        index: BalanceIndex,
+        balances: Map<String, BigInteger>
+    ) : this(
+        cryptoCurrency,
+        index,
+        BalanceVector.of(index.keys.map { balances[it] }),
+        index.sum(balances, BalanceIndex.SPENDABLE),
+        index.sum(balances, BalanceIndex.SPENDABLE_LEGACY),
+        index.sum(balances, BalanceIndex.WATCH_ONLY)
+    )
+
+    val totalSpendable = CryptoValue(cryptoCurrency, spendable)
+    val totalSpendableLegacy = CryptoValue(cryptoCurrency, spendableLegacy)
+    val totalWatchOnly = CryptoValue(cryptoCurrency, watchOnly)
 
     fun subtractAmountFromAddress(address: String, cryptoValue: CryptoValue): CryptoBalanceMap {
-        val value =
-            balances[address] ?: throw Exception("No info for this address. updateAllBalances should be called first.")
-        val newBalances = balances.toMutableMap()
-            .apply {
-                set(address, value - cryptoValue.amount)
-            }
-        return copy(balances = newBalances)
+        val position = index.positionOf(address)
+        if (position < 0 || balances[position] == null) {
+            throw Exception("No info for this address. updateAllBalances should be called first.")
+        }
+        return withChanges(mapOf(position to cryptoValue.amount.negate()))
     }
 
-    operator fun get(address: String) =
-        CryptoValue(cryptoCurrency, balances[address] ?: BigInteger.ZERO)
+    /**
+     * Adds a change to the balance of each xpub or address, such as those caused by a transaction
+     * seen on the websocket. Changes for xpubs and addresses not in this map are ignored.
+     */
+    fun applyChanges(changes: Map<String, BigInteger>): CryptoBalanceMap {
+        val tracked = changes
+            .mapKeys { (key, _) -> index.positionOf(key) }
+            .filterKeys { it >= 0 && index.isTracked(it) }
+        if (tracked.isEmpty()) {
+            return this
+        }
+        return withChanges(tracked)
+    }
+
+    operator fun get(address: String): CryptoValue {
+        val position = index.positionOf(address)
+        return CryptoValue(cryptoCurrency, (if (position >= 0) balances[position] else null) ?: BigInteger.ZERO)
+    }
+
+    private fun withChanges(changes: Map<Int, BigInteger>): CryptoBalanceMap {
+        var newBalances = balances
+        var newSpendable = spendable
+        var newSpendableLegacy = spendableLegacy
+        var newWatchOnly = watchOnly
+
+        changes.forEach { (position, change) ->
+            newBalances = newBalances.set(position, (newBalances[position] ?: BigInteger.ZERO) + change)
+            if (index.isIn(position, BalanceIndex.SPENDABLE)) newSpendable += change
+            if (index.isIn(position, BalanceIndex.SPENDABLE_LEGACY)) newSpendableLegacy += change
+            if (index.isIn(position, BalanceIndex.WATCH_ONLY)) newWatchOnly += change
+        }
+
+        return CryptoBalanceMap(
+            cryptoCurrency,
+            index,
+            newBalances,
+            newSpendable,
+            newSpendableLegacy,
+            newWatchOnly
+        )
+    }
 
     companion object {
         @JvmStatic
@@ -58,6 +125,104 @@ fun calculateCryptoBalanceMap(
     )
 }
 
-private fun <T> Iterable<T>.sum(balances: Map<T, BigInteger>) =
-    map { balances[it] ?: BigInteger.ZERO }
-        .foldRight(BigInteger.ZERO, BigInteger::add)
+/**
+ * The position of every xpub and address in a [BalanceVector], and which totals each counts
+ * towards. Watch only addresses never count towards the spendable totals.
+ */
+internal class BalanceIndex(
+    xpubs: Set<String>,
+    legacy: Set<String>,
+    watchOnlyLegacy: Set<String>,
+    others: Set<String>
+) {
+    val keys: List<String> = (xpubs + legacy + watchOnlyLegacy + others).toList()
+
+    private val positions: Map<String, Int> = keys.withIndex().associate { (i, key) -> key to i }
+
+    private val totals = IntArray(keys.size) { i ->
+        val key = keys[i]
+        when {
+            key in watchOnlyLegacy -> TRACKED or WATCH_ONLY
+            key in legacy -> TRACKED or SPENDABLE or SPENDABLE_LEGACY
+            key in xpubs -> TRACKED or SPENDABLE
+            else -> 0
+        }
+    }
+
+    fun positionOf(key: String) = positions[key] ?: -1
+
+    fun isTracked(position: Int) = isIn(position, TRACKED)
+
+    fun isIn(position: Int, total: Int) = totals[position] and total != 0
+
+    fun sum(balances: Map<String, BigInteger>, total: Int): BigInteger =
+        keys.indices
+            .filter { isIn(it, total) }
+            .fold(BigInteger.ZERO) { sum, i -> balances[keys[i]]?.let { sum + it } ?: sum }
+
+    companion object {
+        const val TRACKED = 1
+        const val SPENDABLE = 2
+        const val SPENDABLE_LEGACY = 4
+        const val WATCH_ONLY = 8
+    }
+}
+
+/**
+ * A fixed size, persistent vector of balances: a trie of 32 way branching nodes, where [set] copies
+ * only the nodes on the path to the balance.
+ */
+internal class BalanceVector private constructor(
+    private val shift: Int,
+    private val root: Array<Any?>
+) {
+    @Suppress("UNCHECKED_CAST")
+    operator fun get(position: Int): BigInteger? {
+        var node = root
+        var level = shift
+        while (level > 0) {
+            node = node[(position ushr level) and MASK] as Array<Any?>
+            level -= BITS
+        }
+        return node[position and MASK] as BigInteger?
+    }
+
+    fun set(position: Int, balance: BigInteger): BalanceVector =
+        BalanceVector(shift, setIn(root, shift, position, balance))
+
+    @Suppress("UNCHECKED_CAST")
+    private fun setIn(node: Array<Any?>, level: Int, position: Int, balance: BigInteger): Array<Any?> {
+        val copy = node.copyOf()
+        if (level == 0) {
+            copy[position and MASK] = balance
+        } else {
+            val child = (position ushr level) and MASK
+            copy[child] = setIn(node[child] as Array<Any?>, level - BITS, position, balance)
+        }
+        return copy
+    }
+
+    companion object {
+        private const val BITS = 5
+        private const val WIDTH = 1 shl BITS
+        private const val MASK = WIDTH - 1
+
+        fun of(balances: List<BigInteger?>): BalanceVector {
+            var shift = 0
+            while (balances.size > WIDTH shl shift) {
+                shift += BITS
+            }
+            return BalanceVector(shift, build(balances, shift, 0))
+        }
+
+        private fun build(balances: List<BigInteger?>, level: Int, offset: Int): Array<Any?> =
+            if (level == 0) {
+                Array(WIDTH) { balances.getOrNull(offset + it) }
+            } else {
+                Array(WIDTH) {
+                    val childOffset = offset + (it shl level)
+                    if (childOffset < balances.size) build(balances, level - BITS, childOffset) else null
+                }
+            }
+    }
+}
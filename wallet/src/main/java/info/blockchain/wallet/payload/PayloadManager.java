@@ -55,6 +55,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @SuppressWarnings("ALL")
@@ -438,6 +439,7 @@ public class PayloadManager {
     public void addLegacyAddress(LegacyAddress legacyAddress) throws Exception {
         List<LegacyAddress> currentAddresses = walletBaseBody.getWalletBody().getLegacyAddressList();
         walletBaseBody.getWalletBody().getLegacyAddressList().add(legacyAddress);
+        walletBaseBody.getWalletBody().invalidateLegacyAddressIndex();
 
         if (!save()) {
             // Revert on sync fail
@@ -465,6 +467,7 @@ public class PayloadManager {
             if (address.getAddress().equals(legacyAddress.getAddress())) {
                 // Replace object with updated version
                 walletBaseBody.getWalletBody().getLegacyAddressList().set(i, legacyAddress);
+                walletBaseBody.getWalletBody().invalidateLegacyAddressIndex();
                 found = true;
                 break;
             }
@@ -807,14 +810,14 @@ public class PayloadManager {
         HDAccount hdAccount = getPayload().getHdWallets().get(0)
                 .getHDAccountFromAccountBody(account);
 
-        return hdAccount.getReceive().getAddressAt(position).getAddressString();
+        return hdAccount.getReceive().getAddressStringAt(position);
     }
 
     private String getChangeAddress(Account account, int position) throws HDWalletException {
         HDAccount hdAccount = getPayload().getHdWallets().get(0)
                 .getHDAccountFromAccountBody(account);
 
-        return hdAccount.getChange().getAddressAt(position).getAddressString();
+        return hdAccount.getChange().getAddressStringAt(position);
     }
 
     /**
@@ -923,4 +926,13 @@ public class PayloadManager {
         balanceManager.subtractAmountFromAddressBalance(address, amount);
     }
 
+
+    /**
+     * Adds the balance changes caused by a transaction to the address and xpub balances, without
+     * querying the balance API. Changes for unknown addresses or xpubs are ignored.
+     */
+    public void applyBalanceChanges(Map<String, BigInteger> changes) {
+        balanceManager.applyBalanceChanges(changes);
+    }
+
 }
\ No newline at end of file
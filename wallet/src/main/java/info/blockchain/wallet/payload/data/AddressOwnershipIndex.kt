@@ -0,0 +1,73 @@
+package info.blockchain.wallet.payload.data
+
+/**
+ * Hash based lookups of which addresses belong to the wallet, so that ownership checks don't scan
+ * every imported address.
+ *
+ * Legacy addresses are indexed from the wallet's list of [LegacyAddress]es, which is re-checked on
+ * each lookup. Addresses appended to the list are indexed incrementally, and the index is rebuilt if
+ * the list is replaced or shrinks. Any other change to the list, such as replacing an entry, must
+ * call [invalidateLegacyAddresses]. The [LegacyAddress]es themselves are kept, so archiving or
+ * unarchiving one is reflected without re-indexing.
+ *
+ * HD addresses are indexed against their xpub as they are seen in transactions, as deriving them to
+ * check ownership would be far slower.
+ */
+class AddressOwnershipIndex {
+
+    private var indexedList: List<LegacyAddress>? = null
+    private var indexedCount = 0
+    private val legacyAddresses = HashMap<String, LegacyAddress>()
+
+    private val hdAddressToXpub = HashMap<String, String>()
+
+    @Synchronized
+    fun isLegacyAddress(legacyAddressList: List<LegacyAddress>, address: String): Boolean {
+        sync(legacyAddressList)
+        return legacyAddresses.containsKey(address)
+    }
+
+    @Synchronized
+    fun isActiveLegacyAddress(legacyAddressList: List<LegacyAddress>, address: String): Boolean {
+        sync(legacyAddressList)
+        return legacyAddresses[address]?.isArchived == false
+    }
+
+    @Synchronized
+    fun getLegacyAddress(legacyAddressList: List<LegacyAddress>, address: String): LegacyAddress? {
+        sync(legacyAddressList)
+        return legacyAddresses[address]
+    }
+
+    /**
+     * Rebuilds the legacy address index on the next lookup.
+     */
+    @Synchronized
+    fun invalidateLegacyAddresses() {
+        indexedList = null
+    }
+
+    @Synchronized
+    fun putHDAddresses(addressToXpub: Map<String, String>) {
+        hdAddressToXpub.putAll(addressToXpub)
+    }
+
+    @Synchronized
+    fun isOwnHDAddress(address: String): Boolean = hdAddressToXpub.containsKey(address)
+
+    @Synchronized
+    fun getXpubFromAddress(address: String): String? = hdAddressToXpub[address]
+
+    private fun sync(legacyAddressList: List<LegacyAddress>) {
+        if (legacyAddressList !== indexedList || legacyAddressList.size < indexedCount) {
+            indexedList = legacyAddressList
+            indexedCount = 0
+            legacyAddresses.clear()
+        }
+        for (i in indexedCount until legacyAddressList.size) {
+            val legacyAddress = legacyAddressList[i]
+            legacyAddress.address?.let { legacyAddresses.getOrPut(it) { legacyAddress } }
+        }
+        indexedCount = legacyAddressList.size
+    }
+}
@@ -84,6 +84,8 @@ public class Wallet {
     @JsonProperty("address_book")
     private List<AddressBook> addressBook;
 
+    private final AddressOwnershipIndex addressOwnershipIndex = new AddressOwnershipIndex();
+
     public Wallet() {
         guid = UUID.randomUUID().toString();
         sharedKey = UUID.randomUUID().toString();
@@ -205,6 +207,15 @@ public class Wallet {
 
     public void setLegacyAddressList(List<LegacyAddress> keys) {
         this.keys = keys;
+        invalidateLegacyAddressIndex();
+    }
+
+    /**
+     * Must be called after replacing or removing an entry of {@link #getLegacyAddressList()} in
+     * place, so that address lookups see the change. Appending to the list needs no call.
+     */
+    public void invalidateLegacyAddressIndex() {
+        addressOwnershipIndex.invalidateLegacyAddresses();
     }
 
     public void setAddressBook(List<AddressBook> addressBook) {
@@ -504,14 +515,14 @@ public class Wallet {
     }
 
     public boolean containsLegacyAddress(String addr) {
+        return addressOwnershipIndex.isLegacyAddress(keys, addr);
+    }
 
-        for (LegacyAddress legacyAddress : keys) {
-            if (legacyAddress.getAddress().equals(addr)) {
-                return true;
-            }
-        }
-
-        return false;
+    /**
+     * @return True if the address is an imported address which has not been archived
+     */
+    public boolean containsActiveLegacyAddress(String addr) {
+        return addressOwnershipIndex.isActiveLegacyAddress(keys, addr);
     }
 
     /**
@@ -553,16 +564,12 @@ public class Wallet {
      */
     public String getLabelFromLegacyAddress(String address) {
 
-        List<LegacyAddress> addresses = getLegacyAddressList();
+        LegacyAddress legacyAddress = addressOwnershipIndex.getLegacyAddress(keys, address);
 
-        for(LegacyAddress legacyAddress : addresses) {
-            if(legacyAddress.getAddress().equals(address)) {
-                String label = legacyAddress.getLabel();
-                if(label == null || label.isEmpty()){
-                    return address;
-                } else {
-                    return label;
-                }
+        if (legacyAddress != null) {
+            String label = legacyAddress.getLabel();
+            if (label != null && !label.isEmpty()) {
+                return label;
             }
         }
 
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import info.blockchain.wallet.crypto.AESUtil;
+import info.blockchain.wallet.crypto.DerivedKeyCache;
 import info.blockchain.wallet.exceptions.DecryptionException;
 import info.blockchain.wallet.exceptions.EncryptionException;
 import info.blockchain.wallet.exceptions.HDWalletException;
@@ -113,6 +114,8 @@ public class WalletBase {
 
         String decrypted = null;
         int succeededIterations = -1000;
+        // Keys only depend on the iterations, so each is derived once rather than per mode and padding
+        DerivedKeyCache keyCache = DerivedKeyCache.getInstance();
 
         int iterations[] = {DEFAULT_PBKDF2_ITERATIONS_V1_A, DEFAULT_PBKDF2_ITERATIONS_V1_B};
         int modes[] = {AESUtil.MODE_CBC, AESUtil.MODE_OFB};
@@ -129,7 +132,7 @@ public class WalletBase {
                     try {
                         decrypted = AESUtil
                             .decryptWithSetMode(payload, password, iteration, mode,
-                                padding);
+                                padding, keyCache);
                         //Ensure it's parsable
                         new JSONObject(decrypted);
 
@@ -224,7 +227,9 @@ public class WalletBase {
         throws JsonProcessingException, UnsupportedEncodingException, EncryptionException, NoSuchAlgorithmException {
 
         int iterations = walletBody.getOptions().getPbkdf2Iterations();
-        String encryptedPayload = AESUtil.encrypt(walletBody.toJson(), password, iterations);
+        DerivedKeyCache keyCache = DerivedKeyCache.getInstance();
+        String encryptedPayload = AESUtil.encrypt(walletBody.toJson(), password, iterations, keyCache);
+        keyCache.prepareEncryptionKeyAsync(password, iterations);
         WalletWrapper wrapperBody = WalletWrapper.wrap(encryptedPayload, iterations);
 
         String checkSum = new String(Hex.encode(MessageDigest.getInstance("SHA-256").digest(wrapperBody.toJson().getBytes("UTF-8"))));
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import info.blockchain.wallet.crypto.AESUtil;
+import info.blockchain.wallet.crypto.DerivedKeyCache;
 import info.blockchain.wallet.exceptions.DecryptionException;
 import info.blockchain.wallet.exceptions.HDWalletException;
 import info.blockchain.wallet.exceptions.UnsupportedVersionException;
@@ -93,9 +94,10 @@ public class WalletWrapper {
         validateVersion();
         validatePbkdf2Iterations();
 
+        DerivedKeyCache keyCache = DerivedKeyCache.getInstance();
         String decryptedPayload;
         try {
-            decryptedPayload = AESUtil.decrypt(getPayload(), password, getPbkdf2Iterations());
+            decryptedPayload = AESUtil.decrypt(getPayload(), password, getPbkdf2Iterations(), keyCache);
         } catch (Exception e) {
             throw new DecryptionException(e);
         }
@@ -104,6 +106,9 @@ public class WalletWrapper {
             throw new DecryptionException("Decryption failed.");
         }
 
+        // Derive the key for the next save while the wallet is being used
+        keyCache.prepareEncryptionKeyAsync(password, getPbkdf2Iterations());
+
         return Wallet.fromJson(networkParameters, decryptedPayload);
     }
 
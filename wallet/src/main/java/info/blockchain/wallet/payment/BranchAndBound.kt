@@ -0,0 +1,81 @@
+package info.blockchain.wallet.payment
+
+const val DEFAULT_BRANCH_AND_BOUND_ITERATIONS = 100_000
+
+// Fee previews select again as each amount is entered, so they search less before falling back
+const val PREVIEW_BRANCH_AND_BOUND_ITERATIONS = 10_000
+
+/**
+ * Depth-first branch-and-bound search for a subset of values whose sum lies within
+ * [target, upperBound]. Values must be positive and sorted largest first. Each step either includes
+ * the next value or backtracks to the most recently included one and excludes it instead, pruning any
+ * branch which overshoots the upper bound or can no longer reach the target.
+ *
+ * The search stops on an exact match, when the tree is exhausted or after [maxIterations] steps,
+ * returning the subset closest to the target found so far.
+ */
+internal class BranchAndBound(private val maxIterations: Int) {
+
+    /**
+     * The number of steps taken by the last [search].
+     */
+    var iterations = 0
+        private set
+
+    fun search(values: LongArray, target: Long, upperBound: Long): BooleanArray? {
+        iterations = 0
+        var available = values.sum()
+        if (available < target) {
+            return null
+        }
+
+        val included = BooleanArray(values.size)
+        var best: BooleanArray? = null
+        var bestExcess = Long.MAX_VALUE
+        var depth = 0
+        var current = 0L
+
+        while (iterations < maxIterations) {
+            iterations++
+            var backtrack = false
+            if (current + available < target || current > upperBound) {
+                backtrack = true
+            } else if (current >= target) {
+                val excess = current - target
+                if (excess < bestExcess) {
+                    best = included.copyOf().also { it.fill(false, depth, it.size) }
+                    bestExcess = excess
+                    if (excess == 0L) {
+                        break
+                    }
+                }
+                backtrack = true
+            }
+
+            if (backtrack) {
+                // Walk back past excluded values, then exclude the last included one
+                while (depth > 0 && !included[depth - 1]) {
+                    depth--
+                    available += values[depth]
+                }
+                if (depth == 0) {
+                    break
+                }
+                included[depth - 1] = false
+                current -= values[depth - 1]
+            } else {
+                val value = values[depth]
+                available -= value
+                // Including a value equal to one just excluded would only repeat an explored branch
+                if (depth > 0 && value == values[depth - 1] && !included[depth - 1]) {
+                    included[depth] = false
+                } else {
+                    included[depth] = true
+                    current += value
+                }
+                depth++
+            }
+        }
+        return best
+    }
+}
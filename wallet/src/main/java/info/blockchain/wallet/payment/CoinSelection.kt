@@ -3,10 +3,19 @@ package info.blockchain.wallet.payment
 import info.blockchain.api.data.UnspentOutput
 import java.math.BigInteger
 
-private val COST_BASE: BigInteger = BigInteger.valueOf(10)
-private val COST_PER_INPUT: BigInteger = BigInteger.valueOf(149)
-private val COST_PER_OUTPUT: BigInteger = BigInteger.valueOf(34)
-
+internal const val COST_BASE_BYTES = 10L
+internal const val COST_PER_INPUT_BYTES = 149L
+internal const val COST_PER_OUTPUT_BYTES = 34L
+
+private val COST_BASE: BigInteger = BigInteger.valueOf(COST_BASE_BYTES)
+private val COST_PER_INPUT: BigInteger = BigInteger.valueOf(COST_PER_INPUT_BYTES)
+private val COST_PER_OUTPUT: BigInteger = BigInteger.valueOf(COST_PER_OUTPUT_BYTES)
+
+/**
+ * Reference implementation of coin selection, working in [BigInteger] throughout and re-summing the
+ * selection on every step. Production code paths use [IncrementalCoinSelection], which must produce
+ * identical results to this class.
+ */
 class CoinSelection(
     private val coins: List<UnspentOutput>,
     private val feePerByte: BigInteger
@@ -61,7 +61,7 @@ class Coins {
             }
 
             SpendableUnspentOutputs selection =
-                    new CoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
+                    new IncrementalCoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
                             .selectAll(coinSortingMethod);
 
             return Pair.of(selection.getSpendableBalance(), selection.getAbsoluteFee());
@@ -163,17 +163,34 @@ class Coins {
                                                                     BigInteger feePerKb,
                                                                     boolean addReplayProtection,
                                                                     boolean useNewCoinSelection) {
+        return getMinimumCoinsForPayment(coins,
+                paymentAmount,
+                feePerKb,
+                addReplayProtection,
+                useNewCoinSelection,
+                BranchAndBoundKt.DEFAULT_BRANCH_AND_BOUND_ITERATIONS);
+    }
+
+    /**
+     * As {@link #getMinimumCoinsForPayment(UnspentOutputs, BigInteger, BigInteger, boolean, boolean)},
+     * searching for a selection without change for at most {@code maxSearchIterations} steps.
+     */
+    public static SpendableUnspentOutputs getMinimumCoinsForPayment(UnspentOutputs coins,
+                                                                    BigInteger paymentAmount,
+                                                                    BigInteger feePerKb,
+                                                                    boolean addReplayProtection,
+                                                                    boolean useNewCoinSelection,
+                                                                    int maxSearchIterations) {
         if (useNewCoinSelection) {
-            CoinSortingMethod coinSortingMethod;
+            IncrementalCoinSelection coinSelection =
+                    new IncrementalCoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb));
 
             if (addReplayProtection) {
-                coinSortingMethod = new ReplayProtection(getPlaceholderDustInput());
+                return coinSelection.select(paymentAmount, new ReplayProtection(getPlaceholderDustInput()));
             } else {
-                coinSortingMethod = DescentDraw.INSTANCE;
+                // Prefer an exact match with no change output, otherwise fall back to descent draw
+                return coinSelection.selectWithoutChange(paymentAmount, DescentDraw.INSTANCE, maxSearchIterations);
             }
-
-            return new CoinSelection(coins.getUnspentOutputs(), feePerKbToFeePerByte(feePerKb))
-                    .select(paymentAmount, coinSortingMethod);
         }
 
         log.info("Select the minimum number of outputs necessary for payment");
@@ -0,0 +1,138 @@
+package info.blockchain.wallet.payment
+
+import info.blockchain.api.data.UnspentOutput
+import java.math.BigInteger
+
+/**
+ * Coin selection which keeps running totals in satoshis rather than re-summing the selected coins
+ * on each step. Coins are sorted once by the [CoinSortingMethod] and each is visited exactly once,
+ * so selection is linear in the number of unspent outputs.
+ *
+ * Produces the same [SpendableUnspentOutputs] as [CoinSelection].
+ */
+class IncrementalCoinSelection(
+    private val coins: List<UnspentOutput>,
+    feePerByte: BigInteger
+) {
+    private val feePerByte: Long = feePerByte.toLong()
+    private val inputCost: Long = COST_PER_INPUT_BYTES * this.feePerByte
+
+    fun select(
+        outputAmount: BigInteger,
+        coinSortingMethod: CoinSortingMethod
+    ): SpendableUnspentOutputs {
+        val target = outputAmount.toLong()
+        val sortedCoins = coinSortingMethod.sort(coins)
+
+        val selected = ArrayList<UnspentOutput>()
+        var accumulatedValue = 0L
+        var accumulatedFee = 0L
+
+        for (coin in sortedCoins) {
+            if (!coin.isForceInclude) {
+                val value = coin.value.toLong()
+                if (value <= inputCost || accumulatedValue >= target + accumulatedFee) {
+                    continue
+                }
+            }
+            selected += coin
+            accumulatedValue += coin.value.toLong()
+            accumulatedFee = fee(selected.size, outputs = 1)
+        }
+
+        val remainingValue = accumulatedValue - (target + accumulatedFee)
+        val isReplayProtected = selected.firstOrNull()?.isReplayable != true
+
+        return when {
+            // Either there were no effective coins or we were not able to meet the target value
+            selected.isEmpty() || remainingValue < 0 -> {
+                SpendableUnspentOutputs(isReplayProtected = isReplayProtected)
+            }
+            // Remaining value is worth keeping, add change output
+            remainingValue >= dustThreshold() -> {
+                SpendableUnspentOutputs(
+                    selected,
+                    BigInteger.valueOf(fee(selected.size, outputs = 2)),
+                    isReplayProtected = isReplayProtected
+                )
+            }
+            // Remaining value is not worth keeping, consume it as part of the fee
+            else -> {
+                SpendableUnspentOutputs(
+                    selected,
+                    BigInteger.valueOf(accumulatedFee + remainingValue),
+                    BigInteger.valueOf(remainingValue),
+                    isReplayProtected
+                )
+            }
+        }
+    }
+
+    /**
+     * Searches for a set of coins which covers [outputAmount] with an excess smaller than the dust
+     * threshold, so that the transaction needs no change output. The excess is consumed as part of the
+     * fee. If no such set is found within [maxIterations] search steps, or if any coin must be force
+     * included, falls back to [select] using [fallback].
+     */
+    @JvmOverloads
+    fun selectWithoutChange(
+        outputAmount: BigInteger,
+        fallback: CoinSortingMethod = DescentDraw,
+        maxIterations: Int = DEFAULT_BRANCH_AND_BOUND_ITERATIONS
+    ): SpendableUnspentOutputs {
+        if (coins.any { it.isForceInclude }) {
+            return select(outputAmount, fallback)
+        }
+
+        val candidates = DescentDraw.sort(coins).filter { it.value.toLong() > inputCost }
+        val effectiveValues = LongArray(candidates.size) { candidates[it].value.toLong() - inputCost }
+        // Effective values already pay for their own inputs, leaving the base and single output cost
+        val target = outputAmount.toLong() + (COST_BASE_BYTES + COST_PER_OUTPUT_BYTES) * feePerByte
+
+        val included = BranchAndBound(maxIterations)
+            .search(effectiveValues, target, target + dustThreshold() - 1)
+        val selected = candidates.filterIndexed { index, _ -> included?.get(index) == true }
+        if (selected.isEmpty()) {
+            return select(outputAmount, fallback)
+        }
+
+        val accumulatedFee = fee(selected.size, outputs = 1)
+        val selectedValue = selected.fold(0L) { sum, coin -> sum + coin.value.toLong() }
+        val remainingValue = selectedValue - (outputAmount.toLong() + accumulatedFee)
+
+        return SpendableUnspentOutputs(
+            selected,
+            BigInteger.valueOf(accumulatedFee + remainingValue),
+            BigInteger.valueOf(remainingValue),
+            !selected.first().isReplayable
+        )
+    }
+
+    fun selectAll(coinSortingMethod: CoinSortingMethod? = null): SpendableUnspentOutputs {
+        val sortedCoins = coinSortingMethod?.sort(coins) ?: coins
+
+        val effectiveCoins = ArrayList<UnspentOutput>(sortedCoins.size)
+        var effectiveValue = 0L
+
+        for (coin in sortedCoins) {
+            val value = coin.value.toLong()
+            if (coin.isForceInclude || value > inputCost) {
+                effectiveCoins += coin
+                effectiveValue += value
+            }
+        }
+
+        val effectiveBalance = Math.max(effectiveValue - fee(effectiveCoins.size, outputs = 1), 0L)
+
+        return SpendableUnspentOutputs(
+            spendableOutputs = effectiveCoins,
+            absoluteFee = BigInteger.valueOf(effectiveValue - effectiveBalance),
+            isReplayProtected = effectiveCoins.firstOrNull()?.isReplayable != true
+        )
+    }
+
+    private fun dustThreshold(): Long = (COST_PER_INPUT_BYTES + COST_PER_OUTPUT_BYTES) * feePerByte
+
+    private fun fee(inputs: Int, outputs: Int): Long =
+        (COST_BASE_BYTES + COST_PER_INPUT_BYTES * inputs + COST_PER_OUTPUT_BYTES * outputs) * feePerByte
+}
@@ -70,6 +70,16 @@ public class Payment {
         return Coins.getMinimumCoinsForPayment(unspentCoins, paymentAmount, feePerKb, addReplayProtection, useNewCoinSelection);
     }
 
+    public SpendableUnspentOutputs getSpendableCoins(@NonNull UnspentOutputs unspentCoins,
+                                                     @NonNull BigInteger paymentAmount,
+                                                     @NonNull BigInteger feePerKb,
+                                                     boolean addReplayProtection,
+                                                     boolean useNewCoinSelection,
+                                                     int maxSearchIterations) {
+        return Coins.getMinimumCoinsForPayment(
+                unspentCoins, paymentAmount, feePerKb, addReplayProtection, useNewCoinSelection, maxSearchIterations);
+    }
+
     ///////////////////////////////////////////////////////////////////////////
     // Simple Transaction
     ///////////////////////////////////////////////////////////////////////////
@@ -47,6 +47,31 @@ public class PriceApi implements CurrentPriceApi {
                 apiCode.getApiCode());
     }
 
+    /**
+     * Returns a {@link List} of {@link PriceDatum} objects between two times, containing a
+     * timestamp and a price for that given time.
+     *
+     * @param cryptoCurrency  The cryptoCurrency cryptocurrency for which to gather prices, eg "eth", "btc" or "bcc"
+     * @param fiat The fiat currency in which to return the prices, eg "usd"
+     * @param start The start time, in epoch seconds, from which to gather historic data
+     * @param end The end time, in epoch seconds, up to which to gather historic data
+     * @param scale The scale which you want to use between price data, eg {@link TimeInterval#ONE_DAY}
+     * @return An {@link Observable} wrapping a {@link List} of {@link PriceDatum} objects
+     * @see TimeInterval
+     */
+    public Single<List<PriceDatum>> getHistoricPriceSeries(String cryptoCurrency,
+                                                               String fiat,
+                                                               long start,
+                                                               long end,
+                                                               int scale) {
+        return endpoints.getHistoricPriceSeries(cryptoCurrency,
+                fiat,
+                start,
+                end,
+                scale,
+                apiCode.getApiCode());
+    }
+
     /**
      * Provides the exchange rate between a cryptocurrency and a fiat currency for this moment in
      * time. Returns a single {@link PriceDatum} object.
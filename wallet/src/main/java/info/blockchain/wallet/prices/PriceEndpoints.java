@@ -17,6 +17,14 @@ public interface PriceEndpoints {
                                                     @Query("scale") int scale,
                                                     @Query("api_key") String apiKey);
 
+    @GET(PriceUrls.PRICE_SERIES)
+    Single<List<PriceDatum>> getHistoricPriceSeries(@Query("base") String base,
+                                                    @Query("quote") String quote,
+                                                    @Query("start") long start,
+                                                    @Query("end") long end,
+                                                    @Query("scale") int scale,
+                                                    @Query("api_key") String apiKey);
+
     @GET(PriceUrls.SINGLE_PRICE)
     Single<PriceDatum> getCurrentPrice(@Query("base") String base,
                                            @Query("quote") String quote,
@@ -127,13 +127,7 @@ public class Tools {
         HDAccount hdAccount = new HDAccount(PersistentUrls.getInstance().getBitcoinParams(),
                 xpub);
 
-        List<String> list = new ArrayList<>();
-
-        for (int i = startIndex; i < endIndex; i++) {
-            list.add(hdAccount.getChain(chain).getAddressAt(i).getAddressString());
-        }
-
-        return list;
+        return hdAccount.getChain(chain).getAddressStringsAt(startIndex, endIndex);
     }
 
     /**
@@ -145,13 +139,7 @@ public class Tools {
      * @return A non-null List of addresses as Strings
      */
     public static List<String> getReceiveAddressList(HDAccount account, int startIndex, int endIndex) {
-        List<String> list = new ArrayList<>();
-
-        for (int i = startIndex; i < endIndex; i++) {
-            list.add(account.getReceive().getAddressAt(i).getAddressString());
-        }
-
-        return list;
+        return account.getReceive().getAddressStringsAt(startIndex, endIndex);
     }
 
 }
@@ -0,0 +1,68 @@
+package info.blockchain.wallet.bip44;
+
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+public class DerivedAddressCacheTest {
+
+    private String seed = "15e23aa73d25994f1921a1256f93f72c";
+    private DeterministicKey chainKey;
+
+    @Before
+    public void setup() {
+        DeterministicKey key = HDKeyDerivation.createMasterPrivateKey(seed.getBytes());
+        chainKey = HDKeyDerivation.deriveChildKey(key, 0);
+    }
+
+    @Test
+    public void parallelDerivationMatchesSequential() {
+        DerivedAddressCache cache = new DerivedAddressCache(4);
+        List<byte[]> hashes = cache.getPubKeyHashes(chainKey, 0, 50);
+
+        Assert.assertEquals(50, hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            Assert.assertArrayEquals(derive(i), hashes.get(i));
+        }
+    }
+
+    @Test
+    public void privateAndPublicChainKeysShareEntries() {
+        DerivedAddressCache cache = new DerivedAddressCache(1);
+        byte[] hash = cache.getPubKeyHash(chainKey, 5);
+
+        Assert.assertSame(hash, cache.getPubKeyHash(chainKey.dropPrivateBytes(), 5));
+    }
+
+    @Test
+    public void overlappingRangesReuseCachedEntries() {
+        DerivedAddressCache cache = new DerivedAddressCache(2);
+        List<byte[]> first = cache.getPubKeyHashes(chainKey, 0, 20);
+        List<byte[]> second = cache.getPubKeyHashes(chainKey, 10, 30);
+
+        for (int i = 10; i < 20; i++) {
+            Assert.assertSame(first.get(i), second.get(i - 10));
+        }
+        Assert.assertArrayEquals(derive(29), second.get(19));
+    }
+
+    @Test
+    public void clearDropsCachedEntries() {
+        DerivedAddressCache cache = new DerivedAddressCache(1);
+        byte[] hash = cache.getPubKeyHash(chainKey, 5);
+        cache.clear();
+
+        byte[] rederived = cache.getPubKeyHash(chainKey, 5);
+        Assert.assertNotSame(hash, rederived);
+        Assert.assertArrayEquals(hash, rederived);
+    }
+
+    private byte[] derive(int index) {
+        return HDKeyDerivation.deriveChildKey(chainKey, new ChildNumber(index, false)).getPubKeyHash();
+    }
+}
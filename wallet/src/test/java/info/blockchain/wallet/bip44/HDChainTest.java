@@ -7,6 +7,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
+
 /**
  * Created by riaanvos on 27/01/2017.
  */
@@ -36,6 +38,24 @@ public class HDChainTest {
         Assert.assertEquals("1HxBEXhu5LPibpTAQ1EoNTJavDSbwajJTg", chain.getAddressAt(0).getAddressString());
     }
 
+    @Test
+    public void getAddressStringAt() throws Exception {
+        HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, true);
+        Assert.assertEquals("1HxBEXhu5LPibpTAQ1EoNTJavDSbwajJTg", chain.getAddressStringAt(0));
+        Assert.assertEquals(chain.getAddressAt(7).getAddressBase58(), chain.getAddressStringAt(7));
+    }
+
+    @Test
+    public void getAddressStringsAt() throws Exception {
+        HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, false);
+        List<String> addresses = chain.getAddressStringsAt(3, 43);
+
+        Assert.assertEquals(40, addresses.size());
+        for (int i = 0; i < addresses.size(); i++) {
+            Assert.assertEquals(chain.getAddressAt(i + 3).getAddressBase58(), addresses.get(i));
+        }
+    }
+
     @Test
     public void getPath() throws Exception {
         HDChain chain = new HDChain(BitcoinMainNetParams.get(), key, true);
@@ -0,0 +1,112 @@
+package info.blockchain.wallet.crypto;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class DerivedKeyCacheTest {
+
+    private final String cleartext = "test data";
+    private final String pw = "password";
+    private final int iterations = AESUtil.QR_CODE_PBKDF_2ITERATIONS;
+
+    private final DerivedKeyCache keyCache = new DerivedKeyCache();
+
+    @Test
+    public void decryptingTwiceDerivesOnce() throws Exception {
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations);
+
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations, keyCache));
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations, keyCache));
+
+        Assert.assertEquals(1, keyCache.getDerivationCount());
+    }
+
+    @Test
+    public void keysAreNotSharedBetweenPasswords() throws Exception {
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations);
+        AESUtil.decrypt(encrypted, pw, iterations, keyCache);
+
+        try {
+            String decrypted = AESUtil.decrypt(encrypted, "bogus", iterations, keyCache);
+            Assert.assertNotEquals(cleartext, decrypted);
+        } catch (Exception e) {
+            // Expected
+        }
+
+        Assert.assertEquals(2, keyCache.getDerivationCount());
+    }
+
+    @Test
+    public void encryptingUsesThePreparedKeyOnce() throws Exception {
+        keyCache.prepareEncryptionKey(pw, iterations);
+
+        String first = AESUtil.encrypt(cleartext, pw, iterations, keyCache);
+        Assert.assertEquals(1, keyCache.getDerivationCount());
+
+        String second = AESUtil.encrypt(cleartext, pw, iterations, keyCache);
+        Assert.assertEquals(2, keyCache.getDerivationCount());
+
+        // Each encryption has its own IV
+        Assert.assertNotEquals(first.substring(0, 22), second.substring(0, 22));
+        Assert.assertEquals(cleartext, AESUtil.decrypt(first, pw, iterations));
+        Assert.assertEquals(cleartext, AESUtil.decrypt(second, pw, iterations));
+    }
+
+    @Test
+    public void preparedKeyIsNotUsedForOtherIterations() throws Exception {
+        keyCache.prepareEncryptionKey(pw, iterations);
+
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations + 1, keyCache);
+
+        Assert.assertEquals(2, keyCache.getDerivationCount());
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations + 1));
+    }
+
+    @Test
+    public void decryptingOwnEncryptionUsesCachedKey() throws Exception {
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations, keyCache);
+
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations, keyCache));
+        Assert.assertEquals(1, keyCache.getDerivationCount());
+    }
+
+    @Test
+    public void clearForgetsKeysAndThePreparedKey() throws Exception {
+        String encrypted = AESUtil.encrypt(cleartext, pw, iterations, keyCache);
+        keyCache.prepareEncryptionKey(pw, iterations);
+        Assert.assertEquals(2, keyCache.getDerivationCount());
+
+        keyCache.clear();
+
+        Assert.assertEquals(cleartext, AESUtil.decrypt(encrypted, pw, iterations, keyCache));
+        Assert.assertEquals(3, keyCache.getDerivationCount());
+
+        keyCache.getEncryptionKey(pw, iterations);
+        Assert.assertEquals(4, keyCache.getDerivationCount());
+    }
+
+    @Test
+    public void clearDropsAnAsyncDerivationStartedBeforeIt() throws Exception {
+        final List<Runnable> pending = new ArrayList<>();
+        DerivedKeyCache asyncKeyCache = new DerivedKeyCache(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                pending.add(runnable);
+            }
+        });
+
+        asyncKeyCache.prepareEncryptionKeyAsync(pw, iterations);
+        asyncKeyCache.clear();
+        for (Runnable runnable : pending) {
+            runnable.run();
+        }
+
+        Assert.assertEquals(0, asyncKeyCache.getDerivationCount());
+        asyncKeyCache.getEncryptionKey(pw, iterations);
+        Assert.assertEquals(1, asyncKeyCache.getDerivationCount());
+    }
+}
@@ -4,6 +4,7 @@ import info.blockchain.wallet.metadata.data.MetadataResponse
 import okhttp3.OkHttpClient
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import org.amshove.kluent.`should equal`
 import org.bitcoinj.params.BitcoinMainNetParams
 import org.junit.Before
 import org.junit.Test
@@ -146,4 +147,45 @@ class MetadataInteractorTest {
         }
         test.assertNotComplete()
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `put metadata after a load needs no fetch of the magic hash`() {
+        mockWebServer.enqueue(MockResponse().setResponseCode(200).setBody(fakeMetadataResponse.toJson()))
+        mockWebServer.enqueue(MockResponse().setResponseCode(200))
+
+        metadataInteractor.loadRemoteMetadata(fakeMetadata).test().assertComplete()
+        metadataInteractor.putMetadata("{\"trades\":[]}", fakeMetadata).test().assertComplete()
+
+        mockWebServer.requestCount `should equal` 2
+        mockWebServer.takeRequest().method `should equal` "GET"
+        mockWebServer.takeRequest().method `should equal` "PUT"
+    }
+
+    @Test
+    fun `consecutive puts fetch the magic hash once`() {
+        mockWebServer.enqueue(MockResponse().setResponseCode(404).setBody("{\"message\":\"not_found\"}"))
+        mockWebServer.enqueue(MockResponse().setResponseCode(200))
+        mockWebServer.enqueue(MockResponse().setResponseCode(200))
+
+        metadataInteractor.putMetadata("{\"trades\":[]}", fakeMetadata).test().assertComplete()
+        metadataInteractor.putMetadata("{\"trades\":[1]}", fakeMetadata).test().assertComplete()
+
+        mockWebServer.requestCount `should equal` 3
+        mockWebServer.takeRequest().method `should equal` "GET"
+        mockWebServer.takeRequest().method `should equal` "PUT"
+        mockWebServer.takeRequest().method `should equal` "PUT"
+    }
+
+    @Test
+    fun `put metadata fetches the magic hash again on conflict`() {
+        mockWebServer.enqueue(MockResponse().setResponseCode(200).setBody(fakeMetadataResponse.toJson()))
+        mockWebServer.enqueue(MockResponse().setResponseCode(409))
+        mockWebServer.enqueue(MockResponse().setResponseCode(200).setBody(fakeMetadataResponse.toJson()))
+        mockWebServer.enqueue(MockResponse().setResponseCode(200))
+
+        metadataInteractor.loadRemoteMetadata(fakeMetadata).test().assertComplete()
+        metadataInteractor.putMetadata("{\"trades\":[]}", fakeMetadata).test().assertComplete()
+
+        mockWebServer.requestCount `should equal` 4
+    }
+}
@@ -1,6 +1,7 @@
 package info.blockchain.wallet.multiaddress;
 
 import info.blockchain.api.blockexplorer.BlockExplorer;
+import info.blockchain.api.data.MultiAddress;
 import info.blockchain.wallet.BlockchainFramework;
 import info.blockchain.wallet.MockedResponseTest;
 import info.blockchain.wallet.multiaddress.TransactionSummary.Direction;
@@ -279,4 +280,74 @@ public class MultiAddressFactoryTest extends MockedResponseTest {
         Assert.assertEquals(1, summary.getOutputsMap().size());
         Assert.assertTrue(summary.getOutputsMap().keySet().contains("17ijgwpGsVQRzMjsdAfdmeP53kpw9yvXur"));//My Bitcoin Wallet
     }
-}
\ No newline at end of file
+
+    @Test
+    public void summarize_parallelMatchesSequential() throws Exception {
+        for (String resourceName : Arrays.asList(
+                "multiaddress/multi_address_all.txt",
+                "multiaddress/multi_address_1Dtk.txt",
+                "multiaddress/wallet_v3_6_m1.txt")) {
+
+            URI uri = getClass().getClassLoader().getResource(resourceName).toURI();
+            MultiAddress multiAddress = MultiAddress.fromJson(
+                    new String(Files.readAllBytes(Paths.get(uri)), Charset.forName("utf-8")));
+            List<String> own = Arrays.asList(dormantAddress, dormantXpub);
+            List<String> watchOnly = Collections.singletonList(dormantAddress);
+
+            assertSummariesEqual(
+                    multiAddressFactory.summarize(own, watchOnly, multiAddress, null, 0, Integer.MAX_VALUE),
+                    multiAddressFactory.summarize(own, watchOnly, multiAddress, null, 0, 1));
+            assertSummariesEqual(
+                    multiAddressFactory.summarize(own, watchOnly, multiAddress, own, 0, Integer.MAX_VALUE),
+                    multiAddressFactory.summarize(own, watchOnly, multiAddress, own, 0, 1));
+        }
+    }
+
+    @Test
+    public void summarize_hdAddressOwnedFromWhereItIsFirstSeen() throws Exception {
+        String sentToHdAddress = "{\"hash\":\"%s\",\"result\":-10000,\"fee\":1000,\"time\":%d,"
+                + "\"inputs\":[{\"prev_out\":{\"addr\":\"1Legacy\",\"value\":10000}}],"
+                + "\"out\":[{\"addr\":\"1HdAddress\",\"value\":9000}]}";
+        String receivedOnHdAddress = "{\"hash\":\"b\",\"result\":5000,\"fee\":0,\"time\":2,"
+                + "\"inputs\":[{\"prev_out\":{\"addr\":\"1Stranger\",\"value\":5000}}],"
+                + "\"out\":[{\"addr\":\"1HdAddress\",\"value\":5000,"
+                + "\"xpub\":{\"m\":\"xpub1\",\"path\":\"M/0/3\"}}]}";
+        MultiAddress multiAddress = MultiAddress.fromJson("{\"addresses\":[],"
+                + "\"info\":{\"latest_block\":{\"height\":100}},\"txs\":["
+                + String.format(sentToHdAddress, "a", 1) + ","
+                + receivedOnHdAddress + ","
+                + String.format(sentToHdAddress, "c", 3) + "]}");
+        List<String> own = Arrays.asList("1Legacy", "xpub1");
+
+        for (int parallelThreshold : new int[]{Integer.MAX_VALUE, 1}) {
+            List<TransactionSummary> summaries = multiAddressFactory.summarize(
+                    own, new ArrayList<String>(), multiAddress, null, 0, parallelThreshold);
+
+            Assert.assertEquals(Direction.SENT, summaries.get(0).getDirection());
+            Assert.assertEquals(Direction.RECEIVED, summaries.get(1).getDirection());
+            Assert.assertEquals(Direction.TRANSFERRED, summaries.get(2).getDirection());
+            Assert.assertEquals(9000, summaries.get(2).getTotal().longValue());
+        }
+        Assert.assertEquals("xpub1", multiAddressFactory.getXpubFromAddress("1HdAddress"));
+    }
+
+    private static void assertSummariesEqual(List<TransactionSummary> expected, List<TransactionSummary> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TransactionSummary e = expected.get(i);
+            TransactionSummary a = actual.get(i);
+            Assert.assertEquals(e.getHash(), a.getHash());
+            Assert.assertEquals(e.getDirection(), a.getDirection());
+            Assert.assertEquals(e.getTotal(), a.getTotal());
+            Assert.assertEquals(e.getFee(), a.getFee());
+            Assert.assertEquals(e.getTime(), a.getTime());
+            Assert.assertEquals(e.getConfirmations(), a.getConfirmations());
+            Assert.assertEquals(e.isWatchOnly(), a.isWatchOnly());
+            Assert.assertEquals(e.isDoubleSpend(), a.isDoubleSpend());
+            Assert.assertEquals(e.getInputsMap(), a.getInputsMap());
+            Assert.assertEquals(e.getOutputsMap(), a.getOutputsMap());
+            Assert.assertEquals(e.getInputsXpubMap(), a.getInputsXpubMap());
+            Assert.assertEquals(e.getOutputsXpubMap(), a.getOutputsXpubMap());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package info.blockchain.wallet.payload
+
+import com.blockchain.testutils.rxInit
+import com.nhaarman.mockito_kotlin.any
+import com.nhaarman.mockito_kotlin.eq
+import com.nhaarman.mockito_kotlin.mock
+import com.nhaarman.mockito_kotlin.times
+import com.nhaarman.mockito_kotlin.verify
+import com.nhaarman.mockito_kotlin.whenever
+import info.blockchain.api.blockexplorer.BlockExplorer
+import info.blockchain.api.data.Balance
+import info.blockchain.balance.CryptoCurrency
+import info.blockchain.wallet.exceptions.ServerConnectionException
+import okhttp3.ResponseBody
+import org.amshove.kluent.`should equal`
+import org.amshove.kluent.`should throw`
+import org.junit.Rule
+import org.junit.Test
+import retrofit2.Call
+import retrofit2.Response
+import java.io.IOException
+
+class BalanceCallTest {
+
+    @get:Rule
+    val initRx = rxInit {
+        ioTrampoline()
+    }
+
+    private val blockExplorer: BlockExplorer = mock()
+
+    private val subject = BalanceCall(blockExplorer, CryptoCurrency.BTC, chunkSize = 2, retryDelayMillis = 1)
+
+    @Test
+    fun `addresses are queried in chunks and merged`() {
+        givenBalances(listOf("A", "B"), Response.success(balances("A" to 1L, "B" to 2L)))
+        givenBalances(listOf("C"), Response.success(balances("C" to 3L)))
+
+        subject.getBalancesFor(setOf("A", "B", "C")) `should equal` mapOf(
+            "A" to 1.toBigInteger(),
+            "B" to 2.toBigInteger(),
+            "C" to 3.toBigInteger()
+        )
+        subject.lastQueryMetrics.map { it.addressCount } `should equal` listOf(2, 1)
+    }
+
+    @Test
+    fun `only the failed chunk is retried`() {
+        val retriedCall = givenBalances(listOf("A", "B"), null).apply {
+            whenever(execute())
+                .thenThrow(IOException())
+                .thenReturn(Response.success(balances("A" to 1L, "B" to 2L)))
+        }
+        val call = givenBalances(listOf("C"), Response.success(balances("C" to 3L)))
+
+        subject.getBalancesFor(setOf("A", "B", "C")).size `should equal` 3
+
+        verify(retriedCall, times(2)).execute()
+        verify(call).execute()
+        subject.lastQueryMetrics.map { it.addressCount to it.attempts }.toSet() `should equal` setOf(2 to 2, 1 to 1)
+    }
+
+    @Test
+    fun `the query fails once a chunk runs out of attempts`() {
+        givenBalances(listOf("A", "B"), Response.error(500, mock<ResponseBody>()))
+        givenBalances(listOf("C"), Response.success(balances("C" to 3L)))
+
+        val query = { subject.getBalancesFor(setOf("A", "B", "C")) }
+
+        query `should throw` ServerConnectionException::class
+        subject.lastQueryMetrics.first { it.addressCount == 2 }.apply {
+            attempts `should equal` BalanceCall.DEFAULT_MAX_ATTEMPTS
+            succeeded `should equal` false
+        }
+    }
+
+    @Test
+    fun `a client error is not retried`() {
+        val call = givenBalances(listOf("A", "B"), Response.error(400, mock<ResponseBody>()))
+        givenBalances(listOf("C"), Response.success(balances("C" to 3L)))
+
+        val query = { subject.getBalancesFor(setOf("A", "B", "C")) }
+
+        query `should throw` ServerConnectionException::class
+        verify(call).execute()
+        subject.lastQueryMetrics.first { it.addressCount == 2 }.attempts `should equal` 1
+    }
+
+    @Test
+    fun `too many requests is retried`() {
+        val call = givenBalances(listOf("A", "B"), null).apply {
+            whenever(execute())
+                .thenReturn(Response.error(429, mock<ResponseBody>()))
+                .thenReturn(Response.success(balances("A" to 1L, "B" to 2L)))
+        }
+        givenBalances(listOf("C"), Response.success(balances("C" to 3L)))
+
+        subject.getBalancesFor(setOf("A", "B", "C")).size `should equal` 3
+
+        verify(call, times(2)).execute()
+    }
+
+    @Test
+    fun `no addresses are not queried`() {
+        subject.getBalancesFor(emptySet()) `should equal` emptyMap()
+    }
+
+    private fun givenBalances(
+        addresses: List<String>,
+        response: Response<HashMap<String, Balance>>?
+    ): Call<HashMap<String, Balance>> {
+        val call: Call<HashMap<String, Balance>> = mock()
+        if (response != null) {
+            whenever(call.execute()).thenReturn(response)
+        }
+        whenever(blockExplorer.getBalance(eq("btc"), eq(addresses), any())).thenReturn(call)
+        return call
+    }
+
+    private fun balances(vararg balances: Pair<String, Long>) =
+        HashMap(balances.map { (address, balance) ->
+            address to Balance().apply { finalBalance = balance.toBigInteger() }
+        }.toMap())
+}
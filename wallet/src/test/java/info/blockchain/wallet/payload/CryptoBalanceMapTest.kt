@@ -242,6 +242,88 @@ class CryptoBalanceMapTest {
                 "No info for this address. updateAllBalances should be called first."
         }
     }
+
+    @Test
+    fun `can apply transaction changes`() {
+        calculateCryptoBalanceMap(
+            CryptoCurrency.BTC,
+            { mapOf("A" to 100L, "B" to 200L, "C" to 400L) }.toBalanceQuery(),
+            xpubs = setOf("A"),
+            legacy = setOf("B"),
+            watchOnlyLegacy = setOf("C")
+        ).run {
+            applyChanges(
+                mapOf(
+                    "A" to 50L.toBigInteger(),
+                    "B" to (-20L).toBigInteger(),
+                    "Unknown" to 1000L.toBigInteger()
+                )
+            )
+        }.apply {
+            totalSpendable `should equal` CryptoValue.bitcoinFromSatoshis(330L)
+            totalSpendableLegacy `should equal` CryptoValue.bitcoinFromSatoshis(180L)
+            totalWatchOnly `should equal` CryptoValue.bitcoinFromSatoshis(400L)
+            get("A") `should equal` CryptoValue.bitcoinFromSatoshis(150L)
+            get("Unknown") `should equal` CryptoValue.ZeroBtc
+        }
+    }
+
+    @Test
+    fun `applying changes to an xpub without a balance starts from zero`() {
+        calculateCryptoBalanceMap(
+            CryptoCurrency.BTC,
+            { emptyMap<String, Long>() }.toBalanceQuery(),
+            xpubs = setOf("A"),
+            legacy = emptySet(),
+            watchOnlyLegacy = emptySet()
+        ).applyChanges(mapOf("A" to 75L.toBigInteger()))
+            .totalSpendable `should equal` CryptoValue.bitcoinFromSatoshis(75L)
+    }
+
+    @Test
+    fun `adjusting a balance leaves the original unchanged`() {
+        val original = calculateCryptoBalanceMap(
+            CryptoCurrency.BTC,
+            { mapOf("A" to 100L, "B" to 200L) }.toBalanceQuery(),
+            xpubs = setOf("A"),
+            legacy = setOf("B"),
+            watchOnlyLegacy = emptySet()
+        )
+
+        original.subtractAmountFromAddress("B", CryptoValue.bitcoinFromSatoshis(50L))
+            .applyChanges(mapOf("A" to 10L.toBigInteger()))
+            .apply {
+                totalSpendable `should equal` CryptoValue.bitcoinFromSatoshis(260L)
+                totalSpendableLegacy `should equal` CryptoValue.bitcoinFromSatoshis(150L)
+            }
+
+        original.apply {
+            totalSpendable `should equal` CryptoValue.bitcoinFromSatoshis(300L)
+            totalSpendableLegacy `should equal` CryptoValue.bitcoinFromSatoshis(200L)
+            get("A") `should equal` CryptoValue.bitcoinFromSatoshis(100L)
+            get("B") `should equal` CryptoValue.bitcoinFromSatoshis(200L)
+        }
+    }
+
+    @Test
+    fun `can adjust balances of a wallet with many addresses`() {
+        val addresses = (0 until 2000).map { "address $it" }
+        calculateCryptoBalanceMap(
+            CryptoCurrency.BTC,
+            { addresses.associate { it to 1L } }.toBalanceQuery(),
+            xpubs = emptySet(),
+            legacy = addresses.toSet(),
+            watchOnlyLegacy = emptySet()
+        ).run {
+            totalSpendableLegacy `should equal` CryptoValue.bitcoinFromSatoshis(2000L)
+            applyChanges(mapOf("address 1999" to 9L.toBigInteger(), "address 0" to 4L.toBigInteger()))
+        }.apply {
+            totalSpendableLegacy `should equal` CryptoValue.bitcoinFromSatoshis(2013L)
+            get("address 1999") `should equal` CryptoValue.bitcoinFromSatoshis(10L)
+            get("address 0") `should equal` CryptoValue.bitcoinFromSatoshis(5L)
+            get("address 1000") `should equal` CryptoValue.bitcoinFromSatoshis(1L)
+        }
+    }
 }
 
 private fun (() -> Map<String, Long>).toBalanceQuery() =
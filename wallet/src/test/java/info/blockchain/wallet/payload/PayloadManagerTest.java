@@ -314,6 +314,46 @@ public final class PayloadManagerTest extends WalletApiMockedResponseTest {
 
     }
 
+    @Test
+    public void updateLegacyAddress() throws Exception {
+
+        LinkedList<String> responseList = new LinkedList<>();
+        responseList.add("MyWallet save successful.");
+        responseList.add("{}");//multiaddress responses - not testing this so can be empty.
+        responseList.add("{}");
+        responseList.add("{}");
+        responseList.add("{}");
+        mockInterceptor.setResponseStringList(responseList);
+        payloadManager.create("My HDWallet", "name@email.com", "MyTestWallet");
+
+        responseList = new LinkedList<>();
+        responseList.add("MyWallet save successful");
+        responseList.add("{}");
+        responseList.add("{}");
+        responseList.add("{}");
+        responseList.add("{}");
+        mockInterceptor.setResponseStringList(responseList);
+        LegacyAddress legacyAddress = LegacyAddressHelper.getLegacyAddress();
+        payloadManager.addLegacyAddress(legacyAddress);
+        Assert.assertEquals("Some Label",
+                payloadManager.getPayload().getLabelFromLegacyAddress(legacyAddress.getAddress()));
+
+        LegacyAddress updated = LegacyAddressHelper.getLegacyAddress();
+        updated.setLabel("Updated label");
+
+        responseList = new LinkedList<>();
+        responseList.add("MyWallet save successful");
+        responseList.add("{}");
+        responseList.add("{}");
+        responseList.add("{}");
+        responseList.add("{}");
+        mockInterceptor.setResponseStringList(responseList);
+        payloadManager.updateLegacyAddress(updated);
+
+        Assert.assertEquals("Updated label",
+                payloadManager.getPayload().getLabelFromLegacyAddress(legacyAddress.getAddress()));
+    }
+
     @Test
     public void setKeyForLegacyAddress() throws Exception {
 
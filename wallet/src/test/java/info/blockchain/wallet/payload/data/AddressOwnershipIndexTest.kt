@@ -0,0 +1,129 @@
+package info.blockchain.wallet.payload.data
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class AddressOwnershipIndexTest {
+
+    private fun legacyAddress(address: String, label: String? = null) =
+        LegacyAddress().also {
+            it.address = address
+            it.label = label
+        }
+
+    @Test
+    fun `contains legacy addresses`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1"))
+            legacyAddressList.add(legacyAddress("Address2"))
+        }.apply {
+            containsLegacyAddress("Address1") `should be` true
+            containsLegacyAddress("Address2") `should be` true
+            containsLegacyAddress("Address3") `should be` false
+        }
+    }
+
+    @Test
+    fun `addresses added after a lookup are found`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1"))
+            containsLegacyAddress("Address2") `should be` false
+
+            legacyAddressList.add(legacyAddress("Address2"))
+            containsLegacyAddress("Address2") `should be` true
+        }
+    }
+
+    @Test
+    fun `addresses removed after a lookup are not found`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1"))
+            legacyAddressList.add(legacyAddress("Address2"))
+            containsLegacyAddress("Address1") `should be` true
+
+            legacyAddressList.removeAt(0)
+            containsLegacyAddress("Address1") `should be` false
+            containsLegacyAddress("Address2") `should be` true
+        }
+    }
+
+    @Test
+    fun `replaced address list is re-indexed`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1"))
+            containsLegacyAddress("Address1") `should be` true
+
+            legacyAddressList = mutableListOf(legacyAddress("Address2"))
+            containsLegacyAddress("Address1") `should be` false
+            containsLegacyAddress("Address2") `should be` true
+        }
+    }
+
+    @Test
+    fun `replaced entry is re-indexed once invalidated`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1", "Label1"))
+            getLabelFromLegacyAddress("Address1") `should equal` "Label1"
+
+            legacyAddressList[0] = legacyAddress("Address1", "Label2")
+            invalidateLegacyAddressIndex()
+            getLabelFromLegacyAddress("Address1") `should equal` "Label2"
+        }
+    }
+
+    @Test
+    fun `removing and adding an entry is re-indexed once invalidated`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1"))
+            containsLegacyAddress("Address1") `should be` true
+
+            legacyAddressList.removeAt(0)
+            legacyAddressList.add(legacyAddress("Address2"))
+            invalidateLegacyAddressIndex()
+            containsLegacyAddress("Address1") `should be` false
+            containsLegacyAddress("Address2") `should be` true
+        }
+    }
+
+    @Test
+    fun `archiving is reflected without re-indexing`() {
+        val address = legacyAddress("Address1")
+        Wallet().apply {
+            legacyAddressList.add(address)
+            containsActiveLegacyAddress("Address1") `should be` true
+
+            address.archive()
+            containsActiveLegacyAddress("Address1") `should be` false
+            containsLegacyAddress("Address1") `should be` true
+
+            address.unarchive()
+            containsActiveLegacyAddress("Address1") `should be` true
+        }
+    }
+
+    @Test
+    fun `label of first matching address`() {
+        Wallet().apply {
+            legacyAddressList.add(legacyAddress("Address1", "Label1"))
+            legacyAddressList.add(legacyAddress("Address1", "Label2"))
+            legacyAddressList.add(legacyAddress("Address2"))
+        }.apply {
+            getLabelFromLegacyAddress("Address1") `should equal` "Label1"
+            getLabelFromLegacyAddress("Address2") `should equal` "Address2"
+            getLabelFromLegacyAddress("Address3") `should equal` "Address3"
+        }
+    }
+
+    @Test
+    fun `hd addresses map to their xpub`() {
+        AddressOwnershipIndex().apply {
+            putHDAddresses(mapOf("Address1" to "xpub1", "Address2" to "xpub2"))
+
+            isOwnHDAddress("Address1") `should be` true
+            isOwnHDAddress("Address3") `should be` false
+            getXpubFromAddress("Address2") `should equal` "xpub2"
+            getXpubFromAddress("Address3") `should equal` null
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package info.blockchain.wallet.payment
+
+import org.amshove.kluent.`should be`
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+
+class BranchAndBoundTest {
+
+    private fun BooleanArray.pick(values: LongArray) = values.filterIndexed { index, _ -> this[index] }
+
+    @Test
+    fun `finds exact match`() {
+        val values = longArrayOf(80, 70, 60, 50, 40, 30, 20, 10)
+
+        BranchAndBound(1000).search(values, 100, 100)!!
+            .pick(values) `should equal` listOf(80L, 20L)
+    }
+
+    @Test
+    fun `finds closest match within window`() {
+        val values = longArrayOf(90, 70, 45)
+
+        BranchAndBound(1000).search(values, 110, 120)!!
+            .pick(values) `should equal` listOf(70L, 45L)
+    }
+
+    @Test
+    fun `returns null when target exceeds total`() {
+        BranchAndBound(1000).search(longArrayOf(10, 5), 20, 25) `should be` null
+    }
+
+    @Test
+    fun `returns null when no subset lands in window`() {
+        BranchAndBound(1000).search(longArrayOf(100, 100, 100), 150, 160) `should be` null
+    }
+
+    @Test
+    fun `gives up after iteration budget`() {
+        val values = LongArray(5000) { 1_000_099L - it / 50 }
+        val branchAndBound = BranchAndBound(10)
+
+        branchAndBound.search(values, 2_500_000, 2_500_010) `should be` null
+        branchAndBound.iterations `should equal` 10
+    }
+
+    @Test
+    fun `stays within the default budget when no subset can match`() {
+        // Any two values fall short of the window and any three overshoot it, so the search never ends early
+        val values = LongArray(5000) { 1_000_099L - it / 50 }
+        val branchAndBound = BranchAndBound(DEFAULT_BRANCH_AND_BOUND_ITERATIONS)
+
+        branchAndBound.search(values, 2_500_000, 2_505_000) `should be` null
+        branchAndBound.iterations `should equal` DEFAULT_BRANCH_AND_BOUND_ITERATIONS
+    }
+}
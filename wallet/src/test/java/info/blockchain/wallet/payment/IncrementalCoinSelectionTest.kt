@@ -0,0 +1,108 @@
+package info.blockchain.wallet.payment
+
+import info.blockchain.api.data.UnspentOutput
+import org.amshove.kluent.`should equal`
+import org.junit.Test
+import java.math.BigInteger
+import java.util.Random
+
+class IncrementalCoinSelectionTest {
+    private fun unspent(value: Long, replayable: Boolean = false) =
+        UnspentOutput().apply {
+            this.value = value.toBigInteger()
+            this.isReplayable = replayable
+        }
+
+    private fun unspents(vararg unspents: Long) = unspents.map { unspent(it) }
+
+    private fun List<UnspentOutput>.values() = map { it.value }
+
+    private val feePerByte = 55.toBigInteger()
+
+    private fun SpendableUnspentOutputs.shouldMatch(expected: SpendableUnspentOutputs) {
+        spendableOutputs.values() `should equal` expected.spendableOutputs.values()
+        absoluteFee `should equal` expected.absoluteFee
+        consumedAmount `should equal` expected.consumedAmount
+        isReplayProtected `should equal` expected.isReplayProtected
+    }
+
+    @Test
+    fun `ascent draw selection with change output`() {
+        val coins = unspents(1, 20000, 0, 0, 300000, 50000, 30000)
+        val outputAmount = 100000.toBigInteger()
+
+        IncrementalCoinSelection(coins, feePerByte).select(outputAmount, AscentDraw).also {
+            it.spendableOutputs.values() `should equal` unspents(20000, 30000, 50000, 300000).values()
+            it.absoluteFee `should equal` 37070.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `descent draw selection with no change output`() {
+        val coins = unspents(200000, 300000, 500000)
+        val selected = unspents(500000)
+        val outputAmount = 485000.toBigInteger()
+
+        IncrementalCoinSelection(coins, feePerByte).select(outputAmount, DescentDraw).also {
+            it.spendableOutputs.values() `should equal` selected.values()
+            it.absoluteFee `should equal` (selected.sum() - outputAmount)
+            it.consumedAmount `should equal` 4385.toBigInteger()
+        }
+    }
+
+    @Test
+    fun `select all selection with no effective inputs`() {
+        val coins = unspents(1, 10, 100)
+
+        IncrementalCoinSelection(coins, feePerByte).selectAll().also {
+            it.spendableOutputs.values() `should equal` unspents().values()
+            it.absoluteFee `should equal` 0.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `select without change finds changeless inputs`() {
+        val coins = unspents(200000, 300000, 500000)
+        val outputAmount = 472000.toBigInteger()
+
+        IncrementalCoinSelection(coins, feePerByte).selectWithoutChange(outputAmount).also {
+            it.spendableOutputs.values() `should equal` unspents(300000, 200000).values()
+            it.absoluteFee `should equal` 28000.toBigInteger()
+            it.consumedAmount `should equal` 9190.toBigInteger()
+        }
+    }
+
+    @Test
+    fun `select without change falls back to descent draw`() {
+        val coins = unspents(1, 20000, 0, 0, 300000, 50000, 30000)
+        val outputAmount = 100000.toBigInteger()
+
+        IncrementalCoinSelection(coins, feePerByte).selectWithoutChange(outputAmount).also {
+            it.spendableOutputs.values() `should equal` unspents(300000).values()
+            it.absoluteFee `should equal` 12485.toBigInteger()
+            it.consumedAmount `should equal` BigInteger.ZERO
+        }
+    }
+
+    @Test
+    fun `selection matches reference implementation on random coins`() {
+        val random = Random(42)
+        repeat(200) {
+            val coins = (0 until random.nextInt(50)).map {
+                unspent(random.nextInt(1_000_000).toLong(), replayable = random.nextBoolean())
+            }
+            val outputAmount = random.nextInt(5_000_000).toBigInteger()
+            val fee = (1 + random.nextInt(200)).toBigInteger()
+            val dust = unspent(546).apply { isForceInclude = true }
+
+            listOf(AscentDraw, DescentDraw, ReplayProtection(dust)).forEach { method ->
+                IncrementalCoinSelection(coins, fee).select(outputAmount, method)
+                    .shouldMatch(CoinSelection(coins, fee).select(outputAmount, method))
+                IncrementalCoinSelection(coins, fee).selectAll(method)
+                    .shouldMatch(CoinSelection(coins, fee).selectAll(method))
+            }
+        }
+    }
+}
@@ -81,6 +81,10 @@ public class PaymentTest extends MockedResponseTest {
         assertFalse(subject.isAdequateFee(1, 1, BigInteger.valueOf(192)));
     }
 
+    private long sum(SpendableUnspentOutputs paymentBundle) {
+        return CoinSelectionKt.sum(paymentBundle.getSpendableOutputs()).longValue();
+    }
+
     private long calculateFee(int outputs, int inputs, BigInteger feePerKb) {
         // Manually calculated fee
         long size = (outputs * 34) + (inputs * 149) + 10;//36840L
@@ -237,41 +241,48 @@ public class PaymentTest extends MockedResponseTest {
     }
 
     @Test
-    public void spendFirstThreeCoins_plusSome_minusFee_shouldExpectChange() throws IOException {
+    public void spendFirstThreeCoins_plusSome_minusFee_shouldNotExpectChange() throws IOException {
         // 8 available Payment. [80200,70000,60000,50000,40000,30000,20000,10000]
         UnspentOutputs unspentOutputs = UnspentOutputs.fromJson(UnspentTestData.apiResponseString);
 
         long spendAmount = 80200L + 70000L + 60000L + 30000L;
         int inputs = 4; // Coins
-        int outputs = 2; // Change
-        long feeManual = calculateFee(outputs, inputs, BigInteger.valueOf(30000L));
-        BigInteger spendAmountMinusFee = BigInteger.valueOf(spendAmount - feeManual);
+        long feeWithChange = calculateFee(2, inputs, BigInteger.valueOf(30000L));
+        BigInteger spendAmountMinusFee = BigInteger.valueOf(spendAmount - feeWithChange);
         SpendableUnspentOutputs paymentBundle = subject
                 .getSpendableCoins(unspentOutputs, spendAmountMinusFee, BigInteger.valueOf(30000L), false, useNewCoinSelection);
 
+        // These exact coins leave less than dust over the no change fee, which is consumed
+        int outputs = 1; // No change
+        long feeManual = calculateFee(outputs, inputs, BigInteger.valueOf(30000L));
+        long consumedAmount = feeWithChange - feeManual;
         assertEquals(inputs, paymentBundle.getSpendableOutputs().size());
-        assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue());
-        assertEquals(0L, Math.abs(paymentBundle.getConsumedAmount().longValue()));
+        assertEquals(spendAmount, sum(paymentBundle));
+        assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue() - consumedAmount);
+        assertEquals(consumedAmount, Math.abs(paymentBundle.getConsumedAmount().longValue()));
     }
 
     @Test
-    public void spendFirstThreeCoins_plusFee_shouldUse4Inputs_AndExpectChange() throws IOException {
+    public void spendFirstThreeCoins_plusFee_shouldUse4Inputs_AndNotExpectChange() throws IOException {
         // 8 available Payment. [80200,70000,60000,50000,40000,30000,20000,10000]
         UnspentOutputs unspentOutputs = UnspentOutputs.fromJson(UnspentTestData.apiResponseString);
 
         long spendAmount = 80200L + 70000L + 60000L;
         int inputs = 4; // Coins
-        int outputs = 2; // Change
+        int outputs = 1; // No change
         SpendableUnspentOutputs paymentBundle = subject
                 .getSpendableCoins(unspentOutputs,
                         BigInteger.valueOf(spendAmount),
                         BigInteger.valueOf(30000L),
                         false,
                         useNewCoinSelection);
+        // 80200 + 70000 + 60000 + 20000 covers the fee with less than dust to spare
         long feeManual = calculateFee(outputs, inputs, BigInteger.valueOf(30000L));
+        long consumedAmount = 20000L - feeManual;
         assertEquals(inputs, paymentBundle.getSpendableOutputs().size());
-        assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue());
-        assertEquals(0L, Math.abs(paymentBundle.getConsumedAmount().longValue()));
+        assertEquals(spendAmount + 20000L, sum(paymentBundle));
+        assertEquals(feeManual, paymentBundle.getAbsoluteFee().longValue() - consumedAmount);
+        assertEquals(consumedAmount, Math.abs(paymentBundle.getConsumedAmount().longValue()));
     }
 
     @Test